@@ -0,0 +1,60 @@
+package in.guardianservices.document_utility_core.benchmark;
+
+import in.guardianservices.document_utility_core.testsupport.SyntheticPdfGenerator;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+
+/**
+ * Input documents of the benchmarks, generated by {@link SyntheticPdfGenerator}.
+ * Content is derived from the size only, so every run measures the same bytes.
+ */
+public final class BenchmarkDocuments {
+
+    public static final String PASSWORD = "benchmark";
+
+    /**
+     * Input sizes shared by all benchmarks
+     */
+    public enum Size {
+        SMALL(SyntheticPdfGenerator.spec()),
+        MEDIUM(SyntheticPdfGenerator.spec().pages(20).sharedImages(1).images(1, 800, 600)),
+        LARGE(SyntheticPdfGenerator.spec().pages(100).sharedImages(1).images(2, 800, 600)
+                .scannedPages(10, 150).embedFonts(true));
+
+        final int pages;
+        private final SyntheticPdfGenerator.Spec spec;
+
+        Size(SyntheticPdfGenerator.Spec spec) {
+            this.spec = spec;
+            this.pages = spec.getPages();
+        }
+    }
+
+    private BenchmarkDocuments() {
+    }
+
+    /**
+     * @param size input size
+     * @return unencrypted PDF as an upload
+     */
+    public static MockMultipartFile upload(Size size) throws IOException {
+        return asUpload(SyntheticPdfGenerator.generate(size.spec));
+    }
+
+    /**
+     * @param size input size
+     * @return PDF encrypted with {@link #PASSWORD} as an upload
+     */
+    public static MockMultipartFile encryptedUpload(Size size) throws IOException {
+        return asUpload(SyntheticPdfGenerator.generate(size.spec.copy().encrypt(PASSWORD)));
+    }
+
+    /**
+     * @param bytes PDF content
+     * @return upload as the controllers receive it
+     */
+    public static MockMultipartFile asUpload(byte[] bytes) {
+        return new MockMultipartFile("file", "benchmark.pdf", "application/pdf", bytes);
+    }
+}
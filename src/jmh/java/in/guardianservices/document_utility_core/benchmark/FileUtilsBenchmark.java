@@ -0,0 +1,71 @@
+package in.guardianservices.document_utility_core.benchmark;
+
+import in.guardianservices.document_utility_core.utils.FileUtils;
+import in.guardianservices.document_utility_core.utils.PdfPasswordVerifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The validators every endpoint runs before the actual operation
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class FileUtilsBenchmark {
+
+    @Param({"SMALL", "MEDIUM", "LARGE"})
+    public BenchmarkDocuments.Size size;
+
+    private MockMultipartFile document;
+    private MockMultipartFile encryptedDocument;
+    private byte[] documentBytes;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        document = BenchmarkDocuments.upload(size);
+        encryptedDocument = BenchmarkDocuments.encryptedUpload(size);
+        documentBytes = document.getBytes();
+    }
+
+    @Benchmark
+    public boolean isValidPdf() {
+        return FileUtils.isValidPdf(document);
+    }
+
+    @Benchmark
+    public boolean isPasswordProtected() {
+        return FileUtils.isPasswordProtected(encryptedDocument);
+    }
+
+    @Benchmark
+    public boolean isValidPdfBytes() {
+        return FileUtils.isValidPdfBytes(documentBytes);
+    }
+
+    @Benchmark
+    public String sha256Hex() throws IOException {
+        return FileUtils.sha256Hex(document);
+    }
+
+    @Benchmark
+    public PdfPasswordVerifier.Result verifyWrongPassword() {
+        return PdfPasswordVerifier.verify(encryptedDocument, "wrong-password");
+    }
+}
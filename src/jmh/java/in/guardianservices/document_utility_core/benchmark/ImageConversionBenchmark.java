@@ -0,0 +1,86 @@
+package in.guardianservices.document_utility_core.benchmark;
+
+import in.guardianservices.document_utility_core.service.impl.PdfServiceImpl;
+import in.guardianservices.document_utility_core.testsupport.PdfServiceFixture;
+import in.guardianservices.document_utility_core.utils.ChunkedOutputBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PdfServiceImpl#convertPdfToImages} by resolution and output format, including
+ * the ZIP step of the to-images endpoint.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class ImageConversionBenchmark {
+
+    @Param({"SMALL", "MEDIUM", "LARGE"})
+    public BenchmarkDocuments.Size size;
+
+    @Param({"72", "150", "300"})
+    public int dpi;
+
+    @Param({"PNG", "JPEG"})
+    public String format;
+
+    private PdfServiceFixture fixture;
+    private PdfServiceImpl pdfService;
+    private MockMultipartFile document;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        fixture = new PdfServiceFixture();
+        pdfService = fixture.pdfService();
+        document = BenchmarkDocuments.upload(size);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public long convert() throws IOException {
+        List<ChunkedOutputBuffer> images = pdfService.convertPdfToImages(document, format, dpi);
+        try {
+            return images.stream().mapToLong(ChunkedOutputBuffer::size).sum();
+        } finally {
+            ChunkedOutputBuffer.releaseAll(images);
+        }
+    }
+
+    @Benchmark
+    public long convertAndZip() throws IOException {
+        List<ChunkedOutputBuffer> images = pdfService.convertPdfToImages(document, format, dpi);
+        try {
+            ChunkedOutputBuffer zip = pdfService.createZipFromImages(images, format);
+            try {
+                return zip.size();
+            } finally {
+                zip.release();
+            }
+        } finally {
+            ChunkedOutputBuffer.releaseAll(images);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package in.guardianservices.document_utility_core.benchmark;
+
+import in.guardianservices.document_utility_core.service.impl.PdfServiceImpl;
+import in.guardianservices.document_utility_core.testsupport.PdfServiceFixture;
+import in.guardianservices.document_utility_core.utils.ChunkedOutputBuffer;
+import in.guardianservices.document_utility_core.utils.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole-document operations of {@link PdfServiceImpl}: compress, split, merge,
+ * lock/unlock and the Base64 conversions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class PdfServiceBenchmark {
+
+    @Param({"SMALL", "MEDIUM", "LARGE"})
+    public BenchmarkDocuments.Size size;
+
+    private PdfServiceFixture fixture;
+    private PdfServiceImpl pdfService;
+    private MockMultipartFile document;
+    private MockMultipartFile encryptedDocument;
+    private byte[] base64Document;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        fixture = new PdfServiceFixture();
+        pdfService = fixture.pdfService();
+        document = BenchmarkDocuments.upload(size);
+        encryptedDocument = BenchmarkDocuments.encryptedUpload(size);
+        base64Document = Base64.getEncoder().encode(document.getBytes());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public long compress() throws IOException {
+        return sizeAndRelease(pdfService.compressPdf(document, 0.5f));
+    }
+
+    @Benchmark
+    public long split() throws IOException {
+        List<ChunkedOutputBuffer> parts = pdfService.splitPdf(document, "1-" + size.pages);
+        try {
+            return parts.stream().mapToLong(ChunkedOutputBuffer::size).sum();
+        } finally {
+            ChunkedOutputBuffer.releaseAll(parts);
+        }
+    }
+
+    @Benchmark
+    public long merge() throws IOException {
+        return sizeAndRelease(pdfService.mergePdfs(List.of(document, document)));
+    }
+
+    @Benchmark
+    public long lock() throws IOException {
+        return sizeAndRelease(pdfService.lockUnlockedPdfStandard(document, BenchmarkDocuments.PASSWORD));
+    }
+
+    @Benchmark
+    public long unlock() throws IOException {
+        return sizeAndRelease(pdfService.unlockPdf(encryptedDocument, BenchmarkDocuments.PASSWORD));
+    }
+
+    @Benchmark
+    public int toBase64String() throws IOException {
+        return pdfService.convertPdfToBase64(document).length();
+    }
+
+    @Benchmark
+    public long toBase64Stream(Blackhole blackhole) throws IOException {
+        return pdfService.writePdfAsBase64Json(document, new BlackholeOutputStream(blackhole));
+    }
+
+    @Benchmark
+    public int fromBase64String() {
+        return pdfService.convertBase64ToPdf(new String(base64Document, StandardCharsets.US_ASCII)).length;
+    }
+
+    @Benchmark
+    public long fromBase64Stream() throws IOException {
+        Path decoded = pdfService.convertBase64StreamToPdf(new ByteArrayInputStream(base64Document));
+        try {
+            return decoded.toFile().length();
+        } finally {
+            FileUtils.deleteQuietly(decoded);
+        }
+    }
+
+    private static long sizeAndRelease(ChunkedOutputBuffer buffer) {
+        try {
+            return buffer.size();
+        } finally {
+            buffer.release();
+        }
+    }
+
+    /**
+     * Sink for streamed results, keeps the written bytes observable to the JIT
+     */
+    static final class BlackholeOutputStream extends OutputStream {
+
+        private final Blackhole blackhole;
+
+        BlackholeOutputStream(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void write(int b) {
+            blackhole.consume(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            blackhole.consume(b);
+            blackhole.consume(len);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package in.guardianservices.document_utility_core.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Latency percentiles of a set of requests, in milliseconds
+ * @param p50 median
+ * @param p95 95th percentile
+ * @param p99 99th percentile
+ * @param max slowest request
+ */
+record LatencyStats(double p50, double p95, double p99, double max) {
+
+    private static final double NANOS_PER_MILLI = 1_000_000d;
+
+    /**
+     * @param latenciesNanos request latencies, sorted in place
+     * @return nearest-rank percentiles, all zero when there are no requests
+     */
+    static LatencyStats of(long[] latenciesNanos) {
+        if (latenciesNanos.length == 0) {
+            return new LatencyStats(0, 0, 0, 0);
+        }
+        Arrays.sort(latenciesNanos);
+        return new LatencyStats(
+                percentile(latenciesNanos, 50),
+                percentile(latenciesNanos, 95),
+                percentile(latenciesNanos, 99),
+                latenciesNanos[latenciesNanos.length - 1] / NANOS_PER_MILLI);
+    }
+
+    private static double percentile(long[] sorted, int percentile) {
+        int rank = (int) Math.ceil(percentile / 100d * sorted.length);
+        return sorted[Math.max(rank - 1, 0)] / NANOS_PER_MILLI;
+    }
+}
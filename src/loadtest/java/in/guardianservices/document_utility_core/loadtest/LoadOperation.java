@@ -0,0 +1,104 @@
+package in.guardianservices.document_utility_core.loadtest;
+
+import in.guardianservices.document_utility_core.testsupport.SyntheticPdfGenerator;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Endpoints of HomeController replayed by the load test, each with the requests it sends
+ */
+enum LoadOperation {
+
+    UNLOCK("unlock", "/doc-service/pdf/unlock"),
+    COMPRESS("compress", "/doc-service/pdf/compress"),
+    SPLIT("split", "/doc-service/pdf/split"),
+    TO_IMAGES("to-images", "/doc-service/pdf/to-images"),
+    MERGE("merge", "/doc-service/pdf/merge");
+
+    static final String PASSWORD = "load-test";
+
+    // Several documents per operation, so request coalescing cannot serve every request from one computation
+    private static final int DOCUMENTS_PER_OPERATION = 4;
+
+    final String key;
+    final String path;
+
+    LoadOperation(String key, String path) {
+        this.key = key;
+        this.path = path;
+    }
+
+    static LoadOperation fromKey(String key) {
+        return Arrays.stream(values())
+                .filter(operation -> operation.key.equalsIgnoreCase(key))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown load test operation: " + key));
+    }
+
+    /**
+     * Builds the request bodies of this operation once, they are reused for every call
+     * @param seed base seed of the synthetic documents
+     * @return multipart requests
+     */
+    List<HttpEntity<MultiValueMap<String, Object>>> requests(long seed) throws IOException {
+        List<HttpEntity<MultiValueMap<String, Object>>> requests = new ArrayList<>();
+
+        for (int i = 0; i < DOCUMENTS_PER_OPERATION; i++) {
+            SyntheticPdfGenerator.Spec spec = SyntheticPdfGenerator.spec()
+                    .pages(6)
+                    .sharedImages(1)
+                    .images(1, 800, 600)
+                    .seed(seed + ordinal() * 100L + i);
+
+            MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+            switch (this) {
+                case UNLOCK -> {
+                    body.add("file", part(spec.copy().encrypt(PASSWORD), i));
+                    body.add("password", PASSWORD);
+                }
+                case COMPRESS -> {
+                    body.add("file", part(spec, i));
+                    body.add("quality", "0.5");
+                }
+                case SPLIT -> {
+                    body.add("file", part(spec, i));
+                    body.add("pages", "1-2,3-4,5-6");
+                }
+                case TO_IMAGES -> {
+                    body.add("file", part(spec.copy().pages(2), i));
+                    body.add("format", "JPEG");
+                    body.add("dpi", "150");
+                }
+                case MERGE -> {
+                    body.add("files", part(spec, i));
+                    body.add("files", part(spec.copy().seed(seed + ordinal() * 100L + i + 50), i));
+                }
+            }
+
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+            requests.add(new HttpEntity<>(body, headers));
+        }
+
+        return requests;
+    }
+
+    private ByteArrayResource part(SyntheticPdfGenerator.Spec spec, int index) throws IOException {
+        String fileName = key + "-" + index + ".pdf";
+        return new ByteArrayResource(SyntheticPdfGenerator.generate(spec)) {
+            @Override
+            public String getFilename() {
+                return fileName;
+            }
+        };
+    }
+}
@@ -0,0 +1,48 @@
+package in.guardianservices.document_utility_core.loadtest;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Machine-readable result of a load test run, written as JSON
+ * @param generatedAt end of the run
+ * @param mix operation weights
+ * @param durationSeconds measured duration per concurrency level
+ * @param budget latency and error budget the run was checked against
+ * @param levels results per concurrency level
+ * @param violations budget violations, empty when the run passed
+ */
+record LoadReport(Instant generatedAt, Map<String, Integer> mix, int durationSeconds, Budget budget,
+                  List<Level> levels, List<String> violations) {
+
+    /**
+     * @param p95Ms p95 latency limit, 0 when unchecked
+     * @param p99Ms p99 latency limit, 0 when unchecked
+     * @param maxErrorRate highest accepted share of failed requests
+     */
+    record Budget(long p95Ms, long p99Ms, double maxErrorRate) {
+    }
+
+    /**
+     * @param concurrency closed-loop clients, each sending its next request when the previous completes
+     * @param requests completed requests
+     * @param errors requests that failed or got a non-2xx status
+     * @param throughputPerSecond requests per second
+     * @param errorRate errors / requests
+     * @param latencyMs latency over all operations
+     * @param heapHighWaterBytes sum of the peak usage of the heap memory pools during the level
+     * @param operations results per operation
+     */
+    record Level(int concurrency, long requests, long errors, double throughputPerSecond, double errorRate,
+                 LatencyStats latencyMs, long heapHighWaterBytes, Map<String, Operation> operations) {
+    }
+
+    /**
+     * @param requests completed requests
+     * @param errors failed requests
+     * @param latencyMs latency of this operation
+     */
+    record Operation(long requests, long errors, LatencyStats latencyMs) {
+    }
+}
@@ -0,0 +1,80 @@
+package in.guardianservices.document_utility_core.loadtest;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Load test parameters, read from system properties so they can be set from the
+ * load-test Maven profile or the command line, e.g. -Dloadtest.concurrency=1,8,32
+ */
+final class LoadTestSettings {
+
+    final List<Integer> concurrencyLevels;
+    final int warmupSeconds;
+    final int durationSeconds;
+    final Map<LoadOperation, Integer> mix;
+    final long p95BudgetMs;
+    final long p99BudgetMs;
+    final double maxErrorRate;
+    final Path reportFile;
+    final long seed;
+
+    private LoadTestSettings() {
+        concurrencyLevels = Arrays.stream(property("loadtest.concurrency", "1,4,8").split(","))
+                .map(String::trim)
+                .map(Integer::parseInt)
+                .toList();
+        warmupSeconds = Integer.parseInt(property("loadtest.warmup-seconds", "10"));
+        durationSeconds = Integer.parseInt(property("loadtest.duration-seconds", "30"));
+        mix = parseMix(property("loadtest.mix", "unlock:3,compress:2,split:2,to-images:1,merge:1"));
+        p95BudgetMs = Long.parseLong(property("loadtest.budget.p95-ms", "0"));
+        p99BudgetMs = Long.parseLong(property("loadtest.budget.p99-ms", "0"));
+        maxErrorRate = Double.parseDouble(property("loadtest.budget.max-error-rate", "0.01"));
+        reportFile = Path.of(property("loadtest.report", "target/load-test/report.json"));
+        seed = Long.parseLong(property("loadtest.seed", "42"));
+    }
+
+    static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings();
+    }
+
+    /**
+     * @return operations repeated by weight, so a uniform pick follows the mix
+     */
+    List<LoadOperation> weightedOperations() {
+        List<LoadOperation> operations = new ArrayList<>();
+        mix.forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                operations.add(operation);
+            }
+        });
+        return operations;
+    }
+
+    private static Map<LoadOperation, Integer> parseMix(String value) {
+        Map<LoadOperation, Integer> mix = new LinkedHashMap<>();
+        for (String entry : value.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid loadtest.mix entry, expected operation:weight: " + entry);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight > 0) {
+                mix.put(LoadOperation.fromKey(parts[0].trim()), weight);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("loadtest.mix selects no operation");
+        }
+        return mix;
+    }
+
+    private static String property(String name, String defaultValue) {
+        String value = System.getProperty(name);
+        return value == null || value.isBlank() ? defaultValue : value;
+    }
+}
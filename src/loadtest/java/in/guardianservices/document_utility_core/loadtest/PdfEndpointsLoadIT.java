@@ -0,0 +1,235 @@
+package in.guardianservices.document_utility_core.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.DefaultResponseErrorHandler;
+import org.springframework.web.client.RestTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Closed-loop load test of the PDF endpoints: the app runs in-process on a random port and
+ * each client sends its next request as soon as the previous one completes. Runs with
+ * mvn -Pdev,load-test verify, see the load-test profile for the parameters.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.cloud.consul.enabled=false",
+        "spring.cloud.service-registry.auto-registration.enabled=false",
+        "logging.level.in.guardianservices=warn"
+})
+class PdfEndpointsLoadIT {
+
+    private static final Logger logger = LoggerFactory.getLogger(PdfEndpointsLoadIT.class);
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void pdfEndpointsMeetLatencyBudget() throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        RestTemplate client = createClient();
+
+        Map<LoadOperation, List<HttpEntity<MultiValueMap<String, Object>>>> requests = new EnumMap<>(LoadOperation.class);
+        for (LoadOperation operation : settings.mix.keySet()) {
+            requests.put(operation, operation.requests(settings.seed));
+        }
+
+        int maxConcurrency = settings.concurrencyLevels.stream().mapToInt(Integer::intValue).max().orElse(1);
+        logger.warn("Warming up for {}s with {} clients", settings.warmupSeconds, maxConcurrency);
+        runLevel(client, settings, requests, maxConcurrency, settings.warmupSeconds);
+
+        List<LoadReport.Level> levels = new ArrayList<>();
+        for (int concurrency : settings.concurrencyLevels) {
+            LoadReport.Level level = runLevel(client, settings, requests, concurrency, settings.durationSeconds);
+            logger.warn("concurrency={} requests={} throughput={}/s errorRate={} latencyMs={} heapHighWater={}MB",
+                    concurrency, level.requests(), String.format("%.1f", level.throughputPerSecond()),
+                    String.format("%.4f", level.errorRate()), level.latencyMs(),
+                    level.heapHighWaterBytes() / (1024 * 1024));
+            levels.add(level);
+        }
+
+        List<String> violations = checkBudget(settings, levels);
+
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        settings.mix.forEach((operation, weight) -> mix.put(operation.key, weight));
+        LoadReport report = new LoadReport(Instant.now(), mix, settings.durationSeconds,
+                new LoadReport.Budget(settings.p95BudgetMs, settings.p99BudgetMs, settings.maxErrorRate),
+                levels, violations);
+
+        Files.createDirectories(settings.reportFile.toAbsolutePath().getParent());
+        new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(settings.reportFile.toFile(), report);
+        logger.warn("Load test report written to {}", settings.reportFile.toAbsolutePath());
+
+        assertTrue(violations.isEmpty(), "Load test budget exceeded: " + violations);
+    }
+
+    private LoadReport.Level runLevel(RestTemplate client, LoadTestSettings settings,
+                                      Map<LoadOperation, List<HttpEntity<MultiValueMap<String, Object>>>> requests,
+                                      int concurrency, int durationSeconds) throws Exception {
+        List<LoadOperation> operations = settings.weightedOperations();
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .toList();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+
+        long start = System.nanoTime();
+        long deadline = start + durationSeconds * 1_000_000_000L;
+
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        List<Future<Map<LoadOperation, Samples>>> results = new ArrayList<>();
+        try {
+            for (int clientIndex = 0; clientIndex < concurrency; clientIndex++) {
+                Random random = new Random(settings.seed + clientIndex);
+                results.add(clients.submit(() -> runClient(client, operations, requests, random, deadline)));
+            }
+
+            Map<LoadOperation, Samples> merged = new EnumMap<>(LoadOperation.class);
+            for (Future<Map<LoadOperation, Samples>> result : results) {
+                result.get().forEach((operation, samples) ->
+                        merged.computeIfAbsent(operation, key -> new Samples()).addAll(samples));
+            }
+            double elapsedSeconds = (System.nanoTime() - start) / 1_000_000_000d;
+            long heapHighWater = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+
+            return toLevel(concurrency, merged, elapsedSeconds, heapHighWater);
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    private Map<LoadOperation, Samples> runClient(RestTemplate client, List<LoadOperation> operations,
+                                                  Map<LoadOperation, List<HttpEntity<MultiValueMap<String, Object>>>> requests,
+                                                  Random random, long deadline) {
+        Map<LoadOperation, Samples> samples = new EnumMap<>(LoadOperation.class);
+
+        while (System.nanoTime() < deadline) {
+            LoadOperation operation = operations.get(random.nextInt(operations.size()));
+            List<HttpEntity<MultiValueMap<String, Object>>> candidates = requests.get(operation);
+            HttpEntity<MultiValueMap<String, Object>> request = candidates.get(random.nextInt(candidates.size()));
+
+            boolean success;
+            long begin = System.nanoTime();
+            try {
+                ResponseEntity<byte[]> response = client.postForEntity(
+                        "http://localhost:" + port + operation.path, request, byte[].class);
+                success = response.getStatusCode().is2xxSuccessful();
+            } catch (Exception e) {
+                success = false;
+            }
+            samples.computeIfAbsent(operation, key -> new Samples()).add(System.nanoTime() - begin, success);
+        }
+
+        return samples;
+    }
+
+    private static LoadReport.Level toLevel(int concurrency, Map<LoadOperation, Samples> samples,
+                                            double elapsedSeconds, long heapHighWater) {
+        Samples all = new Samples();
+        Map<String, LoadReport.Operation> operations = new LinkedHashMap<>();
+
+        samples.forEach((operation, operationSamples) -> {
+            all.addAll(operationSamples);
+            operations.put(operation.key, new LoadReport.Operation(operationSamples.count,
+                    operationSamples.errors, LatencyStats.of(operationSamples.latencies())));
+        });
+
+        double errorRate = all.count == 0 ? 0 : (double) all.errors / all.count;
+        return new LoadReport.Level(concurrency, all.count, all.errors, all.count / elapsedSeconds, errorRate,
+                LatencyStats.of(all.latencies()), heapHighWater, operations);
+    }
+
+    private static List<String> checkBudget(LoadTestSettings settings, List<LoadReport.Level> levels) {
+        List<String> violations = new ArrayList<>();
+
+        for (LoadReport.Level level : levels) {
+            if (settings.p95BudgetMs > 0 && level.latencyMs().p95() > settings.p95BudgetMs) {
+                violations.add(String.format("concurrency %d: p95 %.1fms > %dms",
+                        level.concurrency(), level.latencyMs().p95(), settings.p95BudgetMs));
+            }
+            if (settings.p99BudgetMs > 0 && level.latencyMs().p99() > settings.p99BudgetMs) {
+                violations.add(String.format("concurrency %d: p99 %.1fms > %dms",
+                        level.concurrency(), level.latencyMs().p99(), settings.p99BudgetMs));
+            }
+            if (level.errorRate() > settings.maxErrorRate) {
+                violations.add(String.format("concurrency %d: error rate %.4f > %.4f",
+                        level.concurrency(), level.errorRate(), settings.maxErrorRate));
+            }
+        }
+
+        return violations;
+    }
+
+    private static RestTemplate createClient() {
+        RestTemplate client = new RestTemplate(new JdkClientHttpRequestFactory());
+        // Statuses are counted as errors by the test, not thrown
+        client.setErrorHandler(new DefaultResponseErrorHandler() {
+            @Override
+            public boolean hasError(ClientHttpResponse response) {
+                return false;
+            }
+        });
+        return client;
+    }
+
+    /**
+     * Latencies of one client, or of all clients once merged
+     */
+    private static final class Samples {
+
+        private long[] latencies = new long[1024];
+        private long count;
+        private long errors;
+
+        void add(long latencyNanos, boolean success) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, latencies.length * 2);
+            }
+            latencies[(int) count++] = latencyNanos;
+            if (!success) {
+                errors++;
+            }
+        }
+
+        void addAll(Samples other) {
+            for (int i = 0; i < other.count; i++) {
+                add(other.latencies[i], true);
+            }
+            errors += other.errors;
+        }
+
+        long[] latencies() {
+            return Arrays.copyOf(latencies, (int) count);
+        }
+    }
+}
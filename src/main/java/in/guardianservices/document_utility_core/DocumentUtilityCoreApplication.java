@@ -1,12 +1,29 @@
 package in.guardianservices.document_utility_core;
 
+import in.guardianservices.document_utility_core.batch.BatchJob;
 import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.event.ApplicationEnvironmentPreparedEvent;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class DocumentUtilityCoreApplication {
 
 	public static void main(String[] args) {
+		if (BatchJob.isRequested(args)) {
+			// Headless batch run: same services, no web server or discovery registration, exits when done
+			SpringApplication application = new SpringApplication(DocumentUtilityCoreApplication.class);
+			application.setWebApplicationType(WebApplicationType.NONE);
+			application.addListeners(event -> {
+				if (event instanceof ApplicationEnvironmentPreparedEvent prepared) {
+					BatchJob.applyHeadlessProperties(prepared.getEnvironment());
+				}
+			});
+			System.exit(SpringApplication.exit(application.run(args)));
+		}
+
 		SpringApplication.run(DocumentUtilityCoreApplication.class, args);
 	}
 
@@ -0,0 +1,129 @@
+package in.guardianservices.document_utility_core.batch;
+
+import in.guardianservices.document_utility_core.cancellation.CancellationToken;
+import in.guardianservices.document_utility_core.exception.InvalidPasswordException;
+import in.guardianservices.document_utility_core.model.BatchItemResult;
+import in.guardianservices.document_utility_core.service.PdfService;
+import in.guardianservices.document_utility_core.utils.ChunkedOutputBuffer;
+import in.guardianservices.document_utility_core.utils.FileUtils;
+import in.guardianservices.document_utility_core.utils.PdfPasswordVerifier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.function.ToLongFunction;
+
+/**
+ * Runs one file of a batch, for both the batch endpoints and the headless batch mode: a
+ * failing file becomes a FAILED {@link BatchItemResult} instead of ending the batch.
+ * Each file runs against a deadline of its own, so one slow file cannot use up the time of
+ * the files after it.
+ */
+@Component
+public class BatchItemRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchItemRunner.class);
+
+    public static final String STATUS_SUCCESS = "SUCCESS";
+    public static final String STATUS_FAILED = "FAILED";
+
+    @Autowired
+    private PdfService pdfService;
+
+    @Value("${doc-service.cancellation.batch-item-timeout:PT5M}")
+    private Duration itemTimeout;
+
+    /**
+     * Runs the work of one file and describes its outcome
+     * @param index position of the file in the batch
+     * @param filename name reported for the file
+     * @param outputName name of the result reported on success
+     * @param work produces the result of the file
+     * @param size size of a result in bytes
+     * @return the result and its description, or a FAILED description without result
+     */
+    public <T> Outcome<T> run(int index, String filename, String outputName, Callable<T> work, ToLongFunction<T> size) {
+        // Still cancelled with the request, e.g. when the client of a batch endpoint goes away
+        CancellationToken itemToken = new CancellationToken(CancellationToken.current(), itemTimeout.toMillis(),
+                "Batch item deadline exceeded");
+        CancellationToken previous = CancellationToken.bind(itemToken);
+        try {
+            T output = work.call();
+            return new Outcome<>(new BatchItemResult(index, filename, outputName, STATUS_SUCCESS, null,
+                    size.applyAsLong(output)), output);
+        } catch (InvalidPasswordException e) {
+            logger.warn("Invalid password for batch file {}: {}", filename, e.getMessage());
+            return failed(index, filename, "Invalid PDF password");
+        } catch (Exception e) {
+            logger.warn("Batch file {} failed: {}", filename, e.getMessage());
+            return failed(index, filename, e.getMessage() != null ? e.getMessage() : "Failed to process PDF");
+        } finally {
+            CancellationToken.bind(previous);
+        }
+    }
+
+    /**
+     * Unlocks a file, refusing files that are not encrypted. Whether the password is right is
+     * decided by {@link PdfService#unlockPdf}, from the encryption dictionary or by PDFBox.
+     * @param file password-protected PDF
+     * @param password password of the file
+     * @return buffer holding the unlocked PDF, to be released by the caller
+     * @throws InvalidPasswordException if the password is incorrect
+     * @throws IllegalStateException if the PDF is not password protected
+     * @throws IllegalArgumentException if the file is not a PDF
+     */
+    public ChunkedOutputBuffer unlock(MultipartFile file, String password) throws IOException {
+        if (!FileUtils.hasPdfStructure(file)) {
+            throw new IllegalArgumentException("Invalid PDF file");
+        }
+
+        PdfPasswordVerifier.Result encryption = PdfPasswordVerifier.verify(file, password);
+        if (encryption == PdfPasswordVerifier.Result.NOT_ENCRYPTED
+                || (encryption == PdfPasswordVerifier.Result.UNKNOWN && !FileUtils.isPasswordProtected(file))) {
+            throw new IllegalStateException("PDF is not password protected");
+        }
+
+        return pdfService.unlockPdf(file, password);
+    }
+
+    /**
+     * Locks a file with standard permissions, refusing files that are already encrypted.
+     * The encryption is read from the trailer, the document is only loaded once, to lock it.
+     * @param file unlocked PDF
+     * @param password password applied to the file
+     * @return buffer holding the locked PDF, to be released by the caller
+     * @throws IllegalStateException if the PDF is already password protected
+     * @throws IllegalArgumentException if the file is not a PDF
+     */
+    public ChunkedOutputBuffer lock(MultipartFile file, String password) throws IOException {
+        if (!FileUtils.hasPdfStructure(file)) {
+            throw new IllegalArgumentException("Invalid PDF file");
+        }
+
+        PdfPasswordVerifier.Result encryption = PdfPasswordVerifier.verify(file, "");
+        if (encryption == PdfPasswordVerifier.Result.VALID
+                || encryption == PdfPasswordVerifier.Result.INVALID
+                || (encryption == PdfPasswordVerifier.Result.UNKNOWN && FileUtils.isPasswordProtected(file))) {
+            throw new IllegalStateException("PDF is already password protected");
+        }
+
+        return pdfService.lockUnlockedPdfStandard(file, password);
+    }
+
+    private static <T> Outcome<T> failed(int index, String filename, String error) {
+        return new Outcome<>(new BatchItemResult(index, filename, null, STATUS_FAILED, error, 0), null);
+    }
+
+    /**
+     * @param result description of the file's outcome
+     * @param output result of the file, null if it failed
+     */
+    public record Outcome<T>(BatchItemResult result, T output) {
+    }
+}
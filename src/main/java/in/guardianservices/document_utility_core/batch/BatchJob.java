@@ -0,0 +1,365 @@
+package in.guardianservices.document_utility_core.batch;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import in.guardianservices.document_utility_core.model.BatchItemResult;
+import in.guardianservices.document_utility_core.service.PdfService;
+import in.guardianservices.document_utility_core.utils.ChunkedOutputBuffer;
+import in.guardianservices.document_utility_core.utils.LocalPdfFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.ExitCodeGenerator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Headless bulk mode: runs one operation over every PDF below an input directory and
+ * writes the results and a summary report to an output directory. Files are read from
+ * and written to disk directly and spread over a fork-join pool, so throughput is bound
+ * by the cores instead of multipart parsing and HTTP.
+ * <p>
+ * Started by passing {@code --doc-service.batch.operation=...}, see
+ * {@link in.guardianservices.document_utility_core.DocumentUtilityCoreApplication#main}.
+ */
+@Component
+@ConditionalOnProperty(name = "doc-service.batch.operation")
+public class BatchJob implements ApplicationRunner, ExitCodeGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchJob.class);
+
+    public static final String OPERATION_ARGUMENT = "--doc-service.batch.operation=";
+
+    /**
+     * Settings of a batch run, taking precedence over the configuration files: no web server
+     * is started, so nothing registers with Consul, and there is no readiness to hold back
+     * with the startup warm-up, the batch itself warms the JIT up
+     */
+    public static final Map<String, Object> HEADLESS_PROPERTIES = Map.of(
+            "spring.cloud.consul.enabled", "false",
+            "spring.cloud.consul.discovery.enabled", "false",
+            "spring.main.lazy-initialization", "false",
+            "doc-service.warmup.enabled", "false");
+
+    private static final String HEADLESS_PROPERTY_SOURCE = "batchHeadless";
+    private static final String REPORT_NAME = "batch-report.json";
+    private static final int PROGRESS_INTERVAL = 1000;
+
+    @Autowired
+    private PdfService pdfService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private BatchItemRunner batchItemRunner;
+
+    @Value("${doc-service.batch.operation}")
+    private String operationName;
+
+    @Value("${doc-service.batch.input-dir:}")
+    private String inputDir;
+
+    @Value("${doc-service.batch.output-dir:}")
+    private String outputDir;
+
+    @Value("${doc-service.batch.report:}")
+    private String reportFile;
+
+    @Value("${doc-service.batch.parallelism:0}")
+    private int parallelism;
+
+    @Value("${doc-service.batch.password:}")
+    private String password;
+
+    @Value("${doc-service.batch.format:png}")
+    private String format;
+
+    @Value("${doc-service.batch.dpi:200}")
+    private int dpi;
+
+    @Value("${doc-service.batch.quality:0.8}")
+    private float quality;
+
+    private volatile int exitCode;
+
+    /**
+     * @param args command line arguments of the JVM
+     * @return true if the arguments ask for a batch run instead of the web service
+     */
+    public static boolean isRequested(String[] args) {
+        return Arrays.stream(args).anyMatch(argument -> argument.startsWith(OPERATION_ARGUMENT));
+    }
+
+    /**
+     * Puts {@link #HEADLESS_PROPERTIES} in front of every other property source
+     * @param environment environment of the batch application, before it is bound
+     */
+    public static void applyHeadlessProperties(ConfigurableEnvironment environment) {
+        environment.getPropertySources().addFirst(new MapPropertySource(HEADLESS_PROPERTY_SOURCE, HEADLESS_PROPERTIES));
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        BatchOperation operation = BatchOperation.fromArgument(operationName);
+        Path input = requireDirectory(inputDir, "doc-service.batch.input-dir");
+        if (outputDir == null || outputDir.isBlank()) {
+            throw new IllegalArgumentException("doc-service.batch.output-dir is required");
+        }
+        Path output = Path.of(outputDir).toAbsolutePath().normalize();
+        if (output.startsWith(input)) {
+            // A rerun would pick up the results of the previous run as input
+            throw new IllegalArgumentException("doc-service.batch.output-dir must not be inside the input directory");
+        }
+        if (operation.requiresPassword() && password.isEmpty()) {
+            throw new IllegalArgumentException("doc-service.batch.password is required for " + operation.getArgument());
+        }
+        if (operation == BatchOperation.COMPRESS && (quality < 0.1f || quality > 1.0f)) {
+            throw new IllegalArgumentException("doc-service.batch.quality must be between 0.1 and 1.0");
+        }
+        Files.createDirectories(output);
+
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(input)) {
+            files = paths.filter(Files::isRegularFile)
+                    .filter(path -> path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".pdf"))
+                    .sorted()
+                    .toList();
+        }
+
+        int workers = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        logger.info("Starting batch {} of {} files from {} to {} on {} workers",
+                operation.getArgument(), files.size(), input, output, workers);
+
+        BatchRun batchRun = new BatchRun(operation, input, output, files);
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(workers);
+        try {
+            pool.invoke(new FileRangeTask(batchRun, 0, files.size()));
+        } finally {
+            pool.shutdown();
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        List<BatchItemResult> items = Arrays.asList(batchRun.results);
+        long failed = items.stream().filter(item -> BatchItemRunner.STATUS_FAILED.equals(item.getStatus())).count();
+        long outputBytes = items.stream().mapToLong(BatchItemResult::getSize).sum();
+        double filesPerSecond = elapsedMs > 0 ? files.size() * 1000.0 / elapsedMs : files.size();
+
+        BatchReport report = new BatchReport(operation.getArgument(), input.toString(), output.toString(), workers,
+                files.size(), files.size() - failed, failed, elapsedMs, filesPerSecond,
+                batchRun.inputBytes.sum(), outputBytes, items);
+        Path reportPath = reportFile.isBlank() ? output.resolve(REPORT_NAME) : Path.of(reportFile);
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(reportPath.toFile(), report);
+
+        logger.info("Batch {} completed in {} ms ({} files/s). Succeeded: {}, failed: {}, report: {}",
+                operation.getArgument(), elapsedMs, String.format(Locale.ROOT, "%.1f", filesPerSecond),
+                files.size() - failed, failed, reportPath);
+        exitCode = failed > 0 ? 1 : 0;
+    }
+
+    @Override
+    public int getExitCode() {
+        return exitCode;
+    }
+
+    private static Path requireDirectory(String directory, String property) {
+        if (directory == null || directory.isBlank()) {
+            throw new IllegalArgumentException(property + " is required");
+        }
+        Path path = Path.of(directory).toAbsolutePath().normalize();
+        if (!Files.isDirectory(path)) {
+            throw new IllegalArgumentException(property + " is not a directory: " + path);
+        }
+        return path;
+    }
+
+    private BatchItemResult processFile(BatchRun batchRun, int index) {
+        Path file = batchRun.files.get(index);
+        Path relative = batchRun.input.relativize(file);
+        String filename = relative.toString();
+
+        if (batchRun.operation == BatchOperation.TO_IMAGES) {
+            String baseName = filename.substring(0, filename.length() - ".pdf".length());
+            return batchItemRunner.run(index, filename, baseName,
+                    () -> convertToImages(batchRun, file, batchRun.output.resolve(baseName)), Long::longValue).result();
+        }
+
+        return batchItemRunner.run(index, filename, filename,
+                () -> writeResult(batchRun, file, batchRun.output.resolve(relative)), Long::longValue).result();
+    }
+
+    /**
+     * @return total size of the page images
+     */
+    private long convertToImages(BatchRun batchRun, Path file, Path target) throws IOException {
+        batchRun.inputBytes.add(Files.size(file));
+
+        long size = 0;
+        for (String image : pdfService.convert(file, target, format.toLowerCase(Locale.ROOT), dpi)) {
+            size += Files.size(Path.of(image));
+        }
+        return size;
+    }
+
+    /**
+     * @return size of the result written to the target
+     */
+    private long writeResult(BatchRun batchRun, Path file, Path target) throws IOException {
+        LocalPdfFile pdf = new LocalPdfFile(file);
+        batchRun.inputBytes.add(pdf.getSize());
+
+        ChunkedOutputBuffer result = switch (batchRun.operation) {
+            case COMPRESS -> pdfService.compressPdf(pdf, quality);
+            case UNLOCK -> batchItemRunner.unlock(pdf, password);
+            case LOCK -> batchItemRunner.lock(pdf, password);
+            default -> throw new IllegalStateException("Unhandled batch operation " + batchRun.operation);
+        };
+
+        try {
+            // Disk writes block the fork-join worker, let the pool compensate meanwhile
+            managedBlock(() -> {
+                Files.createDirectories(target.getParent());
+                try (OutputStream outputStream = Files.newOutputStream(target)) {
+                    result.writeTo(outputStream);
+                }
+            });
+            return result.size();
+        } finally {
+            result.release();
+        }
+    }
+
+    /**
+     * Runs blocking I/O as a {@link ForkJoinPool.ManagedBlocker}, so the pool can start a
+     * spare worker while this one waits for the disk
+     */
+    private static void managedBlock(BlockingIo io) throws IOException {
+        BlockingIoBlocker blocker = new BlockingIoBlocker(io);
+        try {
+            ForkJoinPool.managedBlock(blocker);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while writing batch output");
+        }
+        if (blocker.failure != null) {
+            throw blocker.failure;
+        }
+    }
+
+    @FunctionalInterface
+    private interface BlockingIo {
+        void run() throws IOException;
+    }
+
+    private static final class BlockingIoBlocker implements ForkJoinPool.ManagedBlocker {
+
+        private final BlockingIo io;
+        private boolean done;
+        private IOException failure;
+
+        private BlockingIoBlocker(BlockingIo io) {
+            this.io = io;
+        }
+
+        @Override
+        public boolean block() {
+            try {
+                io.run();
+            } catch (IOException e) {
+                failure = e;
+            }
+            done = true;
+            return true;
+        }
+
+        @Override
+        public boolean isReleasable() {
+            return done;
+        }
+    }
+
+    /**
+     * State shared by the tasks of one run, results are stored by input index
+     */
+    private static final class BatchRun {
+
+        private final BatchOperation operation;
+        private final Path input;
+        private final Path output;
+        private final List<Path> files;
+        private final BatchItemResult[] results;
+        private final AtomicInteger completed = new AtomicInteger();
+        private final LongAdder inputBytes = new LongAdder();
+
+        private BatchRun(BatchOperation operation, Path input, Path output, List<Path> files) {
+            this.operation = operation;
+            this.input = input;
+            this.output = output;
+            this.files = files;
+            this.results = new BatchItemResult[files.size()];
+        }
+    }
+
+    /**
+     * Splits the file range in halves down to single files, idle workers steal the
+     * untouched halves, so a few very large documents do not hold up the rest
+     */
+    private final class FileRangeTask extends RecursiveAction {
+
+        private final BatchRun batchRun;
+        private final int from;
+        private final int to;
+
+        private FileRangeTask(BatchRun batchRun, int from, int to) {
+            this.batchRun = batchRun;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new FileRangeTask(batchRun, from, middle), new FileRangeTask(batchRun, middle, to));
+                return;
+            }
+            if (to > from) {
+                batchRun.results[from] = processFile(batchRun, from);
+
+                int done = batchRun.completed.incrementAndGet();
+                if (done % PROGRESS_INTERVAL == 0) {
+                    logger.info("Batch progress: {} of {} files", done, batchRun.files.size());
+                }
+            }
+        }
+    }
+
+    /**
+     * Summary written to the report file at the end of a run
+     */
+    public record BatchReport(String operation, String inputDirectory, String outputDirectory, int parallelism,
+                              int files, long succeeded, long failed, long elapsedMs, double filesPerSecond,
+                              long inputBytes, long outputBytes, List<BatchItemResult> items) {
+    }
+}
@@ -0,0 +1,48 @@
+package in.guardianservices.document_utility_core.batch;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * Operations of the headless batch mode, named as on the command line
+ */
+public enum BatchOperation {
+
+    /** Every page to an image file, in a folder per document */
+    TO_IMAGES("to-images"),
+    COMPRESS("compress"),
+    /** Needs doc-service.batch.password */
+    UNLOCK("unlock"),
+    /** Needs doc-service.batch.password */
+    LOCK("lock");
+
+    private final String argument;
+
+    BatchOperation(String argument) {
+        this.argument = argument;
+    }
+
+    public String getArgument() {
+        return argument;
+    }
+
+    public boolean requiresPassword() {
+        return this == UNLOCK || this == LOCK;
+    }
+
+    /**
+     * @param argument operation name as given on the command line
+     * @return the matching operation
+     */
+    public static BatchOperation fromArgument(String argument) {
+        String normalized = argument == null ? "" : argument.trim().toLowerCase(Locale.ROOT);
+        return Arrays.stream(values())
+                .filter(operation -> operation.argument.equals(normalized))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown batch operation '" + argument
+                        + "', expected one of " + Arrays.stream(values())
+                        .map(BatchOperation::getArgument)
+                        .collect(Collectors.joining(", "))));
+    }
+}
@@ -0,0 +1,132 @@
+package in.guardianservices.document_utility_core.cancellation;
+
+import in.guardianservices.document_utility_core.exception.OperationCancelledException;
+
+/**
+ * Cooperative cancellation of the work done for one request. The token is cancelled when
+ * the request's deadline passes or the client goes away; long-running loops call
+ * {@link #checkCurrent()} between pages and stop by throwing {@link OperationCancelledException},
+ * which releases their buffers through the usual error paths.
+ * <p>
+ * Like {@link in.guardianservices.document_utility_core.metrics.RequestProfile}, the token is
+ * bound to the request thread and carried over to worker pool tasks the request submits.
+ * <p>
+ * Parts of a request with a budget of their own, like the files of a batch, run with a
+ * child token: it has its own deadline and is cancelled along with its parent.
+ */
+public class CancellationToken {
+
+    private static final ThreadLocal<CancellationToken> CURRENT = new ThreadLocal<>();
+
+    private final CancellationToken parent;
+    private final long deadlineNanos;
+    private final boolean hasDeadline;
+    private final String deadlineReason;
+
+    private volatile String reason;
+
+    /**
+     * @param timeoutMillis time the request may take from now, 0 or less for no deadline
+     */
+    public CancellationToken(long timeoutMillis) {
+        this(null, timeoutMillis, "Request deadline exceeded");
+    }
+
+    /**
+     * @param parent token whose cancellation also cancels this one, or null
+     * @param timeoutMillis time the work may take from now, 0 or less for no deadline of its own
+     * @param deadlineReason reason reported once this token's deadline passes
+     */
+    public CancellationToken(CancellationToken parent, long timeoutMillis, String deadlineReason) {
+        this.parent = parent;
+        this.hasDeadline = timeoutMillis > 0;
+        this.deadlineNanos = System.nanoTime() + (hasDeadline ? timeoutMillis * 1_000_000 : 0);
+        this.deadlineReason = deadlineReason;
+    }
+
+    /**
+     * @return token of the request running on this thread, or null outside of a request
+     */
+    public static CancellationToken current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Binds a token to the current thread
+     * @param token token to bind, or null to unbind
+     * @return the previously bound token, to be restored by the caller
+     */
+    public static CancellationToken bind(CancellationToken token) {
+        CancellationToken previous = CURRENT.get();
+        if (token == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(token);
+        }
+        return previous;
+    }
+
+    /**
+     * Wraps a task so it runs with the token of the submitting thread
+     * @param task task about to be handed to another thread
+     * @return task bound to the current token, or the task itself outside of a request
+     */
+    public static Runnable wrap(Runnable task) {
+        CancellationToken token = CURRENT.get();
+        if (token == null) {
+            return task;
+        }
+
+        return () -> {
+            CancellationToken previous = bind(token);
+            try {
+                task.run();
+            } finally {
+                bind(previous);
+            }
+        };
+    }
+
+    /**
+     * Stops the current operation if its request was cancelled, no-op outside of a request
+     * @throws OperationCancelledException if the deadline passed or the client disconnected
+     */
+    public static void checkCurrent() {
+        CancellationToken token = CURRENT.get();
+        if (token != null) {
+            token.throwIfCancelled();
+        }
+    }
+
+    /**
+     * Cancels the work of this request, keeping the first reason given
+     * @param reason why the work is no longer needed
+     */
+    public void cancel(String reason) {
+        if (this.reason == null) {
+            this.reason = reason;
+        }
+    }
+
+    /**
+     * @return true once cancelled, past the deadline or its parent is cancelled
+     */
+    public boolean isCancelled() {
+        if (reason == null && parent != null && parent.isCancelled()) {
+            cancel(parent.reason);
+        }
+        if (reason == null && hasDeadline && System.nanoTime() - deadlineNanos >= 0) {
+            cancel(deadlineReason);
+        }
+        return reason != null;
+    }
+
+    /**
+     * @throws OperationCancelledException if cancelled, past the deadline or its parent is cancelled
+     */
+    public void throwIfCancelled() {
+        if (isCancelled()) {
+            throw new OperationCancelledException(reason);
+        }
+    }
+}
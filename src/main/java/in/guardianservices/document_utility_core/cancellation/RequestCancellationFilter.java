@@ -0,0 +1,216 @@
+package in.guardianservices.document_utility_core.cancellation;
+
+import in.guardianservices.document_utility_core.scheduling.RequestCostClassifier;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Binds a {@link CancellationToken} to every request. The deadline is the timeout configured
+ * for the request's operation under doc-service.cancellation.timeouts, else the default
+ * timeout, shortened by the client through the X-Request-Timeout-Ms header. The batch
+ * endpoints are keyed as batch; their files also get a deadline each from {@link
+ * in.guardianservices.document_utility_core.batch.BatchItemRunner}.
+ * <p>
+ * The servlet API does not tell a synchronous handler that its client went away, so a
+ * disconnect is detected when writing to the client fails or the async response reports an
+ * error or timeout. The page-loop endpoints therefore return a {@code Callable}: the request
+ * is async while they render, and the container's error event cancels the token before the
+ * first byte is written. Work still running for the request then stops at its next check.
+ * <p>
+ * The async dispatch that writes the handler's result runs with the same token.
+ */
+@Component
+public class RequestCancellationFilter extends OncePerRequestFilter {
+
+    public static final String TIMEOUT_HEADER = "X-Request-Timeout-Ms";
+
+    private static final String TOKEN_ATTRIBUTE = RequestCancellationFilter.class.getName() + ".token";
+
+    @Value("${doc-service.cancellation.timeout:PT5M}")
+    private Duration timeout;
+
+    @Autowired
+    private Environment environment;
+
+    private Map<String, Duration> operationTimeouts = Map.of();
+
+    @PostConstruct
+    public void init() {
+        operationTimeouts = Map.copyOf(Binder.get(environment)
+                .bind("doc-service.cancellation.timeouts", Bindable.mapOf(String.class, Duration.class))
+                .orElse(Map.of()));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean asyncDispatch = isAsyncDispatch(request);
+        CancellationToken token = asyncDispatch && request.getAttribute(TOKEN_ATTRIBUTE) instanceof CancellationToken bound
+                ? bound
+                : new CancellationToken(resolveTimeoutMillis(request));
+        request.setAttribute(TOKEN_ATTRIBUTE, token);
+
+        CancellationToken previous = CancellationToken.bind(token);
+        try {
+            filterChain.doFilter(request, new DisconnectDetectingResponseWrapper(response, token));
+        } catch (IOException e) {
+            token.cancel("Client disconnected");
+            throw e;
+        } finally {
+            CancellationToken.bind(previous);
+        }
+
+        // Once registered, the listener carries itself over to later async cycles of the request
+        if (!asyncDispatch && request.isAsyncStarted()) {
+            request.getAsyncContext().addListener(new AsyncCancellation(token));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    private long resolveTimeoutMillis(HttpServletRequest request) {
+        long configured = operationTimeouts
+                .getOrDefault(RequestCostClassifier.operationOf(request.getRequestURI()), timeout)
+                .toMillis();
+        String header = request.getHeader(TIMEOUT_HEADER);
+        if (header == null || header.isBlank()) {
+            return configured;
+        }
+
+        long requested;
+        try {
+            requested = Long.parseLong(header.trim());
+        } catch (NumberFormatException e) {
+            return configured;
+        }
+
+        // Clients can only shorten the server-side limit
+        if (requested <= 0) {
+            return configured;
+        }
+        return configured > 0 ? Math.min(configured, requested) : requested;
+    }
+
+    private static class AsyncCancellation implements AsyncListener {
+
+        private final CancellationToken token;
+
+        AsyncCancellation(CancellationToken token) {
+            this.token = token;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            token.cancel("Async request timed out");
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            token.cancel("Client disconnected");
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+
+    private static class DisconnectDetectingResponseWrapper extends HttpServletResponseWrapper {
+
+        private final CancellationToken token;
+        private ServletOutputStream outputStream;
+
+        DisconnectDetectingResponseWrapper(HttpServletResponse response, CancellationToken token) {
+            super(response);
+            this.token = token;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                outputStream = new CancelOnFailureStream(super.getOutputStream());
+            }
+            return outputStream;
+        }
+
+        private class CancelOnFailureStream extends ServletOutputStream {
+
+            private final ServletOutputStream delegate;
+
+            CancelOnFailureStream(ServletOutputStream delegate) {
+                this.delegate = delegate;
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                try {
+                    delegate.write(b);
+                } catch (IOException e) {
+                    token.cancel("Client disconnected");
+                    throw e;
+                }
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                try {
+                    delegate.write(b, off, len);
+                } catch (IOException e) {
+                    token.cancel("Client disconnected");
+                    throw e;
+                }
+            }
+
+            @Override
+            public void flush() throws IOException {
+                try {
+                    delegate.flush();
+                } catch (IOException e) {
+                    token.cancel("Client disconnected");
+                    throw e;
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                delegate.close();
+            }
+
+            @Override
+            public boolean isReady() {
+                return delegate.isReady();
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                delegate.setWriteListener(writeListener);
+            }
+        }
+    }
+}
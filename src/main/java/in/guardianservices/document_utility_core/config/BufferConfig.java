@@ -0,0 +1,24 @@
+package in.guardianservices.document_utility_core.config;
+
+import in.guardianservices.document_utility_core.utils.ChunkedBufferPool;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class BufferConfig {
+
+    /**
+     * Chunk pool shared by every output buffer of the PDF operations
+     * @param chunkSizeKb size of one chunk in KB
+     * @param direct true to allocate chunks off-heap
+     * @param maxPooledChunks idle chunks kept for reuse
+     * @return buffer pool
+     */
+    @Bean
+    public ChunkedBufferPool chunkedBufferPool(@Value("${doc-service.buffer.chunk-size-kb:64}") int chunkSizeKb,
+                                               @Value("${doc-service.buffer.direct:false}") boolean direct,
+                                               @Value("${doc-service.buffer.max-pooled-chunks:1024}") int maxPooledChunks) {
+        return new ChunkedBufferPool(chunkSizeKb * 1024, direct, maxPooledChunks);
+    }
+}
@@ -0,0 +1,58 @@
+package in.guardianservices.document_utility_core.config;
+
+import in.guardianservices.document_utility_core.utils.ChunkedOutputBuffer;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+
+/**
+ * Writes a {@link ChunkedOutputBuffer} returned as a response body on the request thread,
+ * chunk by chunk, and hands its chunks back to the pool afterwards. The response owns the
+ * buffer's reference: it is released once written, also when writing fails.
+ */
+public class ChunkedOutputBufferMessageConverter extends AbstractHttpMessageConverter<ChunkedOutputBuffer> {
+
+    public ChunkedOutputBufferMessageConverter() {
+        super(MediaType.ALL);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return ChunkedOutputBuffer.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected MediaType getDefaultContentType(ChunkedOutputBuffer buffer) {
+        return MediaType.APPLICATION_OCTET_STREAM;
+    }
+
+    @Override
+    protected Long getContentLength(ChunkedOutputBuffer buffer, MediaType contentType) {
+        return buffer.size();
+    }
+
+    @Override
+    protected ChunkedOutputBuffer readInternal(Class<? extends ChunkedOutputBuffer> clazz,
+                                               HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Buffers are only written to responses", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(ChunkedOutputBuffer buffer, HttpOutputMessage outputMessage)
+            throws IOException {
+        try {
+            buffer.writeTo(outputMessage.getBody());
+        } finally {
+            buffer.release();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package in.guardianservices.document_utility_core.config;
+
+import in.guardianservices.document_utility_core.cancellation.CancellationToken;
+import in.guardianservices.document_utility_core.metrics.RequestProfile;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * Bounded worker pool for CPU heavy page-level work fanned out from a single request
+     * @param poolSize number of worker threads, 0 to use the number of available processors
+     * @return worker pool shared by all PDF operations
+     */
+    @Bean(name = "pdfWorkerPool", destroyMethod = "shutdown")
+    public ThreadPoolExecutor pdfWorkerPool(@Value("${doc-service.worker.pool-size:0}") int poolSize) {
+        int size = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "pdf-worker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+
+        return new ThreadPoolExecutor(size, size, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), threadFactory) {
+            @Override
+            public void execute(Runnable command) {
+                // Work fanned out to the pool is profiled and cancelled as part of the submitting request
+                super.execute(RequestProfile.wrap(CancellationToken.wrap(command)));
+            }
+        };
+    }
+
+    /**
+     * Runs the Callable results of the page-loop endpoints and the streamed response bodies,
+     * so that work is charged to and cancelled with the request that started it. Spring Boot
+     * only creates its application task executor when no other Executor bean exists, which
+     * the worker pool is, so this one is registered with Spring MVC by {@link WebConfig}.
+     * An admitted request runs one async task at a time, so the pool is sized to the lane permits.
+     * @return executor binding the submitting request's profile and cancellation token
+     */
+    @Bean(name = "mvcAsyncExecutor")
+    public ThreadPoolTaskExecutor mvcAsyncExecutor(@Value("${doc-service.lanes.fast-permits:16}") int fastPermits,
+                                                   @Value("${doc-service.lanes.standard-permits:8}") int standardPermits,
+                                                   @Value("${doc-service.lanes.heavy-permits:2}") int heavyPermits) {
+        int size = fastPermits + standardPermits + heavyPermits;
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(size);
+        executor.setMaxPoolSize(size);
+        // A Callable's thread may still be finishing when the dispatch submits its streamed body
+        executor.setQueueCapacity(size);
+        executor.setThreadNamePrefix("mvc-async-");
+        executor.setTaskDecorator(task -> RequestProfile.wrap(CancellationToken.wrap(task)));
+        return executor;
+    }
+}
@@ -0,0 +1,72 @@
+package in.guardianservices.document_utility_core.config;
+
+import in.guardianservices.document_utility_core.metrics.PdfMetrics;
+import in.guardianservices.document_utility_core.service.PdfBatchService;
+import in.guardianservices.document_utility_core.service.PdfService;
+import in.guardianservices.document_utility_core.service.PdfStorageService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Controller;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.RuntimeMXBean;
+
+@Configuration
+public class StartupConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupConfig.class);
+
+    @Value("${doc-service.startup.training-run:false}")
+    private boolean trainingRun;
+
+    @Value("${spring.main.lazy-initialization:false}")
+    private boolean lazyInitialization;
+
+    /**
+     * With spring.main.lazy-initialization enabled, keeps the beans eager whose work starts
+     * at creation: the document store schedules its GC and loads its index, the metrics
+     * register their gauges and the warm-up must run before readiness. The controllers and
+     * the PDF services they call stay eager too, so the first request does not pay for them.
+     * @return filter of the beans excluded from lazy initialization
+     */
+    @Bean
+    public static LazyInitializationExcludeFilter eagerStartupBeans() {
+        LazyInitializationExcludeFilter startupBeans = LazyInitializationExcludeFilter.forBeanTypes(
+                PdfStorageService.class, PdfMetrics.class, StartupWarmup.class,
+                PdfService.class, PdfBatchService.class);
+        return (beanName, beanDefinition, beanType) ->
+                startupBeans.isExcluded(beanName, beanDefinition, beanType)
+                        || AnnotatedElementUtils.hasAnnotation(beanType, Controller.class);
+    }
+
+    /**
+     * Reports the time from JVM start to serving traffic, which includes class loading
+     * before Spring starts and the warm-up, along with the fast-start options in use. Ends the JVM of an AppCDS training run here,
+     * after the warm-up has loaded the PDFBox and ImageIO classes into the archive.
+     * @param event published once the runners have finished
+     */
+    @EventListener
+    public void onApplicationReady(ApplicationReadyEvent event) {
+        RuntimeMXBean runtime = ManagementFactory.getRuntimeMXBean();
+        boolean classDataSharing = runtime.getInputArguments().stream()
+                .anyMatch(argument -> argument.startsWith("-XX:SharedArchiveFile"));
+
+        logger.info("Ready to serve traffic {} ms after JVM start (Spring startup {} ms, AppCDS archive: {}, "
+                        + "lazy initialization: {})",
+                runtime.getUptime(), event.getTimeTaken().toMillis(), classDataSharing ? "in use" : "not in use",
+                lazyInitialization ? "on" : "off");
+
+        if (trainingRun) {
+            logger.info("Training run finished, exiting to write the class data archive");
+            System.exit(SpringApplication.exit(event.getApplicationContext()));
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package in.guardianservices.document_utility_core.config;
+
+import in.guardianservices.document_utility_core.metrics.PdfMetrics;
+import in.guardianservices.document_utility_core.service.PdfService;
+import in.guardianservices.document_utility_core.utils.ChunkedOutputBuffer;
+import in.guardianservices.document_utility_core.utils.InMemoryPdfFile;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.FontMappers;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.graphics.image.JPEGFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Warms the instance up before it takes traffic: builds or loads the PDFBox font cache and
+ * runs render, compress and lock/unlock on a generated sample document so the hot paths are
+ * compiled by the JIT. C2 compiles a method after some ten thousand invocations or loop
+ * iterations, so the sample is processed repeatedly, up to a time budget. The PDF metrics
+ * do not record the warm-up runs.
+ * <p>
+ * Runs as an ApplicationRunner, and Spring Boot only reports readiness (ACCEPTING_TRAFFIC)
+ * once all runners have finished. Consul checks /actuator/health/readiness, so the instance
+ * gets traffic only after the warm-up.
+ */
+@Component
+public class StartupWarmup implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupWarmup.class);
+
+    // Read by PDFBox when its font provider is first created
+    private static final String FONT_CACHE_PROPERTY = "pdfbox.fontcache";
+    private static final String SAMPLE_PASSWORD = "warmup";
+
+    @Autowired
+    private PdfService pdfService;
+
+    @Autowired
+    private PdfMetrics pdfMetrics;
+
+    @Value("${doc-service.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${doc-service.warmup.iterations:20}")
+    private int iterations;
+
+    @Value("${doc-service.warmup.max-duration:PT30S}")
+    private Duration maxDuration;
+
+    @Value("${doc-service.warmup.dpi:150}")
+    private int dpi;
+
+    @Value("${doc-service.warmup.font-cache-dir:}")
+    private String fontCacheDirectory;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            logger.info("Startup warm-up disabled");
+            return;
+        }
+
+        long start = System.nanoTime();
+        int completedIterations = 0;
+
+        // A failed warm-up only costs latency, it must not keep the instance from starting
+        try {
+            warmUpFontCache();
+            logger.info("Font cache ready in {} ms", (System.nanoTime() - start) / 1_000_000);
+
+            InMemoryPdfFile sample = new InMemoryPdfFile("warmup.pdf", createSampleDocument());
+            long deadline = System.nanoTime() + maxDuration.toNanos();
+            pdfMetrics.setRecording(false);
+            try {
+                while (completedIterations < iterations && System.nanoTime() - deadline < 0) {
+                    warmUpOperations(sample);
+                    completedIterations++;
+                }
+            } finally {
+                pdfMetrics.setRecording(true);
+            }
+        } catch (Exception e) {
+            logger.warn("Startup warm-up failed, continuing without it", e);
+        }
+
+        logger.info("Startup warm-up finished in {} ms after {} of {} iterations",
+                (System.nanoTime() - start) / 1_000_000, completedIterations, iterations);
+    }
+
+    /**
+     * Creates the PDFBox font provider, which scans the system fonts or loads the cache
+     * persisted by a previous start
+     */
+    private void warmUpFontCache() throws IOException {
+        if (!fontCacheDirectory.isBlank() && System.getProperty(FONT_CACHE_PROPERTY) == null) {
+            // PDFBox defaults to the user home, which is often not writable in containers
+            Files.createDirectories(Path.of(fontCacheDirectory));
+            System.setProperty(FONT_CACHE_PROPERTY, fontCacheDirectory);
+        }
+
+        FontMappers.instance().getTrueTypeFont("Helvetica", null);
+    }
+
+    private void warmUpOperations(InMemoryPdfFile sample) throws IOException {
+        ChunkedOutputBuffer.releaseAll(pdfService.convertPdfToImages(sample, "PNG", dpi));
+        ChunkedOutputBuffer.releaseAll(pdfService.convertPdfToImages(sample, "JPEG", dpi));
+        pdfService.compressPdf(sample, 0.5f).release();
+
+        ChunkedOutputBuffer locked = pdfService.lockUnlockedPdfStandard(sample, SAMPLE_PASSWORD);
+        try {
+            InMemoryPdfFile lockedFile = new InMemoryPdfFile("warmup-locked.pdf", locked.toByteArray());
+            pdfService.unlockPdf(lockedFile, SAMPLE_PASSWORD).release();
+        } finally {
+            locked.release();
+        }
+    }
+
+    /**
+     * @return two page PDF with text and a photo-like image, covering the text and image paths
+     */
+    private static byte[] createSampleDocument() throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            BufferedImage pattern = new BufferedImage(400, 300, BufferedImage.TYPE_INT_RGB);
+            for (int y = 0; y < pattern.getHeight(); y++) {
+                for (int x = 0; x < pattern.getWidth(); x++) {
+                    pattern.setRGB(x, y, ((x * 255 / 400) << 16) | ((y * 255 / 300) << 8) | ((x ^ y) & 0xFF));
+                }
+            }
+            PDImageXObject image = JPEGFactory.createFromImage(document, pattern, 0.8f);
+
+            for (int pageIndex = 0; pageIndex < 2; pageIndex++) {
+                PDPage page = new PDPage(PDRectangle.A4);
+                document.addPage(page);
+
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(PDType1Font.HELVETICA, 11);
+                    content.setLeading(14);
+                    content.newLineAtOffset(50, 780);
+                    for (int line = 0; line < 30; line++) {
+                        content.showText("Warm-up page " + (pageIndex + 1) + " line " + (line + 1));
+                        content.newLine();
+                    }
+                    content.endText();
+                    content.drawImage(image, 50, 50, 400, 300);
+                }
+            }
+
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            document.save(output);
+            return output.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package in.guardianservices.document_utility_core.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Endpoints that load their uploads with PDFBox are limited to
+ * doc-service.upload.max-request-size-mb, checked from the Content-Length before the
+ * multipart body is parsed. A chunked request has no Content-Length and is left to the servlet
+ * multipart limits, which are enforced while parsing. The streaming Base64, document store and
+ * batch endpoints are served by servlets with multipart limits of their own, see {@link WebConfig}.
+ */
+@Component
+public class UploadSizeLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadSizeLimitFilter.class);
+
+    /** Endpoints bound only by the multipart limit of their servlet */
+    private static final Set<String> OWN_SERVLET_PATHS = Stream.concat(
+            Stream.of(WebConfig.BASE64_STREAM_PATH, WebConfig.DOCUMENT_STORE_PATH), WebConfig.BATCH_PATHS.stream()).collect(Collectors.toUnmodifiableSet());
+
+    @Value("${doc-service.upload.max-request-size-mb:10}")
+    private int maxRequestSizeMb;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        return contentType == null
+                || !contentType.toLowerCase().startsWith(MediaType.MULTIPART_FORM_DATA_VALUE)
+                || OWN_SERVLET_PATHS.contains(UrlPathHelper.defaultInstance.getPathWithinApplication(request));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long maxBytes = (long) maxRequestSizeMb * 1024 * 1024;
+
+        long contentLength = request.getContentLengthLong();
+
+        if (contentLength > maxBytes) {
+            logger.warn("Rejected {} upload of {} bytes, limit is {}MB",
+                    request.getRequestURI(), contentLength, maxRequestSizeMb);
+            response.setStatus(HttpStatus.PAYLOAD_TOO_LARGE.value());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"error\":\"Request exceeds " + maxRequestSizeMb + "MB limit\"}");
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+}
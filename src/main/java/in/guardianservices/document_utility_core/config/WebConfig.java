@@ -0,0 +1,138 @@
+package in.guardianservices.document_utility_core.config;
+
+import in.guardianservices.document_utility_core.scheduling.PriorityLaneInterceptor;
+import jakarta.servlet.MultipartConfigElement;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.ServletRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    /** Endpoint served by {@link #base64StreamServlet} instead of the main dispatcher servlet */
+    public static final String BASE64_STREAM_PATH = "/doc-service/pdf-to-base64/stream";
+
+    /** Endpoint served by {@link #documentStoreServlet} instead of the main dispatcher servlet */
+    public static final String DOCUMENT_STORE_PATH = "/doc-service/documents";
+
+    /** Endpoints served by {@link #batchServlet} instead of the main dispatcher servlet */
+    public static final List<String> BATCH_PATHS = List.of("/doc-service/pdf/batch/lock", "/doc-service/pdf/batch/unlock");
+
+    @Autowired
+    private PriorityLaneInterceptor priorityLaneInterceptor;
+
+    @Autowired
+    @Qualifier("mvcAsyncExecutor")
+    private ThreadPoolTaskExecutor mvcAsyncExecutor;
+
+    /**
+     * Admits PDF operations through the priority lanes. Storing a document only copies it
+     * and the welcome endpoint does no work, so they bypass the lanes.
+     * @param registry interceptor registry of Spring MVC
+     */
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(priorityLaneInterceptor)
+                .addPathPatterns("/doc-service/**")
+                .excludePathPatterns("/doc-service/welcome", DOCUMENT_STORE_PATH);
+    }
+
+    /**
+     * Runs Callable results and streamed bodies with the request's profile and cancellation
+     * token, instead of Spring MVC's fallback of an undecorated thread per task
+     * @param configurer async support configurer of Spring MVC
+     */
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(mvcAsyncExecutor);
+    }
+
+    /**
+     * Writes PDF and ZIP results on the request thread with a Content-Length, ahead of the
+     * generic converters, instead of handing every response to the async executor
+     * @param converters message converters of Spring MVC
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(0, new ChunkedOutputBufferMessageConverter());
+    }
+
+    /**
+     * Multipart limits belong to a servlet, so the streaming Base64 endpoint gets a dispatcher
+     * servlet of its own over the same application context. Its uploads may be as large as
+     * stream-max-size-mb while every other endpoint keeps the spring.servlet.multipart limits.
+     * @param context application context shared with the main dispatcher servlet
+     * @param streamMaxSizeMb upload limit of the streaming endpoint
+     * @return registration mapping the dispatcher servlet to the streaming endpoint only
+     */
+    @Bean
+    public ServletRegistrationBean<DispatcherServlet> base64StreamServlet(
+            WebApplicationContext context,
+            @Value("${doc-service.base64.stream-max-size-mb:100}") int streamMaxSizeMb) {
+        long maxBytes = (long) streamMaxSizeMb * 1024 * 1024;
+
+        ServletRegistrationBean<DispatcherServlet> registration =
+                new ServletRegistrationBean<>(new DispatcherServlet(context), BASE64_STREAM_PATH);
+        registration.setName("base64StreamServlet");
+        registration.setMultipartConfig(new MultipartConfigElement("", maxBytes, maxBytes, 0));
+        return registration;
+    }
+
+    /**
+     * The batch endpoints take up to max-files uploads in one request, so they get a dispatcher
+     * servlet of their own like {@link #base64StreamServlet}: each file may be as large as
+     * max-file-size-mb and the request as large as max-files such files. Parts are written to
+     * disk while parsing, the files are only loaded one per worker.
+     * @param context application context shared with the main dispatcher servlet
+     * @param maxFiles files allowed per batch
+     * @param maxFileSizeMb upload limit per file of a batch
+     * @return registration mapping the dispatcher servlet to the batch endpoints only
+     */
+    @Bean
+    public ServletRegistrationBean<DispatcherServlet> batchServlet(
+            WebApplicationContext context,
+            @Value("${doc-service.batch.max-files:500}") int maxFiles,
+            @Value("${doc-service.batch.max-file-size-mb:10}") int maxFileSizeMb) {
+        long maxFileBytes = (long) maxFileSizeMb * 1024 * 1024;
+
+        ServletRegistrationBean<DispatcherServlet> registration =
+                new ServletRegistrationBean<>(new DispatcherServlet(context), BATCH_PATHS.toArray(String[]::new));
+        registration.setName("batchServlet");
+        registration.setMultipartConfig(new MultipartConfigElement("", maxFileBytes, maxFileBytes * maxFiles, 0));
+        return registration;
+    }
+
+    /**
+     * The document store saves clients from uploading large documents more than once, so the
+     * store endpoint gets a dispatcher servlet of its own like {@link #base64StreamServlet},
+     * limited to storage max-size-mb. The operations on stored documents take no upload and
+     * stay on the main dispatcher servlet.
+     * @param context application context shared with the main dispatcher servlet
+     * @param maxSizeMb upload limit of a stored document
+     * @return registration mapping the dispatcher servlet to the store endpoint only
+     */
+    @Bean
+    public ServletRegistrationBean<DispatcherServlet> documentStoreServlet(
+            WebApplicationContext context,
+            @Value("${doc-service.storage.max-size-mb:100}") int maxSizeMb) {
+        long maxBytes = (long) maxSizeMb * 1024 * 1024;
+
+        ServletRegistrationBean<DispatcherServlet> registration =
+                new ServletRegistrationBean<>(new DispatcherServlet(context), DOCUMENT_STORE_PATH);
+        registration.setName("documentStoreServlet");
+        registration.setMultipartConfig(new MultipartConfigElement("", maxBytes, maxBytes, 0));
+        return registration;
+    }
+}
@@ -0,0 +1,140 @@
+package in.guardianservices.document_utility_core.controller;
+
+import in.guardianservices.document_utility_core.model.StoredDocument;
+import in.guardianservices.document_utility_core.service.PdfStorageService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.function.Function;
+
+/**
+ * Upload-once endpoints: documents are stored by content hash and operations run against
+ * the returned document ID. Operations delegate to {@link HomeController} so validation
+ * and responses are identical to the upload endpoints, and the page-loop operations run
+ * async like theirs.
+ */
+@RestController
+@RequestMapping("/doc-service/documents")
+public class DocumentStoreController {
+
+    private static final Logger logger = LoggerFactory.getLogger(DocumentStoreController.class);
+
+    @Autowired
+    private PdfStorageService pdfStorageService;
+
+    @Autowired
+    private HomeController homeController;
+
+    @PostMapping
+    public ResponseEntity<?> storeDocument(@RequestParam("file") MultipartFile file) {
+
+        logger.info("Attempting to store document: {}", file.getOriginalFilename());
+
+        try {
+            StoredDocument storedDocument = pdfStorageService.store(file);
+            return ResponseEntity.status(storedDocument.isDeduplicated() ? HttpStatus.OK : HttpStatus.CREATED)
+                    .body(storedDocument);
+
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid document for store: ", e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error while storing document: ", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to store document"));
+        }
+    }
+
+    @PostMapping("/{documentId}/unlock")
+    public ResponseEntity<?> unlockPdf(@PathVariable("documentId") String documentId,
+                                       @RequestParam("password") String password) {
+        return withStoredDocument(documentId, file -> homeController.unlockPdf(file, password));
+    }
+
+    @PostMapping("/{documentId}/lock")
+    public ResponseEntity<?> lockUnlockedPdf(@PathVariable("documentId") String documentId,
+                                             @RequestParam("password") String password) {
+        return withStoredDocument(documentId, file -> homeController.lockUnlockedPdf(file, password));
+    }
+
+    @PostMapping("/{documentId}/compress")
+    public Callable<ResponseEntity<?>> compressPdf(@PathVariable("documentId") String documentId,
+                                                   @RequestParam(value = "quality", defaultValue = "0.8") float quality) {
+        return () -> withStoredDocument(documentId, file -> homeController.compress(file, quality));
+    }
+
+    @PostMapping("/{documentId}/split")
+    public Callable<ResponseEntity<?>> splitPdf(@PathVariable("documentId") String documentId,
+                                                @RequestParam("pages") String pageRanges) {
+        return () -> withStoredDocument(documentId, file -> homeController.split(file, pageRanges));
+    }
+
+    @PostMapping("/{documentId}/to-images")
+    public Callable<ResponseEntity<?>> convertPdfToImages(@PathVariable("documentId") String documentId,
+                                                          @RequestParam(value = "format", defaultValue = "PNG") String format,
+                                                          @RequestParam(value = "dpi", defaultValue = "300") int dpi,
+                                                          @RequestParam(value = "colorMode", defaultValue = "RGB") String colorMode) {
+        return () -> withStoredDocument(documentId,
+                file -> homeController.toImages(file, format, dpi, colorMode));
+    }
+
+    @PostMapping("/merge")
+    public Callable<ResponseEntity<?>> mergePdfs(@RequestParam("documentIds") List<String> documentIds) {
+        return () -> merge(documentIds);
+    }
+
+    private ResponseEntity<?> merge(List<String> documentIds) {
+
+        logger.info("Attempting to merge {} stored documents", documentIds.size());
+
+        List<String> acquired = new ArrayList<>();
+        try {
+            List<MultipartFile> files = new ArrayList<>();
+            for (String documentId : documentIds) {
+                files.add(pdfStorageService.acquire(documentId));
+                acquired.add(documentId);
+            }
+
+            return homeController.merge(files);
+
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid stored documents for merge: ", e);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", e.getMessage()));
+        } finally {
+            acquired.forEach(pdfStorageService::release);
+        }
+    }
+
+    /**
+     * Runs an operation against a stored document, keeping it pinned in the store until
+     * the response has been produced
+     */
+    private ResponseEntity<?> withStoredDocument(String documentId,
+                                                 Function<MultipartFile, ResponseEntity<?>> operation) {
+        MultipartFile file;
+        try {
+            file = pdfStorageService.acquire(documentId);
+        } catch (IllegalArgumentException e) {
+            logger.error("Stored document not found: {}", documentId);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", e.getMessage()));
+        }
+
+        try {
+            return operation.apply(file);
+        } finally {
+            pdfStorageService.release(documentId);
+        }
+    }
+}
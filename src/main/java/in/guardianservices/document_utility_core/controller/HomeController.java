@@ -1,17 +1,36 @@
 package in.guardianservices.document_utility_core.controller;
 
 import in.guardianservices.document_utility_core.exception.InvalidPasswordException;
+import in.guardianservices.document_utility_core.exception.OperationCancelledException;
+import in.guardianservices.document_utility_core.exception.PayloadTooLargeException;
+import in.guardianservices.document_utility_core.model.PdfMetadata;
+import in.guardianservices.document_utility_core.service.PdfBatchService;
 import in.guardianservices.document_utility_core.service.PdfService;
+import in.guardianservices.document_utility_core.service.PdfStorageService;
+import in.guardianservices.document_utility_core.utils.ChunkedOutputBuffer;
 import in.guardianservices.document_utility_core.utils.FileUtils;
+import in.guardianservices.document_utility_core.utils.PdfPasswordVerifier;
+import in.guardianservices.document_utility_core.utils.RequestCoalescer;
 import io.micrometer.common.util.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.Callable;
 
 @RestController
 @RequestMapping("/doc-service")
@@ -22,6 +41,21 @@ public class HomeController {
     @Autowired
     private PdfService pdfService;
 
+    @Autowired
+    private RequestCoalescer requestCoalescer;
+
+    @Autowired
+    private PdfBatchService pdfBatchService;
+
+    @Autowired
+    private PdfStorageService pdfStorageService;
+
+    @Value("${doc-service.batch.max-files:500}")
+    private int batchMaxFiles;
+
+    @Value("${doc-service.base64.stream-max-size-mb:100}")
+    private int base64StreamMaxSizeMb;
+
     @GetMapping("/welcome")
     public String welcome() {
         return """
@@ -39,7 +73,7 @@ public class HomeController {
 
         try {
 
-            byte[] unlockedPdf = pdfService.unlockPdf(file, password);
+            ChunkedOutputBuffer unlockedPdf = pdfService.unlockPdf(file, password);
             String originalFilename = file.getOriginalFilename();
             String downloadFilename = originalFilename != null ?
                     "unlocked_" + originalFilename : "unlocked.pdf";
@@ -48,6 +82,7 @@ public class HomeController {
                             "attachment; filename=\"" + downloadFilename + "\"")
                     .header("Access-Control-Expose-Headers", "Content-Disposition")
                     .contentType(MediaType.APPLICATION_PDF)
+                    .contentLength(unlockedPdf.size())
                     .body(unlockedPdf);
         } catch (InvalidPasswordException e) {
             logger.error("Invalid password provided: ", e);
@@ -80,7 +115,7 @@ public class HomeController {
                 throw new IllegalArgumentException("Invalid PDF found for file: " + file.getOriginalFilename());
             }
 
-            byte[] lockedPdf = pdfService.lockUnlockedPdfStandard(file, password);
+            ChunkedOutputBuffer lockedPdf = pdfService.lockUnlockedPdfStandard(file, password);
 
             String originalFilename = file.getOriginalFilename();
             String downloadFilename = originalFilename != null ?
@@ -91,7 +126,7 @@ public class HomeController {
                             "attachment; filename=\"" + downloadFilename + "\"")
                     .header("Access-Control-Expose-Headers", "Content-Disposition")
                     .contentType(MediaType.APPLICATION_PDF)
-                    .contentLength(lockedPdf.length)
+                    .contentLength(lockedPdf.size())
                     .body(lockedPdf);
 
         } catch (IllegalStateException e) {
@@ -147,6 +182,51 @@ public class HomeController {
         }
     }
 
+    @PostMapping("/pdf-to-base64/stream")
+    public ResponseEntity<?> streamPdfToBase64(@RequestParam("file") MultipartFile file) {
+
+        logger.info("Attempting to stream pdf as base64: {}", file.getOriginalFilename());
+
+        try {
+            // Validate header and trailer only, a full load would hold the document in memory
+            if (!FileUtils.hasPdfStructure(file)) {
+                logger.error("Invalid PDF found for file: {}", file.getOriginalFilename());
+                throw new IllegalArgumentException("Invalid PDF found for file: " + file.getOriginalFilename());
+            }
+
+            // Memory use is constant here, so the limit only guards response size
+            if (!FileUtils.isFileSizeAcceptable(file, base64StreamMaxSizeMb)) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(Map.of("error", "File size exceeds " + base64StreamMaxSizeMb + "MB limit"));
+            }
+
+            // Check if PDF is already locked from its trailer, loading it only if the trailer could not be read
+            PdfPasswordVerifier.Result encryption = PdfPasswordVerifier.verify(file, "");
+            if (encryption == PdfPasswordVerifier.Result.VALID || encryption == PdfPasswordVerifier.Result.INVALID
+                    || (encryption == PdfPasswordVerifier.Result.UNKNOWN && FileUtils.isPasswordProtected(file))) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(Map.of("error", "PDF is password protected"));
+            }
+
+            StreamingResponseBody body = outputStream -> pdfService.writePdfAsBase64Json(file, outputStream);
+
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(body);
+
+        } catch (IllegalStateException e) {
+            logger.error("PDF is invalid: ", e);
+            String message = e.getMessage();
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", StringUtils.isNotBlank(message) ? message
+                            : "PDF is password protected"));
+        } catch (Exception e) {
+            logger.error("Error while streaming PDF as base64: ", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to convert PDF"));
+        }
+    }
+
     @PostMapping("/base64-to-pdf")
     public ResponseEntity<?> convertBase64toPdf(@RequestParam("base64") String base64) {
 
@@ -207,10 +287,72 @@ public class HomeController {
     }
 
 
+    @PostMapping(value = "/base64-to-pdf/stream", consumes = MediaType.ALL_VALUE)
+    public ResponseEntity<?> streamBase64toPdf(InputStream requestBody) {
+
+        logger.info("Attempting to convert streamed base64 body to PDF");
+
+        Path pdfFile = null;
+        try {
+            // Decoded straight to disk, the payload is never held as a String
+            pdfFile = pdfService.convertBase64StreamToPdf(requestBody);
+            deleteWhenRequestCompletes(pdfFile);
+
+            // Generate filename with timestamp
+            String filename = "converted_" + System.currentTimeMillis() + ".pdf";
+
+            // Set headers for PDF download
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_PDF);
+            headers.setAccessControlExposeHeaders(Collections.singletonList("Content-Disposition"));
+            headers.setContentDisposition(ContentDisposition.attachment().filename(filename).build());
+            headers.setContentLength(Files.size(pdfFile));
+
+            // Written on the request thread, before the file is deleted
+            return ResponseEntity.ok()
+                    .headers(headers)
+                    .body(new FileSystemResource(pdfFile));
+
+        } catch (PayloadTooLargeException e) {
+            logger.warn("Rejected streamed base64 payload: {}", e.getMessage());
+            FileUtils.deleteQuietly(pdfFile);
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                    .body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid base64 payload: ", e);
+            FileUtils.deleteQuietly(pdfFile);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error while converting streamed base64 to PDF: ", e);
+            FileUtils.deleteQuietly(pdfFile);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to convert base64 to PDF"));
+        }
+    }
+
+    /**
+     * Deletes a temporary file once the request has been handled, whether its body was
+     * written, failed or skipped
+     * @param file file backing the response body
+     */
+    private static void deleteWhenRequestCompletes(Path file) {
+        RequestContextHolder.currentRequestAttributes().registerDestructionCallback(
+                file.toString(), () -> FileUtils.deleteQuietly(file), RequestAttributes.SCOPE_REQUEST);
+    }
+
     // PDF COMPRESSION
     @PostMapping("/pdf/compress")
-    public ResponseEntity<?> compressPdf(@RequestParam("file") MultipartFile file,
-                                         @RequestParam(value = "quality", defaultValue = "0.8") float quality) {
+    public Callable<ResponseEntity<?>> compressPdf(@RequestParam("file") MultipartFile file,
+                                                   @RequestParam(value = "quality", defaultValue = "0.8") float quality) {
+        // Off the request thread, so a client disconnect reported to the async listeners stops the page loop
+        return () -> compress(file, quality);
+    }
+
+    /**
+     * Compresses an uploaded or stored PDF on the calling thread
+     */
+    ResponseEntity<?> compress(MultipartFile file, float quality) {
 
         logger.info("Attempting to compress PDF: {}, quality: {}", file.getOriginalFilename(), quality);
 
@@ -232,11 +374,14 @@ public class HomeController {
                         .body(Map.of("error", "Quality must be between 0.1 and 1.0"));
             }
 
-            byte[] compressedPdf = pdfService.compressPdf(file, quality);
+            // Identical concurrent requests share one compression run
+            ChunkedOutputBuffer compressedPdf = requestCoalescer.execute(
+                    () -> FileUtils.sha256Hex(file) + ":compress:" + quality,
+                    () -> pdfService.compressPdf(file, quality), ChunkedOutputBuffer::retain);
 
             // Calculate compression ratio
             long originalSize = file.getSize();
-            long compressedSize = compressedPdf.length;
+            long compressedSize = compressedPdf.size();
             double compressionRatio = ((double)(originalSize - compressedSize) / originalSize) * 100;
 
             logger.info("PDF compression successful. Compression ratio: {}", compressionRatio);
@@ -248,12 +393,17 @@ public class HomeController {
                     .header("X-Compressed-Size", String.valueOf(compressedSize))
                     .header("X-Compression-Ratio", String.format("%.2f", compressionRatio))
                     .contentType(MediaType.APPLICATION_PDF)
+                    .contentLength(compressedSize)
                     .body(compressedPdf);
 
         } catch (IllegalArgumentException e) {
             logger.error("Invalid parameters for PDF compression: ", e);
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(Map.of("error", e.getMessage()));
+        } catch (OperationCancelledException e) {
+            logger.warn("PDF compression cancelled: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             logger.error("Error while compressing PDF: ", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -263,7 +413,14 @@ public class HomeController {
 
     // PDF MERGE
     @PostMapping("/pdf/merge")
-    public ResponseEntity<?> mergePdfs(@RequestParam("files") List<MultipartFile> files) {
+    public Callable<ResponseEntity<?>> mergePdfs(@RequestParam("files") List<MultipartFile> files) {
+        return () -> merge(files);
+    }
+
+    /**
+     * Merges uploaded or stored PDFs on the calling thread
+     */
+    ResponseEntity<?> merge(List<MultipartFile> files) {
 
         logger.info("Attempting to merge {} PDF files", files.size());
 
@@ -292,7 +449,7 @@ public class HomeController {
                 }
             }
 
-            byte[] mergedPdf = pdfService.mergePdfs(files);
+            ChunkedOutputBuffer mergedPdf = pdfService.mergePdfs(files);
 
             logger.info("PDF merge successful. Total merged files: {}", files.size());
 
@@ -301,12 +458,17 @@ public class HomeController {
                     .header("Access-Control-Expose-Headers", "Content-Disposition")
                     .header("X-Merged-Files-Count", String.valueOf(files.size()))
                     .contentType(MediaType.APPLICATION_PDF)
+                    .contentLength(mergedPdf.size())
                     .body(mergedPdf);
 
         } catch (IllegalArgumentException e) {
             logger.error("Invalid parameters for PDF merge: ", e);
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(Map.of("error", e.getMessage()));
+        } catch (OperationCancelledException e) {
+            logger.warn("PDF merge cancelled: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             logger.error("Error while merging PDFs: ", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -316,8 +478,15 @@ public class HomeController {
 
     // PDF SPLIT
     @PostMapping("/pdf/split")
-    public ResponseEntity<?> splitPdf(@RequestParam("file") MultipartFile file,
-                                      @RequestParam("pages") String pageRanges) {
+    public Callable<ResponseEntity<?>> splitPdf(@RequestParam("file") MultipartFile file,
+                                                @RequestParam("pages") String pageRanges) {
+        return () -> split(file, pageRanges);
+    }
+
+    /**
+     * Splits an uploaded or stored PDF on the calling thread
+     */
+    ResponseEntity<?> split(MultipartFile file, String pageRanges) {
 
         logger.info("Attempting to split PDF: {}, page ranges: {}", file.getOriginalFilename(), pageRanges);
 
@@ -339,15 +508,20 @@ public class HomeController {
                         .body(Map.of("error", "Page ranges cannot be empty"));
             }
 
-            List<byte[]> splitPdfs = pdfService.splitPdf(file, pageRanges);
+            List<ChunkedOutputBuffer> splitPdfs = pdfService.splitPdf(file, pageRanges);
+            ChunkedOutputBuffer zipFile;
 
-            if (splitPdfs.isEmpty()) {
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                        .body(Map.of("error", "No pages found for specified ranges"));
-            }
+            try {
+                if (splitPdfs.isEmpty()) {
+                    return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                            .body(Map.of("error", "No pages found for specified ranges"));
+                }
 
-            // Return as ZIP file containing multiple PDFs
-            byte[] zipFile = pdfService.createZipFromPdfs(splitPdfs);
+                // Return as ZIP file containing multiple PDFs
+                zipFile = pdfService.createZipFromPdfs(splitPdfs);
+            } finally {
+                ChunkedOutputBuffer.releaseAll(splitPdfs);
+            }
 
             logger.info("PDF split successful. Generated {} split files", splitPdfs.size());
 
@@ -357,12 +531,17 @@ public class HomeController {
                     .header("Access-Control-Expose-Headers", "Content-Disposition")
                     .header("X-Split-Files-Count", String.valueOf(splitPdfs.size()))
                     .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                    .contentLength(zipFile.size())
                     .body(zipFile);
 
         } catch (IllegalArgumentException e) {
             logger.error("Invalid parameters for PDF split: ", e);
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(Map.of("error", e.getMessage()));
+        } catch (OperationCancelledException e) {
+            logger.warn("PDF split cancelled: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             logger.error("Error while splitting PDF: ", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -372,12 +551,20 @@ public class HomeController {
 
     // PDF TO IMAGE CONVERSION
     @PostMapping("/pdf/to-images")
-    public ResponseEntity<?> convertPdfToImages(@RequestParam("file") MultipartFile file,
-                                                @RequestParam(value = "format", defaultValue = "PNG") String format,
-                                                @RequestParam(value = "dpi", defaultValue = "300") int dpi) {
+    public Callable<ResponseEntity<?>> convertPdfToImages(@RequestParam("file") MultipartFile file,
+                                                          @RequestParam(value = "format", defaultValue = "PNG") String format,
+                                                          @RequestParam(value = "dpi", defaultValue = "300") int dpi,
+                                                          @RequestParam(value = "colorMode", defaultValue = "RGB") String colorMode) {
+        return () -> toImages(file, format, dpi, colorMode);
+    }
 
-        logger.info("Attempting to convert PDF to images: {}, format: {}, DPI: {}",
-                file.getOriginalFilename(), format, dpi);
+    /**
+     * Renders the pages of an uploaded or stored PDF on the calling thread
+     */
+    ResponseEntity<?> toImages(MultipartFile file, String format, int dpi, String colorMode) {
+
+        logger.info("Attempting to convert PDF to images: {}, format: {}, DPI: {}, color mode: {}",
+                file.getOriginalFilename(), format, dpi, colorMode);
 
         try {
             // Validate file
@@ -403,14 +590,30 @@ public class HomeController {
                         .body(Map.of("error", "DPI must be between 72 and 600"));
             }
 
-            List<byte[]> images = pdfService.convertPdfToImages(file, format, dpi);
-
-            if (images.isEmpty()) {
+            // Validate color mode
+            if (!Arrays.asList("RGB", "GRAY", "BINARY", "AUTO").contains(colorMode.toUpperCase())) {
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                        .body(Map.of("error", "No pages found in PDF"));
+                        .body(Map.of("error", "Unsupported color mode: " + colorMode));
             }
 
-            byte[] zipFile = pdfService.createZipFromImages(images, format);
+            // Identical concurrent requests share one rendering run
+            List<ChunkedOutputBuffer> images = requestCoalescer.execute(
+                    () -> FileUtils.sha256Hex(file) + ":to-images:" + format.toUpperCase()
+                            + ":" + dpi + ":" + colorMode.toUpperCase(),
+                    () -> pdfService.convertPdfToImages(file, format, dpi, colorMode.toUpperCase()),
+                    (pages, waiters) -> pages.forEach(page -> page.retain(waiters)));
+            ChunkedOutputBuffer zipFile;
+
+            try {
+                if (images.isEmpty()) {
+                    return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                            .body(Map.of("error", "No pages found in PDF"));
+                }
+
+                zipFile = pdfService.createZipFromImages(images, format);
+            } finally {
+                ChunkedOutputBuffer.releaseAll(images);
+            }
 
             logger.info("PDF to image conversion successful. Generated {} images", images.size());
 
@@ -421,17 +624,236 @@ public class HomeController {
                     .header("X-Images-Count", String.valueOf(images.size()))
                     .header("X-Image-Format", format.toUpperCase())
                     .header("X-Image-DPI", String.valueOf(dpi))
+                    .header("X-Image-Color-Mode", colorMode.toUpperCase())
                     .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                    .contentLength(zipFile.size())
                     .body(zipFile);
 
         } catch (IllegalArgumentException e) {
             logger.error("Invalid parameters for PDF to image conversion: ", e);
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(Map.of("error", e.getMessage()));
+        } catch (OperationCancelledException e) {
+            logger.warn("PDF image conversion cancelled: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             logger.error("Error while converting PDF to images: ", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("error", "Failed to convert PDF to images"));
         }
     }
+
+    // EMBEDDED IMAGE EXTRACTION
+    @PostMapping("/pdf/extract-images")
+    public ResponseEntity<?> extractImages(@RequestParam("file") MultipartFile file) {
+
+        logger.info("Attempting to extract images from PDF: {}", file.getOriginalFilename());
+
+        try {
+            // Validate file
+            if (file.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(Map.of("error", "File is empty"));
+            }
+
+            if (!FileUtils.isValidPdf(file)) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(Map.of("error", "Invalid PDF file"));
+            }
+
+            if (FileUtils.isPasswordProtected(file)) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(Map.of("error", "PDF is password protected"));
+            }
+
+            // ZIP is streamed as images are read, so errors past this point can only be logged
+            StreamingResponseBody body = outputStream -> {
+                int imageCount = pdfService.extractImages(file, outputStream);
+                logger.info("Image extraction successful. Extracted {} images", imageCount);
+            };
+
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" +
+                            Objects.requireNonNull(file.getOriginalFilename()).replace(".pdf", "") + "_extracted_images.zip")
+                    .header("Access-Control-Expose-Headers", "Content-Disposition")
+                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                    .body(body);
+
+        } catch (Exception e) {
+            logger.error("Error while extracting images from PDF: ", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to extract images from PDF"));
+        }
+    }
+
+    // TEXT EXTRACTION
+    @PostMapping("/pdf/extract-text")
+    public ResponseEntity<?> extractText(@RequestParam("file") MultipartFile file) {
+
+        logger.info("Attempting to extract text from PDF: {}", file.getOriginalFilename());
+
+        try {
+            // Validate file
+            if (file.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(Map.of("error", "File is empty"));
+            }
+
+            if (!FileUtils.isValidPdf(file)) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(Map.of("error", "Invalid PDF file"));
+            }
+
+            if (FileUtils.isPasswordProtected(file)) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(Map.of("error", "PDF is password protected"));
+            }
+
+            // One JSON object per page is streamed as soon as its worker finishes it
+            StreamingResponseBody body = outputStream -> {
+                int pageCount = pdfService.extractText(file, outputStream);
+                logger.info("Text extraction successful. Extracted {} pages", pageCount);
+            };
+
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .body(body);
+
+        } catch (Exception e) {
+            logger.error("Error while extracting text from PDF: ", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to extract text from PDF"));
+        }
+    }
+
+    // PDF METADATA
+    @PostMapping("/pdf/metadata")
+    public ResponseEntity<?> getMetadata(@RequestParam("file") MultipartFile file,
+                                         @RequestParam(value = "password", required = false) String password) {
+
+        logger.info("Attempting to read PDF metadata: {}", file.getOriginalFilename());
+
+        try {
+            // Validate file, without loading it: reading metadata must stay cheap
+            if (file.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(Map.of("error", "File is empty"));
+            }
+
+            PdfMetadata metadata = pdfService.getMetadata(file, password);
+
+            logger.info("PDF metadata read successfully. Pages: {}, encrypted: {}",
+                    metadata.getPageCount(), metadata.isEncrypted());
+
+            return ResponseEntity.ok(metadata);
+
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid PDF for metadata: ", e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error while reading PDF metadata: ", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to read PDF metadata"));
+        }
+    }
+
+    // BATCH LOCK / UNLOCK
+    @PostMapping("/pdf/batch/unlock")
+    public ResponseEntity<?> batchUnlockPdf(@RequestParam(value = "files", required = false) List<MultipartFile> files,
+                                            @RequestParam(value = "documentIds", required = false) List<String> documentIds,
+                                            @RequestParam("password") String password) {
+
+        logger.info("Attempting batch unlock of {} files and {} stored documents",
+                files == null ? 0 : files.size(), documentIds == null ? 0 : documentIds.size());
+
+        return batchResponse(files, documentIds, password, "unlocked",
+                (batchFiles, outputStream) -> pdfBatchService.unlockAll(batchFiles, password, outputStream));
+    }
+
+    @PostMapping("/pdf/batch/lock")
+    public ResponseEntity<?> batchLockPdf(@RequestParam(value = "files", required = false) List<MultipartFile> files,
+                                          @RequestParam(value = "documentIds", required = false) List<String> documentIds,
+                                          @RequestParam("password") String password) {
+
+        logger.info("Attempting batch lock of {} files and {} stored documents",
+                files == null ? 0 : files.size(), documentIds == null ? 0 : documentIds.size());
+
+        return batchResponse(files, documentIds, password, "locked",
+                (batchFiles, outputStream) -> pdfBatchService.lockAll(batchFiles, password, outputStream));
+    }
+
+    private ResponseEntity<?> batchResponse(List<MultipartFile> files, List<String> documentIds, String password,
+                                            String outputName, BatchCall batchCall) {
+        List<MultipartFile> batchFiles = new ArrayList<>();
+        List<String> acquired = new ArrayList<>();
+
+        try {
+            if (password == null || password.trim().isEmpty()) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(Map.of("error", "Password cannot be null or empty"));
+            }
+
+            if (files != null) {
+                batchFiles.addAll(files);
+            }
+
+            if (documentIds != null) {
+                for (String documentId : documentIds) {
+                    batchFiles.add(pdfStorageService.acquire(documentId));
+                    acquired.add(documentId);
+                }
+            }
+
+            if (batchFiles.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(Map.of("error", "No files provided"));
+            }
+
+            if (batchFiles.size() > batchMaxFiles) {
+                releaseAll(acquired);
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(Map.of("error", "At most " + batchMaxFiles + " files allowed per batch"));
+            }
+
+            // Stored documents stay pinned until every result has been streamed
+            StreamingResponseBody body = outputStream -> {
+                try {
+                    batchCall.run(batchFiles, outputStream);
+                } finally {
+                    releaseAll(acquired);
+                }
+            };
+
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION,
+                            "attachment; filename=" + outputName + "_" + System.currentTimeMillis() + ".zip")
+                    .header("Access-Control-Expose-Headers", "Content-Disposition")
+                    .header("X-Batch-Files-Count", String.valueOf(batchFiles.size()))
+                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                    .body(body);
+
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid parameters for batch operation: ", e);
+            releaseAll(acquired);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error while starting batch operation: ", e);
+            releaseAll(acquired);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to process batch"));
+        }
+    }
+
+    private void releaseAll(List<String> documentIds) {
+        documentIds.forEach(pdfStorageService::release);
+        documentIds.clear();
+    }
+
+    @FunctionalInterface
+    private interface BatchCall {
+        void run(List<MultipartFile> files, OutputStream outputStream) throws IOException;
+    }
 }
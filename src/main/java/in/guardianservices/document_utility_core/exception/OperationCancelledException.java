@@ -0,0 +1,12 @@
+package in.guardianservices.document_utility_core.exception;
+
+public class OperationCancelledException extends RuntimeException {
+
+    public OperationCancelledException() {
+        super("Operation cancelled");
+    }
+
+    public OperationCancelledException(String message) {
+        super(message);
+    }
+}
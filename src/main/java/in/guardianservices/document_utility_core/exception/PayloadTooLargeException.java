@@ -0,0 +1,8 @@
+package in.guardianservices.document_utility_core.exception;
+
+public class PayloadTooLargeException extends RuntimeException {
+
+    public PayloadTooLargeException(String message) {
+        super(message);
+    }
+}
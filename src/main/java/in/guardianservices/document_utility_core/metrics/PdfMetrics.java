@@ -0,0 +1,335 @@
+package in.guardianservices.document_utility_core.metrics;
+
+import in.guardianservices.document_utility_core.utils.ChunkedBufferPool;
+import in.guardianservices.document_utility_core.utils.RequestCoalescer;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Micrometer instrumentation of the PDF operations. Every operation is timed as a whole
+ * and per pipeline stage, tagged by operation, stage and format. Percentile histograms
+ * for these timers are enabled in application.yml. Stage timings also feed the
+ * Server-Timing header and Flight Recorder.
+ */
+@Component
+public class PdfMetrics {
+
+    public static final String OPERATION_TIMER = "pdf.operation";
+    public static final String STAGE_TIMER = "pdf.stage";
+    public static final String INPUT_SIZE = "pdf.operation.input.size";
+    public static final String OUTPUT_SIZE = "pdf.operation.output.size";
+    public static final String STAGE_SIZE = "pdf.stage.size";
+    public static final String IN_FLIGHT = "pdf.operation.in.flight";
+    public static final String REQUEST_CPU_TIME = "pdf.request.cpu.time";
+    public static final String REQUEST_ALLOCATED = "pdf.request.allocated";
+
+    public static final String OP_UNLOCK = "unlock";
+    public static final String OP_LOCK = "lock";
+    public static final String OP_PDF_TO_BASE64 = "pdf-to-base64";
+    public static final String OP_BASE64_TO_PDF = "base64-to-pdf";
+    public static final String OP_COMPRESS = "compress";
+    public static final String OP_MERGE = "merge";
+    public static final String OP_SPLIT = "split";
+    public static final String OP_TO_IMAGES = "to-images";
+    public static final String OP_EXTRACT_IMAGES = "extract-images";
+    public static final String OP_EXTRACT_TEXT = "extract-text";
+    public static final String OP_METADATA = "metadata";
+
+    public static final String STAGE_VALIDATE = "validate";
+    public static final String STAGE_LOAD = "load";
+    public static final String STAGE_DECRYPT = "decrypt";
+    public static final String STAGE_RENDER = "render";
+    public static final String STAGE_ENCODE = "encode";
+    public static final String STAGE_EXTRACT = "extract";
+    public static final String STAGE_MERGE = "merge";
+    public static final String STAGE_SAVE = "save";
+    public static final String STAGE_ZIP = "zip";
+
+    private static final String NO_FORMAT = "none";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("pdfWorkerPool")
+    private ThreadPoolExecutor pdfWorkerPool;
+
+    @Autowired
+    private ChunkedBufferPool bufferPool;
+
+    @Autowired
+    private RequestCoalescer requestCoalescer;
+
+    private final ConcurrentHashMap<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+
+    private volatile boolean recording = true;
+
+    @PostConstruct
+    public void registerGauges() {
+        Gauge.builder("pdf.worker.queue.size", pdfWorkerPool, pool -> pool.getQueue().size())
+                .description("Tasks waiting for a PDF worker thread")
+                .register(meterRegistry);
+        Gauge.builder("pdf.worker.active", pdfWorkerPool, ThreadPoolExecutor::getActiveCount)
+                .description("PDF worker threads currently running a task")
+                .register(meterRegistry);
+        Gauge.builder("pdf.worker.pool.size", pdfWorkerPool, ThreadPoolExecutor::getMaximumPoolSize)
+                .description("Maximum number of PDF worker threads")
+                .register(meterRegistry);
+        Gauge.builder("pdf.buffer.pooled.chunks", bufferPool, ChunkedBufferPool::getPooledChunks)
+                .description("Idle output buffer chunks kept for reuse")
+                .register(meterRegistry);
+        Gauge.builder("pdf.coalescing.in.flight", requestCoalescer, RequestCoalescer::getInFlightCount)
+                .description("Distinct coalesced computations currently running")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Turns recording of operations, stages and sizes on or off. The startup warm-up runs
+     * with recording off, before readiness, so its runs do not skew the production timers.
+     * @param recording false to drop everything recorded until turned on again
+     */
+    public void setRecording(boolean recording) {
+        this.recording = recording;
+    }
+
+    /**
+     * @return true unless recording was turned off
+     */
+    public boolean isRecording() {
+        return recording;
+    }
+
+    /**
+     * Starts timing a whole operation and counts it as in flight until closed
+     * @param operation operation name, one of the OP_ constants
+     * @param format output format, or null if the operation has none
+     * @return timing to close when the operation ends
+     */
+    public Timing operation(String operation, String format) {
+        if (!recording) {
+            return new Timing(null, null, operation, null, format);
+        }
+
+        AtomicInteger counter = inFlight.computeIfAbsent(operation, name -> {
+            AtomicInteger value = new AtomicInteger();
+            Gauge.builder(IN_FLIGHT, value, AtomicInteger::get)
+                    .description("PDF operations currently running")
+                    .tag("operation", name)
+                    .register(meterRegistry);
+            return value;
+        });
+        counter.incrementAndGet();
+
+        RequestProfile profile = RequestProfile.current();
+        if (profile != null) {
+            profile.recordOperation(operation);
+        }
+
+        Timer timer = Timer.builder(OPERATION_TIMER)
+                .description("Duration of a PDF operation")
+                .tag("operation", operation)
+                .tag("format", formatTag(format))
+                .register(meterRegistry);
+        return new Timing(timer, counter, operation, null, format);
+    }
+
+    /**
+     * Starts timing one stage of an operation
+     * @param operation operation name, one of the OP_ constants
+     * @param stage stage name, one of the STAGE_ constants
+     * @param format output format, or null if the operation has none
+     * @return timing to close when the stage ends
+     */
+    public Timing stage(String operation, String stage, String format) {
+        if (!recording) {
+            return new Timing(null, null, operation, null, format);
+        }
+
+        Timer timer = Timer.builder(STAGE_TIMER)
+                .description("Duration of a stage of a PDF operation")
+                .tag("operation", operation)
+                .tag("stage", stage)
+                .tag("format", formatTag(format))
+                .register(meterRegistry);
+        return new Timing(timer, null, operation, stage, format);
+    }
+
+    /**
+     * Records the size of the document an operation received
+     * @param operation operation name
+     * @param bytes input size in bytes
+     */
+    public void recordInputSize(String operation, long bytes) {
+        if (!recording) {
+            return;
+        }
+        sizeSummary(INPUT_SIZE, operation, null, null).record(bytes);
+    }
+
+    /**
+     * Records the size of the result an operation produced
+     * @param operation operation name
+     * @param format output format, or null if the operation has none
+     * @param bytes output size in bytes
+     */
+    public void recordOutputSize(String operation, String format, long bytes) {
+        if (!recording) {
+            return;
+        }
+        sizeSummary(OUTPUT_SIZE, operation, null, format).record(bytes);
+    }
+
+    /**
+     * Records the CPU time and allocated bytes of a finished request, summed over the
+     * request thread and every worker or async task it used. Requests that ran no PDF
+     * operation are not recorded.
+     * @param profile profile of the finished request
+     */
+    public void recordRequestUsage(RequestProfile profile) {
+        String operation = profile.getOperation();
+        if (operation == null) {
+            return;
+        }
+
+        Timer.builder(REQUEST_CPU_TIME)
+                .description("CPU time used by a request across all threads")
+                .tag("operation", operation)
+                .register(meterRegistry)
+                .record(profile.getCpuNanos(), TimeUnit.NANOSECONDS);
+        DistributionSummary.builder(REQUEST_ALLOCATED)
+                .description("Heap bytes allocated by a request across all threads")
+                .baseUnit("bytes")
+                .tag("operation", operation)
+                .register(meterRegistry)
+                .record(profile.getAllocatedBytes());
+    }
+
+    private DistributionSummary sizeSummary(String name, String operation, String stage, String format) {
+        DistributionSummary.Builder builder = DistributionSummary.builder(name)
+                .baseUnit("bytes")
+                .tag("operation", operation)
+                .tag("format", formatTag(format));
+        if (stage != null) {
+            builder.tag("stage", stage);
+        }
+        return builder.register(meterRegistry);
+    }
+
+    private static String formatTag(String format) {
+        return format == null || format.isBlank() ? NO_FORMAT : format.toLowerCase();
+    }
+
+    /**
+     * A running timer, recorded on close. Meant for try-with-resources around the timed code.
+     * Stage timings also add up in the request's Server-Timing profile and emit a
+     * {@link PdfStageEvent} when Flight Recorder is on.
+     */
+    public class Timing implements AutoCloseable {
+
+        private final Timer timer;
+        private final AtomicInteger inFlight;
+        private final String operation;
+        private final String stage;
+        private final String format;
+        private final RequestProfile profile = RequestProfile.current();
+        private final PdfStageEvent event;
+        private final long startNanos = System.nanoTime();
+        private int pageIndex = -1;
+        private int dpi;
+        private long bytes = -1;
+        private boolean closed;
+
+        private Timing(Timer timer, AtomicInteger inFlight, String operation, String stage, String format) {
+            this.timer = timer;
+            this.inFlight = inFlight;
+            this.operation = operation;
+            this.stage = stage;
+            this.format = format;
+
+            if (stage != null) {
+                event = new PdfStageEvent();
+                event.begin();
+            } else {
+                event = null;
+            }
+        }
+
+        /**
+         * @param pageIndex 0-based page or ZIP entry index the stage works on
+         * @return this timing
+         */
+        public Timing page(int pageIndex) {
+            this.pageIndex = pageIndex;
+            return this;
+        }
+
+        /**
+         * @param dpi resolution the stage renders at
+         * @return this timing
+         */
+        public Timing dpi(int dpi) {
+            this.dpi = dpi;
+            return this;
+        }
+
+        /**
+         * @param bytes bytes read or produced by the stage, recorded as a size summary
+         * @return this timing
+         */
+        public Timing bytes(long bytes) {
+            this.bytes = bytes;
+            return this;
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+
+            // Handed out while recording was off
+            if (timer == null) {
+                return;
+            }
+
+            long durationNanos = System.nanoTime() - startNanos;
+            timer.record(durationNanos, TimeUnit.NANOSECONDS);
+            if (inFlight != null) {
+                inFlight.decrementAndGet();
+            }
+            if (stage == null) {
+                return;
+            }
+
+            if (bytes >= 0) {
+                sizeSummary(STAGE_SIZE, operation, stage, format).record(bytes);
+            }
+            if (profile != null) {
+                profile.addStage(stage, durationNanos);
+            }
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = operation;
+                event.stage = stage;
+                event.format = format;
+                event.pageIndex = pageIndex;
+                event.bytes = Math.max(bytes, 0);
+                event.dpi = dpi;
+                event.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package in.guardianservices.document_utility_core.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event emitted for every timed stage of a PDF operation: document load,
+ * page render, image compression, save and ZIP entry writes. Disabled events cost a
+ * flag check, so they stay in place in production.
+ */
+@Name("in.guardianservices.document.PdfStage")
+@Label("PDF Stage")
+@Category({"Document Service", "PDF"})
+@Description("One stage of a PDF operation")
+@StackTrace(false)
+public class PdfStageEvent extends Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Stage")
+    String stage;
+
+    @Label("Format")
+    String format;
+
+    @Label("Page Index")
+    @Description("0-based page or entry index, -1 for whole-document stages")
+    int pageIndex;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("DPI")
+    int dpi;
+}
@@ -0,0 +1,188 @@
+package in.guardianservices.document_utility_core.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Stage durations, CPU time and allocated bytes of a single HTTP request. The profile is
+ * bound to the request thread and carried over to worker pool and async response tasks
+ * the request submits, so work that runs on other threads is summed into the same profile.
+ */
+public class RequestProfile {
+
+    private static final ThreadLocal<RequestProfile> CURRENT = new ThreadLocal<>();
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    // Allocation counters are a HotSpot extension of ThreadMXBean
+    private static final com.sun.management.ThreadMXBean ALLOCATIONS =
+            THREADS instanceof com.sun.management.ThreadMXBean hotSpotThreads
+                    && hotSpotThreads.isThreadAllocatedMemorySupported() ? hotSpotThreads : null;
+
+    private static final boolean CPU_TIME_SUPPORTED = THREADS.isThreadCpuTimeSupported();
+
+    private final long startNanos = System.nanoTime();
+
+    // Insertion ordered so the Server-Timing header lists stages in the order they ran
+    private final Map<String, long[]> stageNanos = new LinkedHashMap<>();
+
+    // Threads currently working for this request: {cpu nanos at entry, allocated bytes at entry, depth}
+    private final Map<Thread, long[]> openThreads = new HashMap<>();
+
+    private long cpuNanos;
+    private long allocatedBytes;
+    private String operation;
+
+    /**
+     * @return profile of the request running on this thread, or null outside of a request
+     */
+    public static RequestProfile current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Binds a profile to the current thread
+     * @param profile profile to bind, or null to unbind
+     * @return the previously bound profile, to be restored by the caller
+     */
+    public static RequestProfile bind(RequestProfile profile) {
+        RequestProfile previous = CURRENT.get();
+        if (profile == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(profile);
+        }
+        return previous;
+    }
+
+    /**
+     * Wraps a task so it runs with the profile of the submitting thread and its CPU time
+     * and allocations are charged to that profile
+     * @param task task about to be handed to another thread
+     * @return task bound to the current profile, or the task itself outside of a request
+     */
+    public static Runnable wrap(Runnable task) {
+        RequestProfile profile = CURRENT.get();
+        if (profile == null) {
+            return task;
+        }
+
+        return () -> {
+            RequestProfile previous = bind(profile);
+            profile.enterThread();
+            try {
+                task.run();
+            } finally {
+                profile.exitThread();
+                bind(previous);
+            }
+        };
+    }
+
+    /**
+     * Starts charging the current thread's CPU time and allocations to this profile
+     */
+    public synchronized void enterThread() {
+        Thread thread = Thread.currentThread();
+        long[] entry = openThreads.get(thread);
+        if (entry != null) {
+            entry[2]++;
+            return;
+        }
+        openThreads.put(thread, new long[]{threadCpuNanos(thread), threadAllocatedBytes(thread), 1});
+    }
+
+    /**
+     * Stops charging the current thread, matching an earlier {@link #enterThread()}
+     */
+    public synchronized void exitThread() {
+        Thread thread = Thread.currentThread();
+        long[] entry = openThreads.get(thread);
+        if (entry == null || --entry[2] > 0) {
+            return;
+        }
+
+        openThreads.remove(thread);
+        cpuNanos += Math.max(0, threadCpuNanos(thread) - entry[0]);
+        allocatedBytes += Math.max(0, threadAllocatedBytes(thread) - entry[1]);
+    }
+
+    /**
+     * @return CPU time of every thread that worked for this request so far, in nanoseconds
+     */
+    public synchronized long getCpuNanos() {
+        long total = cpuNanos;
+        for (Map.Entry<Thread, long[]> entry : openThreads.entrySet()) {
+            total += Math.max(0, threadCpuNanos(entry.getKey()) - entry.getValue()[0]);
+        }
+        return total;
+    }
+
+    /**
+     * @return bytes allocated by every thread that worked for this request so far
+     */
+    public synchronized long getAllocatedBytes() {
+        long total = allocatedBytes;
+        for (Map.Entry<Thread, long[]> entry : openThreads.entrySet()) {
+            total += Math.max(0, threadAllocatedBytes(entry.getKey()) - entry.getValue()[1]);
+        }
+        return total;
+    }
+
+    /**
+     * Remembers the first PDF operation the request ran, used to tag its usage metrics
+     * @param operation operation name
+     */
+    public synchronized void recordOperation(String operation) {
+        if (this.operation == null) {
+            this.operation = operation;
+        }
+    }
+
+    /**
+     * @return first PDF operation the request ran, or null if it ran none
+     */
+    public synchronized String getOperation() {
+        return operation;
+    }
+
+    /**
+     * Adds the duration of one stage run; repeated stages such as per-page renders add up
+     * @param stage stage name
+     * @param nanos duration in nanoseconds
+     */
+    public synchronized void addStage(String stage, long nanos) {
+        stageNanos.computeIfAbsent(stage, key -> new long[1])[0] += nanos;
+    }
+
+    /**
+     * Formats the stage totals and the time since the profile was created as a
+     * Server-Timing header value, e.g. {@code load;dur=12.4, render;dur=310.0, total;dur=335.2}
+     * @return header value
+     */
+    public synchronized String toServerTiming() {
+        StringBuilder header = new StringBuilder();
+        stageNanos.forEach((stage, nanos) -> appendMetric(header, stage, nanos[0]));
+        appendMetric(header, "total", System.nanoTime() - startNanos);
+        return header.toString();
+    }
+
+    private static void appendMetric(StringBuilder header, String name, long nanos) {
+        if (!header.isEmpty()) {
+            header.append(", ");
+        }
+        header.append(name).append(";dur=").append(String.format(Locale.ROOT, "%.1f", nanos / 1_000_000.0));
+    }
+
+    private static long threadCpuNanos(Thread thread) {
+        return CPU_TIME_SUPPORTED ? Math.max(0, THREADS.getThreadCpuTime(thread.threadId())) : 0;
+    }
+
+    private static long threadAllocatedBytes(Thread thread) {
+        return ALLOCATIONS != null ? Math.max(0, ALLOCATIONS.getThreadAllocatedBytes(thread.threadId())) : 0;
+    }
+}
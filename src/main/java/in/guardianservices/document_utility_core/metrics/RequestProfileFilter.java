@@ -0,0 +1,203 @@
+package in.guardianservices.document_utility_core.metrics;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Binds a {@link RequestProfile} to every request and reports it:
+ * <ul>
+ *     <li>Server-Timing, X-CPU-Time-Ms and X-Allocated-Bytes headers, added right before
+ *     the first body byte is written. For buffered results this is after all stages ran;
+ *     streamed responses (NDJSON, ZIP streams) only report the work done before they
+ *     started writing.</li>
+ *     <li>CPU time and allocation metrics tagged by operation, recorded once the response
+ *     is complete, including work done while streaming.</li>
+ * </ul>
+ */
+@Component
+public class RequestProfileFilter extends OncePerRequestFilter {
+
+    public static final String SERVER_TIMING_HEADER = "Server-Timing";
+    public static final String CPU_TIME_HEADER = "X-CPU-Time-Ms";
+    public static final String ALLOCATED_BYTES_HEADER = "X-Allocated-Bytes";
+
+    private static final String PROFILE_ATTRIBUTE = RequestProfileFilter.class.getName() + ".profile";
+
+    @Autowired
+    private PdfMetrics pdfMetrics;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        // The async dispatch writing a Callable's result works for the request it completes
+        if (isAsyncDispatch(request) && request.getAttribute(PROFILE_ATTRIBUTE) instanceof RequestProfile profile) {
+            RequestProfile previous = RequestProfile.bind(profile);
+            profile.enterThread();
+            try {
+                filterChain.doFilter(request, response);
+            } finally {
+                profile.exitThread();
+                RequestProfile.bind(previous);
+            }
+            return;
+        }
+
+        RequestProfile profile = new RequestProfile();
+        ProfileHeaderResponseWrapper wrapper = new ProfileHeaderResponseWrapper(response, profile);
+        request.setAttribute(PROFILE_ATTRIBUTE, profile);
+
+        RequestProfile previous = RequestProfile.bind(profile);
+        profile.enterThread();
+        try {
+            filterChain.doFilter(request, wrapper);
+        } finally {
+            profile.exitThread();
+            RequestProfile.bind(previous);
+        }
+
+        if (request.isAsyncStarted()) {
+            // Streamed bodies are written by async tasks, charged through the task decorator
+            request.getAsyncContext().addListener(new UsageRecorder(profile));
+            return;
+        }
+
+        // Responses without a body never triggered the headers
+        wrapper.addProfileHeaders();
+        pdfMetrics.recordRequestUsage(profile);
+    }
+
+    private class UsageRecorder implements AsyncListener {
+
+        private final RequestProfile profile;
+
+        UsageRecorder(RequestProfile profile) {
+            this.profile = profile;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            pdfMetrics.recordRequestUsage(profile);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Streaming a Callable's result starts a second async cycle, which drops the listeners
+            event.getAsyncContext().addListener(this);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    private static class ProfileHeaderResponseWrapper extends HttpServletResponseWrapper {
+
+        private final RequestProfile profile;
+        private volatile boolean headersAdded;
+        private ServletOutputStream outputStream;
+
+        ProfileHeaderResponseWrapper(HttpServletResponse response, RequestProfile profile) {
+            super(response);
+            this.profile = profile;
+        }
+
+        void addProfileHeaders() {
+            if (headersAdded) {
+                return;
+            }
+            headersAdded = true;
+
+            if (!isCommitted()) {
+                setHeader(SERVER_TIMING_HEADER, profile.toServerTiming());
+                setHeader(CPU_TIME_HEADER, String.valueOf(profile.getCpuNanos() / 1_000_000));
+                setHeader(ALLOCATED_BYTES_HEADER, String.valueOf(profile.getAllocatedBytes()));
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                outputStream = new HeadersOnFirstWriteStream(super.getOutputStream());
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            // Writers are only taken right before writing, there is no later hook
+            addProfileHeaders();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            addProfileHeaders();
+            super.flushBuffer();
+        }
+
+        private class HeadersOnFirstWriteStream extends ServletOutputStream {
+
+            private final ServletOutputStream delegate;
+
+            HeadersOnFirstWriteStream(ServletOutputStream delegate) {
+                this.delegate = delegate;
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                addProfileHeaders();
+                delegate.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                addProfileHeaders();
+                delegate.write(b, off, len);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                addProfileHeaders();
+                delegate.flush();
+            }
+
+            @Override
+            public void close() throws IOException {
+                addProfileHeaders();
+                delegate.close();
+            }
+
+            @Override
+            public boolean isReady() {
+                return delegate.isReady();
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                delegate.setWriteListener(writeListener);
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package in.guardianservices.document_utility_core.model;
+
+public class BatchItemResult {
+
+    private int index;
+    private String filename;
+    private String outputName;
+    private String status;
+    private String error;
+    private long size;
+
+    public BatchItemResult() {
+    }
+
+    public BatchItemResult(int index, String filename, String outputName, String status, String error, long size) {
+        this.index = index;
+        this.filename = filename;
+        this.outputName = outputName;
+        this.status = status;
+        this.error = error;
+        this.size = size;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    public void setFilename(String filename) {
+        this.filename = filename;
+    }
+
+    public String getOutputName() {
+        return outputName;
+    }
+
+    public void setOutputName(String outputName) {
+        this.outputName = outputName;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+}
@@ -0,0 +1,51 @@
+package in.guardianservices.document_utility_core.model;
+
+public class PageSize {
+
+    private int page;
+    private float width;
+    private float height;
+    private int rotation;
+
+    public PageSize() {
+    }
+
+    public PageSize(int page, float width, float height, int rotation) {
+        this.page = page;
+        this.width = width;
+        this.height = height;
+        this.rotation = rotation;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public void setPage(int page) {
+        this.page = page;
+    }
+
+    public float getWidth() {
+        return width;
+    }
+
+    public void setWidth(float width) {
+        this.width = width;
+    }
+
+    public float getHeight() {
+        return height;
+    }
+
+    public void setHeight(float height) {
+        this.height = height;
+    }
+
+    public int getRotation() {
+        return rotation;
+    }
+
+    public void setRotation(int rotation) {
+        this.rotation = rotation;
+    }
+}
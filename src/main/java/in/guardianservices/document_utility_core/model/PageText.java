@@ -0,0 +1,41 @@
+package in.guardianservices.document_utility_core.model;
+
+public class PageText {
+
+    private int page;
+    private String text;
+    private String error;
+
+    public PageText() {
+    }
+
+    public PageText(int page, String text, String error) {
+        this.page = page;
+        this.text = text;
+        this.error = error;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public void setPage(int page) {
+        this.page = page;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public void setText(String text) {
+        this.text = text;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,82 @@
+package in.guardianservices.document_utility_core.model;
+
+import java.util.List;
+
+public class PdfMetadata {
+
+    private Integer pageCount;
+    private List<PageSize> pageSizes;
+    private boolean encrypted;
+    private boolean passwordRequired;
+    private String version;
+    private String producer;
+    private Integer estimatedImageCount;
+    private long fileSize;
+
+    public PdfMetadata() {
+    }
+
+    public Integer getPageCount() {
+        return pageCount;
+    }
+
+    public void setPageCount(Integer pageCount) {
+        this.pageCount = pageCount;
+    }
+
+    public List<PageSize> getPageSizes() {
+        return pageSizes;
+    }
+
+    public void setPageSizes(List<PageSize> pageSizes) {
+        this.pageSizes = pageSizes;
+    }
+
+    public boolean isEncrypted() {
+        return encrypted;
+    }
+
+    public void setEncrypted(boolean encrypted) {
+        this.encrypted = encrypted;
+    }
+
+    public boolean isPasswordRequired() {
+        return passwordRequired;
+    }
+
+    public void setPasswordRequired(boolean passwordRequired) {
+        this.passwordRequired = passwordRequired;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public void setVersion(String version) {
+        this.version = version;
+    }
+
+    public String getProducer() {
+        return producer;
+    }
+
+    public void setProducer(String producer) {
+        this.producer = producer;
+    }
+
+    public Integer getEstimatedImageCount() {
+        return estimatedImageCount;
+    }
+
+    public void setEstimatedImageCount(Integer estimatedImageCount) {
+        this.estimatedImageCount = estimatedImageCount;
+    }
+
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    public void setFileSize(long fileSize) {
+        this.fileSize = fileSize;
+    }
+}
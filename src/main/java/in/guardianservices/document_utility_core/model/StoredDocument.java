@@ -0,0 +1,51 @@
+package in.guardianservices.document_utility_core.model;
+
+public class StoredDocument {
+
+    private String documentId;
+    private long size;
+    private boolean deduplicated;
+    private int pageCount;
+
+    public StoredDocument() {
+    }
+
+    public StoredDocument(String documentId, long size, boolean deduplicated, int pageCount) {
+        this.documentId = documentId;
+        this.size = size;
+        this.deduplicated = deduplicated;
+        this.pageCount = pageCount;
+    }
+
+    public String getDocumentId() {
+        return documentId;
+    }
+
+    public void setDocumentId(String documentId) {
+        this.documentId = documentId;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public boolean isDeduplicated() {
+        return deduplicated;
+    }
+
+    public void setDeduplicated(boolean deduplicated) {
+        this.deduplicated = deduplicated;
+    }
+
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    public void setPageCount(int pageCount) {
+        this.pageCount = pageCount;
+    }
+}
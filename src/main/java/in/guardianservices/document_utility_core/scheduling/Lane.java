@@ -0,0 +1,16 @@
+package in.guardianservices.document_utility_core.scheduling;
+
+/**
+ * Admission lanes of the PDF endpoints, each with its own concurrency limit
+ */
+public enum Lane {
+
+    /** Unlock, lock and Base64: cheap whatever the size, never queued behind rendering */
+    FAST,
+
+    /** Everything else below the heavy cost threshold */
+    STANDARD,
+
+    /** Large renders and compressions, and batch jobs */
+    HEAVY
+}
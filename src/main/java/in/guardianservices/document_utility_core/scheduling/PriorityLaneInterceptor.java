@@ -0,0 +1,173 @@
+package in.guardianservices.document_utility_core.scheduling;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Admits PDF requests through per-lane concurrency limits, so large renders and batch jobs
+ * cannot take the capacity reserved for cheap requests. A request without a free permit in
+ * its lane is rejected right away with 503 and Retry-After: waiting would park a servlet
+ * thread, and a burst of heavy requests could then use up the connector threads that fast
+ * requests need to reach their own lane. The permit is held until the response is
+ * complete, including streamed bodies.
+ */
+@Component
+public class PriorityLaneInterceptor implements AsyncHandlerInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(PriorityLaneInterceptor.class);
+
+    private static final String PERMIT_ATTRIBUTE = PriorityLaneInterceptor.class.getName() + ".permit";
+
+    private final Map<Lane, Semaphore> permits = new EnumMap<>(Lane.class);
+    private final Map<Lane, Integer> limits = new EnumMap<>(Lane.class);
+
+    @Autowired
+    private RequestCostClassifier requestCostClassifier;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${doc-service.lanes.fast-permits:16}")
+    private int fastPermits;
+
+    @Value("${doc-service.lanes.standard-permits:8}")
+    private int standardPermits;
+
+    @Value("${doc-service.lanes.heavy-permits:2}")
+    private int heavyPermits;
+
+    @Value("${doc-service.lanes.retry-after:PT5S}")
+    private Duration retryAfter;
+
+    private final Map<Lane, Counter> rejections = new EnumMap<>(Lane.class);
+
+    @PostConstruct
+    public void init() {
+        limits.put(Lane.FAST, fastPermits);
+        limits.put(Lane.STANDARD, standardPermits);
+        limits.put(Lane.HEAVY, heavyPermits);
+
+        limits.forEach((lane, limit) -> {
+            Semaphore semaphore = new Semaphore(limit, true);
+            permits.put(lane, semaphore);
+
+            String tag = lane.name().toLowerCase();
+            Gauge.builder("pdf.lane.active", semaphore, s -> limit - s.availablePermits())
+                    .description("Requests running in the lane")
+                    .tag("lane", tag)
+                    .register(meterRegistry);
+            rejections.put(lane, Counter.builder("pdf.lane.rejected")
+                    .description("Requests rejected because the lane was full")
+                    .tag("lane", tag)
+                    .register(meterRegistry));
+        });
+
+        logger.info("Priority lanes initialized: {}", limits);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+        // The async dispatch that completes a streamed response still holds the original permit
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+
+        Lane lane = requestCostClassifier.classify(request);
+        Semaphore semaphore = permits.get(lane);
+
+        if (!semaphore.tryAcquire()) {
+            logger.warn("No capacity in lane {} for {}", lane, request.getRequestURI());
+            rejections.get(lane).increment();
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, retryAfter.toSeconds())));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(),
+                    Map.of("error", "Server busy, too many " + lane.name().toLowerCase() + " requests in progress"));
+            return false;
+        }
+
+        request.setAttribute(PERMIT_ATTRIBUTE, new Permit(semaphore));
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        // Streamed bodies keep working after the handler returned, release once the response completes
+        if (request.getAttribute(PERMIT_ATTRIBUTE) instanceof Permit permit) {
+            request.getAsyncContext().addListener(permit);
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (!request.isAsyncStarted() && request.getAttribute(PERMIT_ATTRIBUTE) instanceof Permit permit) {
+            permit.release();
+        }
+    }
+
+    /**
+     * Lane permit of one request, released exactly once by whichever completion path runs first
+     */
+    private static class Permit implements AsyncListener {
+
+        private final Semaphore semaphore;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Permit(Semaphore semaphore) {
+            this.semaphore = semaphore;
+        }
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                semaphore.release();
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package in.guardianservices.document_utility_core.scheduling;
+
+import in.guardianservices.document_utility_core.model.StoredDocument;
+import in.guardianservices.document_utility_core.service.PdfStorageService;
+import in.guardianservices.document_utility_core.utils.FileUtils;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.multipart.MultipartHttpServletRequest;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Assigns requests to a {@link Lane} by estimated cost: the operation, its page count and,
+ * for rendering, the DPI. Cost is counted in page renders at 150 DPI.
+ */
+@Component
+public class RequestCostClassifier {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestCostClassifier.class);
+
+    private static final Set<String> FAST_OPERATIONS = Set.of("unlock", "lock", "pdf-to-base64", "base64-to-pdf");
+
+    private static final Map<String, Double> COST_PER_PAGE = Map.of(
+            "compress", 1.0,
+            "to-images", 1.0,
+            "extract-images", 0.5,
+            "extract-text", 0.2,
+            "split", 0.05,
+            "merge", 0.05,
+            "metadata", 0.05);
+
+    private static final int REFERENCE_DPI = 150;
+
+    @Autowired
+    private PdfStorageService pdfStorageService;
+
+    @Value("${doc-service.lanes.heavy-cost:100}")
+    private double heavyCost;
+
+    @Value("${doc-service.lanes.page-count-scan-kb:256}")
+    private int pageCountScanKb;
+
+    /**
+     * @param request request about to be handled, multipart content already resolved
+     * @return lane the request is admitted through
+     */
+    public Lane classify(HttpServletRequest request) {
+        String path = request.getRequestURI();
+
+        if (path.contains("/batch/")) {
+            return Lane.HEAVY;
+        }
+
+        String operation = operationOf(path);
+        if (FAST_OPERATIONS.contains(operation)) {
+            return Lane.FAST;
+        }
+
+        double costPerPage = COST_PER_PAGE.getOrDefault(operation, 1.0);
+        if ("to-images".equals(operation)) {
+            int dpi = intParameter(request, "dpi", 300);
+            costPerPage *= (double) dpi * dpi / (REFERENCE_DPI * REFERENCE_DPI);
+        }
+
+        double cost = costPerPage * estimatePages(request);
+        Lane lane = cost >= heavyCost ? Lane.HEAVY : Lane.STANDARD;
+        logger.debug("Request {} estimated at {} page renders, lane {}", path, cost, lane);
+        return lane;
+    }
+
+    private long estimatePages(HttpServletRequest request) {
+        long pages = 0;
+
+        if (request instanceof MultipartHttpServletRequest multipartRequest) {
+            for (List<MultipartFile> files : multipartRequest.getMultiFileMap().values()) {
+                for (MultipartFile file : files) {
+                    // Runs before admission, so only both ends of an upload are read
+                    pages += FileUtils.estimatePageCount(file, pageCountScanKb * 1024L);
+                }
+            }
+        }
+
+        // Operations on stored documents name them by ID, their page count is kept in the store's index
+        for (String documentId : documentIds(request)) {
+            StoredDocument storedDocument = pdfStorageService.describe(documentId);
+            if (storedDocument != null) {
+                pages += storedDocument.getPageCount();
+            }
+            // Unknown documents are rejected by the handler itself
+        }
+
+        return Math.max(pages, 1);
+    }
+
+    private static List<String> documentIds(HttpServletRequest request) {
+        List<String> documentIds = new ArrayList<>();
+
+        Object pathVariables = request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (pathVariables instanceof Map<?, ?> variables && variables.get("documentId") instanceof String documentId) {
+            documentIds.add(documentId);
+        }
+
+        String[] parameter = request.getParameterValues("documentIds");
+        if (parameter != null) {
+            for (String value : parameter) {
+                for (String documentId : value.split(",")) {
+                    if (!documentId.isBlank()) {
+                        documentIds.add(documentId.trim());
+                    }
+                }
+            }
+        }
+
+        return documentIds;
+    }
+
+    /**
+     * @param path request URI
+     * @return operation the request runs, e.g. to-images, or batch for the batch endpoints
+     */
+    public static String operationOf(String path) {
+        if (path.contains("/batch/")) {
+            return "batch";
+        }
+        String trimmed = path.endsWith("/stream") ? path.substring(0, path.length() - "/stream".length()) : path;
+        return trimmed.substring(trimmed.lastIndexOf('/') + 1);
+    }
+
+    private static int intParameter(HttpServletRequest request, String name, int defaultValue) {
+        String value = request.getParameter(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package in.guardianservices.document_utility_core.service;
+
+import in.guardianservices.document_utility_core.model.BatchItemResult;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+public interface PdfBatchService {
+
+    List<BatchItemResult> unlockAll(List<MultipartFile> files, String password, OutputStream outputStream)
+            throws IOException;
+
+    List<BatchItemResult> lockAll(List<MultipartFile> files, String password, OutputStream outputStream)
+            throws IOException;
+}
@@ -1,31 +1,50 @@
 package in.guardianservices.document_utility_core.service;
 
+import in.guardianservices.document_utility_core.model.PdfMetadata;
+import in.guardianservices.document_utility_core.utils.ChunkedOutputBuffer;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
 import java.util.List;
 
 public interface PdfService {
 
-    byte[] unlockPdf(MultipartFile file, String password) throws IOException;
+    ChunkedOutputBuffer unlockPdf(MultipartFile file, String password) throws IOException;
 
-    byte[] lockUnlockedPdfStandard(MultipartFile file, String password) throws IOException;
+    ChunkedOutputBuffer lockUnlockedPdfStandard(MultipartFile file, String password) throws IOException;
 
     String convertPdfToBase64(MultipartFile file) throws IOException;
 
+    long writePdfAsBase64Json(MultipartFile file, OutputStream outputStream) throws IOException;
+
     byte[] convertBase64ToPdf(String base64String);
 
-    byte[] compressPdf(MultipartFile file, float quality) throws IOException;
+    Path convertBase64StreamToPdf(InputStream base64Stream) throws IOException;
+
+    ChunkedOutputBuffer compressPdf(MultipartFile file, float quality) throws IOException;
 
-    byte[] mergePdfs(List<MultipartFile> files) throws IOException;
+    ChunkedOutputBuffer mergePdfs(List<MultipartFile> files) throws IOException;
 
-    List<byte[]> splitPdf(MultipartFile file, String pageRanges) throws IOException;
+    List<ChunkedOutputBuffer> splitPdf(MultipartFile file, String pageRanges) throws IOException;
 
-    byte[] createZipFromPdfs(List<byte[]> splitPdfs) throws IOException;
+    ChunkedOutputBuffer createZipFromPdfs(List<ChunkedOutputBuffer> splitPdfs) throws IOException;
 
-    List<byte[]> convertPdfToImages(MultipartFile file, String format, int dpi) throws IOException;
+    List<ChunkedOutputBuffer> convertPdfToImages(MultipartFile file, String format, int dpi) throws IOException;
 
-    byte[] createZipFromImages(List<byte[]> images, String format) throws IOException;
+    List<ChunkedOutputBuffer> convertPdfToImages(MultipartFile file, String format, int dpi, String colorMode) throws IOException;
+
+    ChunkedOutputBuffer createZipFromImages(List<ChunkedOutputBuffer> images, String format) throws IOException;
 
     List<String> convert(String filePath) throws IOException;
+
+    List<String> convert(Path inputFile, Path outputDirectory, String format, int dpi) throws IOException;
+
+    int extractImages(MultipartFile file, OutputStream outputStream) throws IOException;
+
+    int extractText(MultipartFile file, OutputStream outputStream) throws IOException;
+
+    PdfMetadata getMetadata(MultipartFile file, String password) throws IOException;
 }
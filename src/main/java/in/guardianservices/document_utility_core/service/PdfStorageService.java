@@ -0,0 +1,21 @@
+package in.guardianservices.document_utility_core.service;
+
+import in.guardianservices.document_utility_core.model.StoredDocument;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+
+public interface PdfStorageService {
+
+    StoredDocument store(MultipartFile file) throws IOException;
+
+    MultipartFile acquire(String documentId);
+
+    void release(String documentId);
+
+    StoredDocument describe(String documentId);
+
+    boolean exists(String documentId);
+
+    int evictExpired();
+}
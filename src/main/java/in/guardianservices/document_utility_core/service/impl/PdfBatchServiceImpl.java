@@ -0,0 +1,183 @@
+package in.guardianservices.document_utility_core.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import in.guardianservices.document_utility_core.batch.BatchItemRunner;
+import in.guardianservices.document_utility_core.model.BatchItemResult;
+import in.guardianservices.document_utility_core.service.PdfBatchService;
+import in.guardianservices.document_utility_core.utils.ChunkedOutputBuffer;
+import in.guardianservices.document_utility_core.utils.ZipEntryWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+@Service
+public class PdfBatchServiceImpl implements PdfBatchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PdfBatchServiceImpl.class);
+
+    private static final String MANIFEST_NAME = "manifest.json";
+
+    @Autowired
+    @Qualifier("pdfWorkerPool")
+    private ThreadPoolExecutor pdfWorkerPool;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private BatchItemRunner batchItemRunner;
+
+    @Autowired
+    private ZipEntryWriter zipEntryWriter;
+
+    /**
+     * Unlocks every file with the same password in parallel and streams the results as a ZIP
+     * @param files password-protected PDFs
+     * @param password password shared by all files
+     * @param outputStream stream receiving the ZIP, left open
+     * @return per-file results, also written to manifest.json inside the ZIP
+     */
+    @Override
+    public List<BatchItemResult> unlockAll(List<MultipartFile> files, String password, OutputStream outputStream)
+            throws IOException {
+        return processAll(files, "unlocked_", file -> batchItemRunner.unlock(file, password), outputStream);
+    }
+
+    /**
+     * Locks every file with the same password and standard permissions in parallel and
+     * streams the results as a ZIP
+     * @param files unlocked PDFs
+     * @param password password applied to all files
+     * @param outputStream stream receiving the ZIP, left open
+     * @return per-file results, also written to manifest.json inside the ZIP
+     */
+    @Override
+    public List<BatchItemResult> lockAll(List<MultipartFile> files, String password, OutputStream outputStream)
+            throws IOException {
+        return processAll(files, "locked_", file -> batchItemRunner.lock(file, password), outputStream);
+    }
+
+    /**
+     * Runs the operation for every file on the worker pool and writes each result to the
+     * ZIP as soon as it completes, followed by a manifest of all results. No more files than
+     * there are workers are submitted at a time, so a large batch does not queue ahead of the
+     * tasks other requests submit to the shared pool.
+     */
+    private List<BatchItemResult> processAll(List<MultipartFile> files, String outputPrefix,
+                                             PdfOperation operation, OutputStream outputStream) throws IOException {
+        logger.info("Starting batch operation for {} files", files.size());
+
+        CompletionService<BatchItemRunner.Outcome<ChunkedOutputBuffer>> completionService = new ExecutorCompletionService<>(pdfWorkerPool);
+        List<Future<BatchItemRunner.Outcome<ChunkedOutputBuffer>>> futures = new ArrayList<>();
+        int window = Math.max(1, pdfWorkerPool.getMaximumPoolSize());
+        int submitted = 0;
+
+        List<BatchItemResult> results = new ArrayList<>();
+        ZipOutputStream zip = zipEntryWriter.open(outputStream);
+
+        try {
+            for (; submitted < Math.min(window, files.size()); submitted++) {
+                futures.add(submit(completionService, files, submitted, outputPrefix, operation));
+            }
+
+            for (int completed = 0; completed < files.size(); completed++) {
+                Future<BatchItemRunner.Outcome<ChunkedOutputBuffer>> done = completionService.take();
+                // Taken outcomes are released below, the rest are released when the batch stops
+                futures.remove(done);
+                if (submitted < files.size()) {
+                    futures.add(submit(completionService, files, submitted++, outputPrefix, operation));
+                }
+                BatchItemRunner.Outcome<ChunkedOutputBuffer> outcome = done.get();
+                results.add(outcome.result());
+
+                if (outcome.output() != null) {
+                    try {
+                        // PDF streams are mostly Flate-compressed already, the writer stores those
+                        zipEntryWriter.writeEntry(zip, outcome.result().getOutputName(), outcome.output());
+                    } finally {
+                        outcome.output().release();
+                    }
+                }
+            }
+
+            results.sort(Comparator.comparingInt(BatchItemResult::getIndex));
+            zip.putNextEntry(new ZipEntry(MANIFEST_NAME));
+            zip.write(objectMapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(results));
+            zip.closeEntry();
+            zip.finish();
+            zip.flush();
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Batch operation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Batch operation failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            // Client went away or writing failed, stop the remaining files
+            futures.forEach(future -> future.cancel(true));
+            futures.forEach(PdfBatchServiceImpl::releaseOutput);
+        }
+
+        long failed = results.stream()
+                .filter(result -> BatchItemRunner.STATUS_FAILED.equals(result.getStatus()))
+                .count();
+        logger.info("Batch operation completed. Succeeded: {}, failed: {}", results.size() - failed, failed);
+        return results;
+    }
+
+    private Future<BatchItemRunner.Outcome<ChunkedOutputBuffer>> submit(
+            CompletionService<BatchItemRunner.Outcome<ChunkedOutputBuffer>> completionService, List<MultipartFile> files,
+            int index, String outputPrefix, PdfOperation operation) {
+        MultipartFile file = files.get(index);
+        return completionService.submit(() -> runItem(index, file, outputPrefix, operation));
+    }
+
+    private BatchItemRunner.Outcome<ChunkedOutputBuffer> runItem(int index, MultipartFile file, String outputPrefix,
+                                                                 PdfOperation operation) {
+        String filename = file.getOriginalFilename() != null ? file.getOriginalFilename() : "document.pdf";
+        // Index prefix keeps entry names unique when several uploads share a filename
+        String outputName = String.format("%03d_%s%s", index + 1, outputPrefix, filename);
+
+        return batchItemRunner.run(index, filename, outputName, () -> operation.apply(file), ChunkedOutputBuffer::size);
+    }
+
+    /**
+     * Releases the output of a file that finished but was never written to the ZIP
+     */
+    private static void releaseOutput(Future<BatchItemRunner.Outcome<ChunkedOutputBuffer>> future) {
+        if (!future.isDone() || future.isCancelled()) {
+            return;
+        }
+        try {
+            ChunkedOutputBuffer output = future.get().output();
+            if (output != null) {
+                output.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            logger.debug("Batch item failed after the batch stopped", e.getCause());
+        }
+    }
+
+    @FunctionalInterface
+    private interface PdfOperation {
+        ChunkedOutputBuffer apply(MultipartFile file) throws Exception;
+    }
+}
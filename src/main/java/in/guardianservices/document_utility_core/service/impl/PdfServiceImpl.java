@@ -1,24 +1,54 @@
 package in.guardianservices.document_utility_core.service.impl;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import in.guardianservices.document_utility_core.cancellation.CancellationToken;
 import in.guardianservices.document_utility_core.exception.InvalidPasswordException;
+import in.guardianservices.document_utility_core.exception.PayloadTooLargeException;
+import in.guardianservices.document_utility_core.metrics.PdfMetrics;
 import in.guardianservices.document_utility_core.model.PageRange;
+import in.guardianservices.document_utility_core.model.PageSize;
+import in.guardianservices.document_utility_core.model.PageText;
+import in.guardianservices.document_utility_core.model.PdfMetadata;
 import in.guardianservices.document_utility_core.service.PdfService;
+import in.guardianservices.document_utility_core.utils.ChunkedBufferPool;
+import in.guardianservices.document_utility_core.utils.ChunkedOutputBuffer;
 import in.guardianservices.document_utility_core.utils.FileUtils;
+import in.guardianservices.document_utility_core.utils.InMemoryPdfFile;
+import in.guardianservices.document_utility_core.utils.PageCheckpoint;
+import in.guardianservices.document_utility_core.utils.PageCheckpointStore;
+import in.guardianservices.document_utility_core.utils.PageColorAnalyzer;
+import in.guardianservices.document_utility_core.utils.PdfPasswordVerifier;
+import in.guardianservices.document_utility_core.utils.PdfSignatureOutputStream;
+import in.guardianservices.document_utility_core.utils.ScannedPageDetector;
+import in.guardianservices.document_utility_core.utils.SizeLimitedInputStream;
+import in.guardianservices.document_utility_core.utils.ZipEntryWriter;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
 import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.multipdf.PDFMergerUtility;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.pdmodel.encryption.AccessPermission;
 import org.apache.pdfbox.pdmodel.encryption.StandardProtectionPolicy;
 import org.apache.pdfbox.pdmodel.graphics.PDXObject;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
+import org.apache.pdfbox.pdmodel.graphics.image.JPEGFactory;
 import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
 import org.apache.pdfbox.rendering.ImageType;
 import org.apache.pdfbox.rendering.PDFRenderer;
+import org.apache.pdfbox.text.PDFTextStripper;
 import org.apache.pdfbox.tools.imageio.ImageIOUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.imageio.IIOImage;
@@ -28,15 +58,30 @@ import javax.imageio.ImageWriter;
 import javax.imageio.stream.ImageOutputStream;
 import java.awt.*;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
-import java.util.zip.ZipEntry;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.zip.ZipOutputStream;
 
 @Service
@@ -44,87 +89,158 @@ public class PdfServiceImpl implements PdfService {
 
     private static final Logger logger = LoggerFactory.getLogger(PdfServiceImpl.class);
 
+    private static final byte[] BASE64_JSON_PREFIX = "{\"base64\":\"".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] BASE64_JSON_SUFFIX = "\"}".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] DATA_URL_SCHEME = "data:".getBytes(StandardCharsets.US_ASCII);
+    private static final int MAX_DATA_URL_PREFIX_LENGTH = 256;
+
+    // Bounds memory when the client reads NDJSON slower than workers extract pages
+    private static final int TEXT_RESULT_QUEUE_CAPACITY = 64;
+
+    // How often a request waiting for extracted pages checks for cancellation and failed workers
+    private static final long TEXT_RESULT_POLL_MILLIS = 200;
+
+    // Output of convert(String), checkpointed directories in it are evicted like the other checkpoints
+    private static final Path IMAGE_OUTPUT_ROOT = Path.of("/tmp/pdf-images");
+
+    @Autowired
+    @Qualifier("pdfWorkerPool")
+    private ThreadPoolExecutor pdfWorkerPool;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ChunkedBufferPool bufferPool;
+
+    @Autowired
+    private PdfMetrics pdfMetrics;
+
+    @Autowired
+    private ZipEntryWriter zipEntryWriter;
+
+    @Autowired
+    private PageCheckpointStore pageCheckpointStore;
+
+    @Value("${doc-service.base64.ingest-max-size-mb:100}")
+    private int base64IngestMaxSizeMb;
+
     /**
-     * Unlocks a password-protected PDF and returns the unlocked PDF as byte array
+     * Unlocks a password-protected PDF and returns the unlocked PDF as a buffer
      * @param file MultipartFile containing the password-protected PDF
      * @param password Password to unlock the PDF
-     * @return byte array of the unlocked PDF
+     * @return buffer holding the unlocked PDF, to be released by the caller
      * @throws InvalidPasswordException if the password is incorrect
      */
-    public byte[] unlockPdf(MultipartFile file, String password) throws InvalidPasswordException, IOException {
-
-        logger.info("Starting PDF unlock process for file: {}", file.getOriginalFilename());
+    public ChunkedOutputBuffer unlockPdf(MultipartFile file, String password) throws InvalidPasswordException, IOException {
+        try (PdfMetrics.Timing operationTiming = pdfMetrics.operation(PdfMetrics.OP_UNLOCK, null)) {
+            pdfMetrics.recordInputSize(PdfMetrics.OP_UNLOCK, file.getSize());
 
-        // Validate extension
-        if (!FileUtils.isValidPdf(file)) {
-            logger.error("Invalid PDF found for file: {}", file.getOriginalFilename());
-            throw new IllegalArgumentException("Invalid PDF found for file: " + file.getOriginalFilename());
-        }
-        // Validate is pdf password protected
-        if (!FileUtils.isPasswordProtected(file)) {
-            logger.error("PDF is not password protected for file: {}", file.getOriginalFilename());
-            throw new IllegalArgumentException("PDF is not password protected for file: " + file.getOriginalFilename());
-        }
-        // Validate input
-        if (file.isEmpty()) {
-            throw new IllegalArgumentException("File cannot be null or empty");
-        }
+            logger.info("Starting PDF unlock process for file: {}", file.getOriginalFilename());
 
-        if (password == null || password.trim().isEmpty()) {
-            throw new IllegalArgumentException("Password cannot be null or empty");
-        }
+            try (PdfMetrics.Timing ignored = pdfMetrics.stage(PdfMetrics.OP_UNLOCK, PdfMetrics.STAGE_VALIDATE, null)) {
+                // Validate input
+                if (file.isEmpty()) {
+                    throw new IllegalArgumentException("File cannot be null or empty");
+                }
 
-        PDDocument document = null;
-        ByteArrayOutputStream outputStream = null;
+                if (password == null || password.trim().isEmpty()) {
+                    throw new IllegalArgumentException("Password cannot be null or empty");
+                }
 
-        try {
-            // Load the PDF document with password
-            document = PDDocument.load(file.getInputStream(), password);
+                // Check the password against the encryption dictionary before paying for any full load.
+                // INVALID is only reported for a cleanly read trailer, anything in doubt is UNKNOWN and
+                // decided by PDFBox below
+                PdfPasswordVerifier.Result passwordCheck = PdfPasswordVerifier.verify(file, password);
+                if (passwordCheck == PdfPasswordVerifier.Result.INVALID) {
+                    logger.error("Invalid password provided for PDF: {}", file.getOriginalFilename());
+                    throw new InvalidPasswordException("Invalid password provided for PDF");
+                }
 
-            logger.info("PDF loaded successfully with provided password");
+                // Validate extension
+                if (!FileUtils.isValidPdf(file)) {
+                    logger.error("Invalid PDF found for file: {}", file.getOriginalFilename());
+                    throw new IllegalArgumentException("Invalid PDF found for file: " + file.getOriginalFilename());
+                }
 
-            // Check if document is actually encrypted
-            if (!document.isEncrypted()) {
-                logger.info("PDF is not encrypted, returning original file");
-                return file.getBytes();
+                // Validate is pdf password protected, loading it only if the trailer could not be read
+                if (passwordCheck == PdfPasswordVerifier.Result.NOT_ENCRYPTED
+                        || (passwordCheck == PdfPasswordVerifier.Result.UNKNOWN && !FileUtils.isPasswordProtected(file))) {
+                    logger.error("PDF is not password protected for file: {}", file.getOriginalFilename());
+                    throw new IllegalArgumentException("PDF is not password protected for file: " + file.getOriginalFilename());
+                }
             }
 
-            // Log current permissions for infoging
-            if (document.getCurrentAccessPermission() != null) {
-                boolean canModify = document.getCurrentAccessPermission().canModify();
-                boolean canExtract = document.getCurrentAccessPermission().canExtractContent();
-                logger.info("PDF permissions - canModify: {}, canExtract: {}", canModify, canExtract);
-            }
+            PDDocument document = null;
+            ChunkedOutputBuffer outputStream = null;
 
-            // Remove all security restrictions
-            document.setAllSecurityToBeRemoved(true);
+            try {
+                // Load the PDF document with password
+                try (PdfMetrics.Timing ignored = pdfMetrics.stage(PdfMetrics.OP_UNLOCK, PdfMetrics.STAGE_DECRYPT, null)
+                        .bytes(file.getSize())) {
+                    document = PDDocument.load(file.getInputStream(), password);
+                }
 
-            // Save the unlocked PDF to byte array
-            outputStream = new ByteArrayOutputStream();
-            document.save(outputStream);
+                logger.info("PDF loaded successfully with provided password");
+
+                // Check if document is actually encrypted
+                if (!document.isEncrypted()) {
+                    logger.info("PDF is not encrypted, returning original file");
+                    ChunkedOutputBuffer original = bufferPool.newBuffer();
+                    try (InputStream inputStream = file.getInputStream()) {
+                        original.writeFrom(inputStream);
+                    } catch (IOException | RuntimeException e) {
+                        original.release();
+                        throw e;
+                    }
+                    return original;
+                }
 
-            byte[] unlockedPdfBytes = outputStream.toByteArray();
-            logger.info("PDF successfully unlocked, output size: {} bytes", unlockedPdfBytes.length);
+                // Log current permissions for infoging
+                if (document.getCurrentAccessPermission() != null) {
+                    boolean canModify = document.getCurrentAccessPermission().canModify();
+                    boolean canExtract = document.getCurrentAccessPermission().canExtractContent();
+                    logger.info("PDF permissions - canModify: {}, canExtract: {}", canModify, canExtract);
+                }
 
-            return unlockedPdfBytes;
+                // Remove all security restrictions
+                document.setAllSecurityToBeRemoved(true);
+
+                // Save the unlocked PDF to a pooled buffer
+                outputStream = bufferPool.newBuffer();
+                try (PdfMetrics.Timing timing = pdfMetrics.stage(PdfMetrics.OP_UNLOCK, PdfMetrics.STAGE_SAVE, null)) {
+                    document.save(outputStream);
+                    timing.bytes(outputStream.size());
+                } catch (IOException | RuntimeException e) {
+                    // Return the chunks to the pool, nobody else holds the buffer yet
+                    outputStream.release();
+                    throw e;
+                }
 
-        } catch (IOException e) {
-            // Check if the error is due to incorrect password
-            if (e.getMessage() != null &&
-                    (e.getMessage().contains("password") ||
-                            e.getMessage().contains("Cannot decrypt PDF") ||
-                            e.getMessage().contains("Bad user password"))) {
-                logger.error("Invalid password provided for PDF: {}", file.getOriginalFilename());
-                throw new InvalidPasswordException("Invalid password provided for PDF");
-            }
+                logger.info("PDF successfully unlocked, output size: {} bytes", outputStream.size());
+                pdfMetrics.recordOutputSize(PdfMetrics.OP_UNLOCK, null, outputStream.size());
 
-            // Re-throw other IO exceptions
-            logger.error("Error processing PDF file: {}", e.getMessage());
-            throw new IOException("Error processing PDF file: " + e.getMessage(), e);
+                return outputStream;
 
-        } finally {
-            // Clean up resources
-            closeOutputStream(document, outputStream);
+            } catch (IOException e) {
+                // Check if the error is due to incorrect password
+                if (e.getMessage() != null &&
+                        (e.getMessage().contains("password") ||
+                                e.getMessage().contains("Cannot decrypt PDF") ||
+                                e.getMessage().contains("Bad user password"))) {
+                    logger.error("Invalid password provided for PDF: {}", file.getOriginalFilename());
+                    throw new InvalidPasswordException("Invalid password provided for PDF");
+                }
+
+                // Re-throw other IO exceptions
+                logger.error("Error processing PDF file: {}", e.getMessage());
+                throw new IOException("Error processing PDF file: " + e.getMessage(), e);
+
+            } finally {
+                // Clean up resources
+                closeOutputStream(document, outputStream);
+            }
         }
     }
 
@@ -132,9 +248,9 @@ public class PdfServiceImpl implements PdfService {
      * Locks an unlocked PDF with standard permissions (allow printing and copying)
      * @param file MultipartFile containing the unlocked PDF
      * @param password Password to open and modify the PDF
-     * @return byte array of the locked PDF
+     * @return buffer holding the locked PDF, to be released by the caller
      */
-    public byte[] lockUnlockedPdfStandard(MultipartFile file, String password)
+    public ChunkedOutputBuffer lockUnlockedPdfStandard(MultipartFile file, String password)
             throws IllegalStateException, IOException {
 
         AccessPermission permissions = new AccessPermission();
@@ -153,66 +269,84 @@ public class PdfServiceImpl implements PdfService {
      * @param file MultipartFile containing the unlocked PDF
      * @param password Password required to open the PDF (also used as owner password)
      * @param permissions AccessPermission object defining what users can do
-     * @return byte array of the locked PDF
+     * @return buffer holding the locked PDF, to be released by the caller
      * @throws IOException if there's an error processing the PDF
      * @throws IllegalStateException if the PDF is already password protected
      */
-    public byte[] lockUnlockedPdf(MultipartFile file, String password,
-                                  AccessPermission permissions) throws IOException, IllegalStateException {
+    public ChunkedOutputBuffer lockUnlockedPdf(MultipartFile file, String password,
+                                               AccessPermission permissions) throws IOException, IllegalStateException {
+        try (PdfMetrics.Timing operationTiming = pdfMetrics.operation(PdfMetrics.OP_LOCK, null)) {
+            pdfMetrics.recordInputSize(PdfMetrics.OP_LOCK, file.getSize());
 
-        logger.info("Starting PDF lock process for unlocked file: {}", file.getOriginalFilename());
+            logger.info("Starting PDF lock process for unlocked file: {}", file.getOriginalFilename());
 
-        // Validate input
-        if (file.isEmpty()) {
-            throw new IllegalArgumentException("File cannot be null or empty");
-        }
+            // Validate input
+            if (file.isEmpty()) {
+                throw new IllegalArgumentException("File cannot be null or empty");
+            }
 
-        if (password == null || password.trim().isEmpty()) {
-            throw new IllegalArgumentException("Password is required");
-        }
+            if (password == null || password.trim().isEmpty()) {
+                throw new IllegalArgumentException("Password is required");
+            }
 
-        PDDocument document = null;
-        ByteArrayOutputStream outputStream = null;
+            PDDocument document = null;
+            ChunkedOutputBuffer outputStream = null;
 
-        try {
-            // Load the unlocked PDF document
-            document = PDDocument.load(file.getInputStream());
+            try {
+                // Load the unlocked PDF document
+                try (PdfMetrics.Timing ignored = pdfMetrics.stage(PdfMetrics.OP_LOCK, PdfMetrics.STAGE_LOAD, null)
+                        .bytes(file.getSize())) {
+                    document = PDDocument.load(file.getInputStream());
+                }
 
-            logger.info("Unlocked PDF loaded successfully, applying security settings");
+                logger.info("Unlocked PDF loaded successfully, applying security settings");
 
-            // Verify it's truly unlocked
-            if (document.isEncrypted()) {
-                throw new IllegalStateException("PDF appears to be encrypted despite initial check");
-            }
+                // Verify it's truly unlocked
+                if (document.isEncrypted()) {
+                    throw new IllegalStateException("PDF appears to be encrypted despite initial check");
+                }
 
-            // Create protection policy (use same password for both user and owner)
-            StandardProtectionPolicy policy = new StandardProtectionPolicy(password, password, permissions);
+                // Create protection policy (use same password for both user and owner)
+                StandardProtectionPolicy policy = new StandardProtectionPolicy(password, password, permissions);
 
-            // Set encryption key length (128-bit AES)
-            policy.setEncryptionKeyLength(128);
+                // Set encryption key length (128-bit AES)
+                policy.setEncryptionKeyLength(128);
 
-            // Set additional security options
-            policy.setPreferAES(true); // Use AES encryption
+                // Set additional security options
+                policy.setPreferAES(true); // Use AES encryption
 
-            // Apply the protection policy
-            document.protect(policy);
+                // Apply the protection policy
+                document.protect(policy);
 
-            // Save the locked PDF to byte array
-            outputStream = new ByteArrayOutputStream();
-            document.save(outputStream);
+                // Save the locked PDF to a pooled buffer, encryption happens while saving
+                outputStream = bufferPool.newBuffer();
+                try (PdfMetrics.Timing timing = pdfMetrics.stage(PdfMetrics.OP_LOCK, PdfMetrics.STAGE_SAVE, null)) {
+                    document.save(outputStream);
+                    timing.bytes(outputStream.size());
+                } catch (IOException | RuntimeException e) {
+                    outputStream.release();
+                    throw e;
+                }
 
-            byte[] lockedPdfBytes = outputStream.toByteArray();
-            logger.info("PDF successfully locked, output size: {} bytes", lockedPdfBytes.length);
+                logger.info("PDF successfully locked, output size: {} bytes", outputStream.size());
+                pdfMetrics.recordOutputSize(PdfMetrics.OP_LOCK, null, outputStream.size());
 
-            return lockedPdfBytes;
+                return outputStream;
 
-        } finally {
-            // Clean up resources
-            closeOutputStream(document, outputStream);
+            } finally {
+                // Clean up resources
+                closeOutputStream(document, outputStream);
+            }
         }
     }
 
-    private void closeOutputStream(PDDocument document, ByteArrayOutputStream outputStream) {
+    private PDDocument loadDocument(MultipartFile file, String operation) throws IOException {
+        try (PdfMetrics.Timing ignored = pdfMetrics.stage(operation, PdfMetrics.STAGE_LOAD, null).bytes(file.getSize())) {
+            return PDDocument.load(file.getInputStream());
+        }
+    }
+
+    private void closeOutputStream(PDDocument document, OutputStream outputStream) {
         if (outputStream != null) {
             try {
                 outputStream.close();
@@ -240,36 +374,78 @@ public class PdfServiceImpl implements PdfService {
     @Override
 
     public String convertPdfToBase64(MultipartFile file) throws IOException {
-        if (file == null) {
-            throw new IllegalArgumentException("File cannot be null");
-        }
+        try (PdfMetrics.Timing operationTiming = pdfMetrics.operation(PdfMetrics.OP_PDF_TO_BASE64, "json")) {
+            if (file == null) {
+                throw new IllegalArgumentException("File cannot be null");
+            }
+
+            if (file.isEmpty()) {
+                throw new IllegalArgumentException("File cannot be empty");
+            }
+
+            try {
+                logger.info("Converting PDF file '{}' to Base64, size: {} bytes",
+                        file.getOriginalFilename(), file.getSize());
 
-        if (file.isEmpty()) {
-            throw new IllegalArgumentException("File cannot be empty");
+                // Get the file bytes
+                byte[] fileBytes = file.getBytes();
+
+                // Encode to Base64
+                String base64String = Base64.getEncoder().encodeToString(fileBytes);
+
+                logger.info("Successfully converted PDF to Base64. Original size: {} bytes, Base64 length: {} characters",
+                        fileBytes.length, base64String.length());
+
+                return base64String;
+
+            } catch (IOException e) {
+                logger.error("Failed to read file '{}': {}", file.getOriginalFilename(), e.getMessage());
+                throw new IOException("Failed to read PDF file: " + e.getMessage(), e);
+            } catch (Exception e) {
+                logger.error("Unexpected error while converting PDF '{}' to Base64: {}",
+                        file.getOriginalFilename(), e.getMessage());
+                throw new RuntimeException("Unexpected error during PDF conversion", e);
+            }
         }
+    }
 
-        try {
-            logger.info("Converting PDF file '{}' to Base64, size: {} bytes",
-                    file.getOriginalFilename(), file.getSize());
+    /**
+     * Streams a MultipartFile PDF as a {"base64": "..."} JSON document without holding
+     * the file, the encoded String or the JSON buffer in memory
+     * @param file the MultipartFile containing PDF data
+     * @param outputStream stream receiving the JSON, left open
+     * @return number of PDF bytes encoded
+     * @throws IllegalArgumentException if file is null or empty
+     */
+    @Override
+    public long writePdfAsBase64Json(MultipartFile file, OutputStream outputStream) throws IOException {
+        try (PdfMetrics.Timing operationTiming = pdfMetrics.operation(PdfMetrics.OP_PDF_TO_BASE64, "json")) {
+            if (file == null) {
+                throw new IllegalArgumentException("File cannot be null");
+            }
 
-            // Get the file bytes
-            byte[] fileBytes = file.getBytes();
+            if (file.isEmpty()) {
+                throw new IllegalArgumentException("File cannot be empty");
+            }
 
-            // Encode to Base64
-            String base64String = Base64.getEncoder().encodeToString(fileBytes);
+            logger.info("Streaming PDF file '{}' as Base64, size: {} bytes", file.getOriginalFilename(), file.getSize());
 
-            logger.info("Successfully converted PDF to Base64. Original size: {} bytes, Base64 length: {} characters",
-                    fileBytes.length, base64String.length());
+            // Base64 alphabet needs no JSON escaping, so the envelope can be written around the raw encoder
+            outputStream.write(BASE64_JSON_PREFIX);
 
-            return base64String;
+            long encodedBytes;
+            try (PdfMetrics.Timing ignored = pdfMetrics.stage(PdfMetrics.OP_PDF_TO_BASE64, PdfMetrics.STAGE_ENCODE, "json");
+                 InputStream inputStream = file.getInputStream();
+                 OutputStream encoder = Base64.getEncoder().wrap(StreamUtils.nonClosing(outputStream))) {
+                encodedBytes = inputStream.transferTo(encoder);
+            }
+
+            outputStream.write(BASE64_JSON_SUFFIX);
+            outputStream.flush();
 
-        } catch (IOException e) {
-            logger.error("Failed to read file '{}': {}", file.getOriginalFilename(), e.getMessage());
-            throw new IOException("Failed to read PDF file: " + e.getMessage(), e);
-        } catch (Exception e) {
-            logger.error("Unexpected error while converting PDF '{}' to Base64: {}",
-                    file.getOriginalFilename(), e.getMessage());
-            throw new RuntimeException("Unexpected error during PDF conversion", e);
+            logger.info("Successfully streamed PDF as Base64. Original size: {} bytes", encodedBytes);
+            pdfMetrics.recordInputSize(PdfMetrics.OP_PDF_TO_BASE64, encodedBytes);
+            return encodedBytes;
         }
     }
 
@@ -280,78 +456,171 @@ public class PdfServiceImpl implements PdfService {
      * @throws IllegalArgumentException if base64String is null, empty, or invalid
      */
     public byte[] convertBase64ToPdf(String base64String) {
-        if (base64String == null || base64String.trim().isEmpty()) {
-            throw new IllegalArgumentException("Base64 string cannot be null or empty");
+        try (PdfMetrics.Timing operationTiming = pdfMetrics.operation(PdfMetrics.OP_BASE64_TO_PDF, null)) {
+            if (base64String == null || base64String.trim().isEmpty()) {
+                throw new IllegalArgumentException("Base64 string cannot be null or empty");
+            }
+
+            try {
+                logger.info("Converting Base64 string to PDF bytes. Base64 length: {} characters", base64String.length());
+
+                // Decode Base64 string to bytes
+                byte[] pdfBytes = Base64.getDecoder().decode(base64String.trim());
+
+                logger.info("Successfully converted Base64 to PDF bytes. PDF size: {} bytes", pdfBytes.length);
+                pdfMetrics.recordOutputSize(PdfMetrics.OP_BASE64_TO_PDF, null, pdfBytes.length);
+
+                return pdfBytes;
+
+            } catch (IllegalArgumentException e) {
+                logger.error("Invalid Base64 string format: {}", e.getMessage());
+                throw new IllegalArgumentException("Invalid Base64 format: " + e.getMessage(), e);
+            } catch (Exception e) {
+                logger.error("Unexpected error while converting Base64 to PDF: {}", e.getMessage());
+                throw new RuntimeException("Unexpected error during Base64 to PDF conversion", e);
+            }
         }
+    }
 
-        try {
-            logger.info("Converting Base64 string to PDF bytes. Base64 length: {} characters", base64String.length());
+    /**
+     * Decodes a streamed Base64 payload into a temporary PDF file. A data URL prefix is
+     * skipped as it arrives, line breaks and other non-alphabet characters are ignored,
+     * and the PDF header and trailer are checked while the decoded bytes are written.
+     * @param base64Stream raw Base64 body, optionally prefixed with data:...;base64,
+     * @return path of the decoded PDF, to be deleted by the caller
+     * @throws IllegalArgumentException if the payload is empty or does not decode to a PDF
+     * @throws PayloadTooLargeException if the payload is larger than the ingest limit
+     */
+    @Override
+    public Path convertBase64StreamToPdf(InputStream base64Stream) throws IOException {
+        try (PdfMetrics.Timing operationTiming = pdfMetrics.operation(PdfMetrics.OP_BASE64_TO_PDF, null)) {
+            logger.info("Converting streamed Base64 payload to PDF");
+
+            // A chunked body has no Content-Length, the limit is enforced on the bytes as they are read
+            long maxBytes = (long) base64IngestMaxSizeMb * 1024 * 1024;
+            PushbackInputStream input = new PushbackInputStream(
+                    new SizeLimitedInputStream(base64Stream, maxBytes), DATA_URL_SCHEME.length);
+            skipDataUrlPrefix(input);
+
+            Path target = Files.createTempFile("doc-service-base64-", ".pdf");
+            try {
+                PdfSignatureOutputStream validator;
+                try (InputStream decoder = Base64.getMimeDecoder().wrap(input);
+                     OutputStream fileStream = Files.newOutputStream(target)) {
+                    validator = new PdfSignatureOutputStream(new BufferedOutputStream(fileStream));
+                    decoder.transferTo(validator);
+                    validator.flush();
+                }
 
-            // Decode Base64 string to bytes
-            byte[] pdfBytes = Base64.getDecoder().decode(base64String.trim());
+                if (validator.getCount() == 0) {
+                    throw new IllegalArgumentException("Base64 string cannot be null or empty");
+                }
 
-            logger.info("Successfully converted Base64 to PDF bytes. PDF size: {} bytes", pdfBytes.length);
+                if (!validator.isValidPdf()) {
+                    throw new IllegalArgumentException("Provided base64 is not valid");
+                }
 
-            return pdfBytes;
+                logger.info("Successfully converted streamed Base64 to PDF. PDF size: {} bytes", validator.getCount());
+                pdfMetrics.recordOutputSize(PdfMetrics.OP_BASE64_TO_PDF, null, validator.getCount());
+                return target;
 
-        } catch (IllegalArgumentException e) {
-            logger.error("Invalid Base64 string format: {}", e.getMessage());
-            throw new IllegalArgumentException("Invalid Base64 format: " + e.getMessage(), e);
-        } catch (Exception e) {
-            logger.error("Unexpected error while converting Base64 to PDF: {}", e.getMessage());
-            throw new RuntimeException("Unexpected error during Base64 to PDF conversion", e);
+            } catch (IOException | RuntimeException e) {
+                FileUtils.deleteQuietly(target);
+                if (e instanceof IOException && e.getMessage() != null
+                        && e.getMessage().toLowerCase().contains("base64")) {
+                    // Base64 decoder reports malformed padding as an IOException
+                    throw new IllegalArgumentException("Invalid Base64 format: " + e.getMessage(), e);
+                }
+                throw e;
+            }
         }
     }
 
+    private void skipDataUrlPrefix(PushbackInputStream input) throws IOException {
+        byte[] scheme = input.readNBytes(DATA_URL_SCHEME.length);
+        if (!Arrays.equals(scheme, DATA_URL_SCHEME)) {
+            input.unread(scheme);
+            return;
+        }
+
+        // data:application/pdf;base64, is short, anything longer is not a data URL
+        for (int i = 0; i < MAX_DATA_URL_PREFIX_LENGTH; i++) {
+            int next = input.read();
+            if (next == ',') {
+                logger.info("Removed data URL prefix from base64 stream");
+                return;
+            }
+            if (next == -1) {
+                break;
+            }
+        }
+        throw new IllegalArgumentException("Invalid data URL prefix");
+    }
+
     /**
      * Compresses PDF by reducing image quality and removing unnecessary elements
      * @param file the PDF file to compress
      * @param quality compression quality (0.1 to 1.0)
-     * @return compressed PDF as byte array
+     * @return buffer holding the compressed PDF, to be released by the caller
      */
     @Override
-    public byte[] compressPdf(MultipartFile file, float quality) throws IOException {
-        logger.info("Starting PDF compression for file: {}, quality: {}", file.getOriginalFilename(), quality);
+    public ChunkedOutputBuffer compressPdf(MultipartFile file, float quality) throws IOException {
+        try (PdfMetrics.Timing operationTiming = pdfMetrics.operation(PdfMetrics.OP_COMPRESS, null)) {
+            pdfMetrics.recordInputSize(PdfMetrics.OP_COMPRESS, file.getSize());
 
-        if (quality < 0.1f || quality > 1.0f) {
-            throw new IllegalArgumentException("Quality must be between 0.1 and 1.0");
-        }
+            logger.info("Starting PDF compression for file: {}, quality: {}", file.getOriginalFilename(), quality);
 
-        try (PDDocument document = PDDocument.load(file.getInputStream());
-             ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+            if (quality < 0.1f || quality > 1.0f) {
+                throw new IllegalArgumentException("Quality must be between 0.1 and 1.0");
+            }
 
-            long originalSize = file.getSize();
+            try (PDDocument document = loadDocument(file, PdfMetrics.OP_COMPRESS)) {
 
-            // Compress images in the PDF
-            compressImagesInDocument(document, quality);
+                long originalSize = file.getSize();
 
-            // Remove unused resources
-            document.getDocumentCatalog().getPages().forEach(page -> {
-                try {
-                    // Remove annotations if they exist
-                    if (page.getAnnotations() != null) {
-                        page.getAnnotations().clear();
+                // Compress images in the PDF
+                compressImagesInDocument(document, quality);
+
+                // Remove unused resources
+                document.getDocumentCatalog().getPages().forEach(page -> {
+                    try {
+                        // Remove annotations if they exist
+                        if (page.getAnnotations() != null) {
+                            page.getAnnotations().clear();
+                        }
+                    } catch (Exception e) {
+                        logger.warn("Failed to remove annotations from page: {}", e.getMessage());
                     }
-                } catch (Exception e) {
-                    logger.warn("Failed to remove annotations from page: {}", e.getMessage());
+                });
+
+                ChunkedOutputBuffer outputStream = bufferPool.newBuffer();
+                try (PdfMetrics.Timing timing = pdfMetrics.stage(PdfMetrics.OP_COMPRESS, PdfMetrics.STAGE_SAVE, null)) {
+                    document.save(outputStream);
+                    timing.bytes(outputStream.size());
+                } catch (IOException | RuntimeException e) {
+                    // Return the chunks to the pool, nobody else holds the buffer yet
+                    outputStream.release();
+                    throw e;
                 }
-            });
-
-            document.save(outputStream);
-            byte[] compressedBytes = outputStream.toByteArray();
+                long compressedSize = outputStream.size();
 
-            logger.info("PDF compression completed. Original size: {} bytes, Compressed size: {} bytes, Reduction: {}%",
-                    originalSize, compressedBytes.length,
-                    ((originalSize - compressedBytes.length) * 100.0 / originalSize));
+                logger.info("PDF compression completed. Original size: {} bytes, Compressed size: {} bytes, Reduction: {}%",
+                        originalSize, compressedSize,
+                        ((originalSize - compressedSize) * 100.0 / originalSize));
+                pdfMetrics.recordOutputSize(PdfMetrics.OP_COMPRESS, null, compressedSize);
 
-            return compressedBytes;
+                return outputStream;
+            }
         }
     }
 
     private void compressImagesInDocument(PDDocument document, float quality) throws IOException {
         logger.info("Compressing images in document with quality: {}", quality);
 
+        int pageIndex = -1;
         for (PDPage page : document.getPages()) {
+            CancellationToken.checkCurrent();
+            pageIndex++;
             PDResources resources = page.getResources();
             if (resources == null) continue;
 
@@ -365,20 +634,28 @@ public class PdfServiceImpl implements PdfService {
                     if (bufferedImage == null) continue;
 
                     // Compress and replace
-                    byte[] compressedBytes = compressImage(bufferedImage, quality);
-                    PDImageXObject newImage = PDImageXObject.createFromByteArray(
-                            document, compressedBytes, name.getName());
-                    resources.put(name, newImage);
+                    ChunkedOutputBuffer compressedImage;
+                    try (PdfMetrics.Timing timing = pdfMetrics.stage(PdfMetrics.OP_COMPRESS, PdfMetrics.STAGE_ENCODE, "jpeg")
+                            .page(pageIndex)) {
+                        compressedImage = compressImage(bufferedImage, quality);
+                        timing.bytes(compressedImage.size());
+                    }
+                    try {
+                        PDImageXObject newImage = JPEGFactory.createFromStream(document, compressedImage.toInputStream());
+                        resources.put(name, newImage);
+                    } finally {
+                        compressedImage.release();
+                    }
                 }
             }
         }
     }
 
-    private byte[] compressImage(BufferedImage image, float quality) throws IOException {
+    private ChunkedOutputBuffer compressImage(BufferedImage image, float quality) throws IOException {
         // Convert to RGB if needed (JPEG only supports RGB and Grayscale)
         BufferedImage rgbImage = convertToRGB(image);
 
-        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ChunkedOutputBuffer output = bufferPool.newBuffer();
 
         ImageWriter writer = ImageIO.getImageWritersByFormatName("JPEG").next();
         ImageWriteParam param = writer.getDefaultWriteParam();
@@ -388,10 +665,14 @@ public class PdfServiceImpl implements PdfService {
         try (ImageOutputStream ios = ImageIO.createImageOutputStream(output)) {
             writer.setOutput(ios);
             writer.write(null, new IIOImage(rgbImage, null, null), param);
+        } catch (IOException | RuntimeException e) {
+            output.release();
+            throw e;
+        } finally {
+            writer.dispose();
         }
-        writer.dispose();
 
-        return output.toByteArray();
+        return output;
     }
 
     private BufferedImage convertToRGB(BufferedImage original) {
@@ -417,52 +698,67 @@ public class PdfServiceImpl implements PdfService {
     /**
      * Merges multiple PDF files into a single PDF
      * @param files list of PDF files to merge
-     * @return merged PDF as byte array
+     * @return buffer holding the merged PDF, to be released by the caller
      */
     @Override
-    public byte[] mergePdfs(List<MultipartFile> files) throws IOException {
-        logger.info("Starting PDF merge operation for {} files", files.size());
+    public ChunkedOutputBuffer mergePdfs(List<MultipartFile> files) throws IOException {
+        try (PdfMetrics.Timing operationTiming = pdfMetrics.operation(PdfMetrics.OP_MERGE, null)) {
+            pdfMetrics.recordInputSize(PdfMetrics.OP_MERGE, files.stream().mapToLong(MultipartFile::getSize).sum());
 
-        if (files.isEmpty()) {
-            throw new IllegalArgumentException("No files provided for merging");
-        }
+            logger.info("Starting PDF merge operation for {} files", files.size());
 
-        if (files.size() < 2) {
-            throw new IllegalArgumentException("At least 2 files required for merging");
-        }
+            if (files.isEmpty()) {
+                throw new IllegalArgumentException("No files provided for merging");
+            }
 
-        PDFMergerUtility merger = new PDFMergerUtility();
-        List<PDDocument> documents = new ArrayList<>();
+            if (files.size() < 2) {
+                throw new IllegalArgumentException("At least 2 files required for merging");
+            }
 
-        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+            PDFMergerUtility merger = new PDFMergerUtility();
+            List<PDDocument> documents = new ArrayList<>();
 
-            // Load all documents
-            for (MultipartFile file : files) {
-                if (!FileUtils.isValidPdf(file)) {
-                    throw new IllegalArgumentException("Invalid PDF file: " + file.getOriginalFilename());
+            ChunkedOutputBuffer outputStream = bufferPool.newBuffer();
+
+            try {
+
+                // Load all documents
+                for (MultipartFile file : files) {
+                    CancellationToken.checkCurrent();
+                    try (PdfMetrics.Timing ignored = pdfMetrics.stage(PdfMetrics.OP_MERGE, PdfMetrics.STAGE_VALIDATE, null)) {
+                        if (!FileUtils.isValidPdf(file)) {
+                            throw new IllegalArgumentException("Invalid PDF file: " + file.getOriginalFilename());
+                        }
+                    }
+
+                    PDDocument document = loadDocument(file, PdfMetrics.OP_MERGE);
+                    documents.add(document);
+                    merger.addSource(file.getInputStream());
                 }
 
-                PDDocument document = PDDocument.load(file.getInputStream());
-                documents.add(document);
-                merger.addSource(file.getInputStream());
-            }
+                merger.setDestinationStream(outputStream);
+                try (PdfMetrics.Timing ignored = pdfMetrics.stage(PdfMetrics.OP_MERGE, PdfMetrics.STAGE_MERGE, null)) {
+                    merger.mergeDocuments(null);
+                }
 
-            merger.setDestinationStream(outputStream);
-            merger.mergeDocuments(null);
+                logger.info("PDF merge completed. Total pages in merged PDF: estimated from {} files", files.size());
+                pdfMetrics.recordOutputSize(PdfMetrics.OP_MERGE, null, outputStream.size());
 
-            byte[] mergedBytes = outputStream.toByteArray();
-            logger.info("PDF merge completed. Total pages in merged PDF: estimated from {} files", files.size());
+                return outputStream;
 
-            return mergedBytes;
+            } catch (IOException | RuntimeException e) {
+                outputStream.release();
+                throw e;
 
-        } finally {
-            // Close all documents
-            for (PDDocument doc : documents) {
-                if (doc != null) {
-                    try {
-                        doc.close();
-                    } catch (IOException e) {
-                        logger.warn("Failed to close document: {}", e.getMessage());
+            } finally {
+                // Close all documents
+                for (PDDocument doc : documents) {
+                    if (doc != null) {
+                        try {
+                            doc.close();
+                        } catch (IOException e) {
+                            logger.warn("Failed to close document: {}", e.getMessage());
+                        }
                     }
                 }
             }
@@ -474,38 +770,52 @@ public class PdfServiceImpl implements PdfService {
      * Splits PDF into multiple documents based on page ranges
      * @param file the PDF file to split
      * @param pageRanges comma-separated page ranges (e.g., "1-3,5,7-9")
-     * @return list of split PDF byte arrays
+     * @return list of split PDF buffers, to be released by the caller
      */
-    public List<byte[]> splitPdf(MultipartFile file, String pageRanges) throws IOException {
-        logger.info("Starting PDF split operation for file: {}, page ranges: {}", file.getOriginalFilename(), pageRanges);
+    public List<ChunkedOutputBuffer> splitPdf(MultipartFile file, String pageRanges) throws IOException {
+        try (PdfMetrics.Timing operationTiming = pdfMetrics.operation(PdfMetrics.OP_SPLIT, null)) {
+            pdfMetrics.recordInputSize(PdfMetrics.OP_SPLIT, file.getSize());
 
-        List<byte[]> splitPdfs = new ArrayList<>();
+            logger.info("Starting PDF split operation for file: {}, page ranges: {}", file.getOriginalFilename(), pageRanges);
 
-        try (PDDocument document = PDDocument.load(file.getInputStream())) {
-            int totalPages = document.getNumberOfPages();
-            logger.info("Total pages in document: {}", totalPages);
+            List<ChunkedOutputBuffer> splitPdfs = new ArrayList<>();
 
-            List<PageRange> ranges = parsePageRanges(pageRanges, totalPages);
+            try (PDDocument document = loadDocument(file, PdfMetrics.OP_SPLIT)) {
+                int totalPages = document.getNumberOfPages();
+                logger.info("Total pages in document: {}", totalPages);
 
-            for (PageRange range : ranges) {
-                try (PDDocument splitDocument = new PDDocument();
-                     ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+                List<PageRange> ranges = parsePageRanges(pageRanges, totalPages);
 
-                    for (int i = range.start; i <= range.end; i++) {
-                        PDPage page = document.getPage(i - 1); // PDFBox uses 0-based indexing
-                        splitDocument.addPage(page);
-                    }
+                for (PageRange range : ranges) {
+                    try (PDDocument splitDocument = new PDDocument()) {
+
+                        for (int i = range.start; i <= range.end; i++) {
+                            CancellationToken.checkCurrent();
+                            PDPage page = document.getPage(i - 1); // PDFBox uses 0-based indexing
+                            splitDocument.addPage(page);
+                        }
 
-                    splitDocument.save(outputStream);
-                    splitPdfs.add(outputStream.toByteArray());
+                        ChunkedOutputBuffer outputStream = bufferPool.newBuffer();
+                        splitPdfs.add(outputStream);
+                        try (PdfMetrics.Timing timing = pdfMetrics.stage(PdfMetrics.OP_SPLIT, PdfMetrics.STAGE_SAVE, null)
+                                .page(range.start - 1)) {
+                            splitDocument.save(outputStream);
+                            timing.bytes(outputStream.size());
+                        }
 
-                    logger.info("Created split PDF for pages {}-{}", range.start, range.end);
+                        logger.info("Created split PDF for pages {}-{}", range.start, range.end);
+                    }
                 }
+            } catch (IOException | RuntimeException e) {
+                ChunkedOutputBuffer.releaseAll(splitPdfs);
+                throw e;
             }
-        }
 
-        logger.info("PDF split completed. Created {} split files", splitPdfs.size());
-        return splitPdfs;
+            logger.info("PDF split completed. Created {} split files", splitPdfs.size());
+            pdfMetrics.recordOutputSize(PdfMetrics.OP_SPLIT, null,
+                    splitPdfs.stream().mapToLong(ChunkedOutputBuffer::size).sum());
+            return splitPdfs;
+        }
     }
 
     private List<PageRange> parsePageRanges(String pageRanges, int totalPages) {
@@ -552,90 +862,506 @@ public class PdfServiceImpl implements PdfService {
      * @param file the PDF file to convert
      * @param format image format (PNG, JPEG, etc.)
      * @param dpi resolution for the images
-     * @return list of image byte arrays
+     * @return list of image buffers, to be released by the caller
+     */
+    public List<ChunkedOutputBuffer> convertPdfToImages(MultipartFile file, String format, int dpi) throws IOException {
+        return convertPdfToImages(file, format, dpi, PageColorAnalyzer.MODE_RGB);
+    }
+
+    /**
+     * Converts PDF pages to images using the given color mode
+     * @param file the PDF file to convert
+     * @param format image format (PNG, JPEG, etc.)
+     * @param dpi resolution for the images; JPEG output of a scanned page at or below it is
+     *            the embedded scan itself, at the scan's resolution
+     * @param colorMode RGB, GRAY, BINARY or AUTO (detects the cheapest lossless mode per page)
+     * @return list of image buffers, to be released by the caller
      */
-    public List<byte[]> convertPdfToImages(MultipartFile file, String format, int dpi) throws IOException {
-        logger.info("Starting PDF to image conversion for file: {}, format: {}, DPI: {}",
-                file.getOriginalFilename(), format, dpi);
+    @Override
+    public List<ChunkedOutputBuffer> convertPdfToImages(MultipartFile file, String format, int dpi, String colorMode)
+            throws IOException {
+        try (PdfMetrics.Timing operationTiming = pdfMetrics.operation(PdfMetrics.OP_TO_IMAGES, format)) {
+            pdfMetrics.recordInputSize(PdfMetrics.OP_TO_IMAGES, file.getSize());
 
-        if (dpi < 72 || dpi > 600) {
-            throw new IllegalArgumentException("DPI must be between 72 and 600");
-        }
+            logger.info("Starting PDF to image conversion for file: {}, format: {}, DPI: {}, color mode: {}",
+                    file.getOriginalFilename(), format, dpi, colorMode);
 
-        List<byte[]> images = new ArrayList<>();
+            if (dpi < 72 || dpi > 600) {
+                throw new IllegalArgumentException("DPI must be between 72 and 600");
+            }
+
+            if (!PageColorAnalyzer.isSupportedMode(colorMode)) {
+                throw new IllegalArgumentException("Unsupported color mode: " + colorMode);
+            }
+
+            List<ChunkedOutputBuffer> images = new ArrayList<>();
+            PageCheckpoint checkpoint = null;
+
+            try (PDDocument document = loadDocument(file, PdfMetrics.OP_TO_IMAGES)) {
+                PDFRenderer renderer = new PDFRenderer(document);
+                int pageCount = document.getNumberOfPages();
+                boolean jpegOutput = format.equalsIgnoreCase("JPEG") || format.equalsIgnoreCase("JPG");
+                int passthroughPages = 0;
+                int resumedPages = 0;
+
+                // Long jobs keep finished pages on disk, a retry after a crash only renders the rest
+                if (pageCheckpointStore.appliesTo(pageCount)) {
+                    checkpoint = pageCheckpointStore.open(
+                            checkpointKey(FileUtils.sha256Hex(file), format, dpi, colorMode));
+                }
+
+                for (int i = 0; i < pageCount; i++) {
+                    // Stop rendering pages nobody is waiting for any more
+                    CancellationToken.checkCurrent();
+
+                    if (checkpoint != null && checkpoint.getPageFile(i) != null) {
+                        images.add(checkpoint.readPage(i, bufferPool));
+                        resumedPages++;
+                        continue;
+                    }
+
+                    // Scanned pages no finer than requested are a single JPEG already, return it without decode/encode
+                    if (jpegOutput && !PageColorAnalyzer.MODE_BINARY.equalsIgnoreCase(colorMode)) {
+                        boolean allowColor = !PageColorAnalyzer.MODE_GRAY.equalsIgnoreCase(colorMode);
+                        PDImageXObject scan = ScannedPageDetector.findPassthroughJpeg(document.getPage(i), allowColor, dpi);
+                        if (scan != null) {
+                            ChunkedOutputBuffer outputStream = bufferPool.newBuffer();
+                            images.add(outputStream);
+                            try (InputStream rawJpeg = ScannedPageDetector.openRawJpeg(scan)) {
+                                outputStream.writeFrom(rawJpeg);
+                            }
+                            if (checkpoint != null) {
+                                checkpoint.recordPage(i, pageFileName(i, format), outputStream);
+                            }
+                            passthroughPages++;
+                            logger.info("Passed through embedded JPEG for page {}", i + 1);
+                            continue;
+                        }
+                    }
 
-        try (PDDocument document = PDDocument.load(file.getInputStream())) {
-            PDFRenderer renderer = new PDFRenderer(document);
-            int pageCount = document.getNumberOfPages();
+                    ImageType imageType;
+                    BufferedImage image;
+                    try (PdfMetrics.Timing ignored = pdfMetrics.stage(PdfMetrics.OP_TO_IMAGES, PdfMetrics.STAGE_RENDER, format)
+                            .page(i).dpi(dpi)) {
+                        imageType = PageColorAnalyzer.resolveImageType(document.getPage(i), colorMode, format);
+                        image = renderer.renderImageWithDPI(i, dpi, imageType);
+                    }
 
-            for (int i = 0; i < pageCount; i++) {
-                BufferedImage image = renderer.renderImageWithDPI(i, dpi, ImageType.RGB);
+                    ChunkedOutputBuffer outputStream = bufferPool.newBuffer();
+                    images.add(outputStream);
+                    try (PdfMetrics.Timing timing = pdfMetrics.stage(PdfMetrics.OP_TO_IMAGES, PdfMetrics.STAGE_ENCODE, format)
+                            .page(i).dpi(dpi)) {
+                        ImageIOUtil.writeImage(image, format.toLowerCase(), outputStream, dpi);
+                        timing.bytes(outputStream.size());
+                    }
+                    if (checkpoint != null) {
+                        checkpoint.recordPage(i, pageFileName(i, format), outputStream);
+                    }
 
-                try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-                    ImageIOUtil.writeImage(image, format.toLowerCase(), outputStream, dpi);
-                    images.add(outputStream.toByteArray());
+                    logger.info("Converted page {} to {} image ({})", i + 1, format, imageType);
+                }
 
-                    logger.info("Converted page {} to {} image", i + 1, format);
+                // The result is delivered from memory, the checkpoint has served its purpose
+                if (checkpoint != null) {
+                    checkpoint.delete();
                 }
+
+                logger.info("PDF to image conversion completed. Generated {} images, {} passed through, {} resumed",
+                        images.size(), passthroughPages, resumedPages);
+                pdfMetrics.recordOutputSize(PdfMetrics.OP_TO_IMAGES, format,
+                        images.stream().mapToLong(ChunkedOutputBuffer::size).sum());
+            } catch (IOException | RuntimeException e) {
+                ChunkedOutputBuffer.releaseAll(images);
+                throw e;
+            } finally {
+                pageCheckpointStore.close(checkpoint);
             }
-        }
 
-        logger.info("PDF to image conversion completed. Generated {} images", images.size());
-        return images;
+            return images;
+        }
     }
 
     // UTILITY METHODS FOR ZIP CREATION
 
     /**
      * Creates a ZIP file containing multiple PDF files
-     * @param pdfFiles list of PDF byte arrays
-     * @return ZIP file as byte array
+     * @param pdfFiles list of PDF buffers, left unreleased
+     * @return buffer holding the ZIP file, to be released by the caller
      */
-    public byte[] createZipFromPdfs(List<byte[]> pdfFiles) throws IOException {
+    public ChunkedOutputBuffer createZipFromPdfs(List<ChunkedOutputBuffer> pdfFiles) throws IOException {
         logger.info("Creating ZIP file from {} PDF files", pdfFiles.size());
 
-        try (ByteArrayOutputStream zipOutputStream = new ByteArrayOutputStream();
-             ZipOutputStream zip = new ZipOutputStream(zipOutputStream)) {
+        ChunkedOutputBuffer zipOutputStream = bufferPool.newBuffer();
+
+        try (ZipOutputStream zip = zipEntryWriter.open(zipOutputStream)) {
 
             for (int i = 0; i < pdfFiles.size(); i++) {
                 String filename = String.format("split_page_%d.pdf", i + 1);
-                ZipEntry entry = new ZipEntry(filename);
-                zip.putNextEntry(entry);
-                zip.write(pdfFiles.get(i));
-                zip.closeEntry();
+                try (PdfMetrics.Timing ignored = pdfMetrics.stage(PdfMetrics.OP_SPLIT, PdfMetrics.STAGE_ZIP, "zip")
+                        .page(i).bytes(pdfFiles.get(i).size())) {
+                    zipEntryWriter.writeEntry(zip, filename, pdfFiles.get(i));
+                }
             }
 
             zip.finish();
-            return zipOutputStream.toByteArray();
+            return zipOutputStream;
+        } catch (IOException | RuntimeException e) {
+            zipOutputStream.release();
+            throw e;
         }
     }
 
     /**
      * Creates a ZIP file containing multiple image files
-     * @param images list of image byte arrays
+     * @param images list of image buffers, left unreleased
      * @param format image format extension
-     * @return ZIP file as byte array
+     * @return buffer holding the ZIP file, to be released by the caller
      */
-    public byte[] createZipFromImages(List<byte[]> images, String format) throws IOException {
+    public ChunkedOutputBuffer createZipFromImages(List<ChunkedOutputBuffer> images, String format) throws IOException {
         logger.info("Creating ZIP file from {} image files", images.size());
 
-        try (ByteArrayOutputStream zipOutputStream = new ByteArrayOutputStream();
-             ZipOutputStream zip = new ZipOutputStream(zipOutputStream)) {
+        ChunkedOutputBuffer zipOutputStream = bufferPool.newBuffer();
+
+        try (ZipOutputStream zip = zipEntryWriter.open(zipOutputStream)) {
 
             for (int i = 0; i < images.size(); i++) {
-                String filename = String.format("page_%d.%s", i + 1, format.toLowerCase());
-                ZipEntry entry = new ZipEntry(filename);
-                zip.putNextEntry(entry);
-                zip.write(images.get(i));
-                zip.closeEntry();
+                String filename = pageFileName(i, format);
+                try (PdfMetrics.Timing ignored = pdfMetrics.stage(PdfMetrics.OP_TO_IMAGES, PdfMetrics.STAGE_ZIP, format)
+                        .page(i).bytes(images.get(i).size())) {
+                    zipEntryWriter.writeEntry(zip, filename, images.get(i));
+                }
             }
 
             zip.finish();
-            return zipOutputStream.toByteArray();
+            return zipOutputStream;
+        } catch (IOException | RuntimeException e) {
+            zipOutputStream.release();
+            throw e;
+        }
+    }
+
+    // EMBEDDED IMAGE EXTRACTION
+    /**
+     * Extracts every embedded image of a PDF into a ZIP written to the given stream.
+     * DCT and JPX images are copied with their original encoding, other images are
+     * decoded and written as PNG. Images shared between pages are written once, and
+     * through {@link ZipEntryWriter} so the already compressed images are STORED.
+     * @param file the PDF file to extract images from
+     * @param outputStream stream receiving the ZIP, left open
+     * @return number of images written
+     */
+    @Override
+    public int extractImages(MultipartFile file, OutputStream outputStream) throws IOException {
+        try (PdfMetrics.Timing operationTiming = pdfMetrics.operation(PdfMetrics.OP_EXTRACT_IMAGES, "zip")) {
+            pdfMetrics.recordInputSize(PdfMetrics.OP_EXTRACT_IMAGES, file.getSize());
+
+            logger.info("Starting image extraction for file: {}", file.getOriginalFilename());
+
+            Set<COSBase> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+            int imageCount = 0;
+
+            try (PDDocument document = loadDocument(file, PdfMetrics.OP_EXTRACT_IMAGES);
+                 PdfMetrics.Timing ignored = pdfMetrics.stage(PdfMetrics.OP_EXTRACT_IMAGES, PdfMetrics.STAGE_EXTRACT, "zip")) {
+                // Not closed, that would close the caller's stream
+                ZipOutputStream zip = zipEntryWriter.open(outputStream);
+
+                int pageNumber = 0;
+                for (PDPage page : document.getPages()) {
+                    CancellationToken.checkCurrent();
+                    pageNumber++;
+                    imageCount = extractImagesFromResources(page.getResources(), pageNumber, imageCount, visited, zip);
+                }
+
+                zip.finish();
+                zip.flush();
+            }
+
+            logger.info("Image extraction completed. Extracted {} unique images", imageCount);
+            return imageCount;
+        }
+    }
+
+    private int extractImagesFromResources(PDResources resources, int pageNumber, int imageCount,
+                                           Set<COSBase> visited, ZipOutputStream zip) throws IOException {
+        if (resources == null) {
+            return imageCount;
+        }
+
+        for (COSName name : resources.getXObjectNames()) {
+            PDXObject xObject = resources.getXObject(name);
+            if (xObject == null || !visited.add(xObject.getCOSObject())) {
+                continue;
+            }
+
+            if (xObject instanceof PDImageXObject image) {
+                imageCount++;
+                writeExtractedImage(image, String.format("page_%d_image_%d", pageNumber, imageCount), zip);
+            } else if (xObject instanceof PDFormXObject form) {
+                imageCount = extractImagesFromResources(form.getResources(), pageNumber, imageCount, visited, zip);
+            }
+        }
+
+        return imageCount;
+    }
+
+    private void writeExtractedImage(PDImageXObject image, String baseName, ZipOutputStream zip) throws IOException {
+        List<COSName> filters = image.getStream().getFilters();
+        COSName lastFilter = filters == null || filters.isEmpty() ? null : filters.get(filters.size() - 1);
+
+        ChunkedOutputBuffer content = bufferPool.newBuffer();
+        try {
+            String fileName;
+            if (COSName.DCT_DECODE.equals(lastFilter) || COSName.JPX_DECODE.equals(lastFilter)) {
+                // Undo only the filters wrapping the JPEG/JPEG 2000 payload, never the image codec itself
+                fileName = baseName + (COSName.DCT_DECODE.equals(lastFilter) ? ".jpg" : ".jp2");
+                try (InputStream encoded = image.getStream().createInputStream(
+                        List.of(COSName.DCT_DECODE.getName(), COSName.JPX_DECODE.getName()))) {
+                    content.writeFrom(encoded);
+                }
+            } else {
+                BufferedImage bufferedImage = image.getImage();
+                if (bufferedImage == null) {
+                    logger.warn("Skipping image {} that could not be decoded", baseName);
+                    return;
+                }
+                fileName = baseName + ".png";
+                ImageIO.write(bufferedImage, "png", content);
+            }
+
+            zipEntryWriter.writeEntry(zip, fileName, content);
+        } finally {
+            content.release();
         }
     }
 
+    // TEXT EXTRACTION
+    /**
+     * Extracts the text of every page and writes it as newline-delimited JSON, one
+     * {@link PageText} per line in completion order. Page ranges are split across the
+     * worker pool and every worker opens its own document instance.
+     * @param file the PDF file to extract text from
+     * @param outputStream stream receiving the NDJSON lines, left open
+     * @return number of pages written
+     */
+    @Override
+    public int extractText(MultipartFile file, OutputStream outputStream) throws IOException {
+        try (PdfMetrics.Timing operationTiming = pdfMetrics.operation(PdfMetrics.OP_EXTRACT_TEXT, null)) {
+            pdfMetrics.recordInputSize(PdfMetrics.OP_EXTRACT_TEXT, file.getSize());
+
+            logger.info("Starting text extraction for file: {}", file.getOriginalFilename());
+
+            Path source = FileUtils.spoolToTempFile(file);
+            List<Future<?>> workers = new ArrayList<>();
+
+            try {
+                int totalPages;
+                try (PdfMetrics.Timing ignored = pdfMetrics.stage(PdfMetrics.OP_EXTRACT_TEXT, PdfMetrics.STAGE_LOAD, null);
+                     PDDocument document = PDDocument.load(source.toFile(), MemoryUsageSetting.setupMainMemoryOnly())) {
+                    totalPages = document.getNumberOfPages();
+                }
+
+                int workerCount = Math.max(1, Math.min(pdfWorkerPool.getMaximumPoolSize(), totalPages));
+                int pagesPerWorker = (totalPages + workerCount - 1) / workerCount;
+                BlockingQueue<PageText> results = new ArrayBlockingQueue<>(TEXT_RESULT_QUEUE_CAPACITY);
+
+                for (int start = 1; start <= totalPages; start += pagesPerWorker) {
+                    int rangeStart = start;
+                    int rangeEnd = Math.min(totalPages, start + pagesPerWorker - 1);
+                    workers.add(pdfWorkerPool.submit(() -> {
+                        extractTextRange(source, rangeStart, rangeEnd, results);
+                        return null;
+                    }));
+                }
+
+                int written = 0;
+                while (written < totalPages) {
+                    PageText pageText = results.poll(TEXT_RESULT_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (pageText == null) {
+                        CancellationToken.checkCurrent();
+                        throwIfWorkerFailed(workers);
+                        continue;
+                    }
+                    outputStream.write(objectMapper.writeValueAsBytes(pageText));
+                    outputStream.write('\n');
+                    outputStream.flush();
+                    written++;
+                }
+
+                logger.info("Text extraction completed. Extracted {} pages with {} workers", totalPages, workers.size());
+                return totalPages;
 
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Text extraction interrupted", e);
+            } finally {
+                // Stops workers still blocked on the queue if the client went away
+                workers.forEach(worker -> worker.cancel(true));
+                FileUtils.deleteQuietly(source);
+            }
+        }
+    }
+
+    private void extractTextRange(Path source, int startPage, int endPage, BlockingQueue<PageText> results)
+            throws InterruptedException {
+        int page = startPage;
+
+        try (PDDocument document = PDDocument.load(source.toFile(), MemoryUsageSetting.setupMainMemoryOnly())) {
+            PDFTextStripper stripper = new PDFTextStripper();
+
+            for (; page <= endPage; page++) {
+                PageText pageText;
+                try {
+                    stripper.setStartPage(page);
+                    stripper.setEndPage(page);
+                    try (PdfMetrics.Timing ignored = pdfMetrics.stage(PdfMetrics.OP_EXTRACT_TEXT, PdfMetrics.STAGE_EXTRACT, null)
+                            .page(page - 1)) {
+                        pageText = new PageText(page, stripper.getText(document), null);
+                    }
+                } catch (Exception e) {
+                    logger.warn("Failed to extract text from page {}: {}", page, e.getMessage());
+                    pageText = new PageText(page, null, "Failed to extract text");
+                }
+                results.put(pageText);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to open document for pages {}-{}: {}", startPage, endPage, e.getMessage());
+            for (; page <= endPage; page++) {
+                results.put(new PageText(page, null, "Failed to open document"));
+            }
+        }
+    }
+
+    /**
+     * Fails the extraction if a worker ended without emitting its pages, which would
+     * otherwise leave the request waiting for them
+     * @param workers futures of the submitted page ranges
+     */
+    private static void throwIfWorkerFailed(List<Future<?>> workers) throws IOException, InterruptedException {
+        for (Future<?> worker : workers) {
+            if (worker.isDone() && !worker.isCancelled()) {
+                try {
+                    worker.get();
+                } catch (ExecutionException e) {
+                    throw new IOException("Text extraction worker failed", e.getCause());
+                }
+            }
+        }
+    }
+
+    // METADATA
+    /**
+     * Reads page count, page sizes, encryption state, version, producer and an image count
+     * estimate. Only the xref, trailer, page tree and resource dictionaries are read,
+     * content streams are never decoded.
+     * @param file the PDF file to inspect
+     * @param password optional password for encrypted documents
+     * @return metadata of the document
+     * @throws IllegalArgumentException if the file is not a readable PDF
+     */
+    @Override
+    public PdfMetadata getMetadata(MultipartFile file, String password) throws IOException {
+        try (PdfMetrics.Timing operationTiming = pdfMetrics.operation(PdfMetrics.OP_METADATA, null)) {
+            pdfMetrics.recordInputSize(PdfMetrics.OP_METADATA, file.getSize());
+
+            logger.info("Reading metadata for file: {}", file.getOriginalFilename());
+
+            PdfMetadata metadata = new PdfMetadata();
+            metadata.setFileSize(file.getSize());
+
+            // Loading from a file lets PDFBox seek to the xref instead of buffering the whole upload.
+            // Local and stored documents are read in place, in-memory ones from their array
+            Path source = FileUtils.localPath(file);
+            Path spooled = null;
+            if (source == null && !(file instanceof InMemoryPdfFile)) {
+                spooled = FileUtils.spoolToTempFile(file);
+                source = spooled;
+            }
+
+            try {
+                PDDocument loaded;
+                try (PdfMetrics.Timing ignored = pdfMetrics.stage(PdfMetrics.OP_METADATA, PdfMetrics.STAGE_LOAD, null)) {
+                    String documentPassword = password == null ? "" : password;
+                    loaded = source != null
+                            ? PDDocument.load(source.toFile(), documentPassword, MemoryUsageSetting.setupMainMemoryOnly())
+                            : PDDocument.load(file.getBytes(), documentPassword);
+                }
+
+                try (PDDocument document = loaded) {
+                    metadata.setEncrypted(document.isEncrypted());
+                    metadata.setVersion(String.valueOf(document.getVersion()));
+                    metadata.setProducer(document.getDocumentInformation().getProducer());
+
+                    List<PageSize> pageSizes = new ArrayList<>();
+                    Set<COSBase> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+                    int imageCount = 0;
+                    int pageNumber = 0;
+
+                    for (PDPage page : document.getPages()) {
+                        pageNumber++;
+                        PDRectangle mediaBox = page.getMediaBox();
+                        pageSizes.add(new PageSize(pageNumber, mediaBox.getWidth(), mediaBox.getHeight(), page.getRotation()));
+
+                        PDResources resources = page.getResources();
+                        if (resources != null) {
+                            imageCount += countImages(resources.getCOSObject(), visited);
+                        }
+                    }
+
+                    metadata.setPageCount(pageSizes.size());
+                    metadata.setPageSizes(pageSizes);
+                    metadata.setEstimatedImageCount(imageCount);
+                }
+
+            } catch (org.apache.pdfbox.pdmodel.encryption.InvalidPasswordException e) {
+                logger.info("PDF is encrypted and no valid password was provided: {}", file.getOriginalFilename());
+                metadata.setEncrypted(true);
+                metadata.setPasswordRequired(true);
+            } catch (IOException e) {
+                logger.error("Failed to read PDF metadata: {}", e.getMessage());
+                throw new IllegalArgumentException("Invalid PDF file: " + file.getOriginalFilename(), e);
+            } finally {
+                FileUtils.deleteQuietly(spooled);
+            }
+
+            return metadata;
+        }
+    }
+
+    private int countImages(COSDictionary resources, Set<COSBase> visited) {
+        if (!(resources.getDictionaryObject(COSName.XOBJECT) instanceof COSDictionary xObjects)) {
+            return 0;
+        }
+
+        int count = 0;
+        for (COSName name : xObjects.keySet()) {
+            // Only stream dictionaries are inspected, stream data stays untouched
+            if (!(xObjects.getDictionaryObject(name) instanceof COSStream stream) || !visited.add(stream)) {
+                continue;
+            }
+
+            COSName subtype = stream.getCOSName(COSName.SUBTYPE);
+            if (COSName.IMAGE.equals(subtype)) {
+                count++;
+            } else if (COSName.FORM.equals(subtype)
+                    && stream.getDictionaryObject(COSName.RESOURCES) instanceof COSDictionary formResources) {
+                count += countImages(formResources, visited);
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Renders every page of a PDF on disk to {@code /tmp/pdf-images/<uuid>/page-N.png} at 200 DPI.
+     * <p>
+     * With checkpoints enabled, documents of at least doc-service.checkpoint.min-pages pages
+     * are rendered to a directory named after the content and parameters instead, so a retry
+     * resumes after the last finished page. That directory is shared: later conversions of
+     * the same document return the same files, and callers must not modify or delete them.
+     * It is removed once it has not been written to or converted again for doc-service.checkpoint.ttl.
+     * @param filePath the PDF to convert
+     * @return absolute paths of the page images in page order
+     */
     public List<String> convert(String filePath) throws IOException {
         String format = "png";  // You can pass this as a parameter if needed
         int dpi = 200;          // You can make this configurable too
@@ -645,33 +1371,126 @@ public class PdfServiceImpl implements PdfService {
             throw new FileNotFoundException("PDF file not found at path: " + filePath);
         }
 
-        String outputDir = "/tmp/pdf-images/" + UUID.randomUUID(); // unique output folder
-        File dir = new File(outputDir);
+        try (PDDocument document = PDDocument.load(inputFile)) {
+            // A checkpointed job writes to a folder derived from the input, so a retry finds its finished pages
+            PageCheckpoint checkpoint = null;
+            if (pageCheckpointStore.appliesTo(document.getNumberOfPages())) {
+                checkpoint = pageCheckpointStore.openIn(IMAGE_OUTPUT_ROOT,
+                        checkpointKey(FileUtils.sha256Hex(inputFile.toPath()), format, dpi, "rgb"));
+            }
+
+            // Short documents, and a duplicate of a job still running, get a unique output folder
+            Path outputDirectory = checkpoint != null
+                    ? checkpoint.getDirectory()
+                    : IMAGE_OUTPUT_ROOT.resolve(UUID.randomUUID().toString());
+
+            try {
+                return renderPagesToFiles(document, outputDirectory, checkpoint, format, dpi);
+            } finally {
+                pageCheckpointStore.close(checkpoint);
+            }
+        }
+    }
+
+    /**
+     * Renders every page of a PDF on disk to an image file in the given directory,
+     * without holding more than one page in memory
+     * @param inputFile the PDF to convert
+     * @param outputDirectory directory receiving page-N.format, created if missing
+     * @param format image format understood by ImageIO (png, jpg, ...)
+     * @param dpi resolution for the images
+     * @return absolute paths of the page images in page order
+     * @throws IOException also if another checkpointed conversion is writing to the directory
+     */
+    @Override
+    public List<String> convert(Path inputFile, Path outputDirectory, String format, int dpi) throws IOException {
+        if (!Files.exists(inputFile)) {
+            throw new FileNotFoundException("PDF file not found at path: " + inputFile);
+        }
+
+        try (PDDocument document = PDDocument.load(inputFile.toFile())) {
+            PageCheckpoint checkpoint = null;
+            if (pageCheckpointStore.appliesTo(document.getNumberOfPages())) {
+                checkpoint = pageCheckpointStore.openAt(outputDirectory);
+                if (checkpoint == null) {
+                    throw new IOException("Output directory is in use by another conversion: " + outputDirectory);
+                }
+            }
+
+            try {
+                List<String> images = renderPagesToFiles(document, outputDirectory, checkpoint, format, dpi);
+                // The directory belongs to the caller, no manifest is left next to it once every page is there
+                if (checkpoint != null) {
+                    checkpoint.complete();
+                }
+                return images;
+            } finally {
+                pageCheckpointStore.close(checkpoint);
+            }
+        }
+    }
+
+    /**
+     * @param checkpoint checkpoint of the output directory, or null to write the files directly
+     * @return absolute paths of the page images in page order
+     */
+    private List<String> renderPagesToFiles(PDDocument document, Path outputDirectory, PageCheckpoint checkpoint,
+                                            String format, int dpi) throws IOException {
+        File dir = outputDirectory.toFile();
         if (!dir.exists()) {
             dir.mkdirs();
         }
 
         List<String> imagePaths = new ArrayList<>();
+        PDFRenderer renderer = new PDFRenderer(document);
+        int pageCount = document.getNumberOfPages();
 
-        try (PDDocument document = PDDocument.load(inputFile)) {
-            PDFRenderer renderer = new PDFRenderer(document);
-            int pageCount = document.getNumberOfPages();
+        for (int i = 0; i < pageCount; i++) {
+            CancellationToken.checkCurrent();
 
-            for (int i = 0; i < pageCount; i++) {
-                BufferedImage image = renderer.renderImageWithDPI(i, dpi, ImageType.RGB);
-                String imageFilePath = String.format("%s/page-%d.%s", outputDir, i + 1, format);
-                File imageFile = new File(imageFilePath);
+            if (checkpoint != null && checkpoint.getPageFile(i) != null) {
+                imagePaths.add(checkpoint.getPageFile(i).toAbsolutePath().toString());
+                continue;
+            }
 
-                boolean written = ImageIO.write(image, format, imageFile);
-                if (!written) {
-                    throw new IOException("Failed to write image for page " + (i + 1));
-                }
+            BufferedImage image = renderer.renderImageWithDPI(i, dpi, ImageType.RGB);
+            File imageFile = new File(dir, pageImageFileName(i, format));
 
-                imagePaths.add(imageFile.getAbsolutePath());
+            // Written next to its final name and moved into place once complete
+            File targetFile = checkpoint != null ? checkpoint.tempFile(imageFile.getName()).toFile() : imageFile;
+            boolean written = ImageIO.write(image, format, targetFile);
+            if (!written) {
+                throw new IOException("Failed to write image for page " + (i + 1));
+            }
+            if (checkpoint != null) {
+                checkpoint.recordPage(i, targetFile.toPath());
             }
+
+            imagePaths.add(imageFile.getAbsolutePath());
         }
 
         return imagePaths;
     }
-}
 
+    /**
+     * @return checkpoint name of a page conversion, unique per input and parameters
+     */
+    private static String checkpointKey(String contentHash, String format, int dpi, String colorMode) {
+        String parameters = (format + "-" + dpi + "-" + colorMode).toLowerCase().replaceAll("[^a-z0-9-]", "_");
+        return contentHash + "-" + parameters;
+    }
+
+    /**
+     * @return name of a page image in ZIP files and in-memory job checkpoints
+     */
+    private static String pageFileName(int pageIndex, String format) {
+        return String.format("page_%d.%s", pageIndex + 1, format.toLowerCase());
+    }
+
+    /**
+     * @return name of a page image written to disk by convert
+     */
+    private static String pageImageFileName(int pageIndex, String format) {
+        return String.format("page-%d.%s", pageIndex + 1, format);
+    }
+}
@@ -0,0 +1,271 @@
+package in.guardianservices.document_utility_core.service.impl;
+
+import in.guardianservices.document_utility_core.model.StoredDocument;
+import in.guardianservices.document_utility_core.service.PdfStorageService;
+import in.guardianservices.document_utility_core.utils.FileUtils;
+import in.guardianservices.document_utility_core.utils.StoredPdfFile;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+@Service
+public class PdfStorageServiceImpl implements PdfStorageService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PdfStorageServiceImpl.class);
+
+    private static final Pattern DOCUMENT_ID_PATTERN = Pattern.compile("[0-9a-f]{64}");
+    private static final String FILE_EXTENSION = ".pdf";
+
+    private final Map<String, StoredEntry> entries = new ConcurrentHashMap<>();
+
+    @Value("${doc-service.storage.directory:/tmp/doc-service-store}")
+    private String storageDirectory;
+
+    @Value("${doc-service.storage.ttl:PT1H}")
+    private Duration ttl;
+
+    private Path root;
+
+    @PostConstruct
+    public void init() throws IOException {
+        root = Paths.get(storageDirectory);
+        Files.createDirectories(root);
+
+        // Documents stored before a restart stay addressable until their TTL runs out
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(root, "*" + FILE_EXTENSION)) {
+            for (Path path : files) {
+                String documentId = path.getFileName().toString().replace(FILE_EXTENSION, "");
+                if (DOCUMENT_ID_PATTERN.matcher(documentId).matches()) {
+                    StoredEntry entry = new StoredEntry(path, Files.size(path));
+                    entry.lastAccess = Files.getLastModifiedTime(path).toMillis();
+                    entries.put(documentId, entry);
+                }
+            }
+        }
+
+        logger.info("Document store initialized at {} with {} documents", root, entries.size());
+    }
+
+    /**
+     * Stores an uploaded PDF under the SHA-256 of its content. Identical uploads are
+     * stored once and return the same document ID.
+     * @param file the PDF to store
+     * @return ID and size of the stored document
+     * @throws IllegalArgumentException if the file is empty or not a PDF
+     */
+    @Override
+    public StoredDocument store(MultipartFile file) throws IOException {
+        if (file == null || file.isEmpty()) {
+            throw new IllegalArgumentException("File cannot be null or empty");
+        }
+
+        logger.info("Storing document: {}, size: {} bytes", file.getOriginalFilename(), file.getSize());
+
+        // Hash while copying so the upload is read exactly once
+        MessageDigest digest = newSha256();
+        Path tempFile = Files.createTempFile(root, "upload-", ".tmp");
+        try {
+            try (InputStream inputStream = new DigestInputStream(file.getInputStream(), digest)) {
+                Files.copy(inputStream, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            if (!hasPdfHeader(tempFile)) {
+                throw new IllegalArgumentException("Invalid PDF file: " + file.getOriginalFilename());
+            }
+
+            String documentId = HexFormat.of().formatHex(digest.digest());
+            long size = Files.size(tempFile);
+            // Estimated while the upload is in the page cache, request classification reads it from the index
+            int pageCount = FileUtils.estimatePageCount(new StoredPdfFile(documentId, tempFile, size));
+            boolean[] deduplicated = {true};
+
+            entries.compute(documentId, (id, existing) -> {
+                if (existing != null && Files.exists(existing.path)) {
+                    existing.pageCount = pageCount;
+                    existing.touch();
+                    return existing;
+                }
+
+                Path target = root.resolve(id + FILE_EXTENSION);
+                try {
+                    Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Failed to store document: " + e.getMessage(), e);
+                }
+                deduplicated[0] = false;
+                StoredEntry entry = new StoredEntry(target, size);
+                entry.pageCount = pageCount;
+                return entry;
+            });
+
+            logger.info("Document stored with id: {}, deduplicated: {}", documentId, deduplicated[0]);
+            return new StoredDocument(documentId, size, deduplicated[0], pageCount);
+
+        } finally {
+            FileUtils.deleteQuietly(tempFile);
+        }
+    }
+
+    /**
+     * Opens a stored document for an operation. The document is protected from garbage
+     * collection until {@link #release(String)} is called for it.
+     * @param documentId SHA-256 document ID
+     * @return memory-mapped view of the document
+     * @throws IllegalArgumentException if the ID is malformed or unknown
+     */
+    @Override
+    public MultipartFile acquire(String documentId) {
+        validateDocumentId(documentId);
+
+        StoredEntry entry = entries.computeIfPresent(documentId, (id, existing) -> {
+            existing.refCount.incrementAndGet();
+            existing.touch();
+            return existing;
+        });
+
+        if (entry == null) {
+            throw new IllegalArgumentException("Unknown document id: " + documentId);
+        }
+
+        return new StoredPdfFile(documentId, entry.path, entry.size);
+    }
+
+    /**
+     * Ends an operation started with {@link #acquire(String)}
+     * @param documentId SHA-256 document ID
+     */
+    @Override
+    public void release(String documentId) {
+        entries.computeIfPresent(documentId, (id, existing) -> {
+            if (existing.refCount.decrementAndGet() < 0) {
+                existing.refCount.set(0);
+                logger.warn("Document {} released more often than acquired", id);
+            }
+            existing.touch();
+            return existing;
+        });
+    }
+
+    /**
+     * Looks up a stored document without pinning it or touching its TTL. The page count of
+     * documents indexed at startup is estimated on first lookup and cached.
+     * @param documentId SHA-256 document ID
+     * @return size and estimated page count, or null if the document is unknown
+     */
+    @Override
+    public StoredDocument describe(String documentId) {
+        if (!exists(documentId)) {
+            return null;
+        }
+
+        StoredEntry entry = entries.get(documentId);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.pageCount == 0) {
+            entry.pageCount = FileUtils.estimatePageCount(new StoredPdfFile(documentId, entry.path, entry.size));
+        }
+        return new StoredDocument(documentId, entry.size, false, entry.pageCount);
+    }
+
+    @Override
+    public boolean exists(String documentId) {
+        return documentId != null && DOCUMENT_ID_PATTERN.matcher(documentId).matches()
+                && entries.containsKey(documentId);
+    }
+
+    /**
+     * Deletes documents that are not in use and were not accessed within the TTL
+     * @return number of deleted documents
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${doc-service.storage.gc-interval:PT5M}")
+    public int evictExpired() {
+        long cutoff = System.currentTimeMillis() - ttl.toMillis();
+        int evicted = 0;
+
+        for (String documentId : entries.keySet()) {
+            boolean[] removed = {false};
+            // The file is deleted while the key is locked, a concurrent store of the same
+            // content waits and then moves its copy into place instead of losing it
+            entries.computeIfPresent(documentId, (id, existing) -> {
+                if (existing.refCount.get() == 0 && existing.lastAccess < cutoff) {
+                    FileUtils.deleteQuietly(existing.path);
+                    removed[0] = true;
+                    return null;
+                }
+                return existing;
+            });
+
+            if (removed[0]) {
+                evicted++;
+            }
+        }
+
+        if (evicted > 0) {
+            logger.info("Evicted {} expired documents from store, {} remaining", evicted, entries.size());
+        }
+        return evicted;
+    }
+
+    private void validateDocumentId(String documentId) {
+        if (documentId == null || !DOCUMENT_ID_PATTERN.matcher(documentId).matches()) {
+            throw new IllegalArgumentException("Invalid document id: " + documentId);
+        }
+    }
+
+    private boolean hasPdfHeader(Path path) throws IOException {
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            byte[] header = inputStream.readNBytes(5);
+            return header.length == 5 && new String(header).equals("%PDF-");
+        }
+    }
+
+    private MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static class StoredEntry {
+
+        final Path path;
+        final long size;
+        final AtomicInteger refCount = new AtomicInteger();
+        volatile long lastAccess = System.currentTimeMillis();
+        // Estimated page count, 0 until known
+        volatile int pageCount;
+
+        StoredEntry(Path path, long size) {
+            this.path = path;
+            this.size = size;
+        }
+
+        void touch() {
+            lastAccess = System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package in.guardianservices.document_utility_core.utils;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of fixed-size chunks backing {@link ChunkedOutputBuffer}. Chunks are heap or
+ * direct (off-heap) buffers; at most maxPooledChunks are kept for reuse, the rest are
+ * left to the garbage collector when released.
+ */
+public class ChunkedBufferPool {
+
+    private final int chunkSize;
+    private final boolean direct;
+    private final int maxPooledChunks;
+
+    private final ConcurrentLinkedQueue<ByteBuffer> freeChunks = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooledChunks = new AtomicInteger();
+
+    public ChunkedBufferPool(int chunkSize, boolean direct, int maxPooledChunks) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        this.chunkSize = chunkSize;
+        this.direct = direct;
+        this.maxPooledChunks = Math.max(0, maxPooledChunks);
+    }
+
+    /**
+     * @return a new empty buffer drawing its chunks from this pool
+     */
+    public ChunkedOutputBuffer newBuffer() {
+        return new ChunkedOutputBuffer(this);
+    }
+
+    ByteBuffer acquireChunk() {
+        ByteBuffer chunk = freeChunks.poll();
+        if (chunk == null) {
+            return direct ? ByteBuffer.allocateDirect(chunkSize) : ByteBuffer.allocate(chunkSize);
+        }
+
+        pooledChunks.decrementAndGet();
+        chunk.clear();
+        return chunk;
+    }
+
+    void releaseChunk(ByteBuffer chunk) {
+        if (pooledChunks.incrementAndGet() <= maxPooledChunks) {
+            freeChunks.offer(chunk);
+        } else {
+            pooledChunks.decrementAndGet();
+        }
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public boolean isDirect() {
+        return direct;
+    }
+
+    /**
+     * @return number of idle chunks currently held for reuse
+     */
+    public int getPooledChunks() {
+        return pooledChunks.get();
+    }
+}
@@ -0,0 +1,406 @@
+package in.guardianservices.document_utility_core.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+/**
+ * Output stream that collects bytes in pooled fixed-size chunks instead of one growing
+ * array. Nothing is copied when the buffer grows and the content can be written to a
+ * response or read back as a stream without materializing a byte array.
+ * <p>
+ * The buffer is reference counted: it starts with one reference and returns its chunks
+ * to the pool when the last reference is released. A buffer that is never released is
+ * simply garbage collected, it only misses the reuse.
+ */
+public class ChunkedOutputBuffer extends OutputStream {
+
+    private final ChunkedBufferPool pool;
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private final AtomicInteger refCount = new AtomicInteger(1);
+
+    private ByteBuffer current;
+    private long size;
+
+    ChunkedOutputBuffer(ChunkedBufferPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureWritable().put((byte) b);
+        size++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            ByteBuffer chunk = ensureWritable();
+            int count = Math.min(len, chunk.remaining());
+            chunk.put(b, off, count);
+            off += count;
+            len -= count;
+            size += count;
+        }
+    }
+
+    /**
+     * Copies everything from the input stream into this buffer
+     * @param inputStream stream to drain, left open
+     * @return number of bytes copied
+     */
+    public long writeFrom(InputStream inputStream) throws IOException {
+        long copied = 0;
+        while (true) {
+            ByteBuffer chunk = ensureWritable();
+            int count;
+            if (chunk.hasArray()) {
+                // Read straight into the chunk's backing array
+                count = inputStream.read(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining());
+                if (count > 0) {
+                    chunk.position(chunk.position() + count);
+                }
+            } else {
+                byte[] transfer = new byte[Math.min(chunk.remaining(), 8192)];
+                count = inputStream.read(transfer);
+                if (count > 0) {
+                    chunk.put(transfer, 0, count);
+                }
+            }
+
+            if (count == -1) {
+                return copied;
+            }
+            size += count;
+            copied += count;
+        }
+    }
+
+    private ByteBuffer ensureWritable() throws IOException {
+        if (refCount.get() <= 0) {
+            throw new IOException("Buffer has already been released");
+        }
+        if (current == null || !current.hasRemaining()) {
+            current = pool.acquireChunk();
+            chunks.add(current);
+        }
+        return current;
+    }
+
+    /**
+     * @return number of bytes written, usable as Content-Length
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Writes the content to the given stream chunk by chunk, without intermediate copies
+     * for heap chunks
+     * @param outputStream target stream, left open
+     */
+    public void writeTo(OutputStream outputStream) throws IOException {
+        byte[] transfer = null;
+        for (ByteBuffer chunk : chunks) {
+            int length = chunk.position();
+            if (chunk.hasArray()) {
+                outputStream.write(chunk.array(), chunk.arrayOffset(), length);
+                continue;
+            }
+
+            if (transfer == null) {
+                transfer = new byte[Math.min(pool.getChunkSize(), 8192)];
+            }
+            ByteBuffer view = chunk.duplicate();
+            view.flip();
+            while (view.hasRemaining()) {
+                int count = Math.min(view.remaining(), transfer.length);
+                view.get(transfer, 0, count);
+                outputStream.write(transfer, 0, count);
+            }
+        }
+    }
+
+    /**
+     * @return a stream reading the content from the first byte; the buffer must stay
+     * referenced while it is read
+     */
+    public InputStream toInputStream() {
+        return new ChunkInputStream();
+    }
+
+    /**
+     * Copies the content into a new byte array. Only for APIs that require one.
+     * @return content of the buffer
+     */
+    public byte[] toByteArray() {
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Buffer too large for a byte array: " + size);
+        }
+
+        byte[] bytes = new byte[(int) size];
+        int offset = 0;
+        for (ByteBuffer chunk : chunks) {
+            ByteBuffer view = chunk.duplicate();
+            view.flip();
+            int length = view.remaining();
+            view.get(bytes, offset, length);
+            offset += length;
+        }
+        return bytes;
+    }
+
+    /**
+     * @return CRC-32 of the content, as required by STORED ZIP entries
+     */
+    public long crc32() {
+        return crc32(0, chunks.size());
+    }
+
+    /**
+     * Computes the CRC-32 of the content with groups of chunks checksummed on the given
+     * executor and the partial values combined. The calling thread takes over groups no
+     * worker has started yet, so this is safe to call from a worker of the same executor.
+     * @param executor executor for the groups
+     * @param parallelism maximum number of groups
+     * @return CRC-32 of the content
+     */
+    public long crc32(Executor executor, int parallelism) {
+        int groupCount = Math.max(1, Math.min(parallelism, chunks.size()));
+        if (groupCount == 1) {
+            return crc32();
+        }
+
+        List<FutureTask<long[]>> groups = new ArrayList<>();
+        int chunksPerGroup = (chunks.size() + groupCount - 1) / groupCount;
+        for (int from = 0; from < chunks.size(); from += chunksPerGroup) {
+            int start = from;
+            int end = Math.min(from + chunksPerGroup, chunks.size());
+            groups.add(new FutureTask<>(() -> new long[]{crc32(start, end), length(start, end)}));
+        }
+        groups.subList(1, groups.size()).forEach(executor::execute);
+
+        long crc = 0;
+        for (int i = 0; i < groups.size(); i++) {
+            FutureTask<long[]> group = groups.get(i);
+            // No-op when a worker already runs or ran the group
+            group.run();
+            long[] result;
+            try {
+                result = group.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while computing CRC-32", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Failed to compute CRC-32", e.getCause());
+            }
+            crc = i == 0 ? result[0] : crc32Combine(crc, result[0], result[1]);
+        }
+        return crc;
+    }
+
+    /**
+     * Copies up to the given number of bytes from the middle of the content, where the
+     * data is more representative than headers at the start
+     * @param maxLength maximum sample size
+     * @return sample of the content
+     */
+    public byte[] sample(int maxLength) {
+        int length = (int) Math.min(maxLength, size);
+        byte[] sample = new byte[length];
+        long skip = (size - length) / 2;
+
+        int written = 0;
+        for (ByteBuffer chunk : chunks) {
+            if (written == length) {
+                break;
+            }
+            int chunkLength = chunk.position();
+            if (skip >= chunkLength) {
+                skip -= chunkLength;
+                continue;
+            }
+
+            ByteBuffer view = chunk.duplicate();
+            view.flip();
+            view.position((int) skip);
+            skip = 0;
+            int count = Math.min(view.remaining(), length - written);
+            view.get(sample, written, count);
+            written += count;
+        }
+        return sample;
+    }
+
+    private long crc32(int fromChunk, int toChunk) {
+        CRC32 crc = new CRC32();
+        for (int i = fromChunk; i < toChunk; i++) {
+            ByteBuffer view = chunks.get(i).duplicate();
+            view.flip();
+            crc.update(view);
+        }
+        return crc.getValue();
+    }
+
+    private long length(int fromChunk, int toChunk) {
+        long length = 0;
+        for (int i = fromChunk; i < toChunk; i++) {
+            length += chunks.get(i).position();
+        }
+        return length;
+    }
+
+    /**
+     * CRC-32 of two concatenated blocks from the CRCs of the blocks, as zlib's crc32_combine:
+     * appending len2 zero bytes to the first CRC is a linear map, applied by repeated squaring
+     */
+    private static long crc32Combine(long crc1, long crc2, long len2) {
+        if (len2 <= 0) {
+            return crc1;
+        }
+
+        long[] even = new long[32];
+        long[] odd = new long[32];
+
+        // Operator for one zero bit
+        odd[0] = 0xEDB88320L;
+        long row = 1;
+        for (int n = 1; n < 32; n++) {
+            odd[n] = row;
+            row <<= 1;
+        }
+        gf2MatrixSquare(even, odd);
+        gf2MatrixSquare(odd, even);
+
+        // First squaring gives the operator for one zero byte
+        do {
+            gf2MatrixSquare(even, odd);
+            if ((len2 & 1) != 0) {
+                crc1 = gf2MatrixTimes(even, crc1);
+            }
+            len2 >>= 1;
+            if (len2 == 0) {
+                break;
+            }
+
+            gf2MatrixSquare(odd, even);
+            if ((len2 & 1) != 0) {
+                crc1 = gf2MatrixTimes(odd, crc1);
+            }
+            len2 >>= 1;
+        } while (len2 != 0);
+
+        return crc1 ^ crc2;
+    }
+
+    private static long gf2MatrixTimes(long[] matrix, long vector) {
+        long sum = 0;
+        for (int i = 0; vector != 0; i++, vector >>>= 1) {
+            if ((vector & 1) != 0) {
+                sum ^= matrix[i];
+            }
+        }
+        return sum;
+    }
+
+    private static void gf2MatrixSquare(long[] square, long[] matrix) {
+        for (int n = 0; n < 32; n++) {
+            square[n] = gf2MatrixTimes(matrix, matrix[n]);
+        }
+    }
+
+    /**
+     * Adds references, one per additional owner that will call {@link #release()}
+     * @param increment number of references to add
+     * @return this buffer
+     */
+    public ChunkedOutputBuffer retain(int increment) {
+        int previous = refCount.getAndAdd(increment);
+        if (previous <= 0) {
+            refCount.getAndAdd(-increment);
+            throw new IllegalStateException("Buffer has already been released");
+        }
+        return this;
+    }
+
+    /**
+     * Drops one reference and returns the chunks to the pool when none are left
+     */
+    public void release() {
+        int remaining = refCount.decrementAndGet();
+        if (remaining == 0) {
+            chunks.forEach(pool::releaseChunk);
+            chunks.clear();
+            current = null;
+        } else if (remaining < 0) {
+            throw new IllegalStateException("Buffer released more often than retained");
+        }
+    }
+
+    /**
+     * Releases every buffer of the list, ignoring nulls
+     * @param buffers buffers to release
+     */
+    public static void releaseAll(List<ChunkedOutputBuffer> buffers) {
+        if (buffers == null) {
+            return;
+        }
+        for (ChunkedOutputBuffer buffer : buffers) {
+            if (buffer != null) {
+                buffer.release();
+            }
+        }
+    }
+
+    /**
+     * Closing only ends writing, the content stays readable until released
+     */
+    @Override
+    public void close() {
+    }
+
+    private class ChunkInputStream extends InputStream {
+
+        private int chunkIndex;
+        private int offset;
+
+        @Override
+        public int read() {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+
+            while (chunkIndex < chunks.size()) {
+                ByteBuffer chunk = chunks.get(chunkIndex);
+                int available = chunk.position() - offset;
+                if (available <= 0) {
+                    chunkIndex++;
+                    offset = 0;
+                    continue;
+                }
+
+                int count = Math.min(len, available);
+                ByteBuffer view = chunk.duplicate();
+                view.position(offset);
+                view.get(b, off, count);
+                offset += count;
+                return count;
+            }
+            return -1;
+        }
+    }
+}
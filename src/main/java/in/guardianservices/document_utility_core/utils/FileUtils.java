@@ -6,11 +6,29 @@ import org.slf4j.LoggerFactory;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 
 public class FileUtils {
 
     private static final Logger logger = LoggerFactory.getLogger(FileUtils.class);
 
+    private static final byte[] COUNT_KEY = "/Count".getBytes(StandardCharsets.US_ASCII);
+
+    // Page count fallback for documents without a readable page tree
+    private static final long ESTIMATED_BYTES_PER_PAGE = 50 * 1024;
+
+    // Header and %%EOF marker are searched within this many bytes of the start and end
+    private static final int STRUCTURE_SCAN_SIZE = 1024;
+
     /**
      * Checks if a PDF file is password protected
      * @param file MultipartFile containing the PDF
@@ -81,6 +99,50 @@ public class FileUtils {
         return file.getSize() <= maxSizeInBytes;
     }
 
+    /**
+     * Validates PDF file format from the content type, extension, the %PDF- header and the
+     * %%EOF marker at the end, without parsing the document. Reads at most 2KB.
+     * @param file MultipartFile to validate
+     * @return true if the file looks like a complete PDF
+     */
+    public static boolean hasPdfStructure(MultipartFile file) {
+        if (file == null || file.isEmpty()) {
+            return false;
+        }
+
+        String contentType = file.getContentType();
+        if (contentType != null && !contentType.equals("application/pdf")) {
+            logger.error("Invalid content type: {}", contentType);
+            return false;
+        }
+
+        String filename = file.getOriginalFilename();
+        if (filename != null && !filename.toLowerCase().endsWith(".pdf")) {
+            logger.error("Invalid file extension: {}", filename);
+            return false;
+        }
+
+        try {
+            byte[] head;
+            try (InputStream inputStream = file.getInputStream()) {
+                head = inputStream.readNBytes(STRUCTURE_SCAN_SIZE);
+            }
+
+            byte[] tail;
+            try (InputStream inputStream = file.getInputStream()) {
+                inputStream.skipNBytes(Math.max(0, file.getSize() - STRUCTURE_SCAN_SIZE));
+                tail = inputStream.readAllBytes();
+            }
+
+            // Writers may put garbage before the header, PDF readers search the first 1KB
+            return new String(head, StandardCharsets.ISO_8859_1).contains("%PDF-")
+                    && new String(tail, StandardCharsets.ISO_8859_1).contains("%%EOF");
+        } catch (IOException e) {
+            logger.error("Failed to read PDF structure: {}", e.getMessage());
+            return false;
+        }
+    }
+
     /**
      * Validates if byte array contains valid PDF data
      * @param bytes the byte array to validate
@@ -101,4 +163,190 @@ public class FileUtils {
         String content = new String(bytes);
         return content.contains("%%EOF");
     }
+
+    /**
+     * @param file the MultipartFile to inspect
+     * @return path of the file's content on the local disk, or null if it is only available as a stream
+     */
+    public static Path localPath(MultipartFile file) {
+        if (file instanceof LocalPdfFile localFile) {
+            return localFile.getPath();
+        }
+        if (file instanceof StoredPdfFile storedFile) {
+            return storedFile.getPath();
+        }
+        return null;
+    }
+
+    /**
+     * Copies an uploaded file to a temporary file so it can be opened with random access
+     * or by several readers at once. The caller is responsible for deleting it.
+     * @param file the MultipartFile to copy
+     * @return path of the temporary copy
+     */
+    public static Path spoolToTempFile(MultipartFile file) throws IOException {
+        Path tempFile = Files.createTempFile("doc-service-", ".pdf");
+        try (InputStream inputStream = file.getInputStream()) {
+            Files.copy(inputStream, tempFile, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            deleteQuietly(tempFile);
+            throw e;
+        }
+        return tempFile;
+    }
+
+    /**
+     * Deletes a file, logging instead of throwing on failure
+     * @param path file to delete, may be null
+     */
+    public static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Failed to delete temporary file {}: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * Computes the SHA-256 of a file's content as lowercase hex. Stored documents are
+     * already addressed by that hash, so their ID is returned without reading them.
+     * @param file the MultipartFile to hash
+     * @return hex encoded SHA-256
+     */
+    public static String sha256Hex(MultipartFile file) throws IOException {
+        if (file instanceof StoredPdfFile storedPdfFile) {
+            return storedPdfFile.getDocumentId();
+        }
+
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+
+        try (InputStream inputStream = new DigestInputStream(file.getInputStream(), digest)) {
+            inputStream.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Computes the SHA-256 of a file on disk as lowercase hex
+     * @param path the file to hash
+     * @return hex encoded SHA-256 of the file content
+     */
+    public static String sha256Hex(Path path) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+
+        try (InputStream inputStream = new DigestInputStream(Files.newInputStream(path), digest)) {
+            inputStream.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Estimates the page count without parsing the document: the page tree root carries
+     * the largest /Count of the file. Documents whose page tree sits in compressed object
+     * streams have no visible /Count and are estimated from their size.
+     * @param file the MultipartFile to inspect
+     * @return estimated number of pages, at least 1
+     */
+    public static int estimatePageCount(MultipartFile file) {
+        return estimatePageCount(file, Long.MAX_VALUE);
+    }
+
+    /**
+     * Estimates the page count like {@link #estimatePageCount(MultipartFile)}, reading at most
+     * the first and the last maxScanBytes of the file. Writers put the page tree root near the
+     * start, or near the end with incremental updates, so a root in the middle of a large file
+     * falls back to the size estimate.
+     * @param file the MultipartFile to inspect
+     * @param maxScanBytes bytes read from each end of the file
+     * @return estimated number of pages, at least 1
+     */
+    public static int estimatePageCount(MultipartFile file, long maxScanBytes) {
+        long size = file.getSize();
+        int sizeEstimate = (int) Math.max(1, Math.min(Integer.MAX_VALUE, size / ESTIMATED_BYTES_PER_PAGE));
+
+        PageCountScanner scanner = new PageCountScanner();
+        try (InputStream inputStream = file.getInputStream()) {
+            if (maxScanBytes >= size / 2) {
+                scanner.scan(inputStream, Long.MAX_VALUE);
+            } else {
+                scanner.scan(inputStream, maxScanBytes);
+                // File backed streams seek instead of reading the skipped bytes
+                inputStream.skipNBytes(size - 2 * maxScanBytes);
+                scanner.restart();
+                scanner.scan(inputStream, maxScanBytes);
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to estimate page count of {}: {}", file.getOriginalFilename(), e.getMessage());
+            return sizeEstimate;
+        }
+
+        return scanner.maxCount > 0 ? scanner.maxCount : sizeEstimate;
+    }
+
+    /**
+     * Finds the largest number following /Count in the bytes fed to it
+     */
+    private static final class PageCountScanner {
+
+        private final byte[] buffer = new byte[64 * 1024];
+        private int maxCount;
+        private int matched;
+        private long value = -1;
+
+        /**
+         * Forgets a partial match, for continuing at a different position of the file
+         */
+        void restart() {
+            matched = 0;
+            value = -1;
+        }
+
+        void scan(InputStream inputStream, long maxBytes) throws IOException {
+            long remaining = maxBytes;
+            int read;
+            while (remaining > 0
+                    && (read = inputStream.read(buffer, 0, (int) Math.min(buffer.length, remaining))) != -1) {
+                remaining -= read;
+                for (int i = 0; i < read; i++) {
+                    byte b = buffer[i];
+
+                    if (value >= 0) {
+                        // Parsing the number after /Count, leading whitespace allowed
+                        if (b >= '0' && b <= '9') {
+                            value = Math.min(value * 10 + (b - '0'), Integer.MAX_VALUE);
+                            continue;
+                        }
+                        if (value == 0 && (b == ' ' || b == '\r' || b == '\n' || b == '\t')) {
+                            continue;
+                        }
+                        maxCount = (int) Math.max(maxCount, value);
+                        value = -1;
+                        matched = 0;
+                    }
+
+                    if (b == COUNT_KEY[matched]) {
+                        if (++matched == COUNT_KEY.length) {
+                            value = 0;
+                        }
+                    } else {
+                        matched = b == COUNT_KEY[0] ? 1 : 0;
+                    }
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,64 @@
+package in.guardianservices.document_utility_core.utils;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+
+/**
+ * MultipartFile view of a PDF held in memory, for documents the service creates itself
+ * and runs through the same operations as uploads
+ */
+public class InMemoryPdfFile implements MultipartFile {
+
+    private final String fileName;
+    private final byte[] content;
+
+    public InMemoryPdfFile(String fileName, byte[] content) {
+        this.fileName = fileName;
+        this.content = content;
+    }
+
+    @Override
+    public String getName() {
+        return "file";
+    }
+
+    @Override
+    public String getOriginalFilename() {
+        return fileName;
+    }
+
+    @Override
+    public String getContentType() {
+        return "application/pdf";
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return content.length == 0;
+    }
+
+    @Override
+    public long getSize() {
+        return content.length;
+    }
+
+    @Override
+    public byte[] getBytes() {
+        return content.clone();
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return new ByteArrayInputStream(content);
+    }
+
+    @Override
+    public void transferTo(File dest) throws IOException {
+        Files.write(dest.toPath(), content);
+    }
+}
@@ -0,0 +1,69 @@
+package in.guardianservices.document_utility_core.utils;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * MultipartFile view of a PDF on the local disk, for documents read from a directory
+ * instead of a request. Content is streamed from the file on every read.
+ */
+public class LocalPdfFile implements MultipartFile {
+
+    private final Path path;
+    private final long size;
+
+    public LocalPdfFile(Path path) throws IOException {
+        this.path = path;
+        this.size = Files.size(path);
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public String getName() {
+        return "file";
+    }
+
+    @Override
+    public String getOriginalFilename() {
+        return path.getFileName().toString();
+    }
+
+    @Override
+    public String getContentType() {
+        return "application/pdf";
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public byte[] getBytes() throws IOException {
+        return Files.readAllBytes(path);
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return Files.newInputStream(path);
+    }
+
+    @Override
+    public void transferTo(File dest) throws IOException {
+        Files.copy(path, dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+}
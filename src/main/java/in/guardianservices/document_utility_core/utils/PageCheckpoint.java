@@ -0,0 +1,226 @@
+package in.guardianservices.document_utility_core.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-page progress of a page-by-page job. Finished pages are files in the output
+ * directory and are recorded in a manifest next to it ({@code <directory>.manifest}), one
+ * line per page, synced to disk before the next page starts. A job restarted after a crash
+ * opens the same checkpoint and only renders the pages that are not recorded yet.
+ * <p>
+ * A page counts as done only if its file still exists with the recorded size, so a page
+ * file lost or truncated in a crash is rendered again.
+ */
+public class PageCheckpoint {
+
+    private static final Logger logger = LoggerFactory.getLogger(PageCheckpoint.class);
+
+    private static final String MANIFEST_SUFFIX = ".manifest";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path directory;
+    private final Path manifest;
+    private final Map<Integer, Path> donePages = new HashMap<>();
+
+    PageCheckpoint(Path directory) {
+        this.directory = directory;
+        this.manifest = manifestOf(directory);
+    }
+
+    /**
+     * Opens the checkpoint of an output directory, creating both if needed
+     * @param directory output directory of the job
+     * @return checkpoint with the pages finished by earlier runs
+     */
+    public static PageCheckpoint open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        PageCheckpoint checkpoint = new PageCheckpoint(directory);
+        checkpoint.load();
+        return checkpoint;
+    }
+
+    /**
+     * @param directory output directory of a job
+     * @return true if the job was checkpointed
+     */
+    static boolean hasManifest(Path directory) {
+        return Files.exists(manifestOf(directory));
+    }
+
+    /**
+     * @param directory output directory of a job
+     * @return when the job last wrote or reused its checkpoint: the manifest's modification
+     * time, or the directory's if no page was recorded yet
+     */
+    static long lastUsedMillis(Path directory) throws IOException {
+        Path manifest = manifestOf(directory);
+        return Files.exists(manifest)
+                ? Files.getLastModifiedTime(manifest).toMillis()
+                : Files.getLastModifiedTime(directory).toMillis();
+    }
+
+    private static Path manifestOf(Path directory) {
+        return directory.resolveSibling(directory.getFileName() + MANIFEST_SUFFIX);
+    }
+
+    /**
+     * @return output directory of the job
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @return number of pages finished so far
+     */
+    public int getDonePageCount() {
+        return donePages.size();
+    }
+
+    /**
+     * @param pageIndex 0-based page index
+     * @return file of the finished page, or null if the page still has to be done
+     */
+    public Path getPageFile(int pageIndex) {
+        return donePages.get(pageIndex);
+    }
+
+    /**
+     * @param fileName name of a page file in the output directory
+     * @return temporary path to write the page to before {@link #recordPage(int, Path)}
+     */
+    public Path tempFile(String fileName) {
+        return directory.resolve(fileName + TEMP_SUFFIX);
+    }
+
+    /**
+     * Moves a completely written page file into place and records it
+     * @param pageIndex 0-based page index
+     * @param tempFile file written at {@link #tempFile(String)}
+     * @return final path of the page file
+     */
+    public Path recordPage(int pageIndex, Path tempFile) throws IOException {
+        String name = tempFile.getFileName().toString();
+        Path pageFile = directory.resolve(name.substring(0, name.length() - TEMP_SUFFIX.length()));
+        Files.move(tempFile, pageFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        String line = pageIndex + "\t" + pageFile.getFileName() + "\t" + Files.size(pageFile) + "\n";
+        try (FileChannel channel = FileChannel.open(manifest,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8)));
+            channel.force(false);
+        }
+
+        donePages.put(pageIndex, pageFile);
+        return pageFile;
+    }
+
+    /**
+     * Writes a page held in memory and records it
+     * @param pageIndex 0-based page index
+     * @param fileName name of the page file
+     * @param content page content, left unreleased
+     */
+    public void recordPage(int pageIndex, String fileName, ChunkedOutputBuffer content) throws IOException {
+        Path tempFile = tempFile(fileName);
+        try (OutputStream outputStream = Files.newOutputStream(tempFile)) {
+            content.writeTo(outputStream);
+        }
+        recordPage(pageIndex, tempFile);
+    }
+
+    /**
+     * Reads a finished page back into a pooled buffer
+     * @param pageIndex 0-based page index of a finished page
+     * @param bufferPool pool of the returned buffer
+     * @return buffer holding the page, to be released by the caller
+     */
+    public ChunkedOutputBuffer readPage(int pageIndex, ChunkedBufferPool bufferPool) throws IOException {
+        ChunkedOutputBuffer buffer = bufferPool.newBuffer();
+        try (InputStream inputStream = Files.newInputStream(donePages.get(pageIndex))) {
+            buffer.writeFrom(inputStream);
+        } catch (IOException | RuntimeException e) {
+            buffer.release();
+            throw e;
+        }
+        return buffer;
+    }
+
+    /**
+     * Marks the checkpoint as used now, so a job that only reuses finished pages and writes
+     * nothing keeps its output from expiring while its caller reads it
+     */
+    void touch() throws IOException {
+        FileTime now = FileTime.fromMillis(System.currentTimeMillis());
+        Files.setLastModifiedTime(Files.exists(manifest) ? manifest : directory, now);
+    }
+
+    /**
+     * Removes the manifest and keeps the page files, once they are the job's final output
+     */
+    public void complete() {
+        FileUtils.deleteQuietly(manifest);
+        donePages.clear();
+    }
+
+    /**
+     * Removes the manifest and the output directory, once the job's result is delivered
+     */
+    public void delete() {
+        FileUtils.deleteQuietly(manifest);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                FileUtils.deleteQuietly(file);
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to list checkpoint directory {}: {}", directory, e.getMessage());
+        }
+        FileUtils.deleteQuietly(directory);
+        donePages.clear();
+    }
+
+    private void load() throws IOException {
+        if (!Files.exists(manifest)) {
+            return;
+        }
+
+        List<String> lines = Files.readAllLines(manifest, StandardCharsets.UTF_8);
+        for (String line : lines) {
+            // The last line may be cut off by a crash while it was written
+            String[] fields = line.split("\t");
+            if (fields.length != 3) {
+                continue;
+            }
+
+            try {
+                int pageIndex = Integer.parseInt(fields[0]);
+                Path pageFile = directory.resolve(fields[1]);
+                long size = Long.parseLong(fields[2]);
+                if (Files.isRegularFile(pageFile) && Files.size(pageFile) == size) {
+                    donePages.put(pageIndex, pageFile);
+                }
+            } catch (NumberFormatException e) {
+                logger.warn("Skipping malformed checkpoint line in {}: {}", manifest, line);
+            }
+        }
+
+        logger.info("Resuming from checkpoint {} with {} finished pages", manifest, donePages.size());
+    }
+}
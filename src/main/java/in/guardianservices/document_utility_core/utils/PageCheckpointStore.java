@@ -0,0 +1,182 @@
+package in.guardianservices.document_utility_core.utils;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hands out {@link PageCheckpoint}s to page-by-page jobs. A checkpoint is only used by one
+ * job at a time; an identical job running concurrently proceeds without one. Checkpoints
+ * not written to or reopened within their TTL are evicted.
+ */
+@Component
+public class PageCheckpointStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(PageCheckpointStore.class);
+
+    private final Set<Path> openDirectories = ConcurrentHashMap.newKeySet();
+    private final Set<Path> outputRoots = ConcurrentHashMap.newKeySet();
+
+    @Value("${doc-service.checkpoint.enabled:false}")
+    private boolean enabled;
+
+    @Value("${doc-service.checkpoint.directory:/tmp/doc-service-checkpoints}")
+    private String checkpointDirectory;
+
+    @Value("${doc-service.checkpoint.min-pages:50}")
+    private int minPages;
+
+    @Value("${doc-service.checkpoint.ttl:PT24H}")
+    private Duration ttl;
+
+    private Path root;
+
+    @PostConstruct
+    public void init() throws IOException {
+        root = Paths.get(checkpointDirectory);
+        if (enabled) {
+            Files.createDirectories(root);
+        }
+    }
+
+    /**
+     * @return true if page-by-page jobs are checkpointed
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param pageCount pages of a job
+     * @return true if the job is long enough to be checkpointed
+     */
+    public boolean appliesTo(int pageCount) {
+        return enabled && pageCount >= minPages;
+    }
+
+    /**
+     * Opens the checkpoint of an in-memory job in the checkpoint directory
+     * @param jobKey identifies the input and all parameters, safe as a file name
+     * @return checkpoint, or null if checkpointing is disabled or the job is already running
+     */
+    public PageCheckpoint open(String jobKey) throws IOException {
+        return openAt(root.resolve(jobKey));
+    }
+
+    /**
+     * Opens the checkpoint of a job writing to a shared output directory. Checkpoints in that
+     * directory are evicted after the TTL like those in the checkpoint directory, other
+     * directories in it are left alone.
+     * @param outputRoot directory holding the output directories of several jobs
+     * @param jobKey identifies the input and all parameters, safe as a file name
+     * @return checkpoint, or null if checkpointing is disabled or the job is already running
+     */
+    public PageCheckpoint openIn(Path outputRoot, String jobKey) throws IOException {
+        if (enabled) {
+            outputRoots.add(outputRoot.toAbsolutePath());
+        }
+        return openAt(outputRoot.resolve(jobKey));
+    }
+
+    /**
+     * Opens the checkpoint of a job writing to the given output directory. Opening counts as
+     * a use, the TTL of a reused checkpoint starts again.
+     * @param directory output directory of the job
+     * @return checkpoint, or null if checkpointing is disabled or the job is already running
+     */
+    public PageCheckpoint openAt(Path directory) throws IOException {
+        if (!enabled || !openDirectories.add(directory.toAbsolutePath())) {
+            return null;
+        }
+        try {
+            PageCheckpoint checkpoint = PageCheckpoint.open(directory);
+            checkpoint.touch();
+            return checkpoint;
+        } catch (IOException | RuntimeException e) {
+            openDirectories.remove(directory.toAbsolutePath());
+            throw e;
+        }
+    }
+
+    /**
+     * Marks the job of a checkpoint as no longer running
+     * @param checkpoint checkpoint returned by this store, may be null
+     */
+    public void close(PageCheckpoint checkpoint) {
+        if (checkpoint != null) {
+            openDirectories.remove(checkpoint.getDirectory().toAbsolutePath());
+        }
+    }
+
+    /**
+     * Deletes checkpoints in the checkpoint directory and in the output roots passed to
+     * {@link #openIn} that have not been written to or reopened within the TTL
+     * @return number of checkpoints deleted
+     */
+    @Scheduled(fixedDelayString = "${doc-service.checkpoint.gc-interval:PT1H}")
+    public int evictExpired() {
+        if (!enabled) {
+            return 0;
+        }
+
+        long cutoff = System.currentTimeMillis() - ttl.toMillis();
+        int evicted = evictExpired(root, cutoff, false);
+        for (Path outputRoot : outputRoots) {
+            evicted += evictExpired(outputRoot, cutoff, true);
+        }
+
+        if (evicted > 0) {
+            logger.info("Evicted {} expired checkpoints", evicted);
+        }
+        return evicted;
+    }
+
+    /**
+     * @param checkpointsOnly true to skip directories without a manifest, which belong to jobs
+     *                        that were not checkpointed
+     */
+    private int evictExpired(Path parent, long cutoff, boolean checkpointsOnly) {
+        if (!Files.isDirectory(parent)) {
+            return 0;
+        }
+
+        int evicted = 0;
+        try (DirectoryStream<Path> directories = Files.newDirectoryStream(parent, Files::isDirectory)) {
+            for (Path directory : directories) {
+                if (checkpointsOnly && !PageCheckpoint.hasManifest(directory)) {
+                    continue;
+                }
+                // Writing pages into the directory keeps its own time, reuse only touches the manifest
+                if (PageCheckpoint.lastUsedMillis(directory) >= cutoff) {
+                    continue;
+                }
+                // Holding the directory like a job keeps it from being resumed while it is deleted
+                Path key = directory.toAbsolutePath();
+                if (!openDirectories.add(key)) {
+                    continue;
+                }
+                try {
+                    new PageCheckpoint(directory).delete();
+                    evicted++;
+                } finally {
+                    openDirectories.remove(key);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to evict expired checkpoints in {}: {}", parent, e.getMessage());
+        }
+        return evicted;
+    }
+}
@@ -0,0 +1,318 @@
+package in.guardianservices.document_utility_core.utils;
+
+import org.apache.pdfbox.contentstream.PDFGraphicsStreamEngine;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.graphics.color.PDColor;
+import org.apache.pdfbox.pdmodel.graphics.color.PDColorSpace;
+import org.apache.pdfbox.pdmodel.graphics.color.PDIndexed;
+import org.apache.pdfbox.pdmodel.graphics.color.PDPattern;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImage;
+import org.apache.pdfbox.pdmodel.graphics.pattern.PDAbstractPattern;
+import org.apache.pdfbox.pdmodel.graphics.pattern.PDShadingPattern;
+import org.apache.pdfbox.pdmodel.graphics.pattern.PDTilingPattern;
+import org.apache.pdfbox.pdmodel.graphics.shading.PDShading;
+import org.apache.pdfbox.pdmodel.graphics.state.RenderingMode;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAnnotation;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.util.Matrix;
+import org.apache.pdfbox.util.Vector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.Set;
+
+public class PageColorAnalyzer {
+
+    private static final Logger logger = LoggerFactory.getLogger(PageColorAnalyzer.class);
+
+    public static final String MODE_RGB = "RGB";
+    public static final String MODE_GRAY = "GRAY";
+    public static final String MODE_BINARY = "BINARY";
+    public static final String MODE_AUTO = "AUTO";
+
+    private static final Set<String> SUPPORTED_MODES = Set.of(MODE_RGB, MODE_GRAY, MODE_BINARY, MODE_AUTO);
+
+    // Max channel spread for a color to still count as neutral gray
+    private static final int CHROMA_TOLERANCE = 8;
+
+    // Max distance from pure black/white for a color to count as bi-level
+    private static final int BINARY_TOLERANCE = 4;
+
+    // Tints a one-component color space is checked at, e.g. a spot color that may not be gray
+    private static final float[] TINT_SAMPLES = {0f, 0.25f, 0.5f, 0.75f, 1f};
+
+    // Color images are checked on a grid of about this many pixels per side
+    private static final int IMAGE_SAMPLE_SIZE = 1024;
+
+    /**
+     * Checks if the given color mode is supported
+     * @param colorMode RGB, GRAY, BINARY or AUTO
+     * @return true if supported
+     */
+    public static boolean isSupportedMode(String colorMode) {
+        return colorMode != null && SUPPORTED_MODES.contains(colorMode.toUpperCase());
+    }
+
+    /**
+     * Resolves the image type to render a page with. For AUTO the page content is scanned
+     * and rendered as GRAY or BINARY when it paints no color.
+     * @param page the page about to be rendered
+     * @param colorMode RGB, GRAY, BINARY or AUTO
+     * @param format output image format, used to drop modes the encoder cannot write
+     * @return image type to pass to the renderer
+     */
+    public static ImageType resolveImageType(PDPage page, String colorMode, String format) throws IOException {
+        ImageType requested = switch (colorMode.toUpperCase()) {
+            case MODE_GRAY -> ImageType.GRAY;
+            case MODE_BINARY -> ImageType.BINARY;
+            case MODE_AUTO -> detectImageType(page);
+            default -> ImageType.RGB;
+        };
+
+        return restrictToFormat(requested, format);
+    }
+
+    /**
+     * Picks the smallest image type that represents the page without losing color. The
+     * colors the content stream and the visible annotations paint with are checked, not a
+     * rendering of the page, so thin strokes and small text count however few pixels they cover.
+     * @param page the page to inspect
+     * @return RGB if anything is painted in color, BINARY if everything is painted black or
+     * white, GRAY otherwise
+     */
+    public static ImageType detectImageType(PDPage page) throws IOException {
+        ColorUsage usage = new ColorUsage(page);
+        usage.processPage(page);
+
+        for (PDAnnotation annotation : page.getAnnotations()) {
+            if (!annotation.isHidden() && !annotation.isNoView()) {
+                usage.showVisibleAnnotation(annotation);
+            }
+        }
+
+        logger.debug("Page content needs {}", usage.imageType);
+        return usage.imageType;
+    }
+
+    private static ImageType restrictToFormat(ImageType imageType, String format) {
+        String normalizedFormat = format.toUpperCase();
+
+        // JPEG cannot encode 1-bit images, BMP and GIF writers only reliably handle RGB
+        if (imageType == ImageType.BINARY && !normalizedFormat.equals("PNG")) {
+            imageType = ImageType.GRAY;
+        }
+
+        if (imageType == ImageType.GRAY && !(normalizedFormat.equals("PNG")
+                || normalizedFormat.equals("JPEG") || normalizedFormat.equals("JPG"))) {
+            imageType = ImageType.RGB;
+        }
+
+        return imageType;
+    }
+
+    /**
+     * @return the image type a single color needs
+     */
+    private static ImageType classify(int r, int g, int b) {
+        int max = Math.max(r, Math.max(g, b));
+        int min = Math.min(r, Math.min(g, b));
+        if (max - min > CHROMA_TOLERANCE) {
+            return ImageType.RGB;
+        }
+        if (max <= BINARY_TOLERANCE || min >= 255 - BINARY_TOLERANCE) {
+            return ImageType.BINARY;
+        }
+        return ImageType.GRAY;
+    }
+
+    /**
+     * Walks the painting operators of a page and records the most demanding color painted
+     */
+    private static class ColorUsage extends PDFGraphicsStreamEngine {
+
+        private ImageType imageType = ImageType.BINARY;
+        private final Point2D.Float currentPoint = new Point2D.Float();
+
+        ColorUsage(PDPage page) {
+            super(page);
+        }
+
+        void showVisibleAnnotation(PDAnnotation annotation) throws IOException {
+            if (annotation.getAppearance() != null) {
+                showAnnotation(annotation);
+            } else if (annotation.getColor() != null) {
+                // Drawn by the renderer from its /C color when it has no appearance stream
+                paint(annotation.getColor());
+            }
+        }
+
+        private void require(ImageType needed) {
+            if (needed == ImageType.RGB || (needed == ImageType.GRAY && imageType == ImageType.BINARY)) {
+                imageType = needed;
+            }
+        }
+
+        private void paint(PDColor color) throws IOException {
+            if (imageType == ImageType.RGB) {
+                return;
+            }
+
+            PDColorSpace colorSpace = color.getColorSpace();
+            if (colorSpace instanceof PDPattern pattern) {
+                paintPattern(pattern, color);
+                return;
+            }
+
+            int rgb = color.toRGB();
+            require(classify((rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF));
+        }
+
+        private void paintPattern(PDPattern colorSpace, PDColor color) throws IOException {
+            PDAbstractPattern pattern = colorSpace.getPattern(color);
+            if (pattern instanceof PDShadingPattern shadingPattern) {
+                paintShading(shadingPattern.getShading());
+            } else if (pattern instanceof PDTilingPattern tilingPattern
+                    && tilingPattern.getPaintType() == PDTilingPattern.PAINT_UNCOLORED
+                    && colorSpace.getUnderlyingColorSpace() != null) {
+                // Uncolored tiles are painted in the color given along with the pattern
+                paint(new PDColor(color.getComponents(), colorSpace.getUnderlyingColorSpace()));
+            } else {
+                // Colored tiles bring their own content, assume the worst
+                require(ImageType.RGB);
+            }
+        }
+
+        private void paintShading(PDShading shading) throws IOException {
+            // Shadings blend between colors, at best they are gray
+            require(shading != null && isNeutral(shading.getColorSpace()) ? ImageType.GRAY : ImageType.RGB);
+        }
+
+        /**
+         * @return true for one-component color spaces whose every tint is gray, such as
+         * DeviceGray, CalGray or a black spot color
+         */
+        private static boolean isNeutral(PDColorSpace colorSpace) throws IOException {
+            if (colorSpace == null || colorSpace.getNumberOfComponents() != 1 || colorSpace instanceof PDIndexed) {
+                return false;
+            }
+            for (float tint : TINT_SAMPLES) {
+                float[] rgb = colorSpace.toRGB(new float[]{tint});
+                int r = Math.round(rgb[0] * 255);
+                int g = Math.round(rgb[1] * 255);
+                int b = Math.round(rgb[2] * 255);
+                if (classify(r, g, b) == ImageType.RGB) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void drawImage(PDImage pdImage) throws IOException {
+            if (imageType == ImageType.RGB) {
+                return;
+            }
+
+            // Stencil masks are painted in the fill color
+            if (pdImage.isStencil()) {
+                paint(getGraphicsState().getNonStrokingColor());
+                return;
+            }
+
+            if (isNeutral(pdImage.getColorSpace())) {
+                if (pdImage.getBitsPerComponent() > 1) {
+                    require(ImageType.GRAY);
+                }
+                return;
+            }
+
+            // Color spaces that can hold color, scans are often stored as RGB without any
+            int subsampling = Math.max(1, Math.max(pdImage.getWidth(), pdImage.getHeight()) / IMAGE_SAMPLE_SIZE);
+            BufferedImage sample = pdImage.getImage(null, subsampling);
+            int width = sample.getWidth();
+            int[] row = new int[width];
+
+            for (int y = 0; y < sample.getHeight() && imageType != ImageType.RGB; y++) {
+                sample.getRGB(0, y, width, 1, row, 0, width);
+                for (int pixel : row) {
+                    require(classify((pixel >> 16) & 0xFF, (pixel >> 8) & 0xFF, pixel & 0xFF));
+                }
+            }
+        }
+
+        @Override
+        protected void showFontGlyph(Matrix textRenderingMatrix, PDFont font, int code, String unicode,
+                                     Vector displacement) throws IOException {
+            RenderingMode renderingMode = getGraphicsState().getTextState().getRenderingMode();
+            if (renderingMode.isFill()) {
+                paint(getGraphicsState().getNonStrokingColor());
+            }
+            if (renderingMode.isStroke()) {
+                paint(getGraphicsState().getStrokingColor());
+            }
+        }
+
+        @Override
+        public void strokePath() throws IOException {
+            paint(getGraphicsState().getStrokingColor());
+        }
+
+        @Override
+        public void fillPath(int windingRule) throws IOException {
+            paint(getGraphicsState().getNonStrokingColor());
+        }
+
+        @Override
+        public void fillAndStrokePath(int windingRule) throws IOException {
+            paint(getGraphicsState().getNonStrokingColor());
+            paint(getGraphicsState().getStrokingColor());
+        }
+
+        @Override
+        public void shadingFill(COSName shadingName) throws IOException {
+            paintShading(getResources().getShading(shadingName));
+        }
+
+        @Override
+        public void appendRectangle(Point2D p0, Point2D p1, Point2D p2, Point2D p3) {
+            currentPoint.setLocation(p0);
+        }
+
+        @Override
+        public void clip(int windingRule) {
+        }
+
+        @Override
+        public void moveTo(float x, float y) {
+            currentPoint.setLocation(x, y);
+        }
+
+        @Override
+        public void lineTo(float x, float y) {
+            currentPoint.setLocation(x, y);
+        }
+
+        @Override
+        public void curveTo(float x1, float y1, float x2, float y2, float x3, float y3) {
+            currentPoint.setLocation(x3, y3);
+        }
+
+        @Override
+        public Point2D getCurrentPoint() {
+            return currentPoint;
+        }
+
+        @Override
+        public void closePath() {
+        }
+
+        @Override
+        public void endPath() {
+        }
+    }
+}
@@ -0,0 +1,927 @@
+package in.guardianservices.document_utility_core.utils;
+
+import org.apache.pdfbox.pdmodel.encryption.StandardSecurityHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Checks a password against the /O and /U entries of a PDF's standard security handler
+ * by reading only startxref, the cross-reference sections, the trailer and the /Encrypt
+ * dictionary. The objects themselves are not parsed, so a wrong password is rejected
+ * before a full load is attempted.
+ * <p>
+ * Files this reader does not understand or that it would have to repair (damaged xref,
+ * object headers that do not match their references, indirect stream lengths, public key
+ * security, ...) report {@link Result#UNKNOWN} and are left to PDFBox.
+ */
+public class PdfPasswordVerifier {
+
+    private static final Logger logger = LoggerFactory.getLogger(PdfPasswordVerifier.class);
+
+    public enum Result {
+        NOT_ENCRYPTED,
+        VALID,
+        /** Only reported when the trailer and /Encrypt were read without any repair */
+        INVALID,
+        UNKNOWN
+    }
+
+    private static final int TAIL_SIZE = 2048;
+    private static final int WINDOW_SIZE = 16 * 1024;
+    // An xref entry is 20 bytes by the spec, writers also produce 19 and 21
+    private static final int MIN_XREF_ENTRY_SIZE = 18;
+    // Tokens are read from a window with at least this much left, an entry never spans two windows
+    private static final int XREF_WINDOW_MARGIN = 64;
+    private static final int MAX_XREF_SECTIONS = 64;
+    private static final int MAX_XREF_STREAM_SIZE = 16 * 1024 * 1024;
+
+    private final MultipartFile file;
+    private final long length;
+
+    private PdfPasswordVerifier(MultipartFile file) {
+        this.file = file;
+        this.length = file.getSize();
+    }
+
+    /**
+     * Verifies a password without loading the document
+     * @param file the PDF to check
+     * @param password user or owner password
+     * @return VALID or INVALID for standard-encrypted files, NOT_ENCRYPTED if the file has a
+     * single trailer without an /Encrypt entry, UNKNOWN if the file could not be checked this way
+     */
+    public static Result verify(MultipartFile file, String password) {
+        if (file == null || file.isEmpty() || password == null) {
+            return Result.UNKNOWN;
+        }
+
+        try {
+            return new PdfPasswordVerifier(file).check(password);
+        } catch (Exception e) {
+            logger.debug("Could not verify password from encryption dictionary: {}", e.getMessage());
+            return Result.UNKNOWN;
+        }
+    }
+
+    private Result check(String password) throws IOException {
+        long startXref = findStartXref();
+        XrefSection latest = readXrefSection(startXref);
+
+        Object encrypt = latest.trailer().get("Encrypt");
+        if (encrypt == null) {
+            // An update that drops /Encrypt leaves PDFBox to merge it with the older trailers
+            boolean onlySection = !latest.trailer().containsKey("Prev") && !latest.trailer().containsKey("XRefStm");
+            return onlySection ? Result.NOT_ENCRYPTED : Result.UNKNOWN;
+        }
+
+        Map<String, Object> encryption = encrypt instanceof Ref ref
+                ? asDict(readIndirectObject(ref, findObjectOffset(ref, latest)))
+                : asDict(encrypt);
+
+        if (!"Standard".equals(asName(encryption.get("Filter")))) {
+            // Public key security needs certificates, not a password
+            return Result.UNKNOWN;
+        }
+
+        // Indirect values would need more of the file, a guessed default could reject a correct password
+        for (String key : List.of("V", "R", "P", "Length", "O", "U", "CF", "StmF", "EncryptMetadata")) {
+            if (encryption.get(key) instanceof Ref) {
+                return Result.UNKNOWN;
+            }
+        }
+        if (!(encryption.get("V") instanceof Long) || !(encryption.get("R") instanceof Long)
+                || !(encryption.get("P") instanceof Long)) {
+            return Result.UNKNOWN;
+        }
+
+        int version = asInt(encryption.get("V"), 0);
+        int revision = asInt(encryption.get("R"), 0);
+        int keyLength = keyLength(encryption, version);
+        if (keyLength <= 0 || revision < 2 || revision > 6) {
+            return Result.UNKNOWN;
+        }
+        int permissions = (int) asLong(encryption.get("P"), 0);
+        boolean encryptMetadata = !Boolean.FALSE.equals(encryption.get("EncryptMetadata"));
+
+        int keyEntryLength = revision >= 5 ? 48 : 32;
+        byte[] owner = asBytes(encryption.get("O"));
+        byte[] user = asBytes(encryption.get("U"));
+        if (owner.length < keyEntryLength || user.length < keyEntryLength) {
+            return Result.UNKNOWN;
+        }
+        owner = truncate(owner, keyEntryLength);
+        user = truncate(user, keyEntryLength);
+        byte[] documentId = firstDocumentId(latest.trailer().get("ID"));
+
+        byte[] passwordBytes = encodePassword(password, revision);
+        if (passwordBytes == null) {
+            return Result.UNKNOWN;
+        }
+
+        StandardSecurityHandler handler = new StandardSecurityHandler();
+        boolean valid = handler.isOwnerPassword(passwordBytes, user, owner, permissions, documentId,
+                revision, keyLength, encryptMetadata)
+                || handler.isUserPassword(passwordBytes, user, owner, permissions, documentId,
+                revision, keyLength, encryptMetadata);
+
+        return valid ? Result.VALID : Result.INVALID;
+    }
+
+    /**
+     * Key length in bytes as PDFBox derives it: /Length for V2 and V3, the method of the
+     * standard crypt filter for V4 and V5 (AESV2 is 128 bit, AESV3 256 bit)
+     * @return key length, or 0 if the dictionary leaves it in doubt
+     */
+    private static int keyLength(Map<String, Object> encryption, int version) throws IOException {
+        Object length = encryption.get("Length");
+        if (length != null && !(length instanceof Long)) {
+            return 0;
+        }
+
+        switch (version) {
+            case 1:
+                return 5;
+            case 2:
+            case 3:
+                // Optional for these versions, 40 bit by default
+                return length != null ? (int) ((Long) length / 8) : 5;
+            case 4:
+            case 5:
+                break;
+            default:
+                return 0;
+        }
+
+        if (!(encryption.get("CF") instanceof Map<?, ?> cryptFilters)
+                || !(cryptFilters.get("StdCF") instanceof Map<?, ?> standardFilter)
+                || !"StdCF".equals(asName(encryption.get("StmF")))) {
+            return 0;
+        }
+
+        String method = asName(asDict(standardFilter).get("CFM"));
+        if ("AESV2".equals(method)) {
+            // A shorter /Length contradicts the method, the file is left to PDFBox
+            return length == null || (Long) length >= 128 ? 16 : 0;
+        }
+        if ("AESV3".equals(method)) {
+            return version == 5 ? 32 : 0;
+        }
+        if ("V2".equals(method) && length != null) {
+            return (int) ((Long) length / 8);
+        }
+        return 0;
+    }
+
+    /**
+     * Revision 5/6 passwords are UTF-8 after SASLprep, which is the identity for ASCII.
+     * Older revisions use Latin-1. Anything outside those is left to PDFBox.
+     */
+    private byte[] encodePassword(String password, int revision) {
+        if (revision >= 5) {
+            for (int i = 0; i < password.length(); i++) {
+                if (password.charAt(i) > 0x7E) {
+                    return null;
+                }
+            }
+            return password.getBytes(StandardCharsets.UTF_8);
+        }
+
+        if (!StandardCharsets.ISO_8859_1.newEncoder().canEncode(password)) {
+            return null;
+        }
+        return password.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private long findStartXref() throws IOException {
+        int tailLength = (int) Math.min(TAIL_SIZE, length);
+        byte[] tail = read(length - tailLength, tailLength);
+        String text = new String(tail, StandardCharsets.ISO_8859_1);
+
+        int index = text.lastIndexOf("startxref");
+        if (index < 0) {
+            throw new IOException("startxref not found");
+        }
+
+        Lexer lexer = new Lexer(tail, length - tailLength, index + "startxref".length());
+        return asLong(lexer.nextObject(), -1);
+    }
+
+    // XREF SECTIONS
+
+    private XrefSection readXrefSection(long offset) throws IOException {
+        Lexer lexer = lexerAt(offset);
+        lexer.skipWhitespace();
+
+        if (lexer.startsWith("xref")) {
+            return readXrefTable(lexer);
+        }
+        return readXrefStream(offset);
+    }
+
+    private XrefSection readXrefTable(Lexer lexer) throws IOException {
+        lexer.expectKeyword("xref");
+        List<XrefSubsection> subsections = new ArrayList<>();
+
+        while (true) {
+            lexer = refill(lexer);
+            lexer.skipWhitespace();
+            if (lexer.startsWith("trailer")) {
+                lexer.expectKeyword("trailer");
+                Map<String, Object> trailer = asDict(lexer.nextObject());
+                return new XrefSection(trailer, subsections, null);
+            }
+
+            long start = asLong(lexer.nextNumber(), -1);
+            long count = asLong(lexer.nextNumber(), -1);
+            if (start < 0 || count < 0 || count > (length - lexer.filePosition()) / MIN_XREF_ENTRY_SIZE) {
+                throw new IOException("Malformed xref subsection");
+            }
+
+            // Writers end entries with one or two EOL bytes, only the tokens give their offsets
+            long[] offsets = new long[(int) count];
+            int[] generations = new int[(int) count];
+            for (int i = 0; i < count; i++) {
+                lexer = refill(lexer);
+                long offset = asLong(lexer.nextNumber(), -1);
+                long generation = asLong(lexer.nextNumber(), -1);
+                Object type = lexer.nextObject();
+                if (offset < 0 || generation < 0 || !(type instanceof Keyword keyword)
+                        || !("n".equals(keyword.value()) || "f".equals(keyword.value()))) {
+                    throw new IOException("Malformed xref entry " + (start + i));
+                }
+                offsets[i] = "n".equals(keyword.value()) ? offset : -1;
+                generations[i] = (int) generation;
+            }
+            subsections.add(new XrefSubsection(start, offsets, generations));
+        }
+    }
+
+    /**
+     * @return the lexer, or a new one at its position if its window is nearly used up
+     */
+    private Lexer refill(Lexer lexer) throws IOException {
+        if (lexer.remaining() >= XREF_WINDOW_MARGIN || lexer.filePosition() + lexer.remaining() >= length) {
+            return lexer;
+        }
+        return lexerAt(lexer.filePosition());
+    }
+
+    private XrefSection readXrefStream(long offset) throws IOException {
+        Lexer lexer = lexerAt(offset);
+        lexer.nextNumber();
+        lexer.nextNumber();
+        lexer.expectKeyword("obj");
+        Map<String, Object> dictionary = asDict(lexer.nextObject());
+
+        if (!"XRef".equals(asName(dictionary.get("Type")))) {
+            throw new IOException("No xref table or stream at offset " + offset);
+        }
+
+        byte[] data = readStreamData(lexer, dictionary);
+        return new XrefSection(dictionary, null, data);
+    }
+
+    private long findObjectOffset(Ref ref, XrefSection latest) throws IOException {
+        int objectNumber = ref.number();
+        XrefSection section = latest;
+        Set<Long> visited = new HashSet<>();
+
+        for (int i = 0; i < MAX_XREF_SECTIONS && section != null; i++) {
+            Long offset = section.isStream()
+                    ? findInXrefStream(objectNumber, section)
+                    : findInXrefTable(ref, section);
+            if (offset != null) {
+                return offset;
+            }
+
+            // Hybrid files keep newer objects in a separate xref stream
+            Object xrefStm = section.trailer().get("XRefStm");
+            if (xrefStm != null && visited.add(asLong(xrefStm, -1))) {
+                offset = findInXrefStream(objectNumber, readXrefStream(asLong(xrefStm, -1)));
+                if (offset != null) {
+                    return offset;
+                }
+            }
+
+            Object prev = section.trailer().get("Prev");
+            section = prev != null && visited.add(asLong(prev, -1)) ? readXrefSection(asLong(prev, -1)) : null;
+        }
+
+        throw new IOException("Object " + objectNumber + " not found in xref");
+    }
+
+    private Long findInXrefTable(Ref ref, XrefSection section) throws IOException {
+        for (XrefSubsection subsection : section.subsections()) {
+            long index = ref.number() - subsection.start();
+            if (index < 0 || index >= subsection.offsets().length) {
+                continue;
+            }
+
+            if (subsection.offsets()[(int) index] < 0 || subsection.generations()[(int) index] != ref.generation()) {
+                throw new IOException("Object " + ref.number() + " " + ref.generation() + " is not in use");
+            }
+            return subsection.offsets()[(int) index];
+        }
+        return null;
+    }
+
+    private Long findInXrefStream(int objectNumber, XrefSection section) throws IOException {
+        Map<String, Object> dictionary = section.trailer();
+        List<Object> widths = asArray(dictionary.get("W"));
+        int typeWidth = asInt(widths.get(0), 0);
+        int offsetWidth = asInt(widths.get(1), 0);
+        int generationWidth = asInt(widths.get(2), 0);
+        int entryWidth = typeWidth + offsetWidth + generationWidth;
+
+        List<Object> index = dictionary.containsKey("Index")
+                ? asArray(dictionary.get("Index"))
+                : List.of(0L, (long) asInt(dictionary.get("Size"), 0));
+
+        byte[] data = section.streamData();
+        int entryPosition = 0;
+        for (int i = 0; i + 1 < index.size(); i += 2) {
+            long start = asLong(index.get(i), 0);
+            long count = asLong(index.get(i + 1), 0);
+
+            if (objectNumber >= start && objectNumber < start + count) {
+                int position = (int) (entryPosition + (objectNumber - start) * entryWidth);
+                if (position + entryWidth > data.length) {
+                    throw new IOException("Xref stream too short");
+                }
+
+                long type = typeWidth == 0 ? 1 : readField(data, position, typeWidth);
+                if (type != 1) {
+                    // Free or compressed objects: the encryption dictionary is never compressed
+                    throw new IOException("Object " + objectNumber + " is not a plain object");
+                }
+                return readField(data, position + typeWidth, offsetWidth);
+            }
+            entryPosition += (int) (count * entryWidth);
+        }
+        return null;
+    }
+
+    private long readField(byte[] data, int position, int width) {
+        long value = 0;
+        for (int i = 0; i < width; i++) {
+            value = (value << 8) | (data[position + i] & 0xFF);
+        }
+        return value;
+    }
+
+    // OBJECTS AND STREAMS
+
+    private Object readIndirectObject(Ref ref, long offset) throws IOException {
+        Lexer lexer = lexerAt(offset);
+        // PDFBox searches for an object whose offset is wrong, this reader gives up instead
+        if (asLong(lexer.nextNumber(), -1) != ref.number() || asLong(lexer.nextNumber(), -1) != ref.generation()) {
+            throw new IOException("Object " + ref.number() + " is not at offset " + offset);
+        }
+        lexer.expectKeyword("obj");
+        return lexer.nextObject();
+    }
+
+    private byte[] readStreamData(Lexer lexer, Map<String, Object> dictionary) throws IOException {
+        lexer.skipWhitespace();
+        lexer.expectKeyword("stream");
+        lexer.skipStreamEol();
+
+        if (!(dictionary.get("Length") instanceof Long streamLength)) {
+            throw new IOException("Indirect or missing stream length");
+        }
+        if (streamLength > MAX_XREF_STREAM_SIZE) {
+            throw new IOException("Xref stream too large");
+        }
+
+        byte[] raw = read(lexer.filePosition(), streamLength.intValue());
+        return decode(raw, dictionary);
+    }
+
+    private byte[] decode(byte[] raw, Map<String, Object> dictionary) throws IOException {
+        Object filter = dictionary.get("Filter");
+        if (filter instanceof List<?> filters) {
+            if (filters.isEmpty()) {
+                return raw;
+            }
+            if (filters.size() != 1) {
+                throw new IOException("Unsupported filter chain");
+            }
+            filter = filters.get(0);
+        }
+
+        if (filter == null) {
+            return raw;
+        }
+        if (!"FlateDecode".equals(asName(filter))) {
+            throw new IOException("Unsupported filter: " + filter);
+        }
+
+        byte[] inflated = inflate(raw);
+
+        Object parameters = dictionary.get("DecodeParms");
+        if (parameters instanceof List<?> parameterList) {
+            parameters = parameterList.isEmpty() ? null : parameterList.get(0);
+        }
+        if (!(parameters instanceof Map<?, ?>)) {
+            return inflated;
+        }
+
+        Map<String, Object> decodeParms = asDict(parameters);
+        int predictor = asInt(decodeParms.get("Predictor"), 1);
+        if (predictor == 1) {
+            return inflated;
+        }
+        if (predictor < 10 || asInt(decodeParms.get("Colors"), 1) != 1
+                || asInt(decodeParms.get("BitsPerComponent"), 8) != 8) {
+            throw new IOException("Unsupported predictor " + predictor);
+        }
+        return unpredictPng(inflated, asInt(decodeParms.get("Columns"), 1));
+    }
+
+    private byte[] inflate(byte[] raw) throws IOException {
+        Inflater inflater = new Inflater();
+        inflater.setInput(raw);
+        ByteArrayOutputStream output = new ByteArrayOutputStream(raw.length * 4);
+        byte[] buffer = new byte[8192];
+
+        try {
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                output.write(buffer, 0, count);
+                if (output.size() > MAX_XREF_STREAM_SIZE) {
+                    throw new IOException("Xref stream too large");
+                }
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt xref stream", e);
+        } finally {
+            inflater.end();
+        }
+        return output.toByteArray();
+    }
+
+    private byte[] unpredictPng(byte[] data, int columns) {
+        int rowLength = columns + 1;
+        int rows = data.length / rowLength;
+        byte[] output = new byte[rows * columns];
+        byte[] previous = new byte[columns];
+
+        for (int row = 0; row < rows; row++) {
+            int type = data[row * rowLength] & 0xFF;
+            int inputOffset = row * rowLength + 1;
+            int outputOffset = row * columns;
+
+            for (int i = 0; i < columns; i++) {
+                int raw = data[inputOffset + i] & 0xFF;
+                int left = i > 0 ? output[outputOffset + i - 1] & 0xFF : 0;
+                int up = previous[i] & 0xFF;
+                int upLeft = i > 0 ? previous[i - 1] & 0xFF : 0;
+
+                int value = switch (type) {
+                    case 1 -> raw + left;
+                    case 2 -> raw + up;
+                    case 3 -> raw + ((left + up) >> 1);
+                    case 4 -> raw + paeth(left, up, upLeft);
+                    default -> raw;
+                };
+                output[outputOffset + i] = (byte) value;
+            }
+            System.arraycopy(output, outputOffset, previous, 0, columns);
+        }
+        return output;
+    }
+
+    private int paeth(int left, int up, int upLeft) {
+        int estimate = left + up - upLeft;
+        int distanceLeft = Math.abs(estimate - left);
+        int distanceUp = Math.abs(estimate - up);
+        int distanceUpLeft = Math.abs(estimate - upLeft);
+        if (distanceLeft <= distanceUp && distanceLeft <= distanceUpLeft) {
+            return left;
+        }
+        return distanceUp <= distanceUpLeft ? up : upLeft;
+    }
+
+    // FILE ACCESS
+
+    /**
+     * Reads a range of the file. Upload and stored-document streams skip by seeking, so
+     * reading near the end does not read the content before it.
+     */
+    private byte[] read(long position, int count) throws IOException {
+        if (position < 0 || position >= length) {
+            throw new IOException("Offset outside of file: " + position);
+        }
+
+        try (InputStream inputStream = file.getInputStream()) {
+            inputStream.skipNBytes(position);
+            return inputStream.readNBytes((int) Math.min(count, length - position));
+        }
+    }
+
+    private Lexer lexerAt(long offset) throws IOException {
+        return new Lexer(read(offset, WINDOW_SIZE), offset, 0);
+    }
+
+    // VALUE HELPERS
+
+    private static byte[] firstDocumentId(Object ids) throws IOException {
+        if (ids == null) {
+            return new byte[0];
+        }
+        // An indirect or malformed ID would need more of the file, an empty one gives another key
+        if (ids instanceof List<?> list && !list.isEmpty() && list.get(0) instanceof byte[] id) {
+            return id;
+        }
+        throw new IOException("Unsupported document ID: " + ids);
+    }
+
+    private static byte[] truncate(byte[] value, int maxLength) {
+        return value.length > maxLength ? Arrays.copyOf(value, maxLength) : value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asDict(Object value) throws IOException {
+        if (value instanceof Map<?, ?> map) {
+            return (Map<String, Object>) map;
+        }
+        throw new IOException("Expected dictionary but found " + value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> asArray(Object value) throws IOException {
+        if (value instanceof List<?> list) {
+            return (List<Object>) list;
+        }
+        throw new IOException("Expected array but found " + value);
+    }
+
+    private static byte[] asBytes(Object value) throws IOException {
+        if (value instanceof byte[] bytes) {
+            return bytes;
+        }
+        throw new IOException("Expected string but found " + value);
+    }
+
+    private static String asName(Object value) {
+        return value instanceof Name name ? name.value() : null;
+    }
+
+    private static long asLong(Object value, long defaultValue) {
+        if (value instanceof Long number) {
+            return number;
+        }
+        if (value instanceof Double number) {
+            return number.longValue();
+        }
+        return defaultValue;
+    }
+
+    private static int asInt(Object value, int defaultValue) {
+        return (int) asLong(value, defaultValue);
+    }
+
+    private record Name(String value) {
+    }
+
+    private record Ref(int number, int generation) {
+    }
+
+    private record Keyword(String value) {
+    }
+
+    /**
+     * Entries of a classic xref subsection, offset -1 for free objects
+     */
+    private record XrefSubsection(long start, long[] offsets, int[] generations) {
+    }
+
+    /**
+     * A trailer (or xref stream dictionary) with either the subsections of a classic
+     * table or the decoded xref stream data
+     */
+    private record XrefSection(Map<String, Object> trailer, List<XrefSubsection> subsections, byte[] streamData) {
+
+        boolean isStream() {
+            return streamData != null;
+        }
+    }
+
+    /**
+     * Minimal PDF object lexer over a window of the file, enough for trailers and
+     * encryption dictionaries
+     */
+    private static class Lexer {
+
+        private final byte[] data;
+        private final long base;
+        private int position;
+
+        Lexer(byte[] data, long base, int position) {
+            this.data = data;
+            this.base = base;
+            this.position = position;
+        }
+
+        long filePosition() {
+            return base + position;
+        }
+
+        int remaining() {
+            return data.length - position;
+        }
+
+        boolean startsWith(String keyword) {
+            if (position + keyword.length() > data.length) {
+                return false;
+            }
+            for (int i = 0; i < keyword.length(); i++) {
+                if (data[position + i] != keyword.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void expectKeyword(String keyword) throws IOException {
+            skipWhitespace();
+            if (!startsWith(keyword)) {
+                throw new IOException("Expected " + keyword + " at " + filePosition());
+            }
+            position += keyword.length();
+        }
+
+        void skipStreamEol() {
+            if (position < data.length && data[position] == '\r') {
+                position++;
+            }
+            if (position < data.length && data[position] == '\n') {
+                position++;
+            }
+        }
+
+        void skipWhitespace() {
+            while (position < data.length) {
+                int c = data[position] & 0xFF;
+                if (c == '%') {
+                    while (position < data.length && data[position] != '\n' && data[position] != '\r') {
+                        position++;
+                    }
+                } else if (isWhitespace(c)) {
+                    position++;
+                } else {
+                    return;
+                }
+            }
+        }
+
+        Object nextNumber() throws IOException {
+            Object value = nextObject();
+            if (!(value instanceof Long) && !(value instanceof Double)) {
+                throw new IOException("Expected number at " + filePosition());
+            }
+            return value;
+        }
+
+        Object nextObject() throws IOException {
+            skipWhitespace();
+            if (position >= data.length) {
+                throw new IOException("Unexpected end of window");
+            }
+
+            int c = data[position] & 0xFF;
+            if (c == '<' && peek(1) == '<') {
+                return readDictionary();
+            }
+            if (c == '<') {
+                return readHexString();
+            }
+            if (c == '(') {
+                return readLiteralString();
+            }
+            if (c == '[') {
+                return readArray();
+            }
+            if (c == '/') {
+                return readName();
+            }
+            if (c == '+' || c == '-' || c == '.' || Character.isDigit(c)) {
+                return readNumberOrReference();
+            }
+
+            String keyword = readRegular();
+            return switch (keyword) {
+                case "true" -> Boolean.TRUE;
+                case "false" -> Boolean.FALSE;
+                case "null" -> null;
+                default -> new Keyword(keyword);
+            };
+        }
+
+        private Map<String, Object> readDictionary() throws IOException {
+            position += 2;
+            Map<String, Object> dictionary = new LinkedHashMap<>();
+
+            while (true) {
+                skipWhitespace();
+                if (position + 1 >= data.length) {
+                    throw new IOException("Unterminated dictionary");
+                }
+                if (data[position] == '>' && data[position + 1] == '>') {
+                    position += 2;
+                    return dictionary;
+                }
+
+                Object key = nextObject();
+                if (!(key instanceof Name name)) {
+                    throw new IOException("Expected name key at " + filePosition());
+                }
+                dictionary.put(name.value(), nextObject());
+            }
+        }
+
+        private List<Object> readArray() throws IOException {
+            position++;
+            List<Object> array = new ArrayList<>();
+
+            while (true) {
+                skipWhitespace();
+                if (position >= data.length) {
+                    throw new IOException("Unterminated array");
+                }
+                if (data[position] == ']') {
+                    position++;
+                    return array;
+                }
+                array.add(nextObject());
+            }
+        }
+
+        private Name readName() {
+            position++;
+            ByteArrayOutputStream name = new ByteArrayOutputStream();
+            while (position < data.length && isRegular(data[position] & 0xFF)) {
+                int c = data[position++] & 0xFF;
+                if (c == '#' && position + 1 < data.length) {
+                    c = Integer.parseInt(new String(data, position, 2, StandardCharsets.ISO_8859_1), 16);
+                    position += 2;
+                }
+                name.write(c);
+            }
+            return new Name(name.toString(StandardCharsets.UTF_8));
+        }
+
+        private Object readNumberOrReference() throws IOException {
+            Object number = parseNumber(readRegular());
+
+            // "n g R" is a reference, look ahead and backtrack if it is not
+            if (number instanceof Long objectNumber) {
+                int saved = position;
+                skipWhitespace();
+                if (position < data.length && Character.isDigit(data[position])) {
+                    Object generation = parseNumber(readRegular());
+                    skipWhitespace();
+                    if (generation instanceof Long generationNumber && startsWith("R")
+                            && (position + 1 >= data.length || !isRegular(data[position + 1] & 0xFF))) {
+                        position++;
+                        return new Ref(objectNumber.intValue(), generationNumber.intValue());
+                    }
+                }
+                position = saved;
+            }
+            return number;
+        }
+
+        private Object parseNumber(String token) throws IOException {
+            try {
+                if (token.contains(".")) {
+                    return Double.parseDouble(token);
+                }
+                return Long.parseLong(token);
+            } catch (NumberFormatException e) {
+                throw new IOException("Malformed number: " + token, e);
+            }
+        }
+
+        private byte[] readHexString() throws IOException {
+            position++;
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            int high = -1;
+
+            while (position < data.length) {
+                int c = data[position++] & 0xFF;
+                if (c == '>') {
+                    if (high >= 0) {
+                        bytes.write(high << 4);
+                    }
+                    return bytes.toByteArray();
+                }
+
+                int digit = Character.digit(c, 16);
+                if (digit < 0) {
+                    continue;
+                }
+                if (high < 0) {
+                    high = digit;
+                } else {
+                    bytes.write((high << 4) | digit);
+                    high = -1;
+                }
+            }
+            throw new IOException("Unterminated hex string");
+        }
+
+        private byte[] readLiteralString() throws IOException {
+            position++;
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            int depth = 1;
+
+            while (position < data.length) {
+                int c = data[position++] & 0xFF;
+
+                if (c == '(') {
+                    depth++;
+                } else if (c == ')') {
+                    if (--depth == 0) {
+                        return bytes.toByteArray();
+                    }
+                } else if (c == '\\') {
+                    if (position >= data.length) {
+                        break;
+                    }
+                    c = data[position++] & 0xFF;
+                    switch (c) {
+                        case 'n' -> c = '\n';
+                        case 'r' -> c = '\r';
+                        case 't' -> c = '\t';
+                        case 'b' -> c = '\b';
+                        case 'f' -> c = '\f';
+                        case '\r' -> {
+                            // Line continuation
+                            if (position < data.length && data[position] == '\n') {
+                                position++;
+                            }
+                            continue;
+                        }
+                        case '\n' -> {
+                            continue;
+                        }
+                        default -> {
+                            if (c >= '0' && c <= '7') {
+                                int octal = c - '0';
+                                for (int i = 0; i < 2 && position < data.length
+                                        && data[position] >= '0' && data[position] <= '7'; i++) {
+                                    octal = octal * 8 + (data[position++] - '0');
+                                }
+                                c = octal & 0xFF;
+                            }
+                        }
+                    }
+                }
+                bytes.write(c);
+            }
+            throw new IOException("Unterminated literal string");
+        }
+
+        private String readRegular() throws IOException {
+            int start = position;
+            while (position < data.length && isRegular(data[position] & 0xFF)) {
+                position++;
+            }
+            if (start == position) {
+                throw new IOException("Unexpected character at " + filePosition());
+            }
+            return new String(data, start, position - start, StandardCharsets.ISO_8859_1);
+        }
+
+        private int peek(int offset) {
+            return position + offset < data.length ? data[position + offset] & 0xFF : -1;
+        }
+
+        private static boolean isWhitespace(int c) {
+            return c == 0 || c == '\t' || c == '\n' || c == '\f' || c == '\r' || c == ' ';
+        }
+
+        private static boolean isRegular(int c) {
+            return !isWhitespace(c) && "()<>[]{}/%".indexOf(c) < 0;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package in.guardianservices.document_utility_core.utils;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Pass-through stream that checks the PDF header and %%EOF trailer while bytes are
+ * written, so a streamed document can be validated without buffering it.
+ */
+public class PdfSignatureOutputStream extends FilterOutputStream {
+
+    private static final byte[] HEADER = "%PDF-".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] EOF_MARKER = "%%EOF".getBytes(StandardCharsets.US_ASCII);
+
+    // Writers may append whitespace or garbage after %%EOF, readers look back about 1KB
+    private static final int TAIL_SIZE = 1024;
+
+    private final byte[] header = new byte[HEADER.length];
+    private final byte[] tail = new byte[TAIL_SIZE];
+    private long count;
+
+    public PdfSignatureOutputStream(OutputStream out) {
+        super(out);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        track((byte) b);
+        out.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        for (int i = off; i < off + len; i++) {
+            track(b[i]);
+        }
+        out.write(b, off, len);
+    }
+
+    private void track(byte b) {
+        if (count < header.length) {
+            header[(int) count] = b;
+        }
+        tail[(int) (count % TAIL_SIZE)] = b;
+        count++;
+    }
+
+    /**
+     * @return number of bytes written so far
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Checks if the bytes written so far start with %PDF- and end with a %%EOF marker
+     * @return true if the written bytes look like a complete PDF
+     */
+    public boolean isValidPdf() {
+        if (count < 8) {
+            return false;
+        }
+
+        for (int i = 0; i < HEADER.length; i++) {
+            if (header[i] != HEADER[i]) {
+                return false;
+            }
+        }
+
+        // Unroll the ring buffer into write order before searching it
+        int tailLength = (int) Math.min(count, TAIL_SIZE);
+        byte[] ordered = new byte[tailLength];
+        long start = count - tailLength;
+        for (int i = 0; i < tailLength; i++) {
+            ordered[i] = tail[(int) ((start + i) % TAIL_SIZE)];
+        }
+
+        for (int i = 0; i <= tailLength - EOF_MARKER.length; i++) {
+            boolean match = true;
+            for (int j = 0; j < EOF_MARKER.length && match; j++) {
+                match = ordered[i + j] == EOF_MARKER[j];
+            }
+            if (match) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,157 @@
+package in.guardianservices.document_utility_core.utils;
+
+import in.guardianservices.document_utility_core.cancellation.CancellationToken;
+import in.guardianservices.document_utility_core.exception.OperationCancelledException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Single-flight execution: concurrent calls with the same key run the work once and
+ * every caller receives the same result. Results are reference counted buffers, so the
+ * first caller adds one reference per waiter before handing the result over.
+ */
+@Component
+public class RequestCoalescer {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestCoalescer.class);
+
+    // How often a waiting caller checks whether its own request was cancelled
+    private static final long WAIT_SLICE_MILLIS = 100;
+
+    // Waiter count of a call whose leader has finished and shared its result
+    private static final int CLOSED = -1;
+
+    private final ConcurrentHashMap<String, InFlight<?>> inFlight = new ConcurrentHashMap<>();
+
+    @Value("${doc-service.coalescing.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * Runs the work, or waits for an identical call already in flight
+     * @param key identifies the input and all operation parameters, only computed when coalescing is enabled
+     * @param work computes the result
+     * @param share adds the given number of references to a result, one per waiting caller
+     * @return result owned by the caller, to be released like an uncoalesced result
+     */
+    public <T> T execute(Callable<String> key, Callable<T> work, ObjIntConsumer<T> share) throws Exception {
+        if (!enabled) {
+            return work.call();
+        }
+        return execute(key.call(), work, share);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T execute(String key, Callable<T> work, ObjIntConsumer<T> share) throws Exception {
+        boolean[] leader = {false};
+        InFlight<T> call = (InFlight<T>) inFlight.compute(key, (k, existing) -> {
+            if (existing != null) {
+                existing.waiters.incrementAndGet();
+                return existing;
+            }
+            leader[0] = true;
+            return new InFlight<T>();
+        });
+
+        if (!leader[0]) {
+            logger.info("Joining in-flight request for key: {}", key);
+            try {
+                return await(call);
+            } catch (OperationCancelledException e) {
+                // The leading request was cancelled, not this one: run the work again unless this one is too
+                CancellationToken.checkCurrent();
+                logger.info("Leading request for key {} was cancelled, retrying", key);
+                return execute(key, work, share);
+            }
+        }
+
+        T result;
+        try {
+            result = work.call();
+        } catch (Throwable t) {
+            inFlight.remove(key, call);
+            call.result.completeExceptionally(t);
+            throw t;
+        }
+
+        // Once removed nobody can join, and closing the count stops waiters from leaving
+        inFlight.remove(key, call);
+        int waiters = call.waiters.getAndSet(CLOSED);
+        try {
+            if (waiters > 0) {
+                share.accept(result, waiters);
+                logger.info("Shared result of key {} with {} coalesced requests", key, waiters);
+            }
+        } catch (Throwable t) {
+            call.result.completeExceptionally(t);
+            throw t;
+        }
+        call.result.complete(result);
+        return result;
+    }
+
+    /**
+     * @return number of distinct operations currently in flight
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * Waits for the leader's result in slices, so a waiter whose own request is cancelled
+     * stops waiting without holding a share of the result
+     */
+    private <T> T await(InFlight<T> call) throws Exception {
+        while (true) {
+            try {
+                return call.result.get(WAIT_SLICE_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                CancellationToken token = CancellationToken.current();
+                // Once the leader has counted this waiter its result is moments away and is taken as usual
+                if (token != null && token.isCancelled() && leave(call)) {
+                    token.throwIfCancelled();
+                }
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof Exception exception) {
+                    throw exception;
+                }
+                if (cause instanceof Error error) {
+                    throw error;
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * @return true if the waiter was removed before the leader counted the shares
+     */
+    private static boolean leave(InFlight<?> call) {
+        while (true) {
+            int waiters = call.waiters.get();
+            if (waiters == CLOSED) {
+                return false;
+            }
+            if (call.waiters.compareAndSet(waiters, waiters - 1)) {
+                return true;
+            }
+        }
+    }
+
+    private static class InFlight<T> {
+
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final AtomicInteger waiters = new AtomicInteger();
+    }
+}
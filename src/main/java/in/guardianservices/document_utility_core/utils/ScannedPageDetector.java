@@ -0,0 +1,203 @@
+package in.guardianservices.document_utility_core.utils;
+
+import org.apache.pdfbox.contentstream.operator.Operator;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSNumber;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.pdfparser.PDFStreamParser;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.graphics.PDXObject;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+public class ScannedPageDetector {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScannedPageDetector.class);
+
+    // Allowed gap in points between the image placement and the page box
+    private static final float PLACEMENT_TOLERANCE = 1.0f;
+
+    // Scans are rarely exactly at their nominal resolution, e.g. 300.4 DPI for a 300 DPI scan
+    private static final float DPI_TOLERANCE = 1.0f;
+
+    // CTM at the start of a content stream, user space units are points on the page
+    private static final float[] IDENTITY = {1, 0, 0, 1, 0, 0};
+
+    /**
+     * Checks if a page is a plain scan: a single DCT encoded image drawn over the whole
+     * page with a scale/translate transform, nothing else in the content stream and no
+     * annotations, whose appearances the renderer would draw over the scan.
+     * Only scans at or below the requested resolution qualify, a finer scan is rendered
+     * down to it.
+     * @param page the page to inspect
+     * @param allowColor false to only accept DeviceGray images
+     * @param maxDpi resolution requested for the page image
+     * @return the image that can be passed through as-is, or null if the page must be rendered
+     */
+    public static PDImageXObject findPassthroughJpeg(PDPage page, boolean allowColor, int maxDpi) {
+        try {
+            if (page.getRotation() % 360 != 0 || !page.getAnnotations().isEmpty()) {
+                return null;
+            }
+
+            PDResources resources = page.getResources();
+            if (resources == null) {
+                return null;
+            }
+
+            Iterator<COSName> names = resources.getXObjectNames().iterator();
+            if (!names.hasNext()) {
+                return null;
+            }
+            COSName imageName = names.next();
+            if (names.hasNext()) {
+                return null;
+            }
+
+            PDXObject xObject = resources.getXObject(imageName);
+            if (!(xObject instanceof PDImageXObject image) || !isPlainJpeg(image, allowColor)) {
+                return null;
+            }
+
+            float[] matrix = findImageMatrix(page, imageName);
+            if (matrix == null || !coversPage(matrix, page.getCropBox())) {
+                return null;
+            }
+
+            // The image spans the page, so its pixels over the page size in inches give its resolution
+            float horizontalDpi = image.getWidth() / (matrix[0] / 72f);
+            float verticalDpi = image.getHeight() / (matrix[3] / 72f);
+            if (Math.max(horizontalDpi, verticalDpi) > maxDpi + DPI_TOLERANCE) {
+                return null;
+            }
+
+            return image;
+        } catch (IOException e) {
+            logger.debug("Could not inspect page for JPEG passthrough: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Opens the encoded JPEG bytes of an image without decoding them
+     * @param image DCT encoded image
+     * @return stream of the original JPEG file bytes, to be closed by the caller
+     */
+    public static InputStream openRawJpeg(PDImageXObject image) throws IOException {
+        return image.getCOSObject().createRawInputStream();
+    }
+
+    private static boolean isPlainJpeg(PDImageXObject image, boolean allowColor) {
+        COSStream stream = image.getCOSObject();
+
+        List<COSName> filters = image.getStream().getFilters();
+        if (filters == null || filters.size() != 1 || !COSName.DCT_DECODE.equals(filters.get(0))) {
+            return false;
+        }
+
+        // Decode arrays, masks and ICC/CMYK color spaces change what the renderer draws
+        if (image.isStencil()
+                || stream.getDictionaryObject(COSName.DECODE) != null
+                || stream.getDictionaryObject(COSName.SMASK) != null
+                || stream.getDictionaryObject(COSName.MASK) != null) {
+            return false;
+        }
+
+        COSBase colorSpace = stream.getDictionaryObject(COSName.COLORSPACE, COSName.CS);
+        return COSName.DEVICEGRAY.equals(colorSpace) || (allowColor && COSName.DEVICERGB.equals(colorSpace));
+    }
+
+    /**
+     * Parses the page content stream, accepting only q/Q/cm/Do operators, and returns the
+     * transform in effect when the image is painted. A cm only counts if it comes before the
+     * Do and was not discarded by the Q of an enclosing q.
+     */
+    private static float[] findImageMatrix(PDPage page, COSName imageName) throws IOException {
+        PDFStreamParser parser = new PDFStreamParser(page);
+        List<Object> operands = new ArrayList<>();
+        Deque<float[]> savedStates = new ArrayDeque<>();
+        float[] ctm = IDENTITY.clone();
+        float[] matrix = null;
+
+        Object token;
+        while ((token = parser.parseNextToken()) != null) {
+            if (!(token instanceof Operator operator)) {
+                operands.add(token);
+                continue;
+            }
+
+            switch (operator.getName()) {
+                case "q" -> savedStates.push(ctm.clone());
+                case "Q" -> {
+                    if (savedStates.isEmpty()) {
+                        return null;
+                    }
+                    ctm = savedStates.pop();
+                }
+                case "cm" -> {
+                    if (operands.size() != 6) {
+                        return null;
+                    }
+                    float[] transform = new float[6];
+                    for (int i = 0; i < 6; i++) {
+                        if (!(operands.get(i) instanceof COSNumber number)) {
+                            return null;
+                        }
+                        transform[i] = number.floatValue();
+                    }
+                    ctm = concatenate(transform, ctm);
+                }
+                case "Do" -> {
+                    if (matrix != null || operands.size() != 1 || !imageName.equals(operands.get(0))) {
+                        return null;
+                    }
+                    // Later cm operators no longer move the image
+                    matrix = ctm.clone();
+                }
+                default -> {
+                    return null;
+                }
+            }
+            operands.clear();
+        }
+
+        return matrix;
+    }
+
+    /**
+     * @return the CTM after applying transform to ctm, as the cm operator does
+     */
+    private static float[] concatenate(float[] transform, float[] ctm) {
+        return new float[]{
+                transform[0] * ctm[0] + transform[1] * ctm[2],
+                transform[0] * ctm[1] + transform[1] * ctm[3],
+                transform[2] * ctm[0] + transform[3] * ctm[2],
+                transform[2] * ctm[1] + transform[3] * ctm[3],
+                transform[4] * ctm[0] + transform[5] * ctm[2] + ctm[4],
+                transform[4] * ctm[1] + transform[5] * ctm[3] + ctm[5]};
+    }
+
+    private static boolean coversPage(float[] matrix, PDRectangle box) {
+        // Only scale and translate, no rotation, skew or flip
+        if (matrix[1] != 0 || matrix[2] != 0 || matrix[0] <= 0 || matrix[3] <= 0) {
+            return false;
+        }
+
+        return Math.abs(matrix[4] - box.getLowerLeftX()) <= PLACEMENT_TOLERANCE
+                && Math.abs(matrix[5] - box.getLowerLeftY()) <= PLACEMENT_TOLERANCE
+                && Math.abs(matrix[0] - box.getWidth()) <= PLACEMENT_TOLERANCE
+                && Math.abs(matrix[3] - box.getHeight()) <= PLACEMENT_TOLERANCE;
+    }
+}
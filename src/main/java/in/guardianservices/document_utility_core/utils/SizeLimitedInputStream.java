@@ -0,0 +1,60 @@
+package in.guardianservices.document_utility_core.utils;
+
+import in.guardianservices.document_utility_core.exception.PayloadTooLargeException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Pass-through stream that counts the bytes read and fails once more than the limit has
+ * been read, so a body without Content-Length cannot be streamed to disk without bound.
+ */
+public class SizeLimitedInputStream extends FilterInputStream {
+
+    private final long maxBytes;
+    private long count;
+
+    public SizeLimitedInputStream(InputStream in, long maxBytes) {
+        super(in);
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = in.read();
+        if (b != -1) {
+            count(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int read = in.read(b, off, len);
+        if (read > 0) {
+            count(read);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = in.skip(n);
+        count(skipped);
+        return skipped;
+    }
+
+    // Mark and reset would let the count run behind what was actually read
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private void count(long bytes) {
+        count += bytes;
+        if (count > maxBytes) {
+            throw new PayloadTooLargeException("Payload exceeds " + maxBytes / (1024 * 1024) + "MB limit");
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package in.guardianservices.document_utility_core.utils;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * MultipartFile view of a document held by the document store, so stored documents run
+ * through the same operations as uploads. Reads go through a read-only memory mapping
+ * shared by all streams of the file, so repeated loads are served from the page cache.
+ */
+public class StoredPdfFile implements MultipartFile {
+
+    private final String documentId;
+    private final Path path;
+    private final long size;
+
+    private volatile MappedByteBuffer mapping;
+
+    public StoredPdfFile(String documentId, Path path, long size) {
+        this.documentId = documentId;
+        this.path = path;
+        this.size = size;
+    }
+
+    public String getDocumentId() {
+        return documentId;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public String getName() {
+        return "file";
+    }
+
+    @Override
+    public String getOriginalFilename() {
+        return documentId + ".pdf";
+    }
+
+    @Override
+    public String getContentType() {
+        return "application/pdf";
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public byte[] getBytes() throws IOException {
+        return getInputStream().readAllBytes();
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        // A single mapping is limited to 2GB, larger files are read through the channel
+        if (size > Integer.MAX_VALUE) {
+            return Files.newInputStream(path);
+        }
+        return new MappedInputStream(map().duplicate());
+    }
+
+    @Override
+    public void transferTo(File dest) throws IOException {
+        Files.copy(path, dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private MappedByteBuffer map() throws IOException {
+        MappedByteBuffer current = mapping;
+        if (current == null) {
+            synchronized (this) {
+                current = mapping;
+                if (current == null) {
+                    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                        current = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                    }
+                    mapping = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private static class MappedInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        MappedInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(len, buffer.remaining());
+            buffer.get(b, off, count);
+            return count;
+        }
+
+        @Override
+        public long skip(long n) {
+            int count = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
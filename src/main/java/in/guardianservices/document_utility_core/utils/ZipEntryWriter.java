@@ -0,0 +1,105 @@
+package in.guardianservices.document_utility_core.utils;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes buffers as ZIP entries, choosing the method per entry: data that is already
+ * compressed (PNG, JPEG, JPEG 2000, GIF) is STORED, anything else is DEFLATED only if compressing a
+ * sample of it saves enough. STORED entries need their CRC before the data; for large
+ * entries it is computed on the worker pool.
+ */
+@Component
+public class ZipEntryWriter {
+
+    private static final Set<String> COMPRESSED_EXTENSIONS = Set.of("png", "jpg", "jpeg", "jp2", "gif", "zip");
+
+    @Autowired
+    @Qualifier("pdfWorkerPool")
+    private ThreadPoolExecutor pdfWorkerPool;
+
+    @Value("${doc-service.zip.compression-level:6}")
+    private int compressionLevel;
+
+    @Value("${doc-service.zip.min-deflate-gain:0.05}")
+    private double minDeflateGain;
+
+    @Value("${doc-service.zip.sample-size-kb:64}")
+    private int sampleSizeKb;
+
+    @Value("${doc-service.zip.parallel-crc-threshold-mb:8}")
+    private int parallelCrcThresholdMb;
+
+    /**
+     * @param outputStream target of the ZIP, closed with the returned stream
+     * @return ZIP stream using the configured compression level for DEFLATED entries
+     */
+    public ZipOutputStream open(OutputStream outputStream) {
+        ZipOutputStream zip = new ZipOutputStream(outputStream);
+        zip.setLevel(compressionLevel);
+        return zip;
+    }
+
+    /**
+     * Writes one complete entry
+     * @param zip stream opened with {@link #open(OutputStream)}
+     * @param name entry name, its extension identifies already compressed formats
+     * @param content entry data, left unreleased
+     * @return true if the entry was STORED, false if DEFLATED
+     */
+    public boolean writeEntry(ZipOutputStream zip, String name, ChunkedOutputBuffer content) throws IOException {
+        ZipEntry entry = new ZipEntry(name);
+        boolean stored = !worthDeflating(name, content);
+
+        if (stored) {
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(content.size());
+            entry.setCompressedSize(content.size());
+            entry.setCrc(content.size() >= (long) parallelCrcThresholdMb * 1024 * 1024
+                    ? content.crc32(pdfWorkerPool, pdfWorkerPool.getMaximumPoolSize())
+                    : content.crc32());
+        }
+
+        zip.putNextEntry(entry);
+        content.writeTo(zip);
+        zip.closeEntry();
+        return stored;
+    }
+
+    private boolean worthDeflating(String name, ChunkedOutputBuffer content) {
+        if (compressionLevel == Deflater.NO_COMPRESSION || content.size() == 0) {
+            return false;
+        }
+
+        String extension = name.substring(name.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+        if (COMPRESSED_EXTENSIONS.contains(extension)) {
+            return false;
+        }
+
+        byte[] sample = content.sample(sampleSizeKb * 1024);
+        Deflater deflater = new Deflater(compressionLevel, true);
+        try {
+            deflater.setInput(sample);
+            deflater.finish();
+            byte[] output = new byte[8192];
+            long compressedSize = 0;
+            while (!deflater.finished()) {
+                compressedSize += deflater.deflate(output);
+            }
+            return compressedSize <= sample.length * (1 - minDeflateGain);
+        } finally {
+            deflater.end();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package in.guardianservices.document_utility_core.batch;
+
+import in.guardianservices.document_utility_core.cancellation.CancellationToken;
+import in.guardianservices.document_utility_core.exception.InvalidPasswordException;
+import in.guardianservices.document_utility_core.testsupport.PdfServiceFixture;
+import in.guardianservices.document_utility_core.testsupport.SyntheticPdfGenerator;
+import in.guardianservices.document_utility_core.utils.ChunkedOutputBuffer;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BatchItemRunnerTest {
+
+    private final PdfServiceFixture fixture = new PdfServiceFixture();
+    private final BatchItemRunner runner = new BatchItemRunner();
+
+    BatchItemRunnerTest() {
+        ReflectionTestUtils.setField(runner, "pdfService", fixture.pdfService());
+        ReflectionTestUtils.setField(runner, "itemTimeout", Duration.ofMinutes(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.close();
+    }
+
+    @Test
+    void successfulItemReportsItsOutput() {
+        BatchItemRunner.Outcome<String> outcome = runner.run(2, "a.pdf", "locked_a.pdf", () -> "result", String::length);
+
+        assertThat(outcome.output()).isEqualTo("result");
+        assertThat(outcome.result().getStatus()).isEqualTo(BatchItemRunner.STATUS_SUCCESS);
+        assertThat(outcome.result().getIndex()).isEqualTo(2);
+        assertThat(outcome.result().getOutputName()).isEqualTo("locked_a.pdf");
+        assertThat(outcome.result().getSize()).isEqualTo(6);
+    }
+
+    @Test
+    void failedItemsAreReportedInsteadOfThrown() {
+        BatchItemRunner.Outcome<String> wrongPassword = runner.run(0, "a.pdf", "a.pdf", () -> {
+            throw new InvalidPasswordException("Invalid password provided for PDF");
+        }, String::length);
+        BatchItemRunner.Outcome<String> broken = runner.run(1, "b.pdf", "b.pdf", () -> {
+            throw new IOException("Error processing PDF file");
+        }, String::length);
+
+        assertThat(wrongPassword.output()).isNull();
+        assertThat(wrongPassword.result().getStatus()).isEqualTo(BatchItemRunner.STATUS_FAILED);
+        assertThat(wrongPassword.result().getError()).isEqualTo("Invalid PDF password");
+        assertThat(broken.result().getStatus()).isEqualTo(BatchItemRunner.STATUS_FAILED);
+        assertThat(broken.result().getError()).isEqualTo("Error processing PDF file");
+        assertThat(broken.result().getOutputName()).isNull();
+    }
+
+    @Test
+    void slowItemFailsAloneOnceItsDeadlinePasses() {
+        ReflectionTestUtils.setField(runner, "itemTimeout", Duration.ofMillis(20));
+        CancellationToken request = new CancellationToken(0);
+        CancellationToken previous = CancellationToken.bind(request);
+
+        try {
+            BatchItemRunner.Outcome<String> slow = runner.run(0, "a.pdf", "a.pdf", () -> {
+                Thread.sleep(40);
+                CancellationToken.checkCurrent();
+                return "result";
+            }, String::length);
+            BatchItemRunner.Outcome<String> next = runner.run(1, "b.pdf", "b.pdf", () -> {
+                CancellationToken.checkCurrent();
+                return "result";
+            }, String::length);
+
+            assertThat(slow.result().getStatus()).isEqualTo(BatchItemRunner.STATUS_FAILED);
+            assertThat(slow.result().getError()).isEqualTo("Batch item deadline exceeded");
+            assertThat(next.result().getStatus()).isEqualTo(BatchItemRunner.STATUS_SUCCESS);
+            assertThat(request.isCancelled()).isFalse();
+            assertThat(CancellationToken.current()).isSameAs(request);
+        } finally {
+            CancellationToken.bind(previous);
+        }
+    }
+
+    @Test
+    void lockEncryptsAnUnlockedDocument() throws IOException {
+        ChunkedOutputBuffer locked = runner.lock(SyntheticPdfGenerator.upload(SyntheticPdfGenerator.spec()), "secret");
+
+        try (PDDocument document = PDDocument.load(locked.toByteArray(), "secret")) {
+            assertThat(document.isEncrypted()).isTrue();
+        } finally {
+            locked.release();
+        }
+    }
+
+    @Test
+    void lockRefusesProtectedAndInvalidFiles() throws IOException {
+        MockMultipartFile protectedPdf = SyntheticPdfGenerator.upload(SyntheticPdfGenerator.spec().encrypt("secret"));
+        MockMultipartFile text = new MockMultipartFile("file", "notes.pdf", "application/pdf", "hello".getBytes());
+
+        assertThatThrownBy(() -> runner.lock(protectedPdf, "other"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("PDF is already password protected");
+        assertThatThrownBy(() -> runner.lock(text, "other"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid PDF file");
+    }
+
+    @Test
+    void unlockDecryptsAProtectedDocument() throws IOException {
+        ChunkedOutputBuffer unlocked = runner.unlock(
+                SyntheticPdfGenerator.upload(SyntheticPdfGenerator.spec().encrypt("secret")), "secret");
+
+        try (PDDocument document = PDDocument.load(unlocked.toByteArray())) {
+            assertThat(document.isEncrypted()).isFalse();
+        } finally {
+            unlocked.release();
+        }
+    }
+
+    @Test
+    void unlockRefusesWrongPasswordsUnprotectedAndInvalidFiles() throws IOException {
+        MockMultipartFile protectedPdf = SyntheticPdfGenerator.upload(SyntheticPdfGenerator.spec().encrypt("secret"));
+        MockMultipartFile plainPdf = SyntheticPdfGenerator.upload(SyntheticPdfGenerator.spec());
+        MockMultipartFile text = new MockMultipartFile("file", "notes.pdf", "application/pdf", "hello".getBytes());
+
+        assertThatThrownBy(() -> runner.unlock(protectedPdf, "other"))
+                .isInstanceOf(InvalidPasswordException.class);
+        assertThatThrownBy(() -> runner.unlock(plainPdf, "secret"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("PDF is not password protected");
+        assertThatThrownBy(() -> runner.unlock(text, "secret"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid PDF file");
+    }
+}
@@ -0,0 +1,144 @@
+package in.guardianservices.document_utility_core.batch;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import in.guardianservices.document_utility_core.testsupport.PdfServiceFixture;
+import in.guardianservices.document_utility_core.testsupport.SyntheticPdfGenerator;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BatchJobTest {
+
+    private static final String PASSWORD = "secret";
+
+    private final PdfServiceFixture fixture = new PdfServiceFixture();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path workDirectory;
+
+    @AfterEach
+    void tearDown() {
+        fixture.close();
+    }
+
+    @Test
+    void successfulRunWritesResultsAndReport() throws IOException {
+        Path input = Files.createDirectories(workDirectory.resolve("input/nested"));
+        Files.write(input.resolve("a.pdf"), SyntheticPdfGenerator.generate(SyntheticPdfGenerator.spec().pages(2)));
+        Files.write(input.getParent().resolve("b.pdf"), SyntheticPdfGenerator.generate(SyntheticPdfGenerator.spec()));
+        Files.writeString(input.resolve("notes.txt"), "not a PDF");
+        Path output = workDirectory.resolve("output");
+
+        BatchJob job = newJob("lock", input.getParent(), output);
+        job.run(new DefaultApplicationArguments());
+
+        assertThat(job.getExitCode()).isZero();
+        try (PDDocument locked = PDDocument.load(output.resolve("nested/a.pdf").toFile(), PASSWORD)) {
+            assertThat(locked.isEncrypted()).isTrue();
+            assertThat(locked.getNumberOfPages()).isEqualTo(2);
+        }
+
+        BatchJob.BatchReport report = readReport(output);
+        assertThat(report.operation()).isEqualTo("lock");
+        assertThat(report.files()).isEqualTo(2);
+        assertThat(report.succeeded()).isEqualTo(2);
+        assertThat(report.failed()).isZero();
+        assertThat(report.items()).extracting("filename").containsExactly("b.pdf", "nested/a.pdf");
+        assertThat(report.outputBytes()).isEqualTo(
+                Files.size(output.resolve("b.pdf")) + Files.size(output.resolve("nested/a.pdf")));
+    }
+
+    @Test
+    void failedFilesAreReportedAndSetTheExitCode() throws IOException {
+        Path input = Files.createDirectories(workDirectory.resolve("input"));
+        Files.write(input.resolve("a.pdf"),
+                SyntheticPdfGenerator.generate(SyntheticPdfGenerator.spec().encrypt(PASSWORD)));
+        Files.write(input.resolve("b.pdf"), SyntheticPdfGenerator.generate(SyntheticPdfGenerator.spec().encrypt("other")));
+        Files.writeString(input.resolve("c.pdf"), "not a PDF");
+        Path output = workDirectory.resolve("output");
+
+        BatchJob job = newJob("unlock", input, output);
+        job.run(new DefaultApplicationArguments());
+
+        assertThat(job.getExitCode()).isEqualTo(1);
+        try (PDDocument unlocked = PDDocument.load(output.resolve("a.pdf").toFile())) {
+            assertThat(unlocked.isEncrypted()).isFalse();
+        }
+        assertThat(output.resolve("b.pdf")).doesNotExist();
+
+        BatchJob.BatchReport report = readReport(output);
+        assertThat(report.succeeded()).isEqualTo(1);
+        assertThat(report.failed()).isEqualTo(2);
+        assertThat(report.items()).extracting("status")
+                .containsExactly(BatchItemRunner.STATUS_SUCCESS, BatchItemRunner.STATUS_FAILED,
+                        BatchItemRunner.STATUS_FAILED);
+        assertThat(report.items().get(1).getError()).isEqualTo("Invalid PDF password");
+    }
+
+    @Test
+    void rejectsOutputInsideTheInputDirectory() throws IOException {
+        Path input = Files.createDirectories(workDirectory.resolve("input"));
+        Files.write(input.resolve("a.pdf"), SyntheticPdfGenerator.generate(SyntheticPdfGenerator.spec()));
+
+        BatchJob job = newJob("compress", input, input.resolve("results"));
+
+        assertThatThrownBy(() -> job.run(new DefaultApplicationArguments()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("must not be inside the input directory");
+        assertThat(input.resolve("results")).doesNotExist();
+    }
+
+    @Test
+    void headlessPropertiesOverrideTheConfigurationFiles() {
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new MapPropertySource("application.yml", Map.of(
+                "doc-service.warmup.enabled", "true",
+                "spring.main.lazy-initialization", "true")));
+
+        BatchJob.applyHeadlessProperties(environment);
+
+        assertThat(environment.getProperty("doc-service.warmup.enabled", Boolean.class)).isFalse();
+        assertThat(environment.getProperty("spring.main.lazy-initialization", Boolean.class)).isFalse();
+        assertThat(environment.getProperty("spring.cloud.consul.enabled", Boolean.class)).isFalse();
+    }
+
+    private BatchJob newJob(String operation, Path input, Path output) {
+        BatchItemRunner runner = new BatchItemRunner();
+        ReflectionTestUtils.setField(runner, "pdfService", fixture.pdfService());
+        ReflectionTestUtils.setField(runner, "itemTimeout", Duration.ofMinutes(5));
+
+        BatchJob job = new BatchJob();
+        ReflectionTestUtils.setField(job, "pdfService", fixture.pdfService());
+        ReflectionTestUtils.setField(job, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(job, "batchItemRunner", runner);
+        ReflectionTestUtils.setField(job, "operationName", operation);
+        ReflectionTestUtils.setField(job, "inputDir", input.toString());
+        ReflectionTestUtils.setField(job, "outputDir", output.toString());
+        ReflectionTestUtils.setField(job, "reportFile", "");
+        ReflectionTestUtils.setField(job, "parallelism", 2);
+        ReflectionTestUtils.setField(job, "password", PASSWORD);
+        ReflectionTestUtils.setField(job, "format", "png");
+        ReflectionTestUtils.setField(job, "dpi", 72);
+        ReflectionTestUtils.setField(job, "quality", 0.5f);
+        return job;
+    }
+
+    private BatchJob.BatchReport readReport(Path output) throws IOException {
+        return objectMapper.readValue(output.resolve("batch-report.json").toFile(), BatchJob.BatchReport.class);
+    }
+}
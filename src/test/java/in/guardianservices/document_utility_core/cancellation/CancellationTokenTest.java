@@ -0,0 +1,112 @@
+package in.guardianservices.document_utility_core.cancellation;
+
+import in.guardianservices.document_utility_core.config.ExecutorConfig;
+import in.guardianservices.document_utility_core.exception.OperationCancelledException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CancellationTokenTest {
+
+    private final ThreadPoolExecutor workerPool = new ExecutorConfig().pdfWorkerPool(2);
+
+    @AfterEach
+    void tearDown() {
+        workerPool.shutdownNow();
+        CancellationToken.bind(null);
+    }
+
+    @Test
+    void keepsTheFirstReason() {
+        CancellationToken token = new CancellationToken(0);
+        assertThat(token.isCancelled()).isFalse();
+
+        token.cancel("Client disconnected");
+        token.cancel("Request deadline exceeded");
+
+        assertThatThrownBy(token::throwIfCancelled)
+                .isInstanceOf(OperationCancelledException.class)
+                .hasMessage("Client disconnected");
+    }
+
+    @Test
+    void cancelsOncePastTheDeadline() throws InterruptedException {
+        CancellationToken token = new CancellationToken(20);
+        assertThat(token.isCancelled()).isFalse();
+
+        Thread.sleep(40);
+
+        assertThatThrownBy(token::throwIfCancelled)
+                .isInstanceOf(OperationCancelledException.class)
+                .hasMessage("Request deadline exceeded");
+    }
+
+    @Test
+    void childIsCancelledWithItsParentButHasItsOwnDeadline() throws InterruptedException {
+        CancellationToken parent = new CancellationToken(0);
+        CancellationToken slow = new CancellationToken(parent, 20, "Batch item deadline exceeded");
+        CancellationToken next = new CancellationToken(parent, 0, "Batch item deadline exceeded");
+
+        Thread.sleep(40);
+
+        assertThatThrownBy(slow::throwIfCancelled).hasMessage("Batch item deadline exceeded");
+        assertThat(parent.isCancelled()).isFalse();
+        assertThat(next.isCancelled()).isFalse();
+
+        parent.cancel("Client disconnected");
+        assertThatThrownBy(next::throwIfCancelled).hasMessage("Client disconnected");
+    }
+
+    @Test
+    void checkCurrentIsANoOpOutsideOfARequest() {
+        assertThat(CancellationToken.current()).isNull();
+        assertThatCode(CancellationToken::checkCurrent).doesNotThrowAnyException();
+    }
+
+    @Test
+    void bindRestoresThePreviousToken() {
+        CancellationToken outer = new CancellationToken(0);
+        CancellationToken inner = new CancellationToken(0);
+
+        assertThat(CancellationToken.bind(outer)).isNull();
+        assertThat(CancellationToken.bind(inner)).isSameAs(outer);
+        assertThat(CancellationToken.bind(outer)).isSameAs(inner);
+        assertThat(CancellationToken.current()).isSameAs(outer);
+    }
+
+    @Test
+    void workerPoolTasksRunWithTheSubmittingRequestsToken() throws Exception {
+        CancellationToken token = new CancellationToken(0);
+        CancellationToken.bind(token);
+
+        CompletableFuture<CancellationToken> seen = new CompletableFuture<>();
+        workerPool.execute(() -> seen.complete(CancellationToken.current()));
+        assertThat(seen.get(5, TimeUnit.SECONDS)).isSameAs(token);
+
+        // A cancelled request stops the tasks it already handed to the pool
+        token.cancel("Client disconnected");
+        CompletableFuture<Throwable> failure = new CompletableFuture<>();
+        workerPool.execute(() -> {
+            try {
+                CancellationToken.checkCurrent();
+                failure.complete(null);
+            } catch (OperationCancelledException e) {
+                failure.complete(e);
+            }
+        });
+        assertThat(failure.get(5, TimeUnit.SECONDS)).isInstanceOf(OperationCancelledException.class);
+
+        // The worker thread does not keep the token once the task is done
+        CancellationToken.bind(null);
+        CompletableFuture<CancellationToken> after = new CompletableFuture<>();
+        workerPool.execute(() -> after.complete(CancellationToken.current()));
+        assertThat(after.get(5, TimeUnit.SECONDS)).isNull();
+    }
+}
@@ -0,0 +1,211 @@
+package in.guardianservices.document_utility_core.cancellation;
+
+import in.guardianservices.document_utility_core.config.ExecutorConfig;
+import in.guardianservices.document_utility_core.controller.HomeController;
+import in.guardianservices.document_utility_core.metrics.PdfMetrics;
+import in.guardianservices.document_utility_core.testsupport.PdfServiceFixture;
+import in.guardianservices.document_utility_core.testsupport.SyntheticPdfGenerator;
+import in.guardianservices.document_utility_core.utils.RequestCoalescer;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RequestCancellationFilterTest {
+
+    private RequestCancellationFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new RequestCancellationFilter();
+        ReflectionTestUtils.setField(filter, "timeout", Duration.ofMinutes(5));
+    }
+
+    @Test
+    void bindsATokenForTheDurationOfTheRequest() throws Exception {
+        AtomicReference<CancellationToken> seen = new AtomicReference<>();
+
+        filter.doFilter(new MockHttpServletRequest("POST", "/doc-service/compress"), new MockHttpServletResponse(),
+                (request, response) -> seen.set(CancellationToken.current()));
+
+        assertThat(seen.get()).isNotNull();
+        assertThat(seen.get().isCancelled()).isFalse();
+        assertThat(CancellationToken.current()).isNull();
+    }
+
+    @Test
+    void clientCanShortenButNotExtendTheDeadline() throws Exception {
+        assertThat(tokenFor("30").isCancelled()).isFalse();
+        CancellationToken shortened = tokenFor("30");
+        Thread.sleep(60);
+        assertThat(shortened.isCancelled()).isTrue();
+
+        ReflectionTestUtils.setField(filter, "timeout", Duration.ofMillis(30));
+        CancellationToken extended = tokenFor("600000");
+        Thread.sleep(60);
+        assertThat(extended.isCancelled()).isTrue();
+
+        CancellationToken malformed = tokenFor("soon");
+        Thread.sleep(60);
+        assertThat(malformed.isCancelled()).isTrue();
+    }
+
+    @Test
+    void deadlineIsConfiguredPerOperation() throws Exception {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("doc-service.cancellation.timeouts.to-images", "30ms")
+                .withProperty("doc-service.cancellation.timeouts.batch", "0");
+        ReflectionTestUtils.setField(filter, "environment", environment);
+        ReflectionTestUtils.setField(filter, "timeout", Duration.ofMillis(300));
+        filter.init();
+
+        CancellationToken toImages = tokenFor("/doc-service/pdf/to-images", null);
+        CancellationToken compress = tokenFor("/doc-service/pdf/compress", null);
+        CancellationToken batch = tokenFor("/doc-service/pdf/batch/lock", null);
+        Thread.sleep(60);
+        assertThat(toImages.isCancelled()).isTrue();
+        assertThat(compress.isCancelled()).isFalse();
+
+        Thread.sleep(300);
+        assertThat(compress.isCancelled()).isTrue();
+        assertThat(batch.isCancelled()).isFalse();
+
+        // Clients can still bound a batch themselves
+        CancellationToken shortenedBatch = tokenFor("/doc-service/pdf/batch/lock", "30");
+        Thread.sleep(60);
+        assertThat(shortenedBatch.isCancelled()).isTrue();
+    }
+
+    @Test
+    void failedWriteToTheClientCancelsTheRequest() {
+        AtomicReference<CancellationToken> seen = new AtomicReference<>();
+        FilterChain chain = (request, response) -> {
+            seen.set(CancellationToken.current());
+            response.getOutputStream().write(new byte[16], 0, 16);
+        };
+
+        assertThatThrownBy(() -> filter.doFilter(new MockHttpServletRequest("POST", "/doc-service/convert"),
+                new DisconnectedResponse(), chain))
+                .isInstanceOf(IOException.class);
+
+        assertThat(seen.get().isCancelled()).isTrue();
+        assertThatThrownBy(seen.get()::throwIfCancelled).hasMessage("Client disconnected");
+    }
+
+    @Test
+    void clientDisconnectWhileRenderingStopsThePageLoop() throws Exception {
+        int pages = 40;
+        ThreadPoolTaskExecutor asyncExecutor = new ExecutorConfig().mvcAsyncExecutor(16, 8, 2);
+        asyncExecutor.initialize();
+
+        try (PdfServiceFixture fixture = new PdfServiceFixture()) {
+            HomeController controller = new HomeController();
+            ReflectionTestUtils.setField(controller, "pdfService", fixture.pdfService());
+            ReflectionTestUtils.setField(controller, "requestCoalescer", new RequestCoalescer());
+            MockMultipartFile file = SyntheticPdfGenerator.upload(
+                    SyntheticPdfGenerator.spec().pages(pages).images(1, 1000, 1000));
+
+            // The encode stage of the first page is registered once that page has been rendered
+            CountDownLatch firstPageRendered = new CountDownLatch(1);
+            fixture.meterRegistry().config().onMeterAdded(meter -> {
+                if (PdfMetrics.STAGE_ENCODE.equals(meter.getId().getTag("stage"))) {
+                    firstPageRendered.countDown();
+                }
+            });
+
+            // Like Spring MVC, the handler's Callable runs on the async executor after the request went async
+            MockHttpServletRequest request = new MockHttpServletRequest("POST", "/doc-service/pdf/to-images");
+            request.setAsyncSupported(true);
+            AtomicReference<Future<ResponseEntity<?>>> rendering = new AtomicReference<>();
+            filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+                req.startAsync();
+                rendering.set(asyncExecutor.submit(controller.convertPdfToImages(file, "PNG", 150, "RGB")));
+            });
+
+            assertThat(firstPageRendered.await(30, TimeUnit.SECONDS)).isTrue();
+            MockAsyncContext asyncContext = (MockAsyncContext) request.getAsyncContext();
+            for (AsyncListener listener : List.copyOf(asyncContext.getListeners())) {
+                listener.onError(new AsyncEvent(asyncContext, new EOFException("Connection reset by peer")));
+            }
+
+            ResponseEntity<?> response = rendering.get().get(30, TimeUnit.SECONDS);
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+            long renderedPages = fixture.meterRegistry().find(PdfMetrics.STAGE_TIMER)
+                    .tag("operation", PdfMetrics.OP_TO_IMAGES)
+                    .tag("stage", PdfMetrics.STAGE_RENDER)
+                    .timers().stream().mapToLong(Timer::count).sum();
+            assertThat(renderedPages).isBetween(1L, pages - 1L);
+        } finally {
+            asyncExecutor.shutdown();
+        }
+    }
+
+    private CancellationToken tokenFor(String timeoutHeader) throws Exception {
+        return tokenFor("/doc-service/compress", timeoutHeader);
+    }
+
+    private CancellationToken tokenFor(String path, String timeoutHeader) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        if (timeoutHeader != null) {
+            request.addHeader(RequestCancellationFilter.TIMEOUT_HEADER, timeoutHeader);
+        }
+        AtomicReference<CancellationToken> seen = new AtomicReference<>();
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> seen.set(CancellationToken.current()));
+        return seen.get();
+    }
+
+    /**
+     * Response whose client went away: every write fails like a reset connection
+     */
+    private static class DisconnectedResponse extends MockHttpServletResponse {
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return new ServletOutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    throw new IOException("Connection reset by peer");
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    throw new IOException("Connection reset by peer");
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setWriteListener(WriteListener writeListener) {
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package in.guardianservices.document_utility_core.config;
+
+import in.guardianservices.document_utility_core.cancellation.RequestCancellationFilter;
+import in.guardianservices.document_utility_core.metrics.PdfMetrics;
+import in.guardianservices.document_utility_core.metrics.RequestProfileFilter;
+import in.guardianservices.document_utility_core.testsupport.SyntheticPdfGenerator;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMultipartHttpServletRequestBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+/**
+ * Runs endpoints through the real Spring MVC async support, where Callable results and
+ * streamed bodies run on the executor registered by {@link WebConfig}
+ */
+@SpringBootTest(properties = {
+        "doc-service.warmup.enabled=false",
+        "spring.cloud.consul.enabled=false"
+})
+@AutoConfigureMockMvc
+class AsyncRequestContextTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void callableRunsWithTheRequestsCancellationToken() throws Exception {
+        MockMultipartFile file = SyntheticPdfGenerator.upload(SyntheticPdfGenerator.spec().pages(3));
+
+        // The deadline has passed by the time the Callable renders, only a bound token can stop it
+        MvcResult result = mockMvc.perform(toImages(file, 72).header(RequestCancellationFilter.TIMEOUT_HEADER, "1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        assertThat(completeAsync(result).getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE.value());
+    }
+
+    @Test
+    void callableWithinItsDeadlineCompletes() throws Exception {
+        MockMultipartFile file = SyntheticPdfGenerator.upload(SyntheticPdfGenerator.spec().pages(3));
+
+        MvcResult result = mockMvc.perform(toImages(file, 72))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        MockHttpServletResponse response = completeAsync(result);
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(response.getContentAsByteArray()).isNotEmpty();
+    }
+
+    @Test
+    void callableResponseReportsTheWorkOfItsAsyncThread() throws Exception {
+        MockMultipartFile file = SyntheticPdfGenerator.upload(SyntheticPdfGenerator.spec().pages(3));
+
+        MvcResult result = mockMvc.perform(toImages(file, 150))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MockHttpServletResponse response = completeAsync(result);
+
+        // Three pages of about 1240x1650 pixels are rendered on the async thread only
+        assertThat(response.getHeader(RequestProfileFilter.SERVER_TIMING_HEADER))
+                .contains(PdfMetrics.STAGE_RENDER + ";dur=");
+        assertThat(Long.parseLong(response.getHeader(RequestProfileFilter.ALLOCATED_BYTES_HEADER)))
+                .isGreaterThan(10_000_000L);
+        assertThat(response.getHeader(RequestProfileFilter.CPU_TIME_HEADER)).isNotNull();
+    }
+
+    @Test
+    void streamedResponseReportsTheStagesBeforeItsFirstByte() throws Exception {
+        MockMultipartFile file = SyntheticPdfGenerator.upload(SyntheticPdfGenerator.spec().pages(3));
+
+        MvcResult result = mockMvc.perform(multipart("/doc-service/pdf/extract-text").file(file))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MockHttpServletResponse response = completeAsync(result);
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        // The document is loaded by the streaming body, before the first page is written
+        assertThat(response.getHeader(RequestProfileFilter.SERVER_TIMING_HEADER))
+                .startsWith(PdfMetrics.STAGE_LOAD + ";dur=");
+        assertThat(response.getHeader(RequestProfileFilter.ALLOCATED_BYTES_HEADER)).isNotNull();
+    }
+
+    /**
+     * Runs the async cycles of a request to the end, a Callable returning a streamed body
+     * needs a second one
+     */
+    private MockHttpServletResponse completeAsync(MvcResult result) throws Exception {
+        while (result.getRequest().isAsyncStarted()) {
+            result.getAsyncResult(30_000);
+            result = mockMvc.perform(asyncDispatch(result)).andReturn();
+        }
+        return result.getResponse();
+    }
+
+    private static MockMultipartHttpServletRequestBuilder toImages(MockMultipartFile file, int dpi) {
+        return (MockMultipartHttpServletRequestBuilder) multipart("/doc-service/pdf/to-images")
+                .file(file)
+                .param("dpi", String.valueOf(dpi));
+    }
+}
@@ -0,0 +1,87 @@
+package in.guardianservices.document_utility_core.config;
+
+import in.guardianservices.document_utility_core.utils.ChunkedBufferPool;
+import in.guardianservices.document_utility_core.utils.ChunkedOutputBuffer;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ChunkedOutputBufferMessageConverterTest {
+
+    private static final int CHUNK_SIZE = 4096;
+
+    private final ChunkedBufferPool pool = new ChunkedBufferPool(CHUNK_SIZE, false, 64);
+    private final ChunkedOutputBufferMessageConverter converter = new ChunkedOutputBufferMessageConverter();
+
+    @Test
+    void writesTheContentWithItsLengthAndReleasesTheBuffer() throws IOException {
+        byte[] content = new byte[3 * CHUNK_SIZE + 17];
+        new Random(7).nextBytes(content);
+        ChunkedOutputBuffer buffer = pool.newBuffer();
+        buffer.write(content);
+
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+        converter.write(buffer, MediaType.APPLICATION_PDF, message);
+
+        assertThat(message.getBodyAsBytes()).isEqualTo(content);
+        assertThat(message.getHeaders().getContentLength()).isEqualTo(content.length);
+        assertThat(message.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_PDF);
+        assertThat(pool.getPooledChunks()).isEqualTo(4);
+    }
+
+    @Test
+    void releasesTheBufferWhenTheClientGoesAway() throws IOException {
+        ChunkedOutputBuffer buffer = pool.newBuffer();
+        buffer.write(new byte[2 * CHUNK_SIZE]);
+
+        OutputStream broken = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        assertThatThrownBy(() -> converter.write(buffer, null, new MockHttpOutputMessage() {
+            @Override
+            public OutputStream getBody() {
+                return broken;
+            }
+        })).isInstanceOf(IOException.class);
+        assertThat(pool.getPooledChunks()).isEqualTo(2);
+    }
+
+    @Test
+    void keepsOtherOwnersReferences() throws IOException {
+        ChunkedOutputBuffer buffer = pool.newBuffer();
+        buffer.write(new byte[CHUNK_SIZE]);
+        // A coalesced result is shared with a second response
+        buffer.retain(1);
+
+        converter.write(buffer, MediaType.APPLICATION_PDF, new MockHttpOutputMessage());
+        assertThat(pool.getPooledChunks()).isZero();
+
+        MockHttpOutputMessage second = new MockHttpOutputMessage();
+        converter.write(buffer, MediaType.APPLICATION_PDF, second);
+        assertThat(second.getBodyAsBytes()).hasSize(CHUNK_SIZE);
+        assertThat(pool.getPooledChunks()).isEqualTo(1);
+    }
+
+    @Test
+    void onlyWritesBuffers() {
+        assertThat(converter.canWrite(ChunkedOutputBuffer.class, MediaType.APPLICATION_OCTET_STREAM)).isTrue();
+        assertThat(converter.canWrite(byte[].class, MediaType.APPLICATION_OCTET_STREAM)).isFalse();
+        assertThat(converter.canRead(ChunkedOutputBuffer.class, MediaType.APPLICATION_OCTET_STREAM)).isFalse();
+    }
+}
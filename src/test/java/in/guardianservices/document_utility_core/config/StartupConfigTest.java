@@ -0,0 +1,31 @@
+package in.guardianservices.document_utility_core.config;
+
+import in.guardianservices.document_utility_core.controller.HomeController;
+import in.guardianservices.document_utility_core.service.impl.PdfServiceImpl;
+import in.guardianservices.document_utility_core.utils.RequestCoalescer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StartupConfigTest {
+
+    private final LazyInitializationExcludeFilter filter = StartupConfig.eagerStartupBeans();
+
+    @Test
+    void requestPathBeansStayEager() {
+        assertThat(isExcluded(HomeController.class)).isTrue();
+        assertThat(isExcluded(PdfServiceImpl.class)).isTrue();
+        assertThat(isExcluded(StartupWarmup.class)).isTrue();
+    }
+
+    @Test
+    void otherBeansMayBeLazy() {
+        assertThat(isExcluded(RequestCoalescer.class)).isFalse();
+    }
+
+    private boolean isExcluded(Class<?> type) {
+        return filter.isExcluded(type.getSimpleName(), new RootBeanDefinition(type), type);
+    }
+}
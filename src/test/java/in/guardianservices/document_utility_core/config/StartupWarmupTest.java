@@ -0,0 +1,53 @@
+package in.guardianservices.document_utility_core.config;
+
+import in.guardianservices.document_utility_core.metrics.PdfMetrics;
+import in.guardianservices.document_utility_core.testsupport.PdfServiceFixture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StartupWarmupTest {
+
+    private final PdfServiceFixture fixture = new PdfServiceFixture();
+    private final StartupWarmup warmup = new StartupWarmup();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(warmup, "pdfService", fixture.pdfService());
+        ReflectionTestUtils.setField(warmup, "pdfMetrics", fixture.pdfMetrics());
+        ReflectionTestUtils.setField(warmup, "enabled", true);
+        ReflectionTestUtils.setField(warmup, "iterations", 2);
+        ReflectionTestUtils.setField(warmup, "maxDuration", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(warmup, "dpi", 72);
+        ReflectionTestUtils.setField(warmup, "fontCacheDirectory", "");
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.close();
+    }
+
+    @Test
+    void warmupRunsAreNotRecorded() {
+        warmup.run(new DefaultApplicationArguments());
+
+        assertThat(fixture.meterRegistry().find(PdfMetrics.OPERATION_TIMER).timers()).isEmpty();
+        assertThat(fixture.meterRegistry().find(PdfMetrics.STAGE_TIMER).timers()).isEmpty();
+        assertThat(fixture.pdfMetrics().isRecording()).isTrue();
+    }
+
+    @Test
+    void requestsAfterTheWarmupAreRecorded() {
+        warmup.run(new DefaultApplicationArguments());
+
+        fixture.pdfMetrics().operation(PdfMetrics.OP_COMPRESS, null).close();
+
+        assertThat(fixture.meterRegistry().find(PdfMetrics.OPERATION_TIMER).timer().count()).isEqualTo(1);
+    }
+}
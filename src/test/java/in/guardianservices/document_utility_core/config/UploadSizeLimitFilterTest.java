@@ -0,0 +1,102 @@
+package in.guardianservices.document_utility_core.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UploadSizeLimitFilterTest {
+
+    private static final int ONE_MB = 1024 * 1024;
+
+    private UploadSizeLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new UploadSizeLimitFilter();
+        ReflectionTestUtils.setField(filter, "maxRequestSizeMb", 1);
+    }
+
+    @Test
+    void rejectsOversizedUploadsToInMemoryEndpoints() throws Exception {
+        MockHttpServletResponse response = filter(multipart("/doc-service/compress", 2 * ONE_MB));
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE.value());
+        assertThat(response.getContentAsString()).contains("1MB");
+    }
+
+    @Test
+    void passesUploadsWithinTheLimit() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(multipart("/doc-service/compress", ONE_MB / 2), new MockHttpServletResponse(), chain);
+
+        assertThat(chain.getRequest()).isNotNull();
+    }
+
+    @Test
+    void leavesChunkedUploadsToTheServletMultipartLimits() throws Exception {
+        MockHttpServletRequest chunked = new MockHttpServletRequest("POST", "/doc-service/compress");
+        chunked.setContentType("multipart/form-data; boundary=test");
+
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(chunked, new MockHttpServletResponse(), chain);
+
+        assertThat(chain.getRequest()).isNotNull();
+    }
+
+    @Test
+    void streamingEndpointIsOnlyBoundByItsServletLimit() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(multipart("/doc-service/pdf-to-base64/stream", 50 * ONE_MB), new MockHttpServletResponse(),
+                chain);
+
+        assertThat(chain.getRequest()).isNotNull();
+    }
+
+    @Test
+    void batchEndpointsAreOnlyBoundByTheirServletLimit() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(multipart("/doc-service/pdf/batch/lock", 50 * ONE_MB), new MockHttpServletResponse(), chain);
+
+        assertThat(chain.getRequest()).isNotNull();
+    }
+
+    @Test
+    void documentStoreIsOnlyBoundByItsServletLimit() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(multipart("/doc-service/documents", 50 * ONE_MB), new MockHttpServletResponse(), chain);
+
+        assertThat(chain.getRequest()).isNotNull();
+    }
+
+    @Test
+    void streamingEndpointIsRecognisedUnderAContextPath() throws Exception {
+        MockHttpServletRequest request = multipart("/api/doc-service/pdf-to-base64/stream", 50 * ONE_MB);
+        request.setContextPath("/api");
+
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertThat(chain.getRequest()).isNotNull();
+    }
+
+    private MockHttpServletResponse filter(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, response, chain);
+        assertThat(chain.getRequest()).isNull();
+        return response;
+    }
+
+    private static MockHttpServletRequest multipart(String uri, int contentLength) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", uri);
+        request.setContentType("multipart/form-data; boundary=test");
+        request.setContent(new byte[contentLength]);
+        return request;
+    }
+}
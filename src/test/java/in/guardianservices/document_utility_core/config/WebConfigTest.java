@@ -0,0 +1,41 @@
+package in.guardianservices.document_utility_core.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.servlet.ServletRegistrationBean;
+import org.springframework.web.context.support.GenericWebApplicationContext;
+import org.springframework.web.servlet.DispatcherServlet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WebConfigTest {
+
+    @Test
+    void streamingBase64EndpointHasItsOwnMultipartLimit() {
+        ServletRegistrationBean<DispatcherServlet> registration =
+                new WebConfig().base64StreamServlet(new GenericWebApplicationContext(), 100);
+
+        assertThat(registration.getUrlMappings()).containsExactly(WebConfig.BASE64_STREAM_PATH);
+        assertThat(registration.getMultipartConfig().getMaxFileSize()).isEqualTo(100L * 1024 * 1024);
+        assertThat(registration.getMultipartConfig().getMaxRequestSize()).isEqualTo(100L * 1024 * 1024);
+    }
+
+    @Test
+    void batchEndpointsAcceptMaxFilesUploads() {
+        ServletRegistrationBean<DispatcherServlet> registration =
+                new WebConfig().batchServlet(new GenericWebApplicationContext(), 500, 10);
+
+        assertThat(registration.getUrlMappings()).containsExactlyInAnyOrderElementsOf(WebConfig.BATCH_PATHS);
+        assertThat(registration.getMultipartConfig().getMaxFileSize()).isEqualTo(10L * 1024 * 1024);
+        assertThat(registration.getMultipartConfig().getMaxRequestSize()).isEqualTo(500L * 10 * 1024 * 1024);
+    }
+
+    @Test
+    void documentStoreHasItsOwnMultipartLimit() {
+        ServletRegistrationBean<DispatcherServlet> registration =
+                new WebConfig().documentStoreServlet(new GenericWebApplicationContext(), 200);
+
+        assertThat(registration.getUrlMappings()).containsExactly(WebConfig.DOCUMENT_STORE_PATH);
+        assertThat(registration.getMultipartConfig().getMaxFileSize()).isEqualTo(200L * 1024 * 1024);
+        assertThat(registration.getMultipartConfig().getMaxRequestSize()).isEqualTo(200L * 1024 * 1024);
+    }
+}
@@ -0,0 +1,87 @@
+package in.guardianservices.document_utility_core.controller;
+
+import in.guardianservices.document_utility_core.service.impl.PdfServiceImpl;
+import in.guardianservices.document_utility_core.testsupport.PdfServiceFixture;
+import in.guardianservices.document_utility_core.testsupport.SyntheticPdfGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.spy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+class HomeControllerTest {
+
+    private final PdfServiceFixture fixture = new PdfServiceFixture();
+    private final PdfServiceImpl pdfService = spy(fixture.pdfService());
+    private final AtomicReference<Path> decodedFile = new AtomicReference<>();
+    private final MockMvc mockMvc;
+
+    HomeControllerTest() throws IOException {
+        doAnswer(invocation -> {
+            Path file = (Path) invocation.callRealMethod();
+            decodedFile.set(file);
+            return file;
+        }).when(pdfService).convertBase64StreamToPdf(any());
+
+        HomeController controller = new HomeController();
+        ReflectionTestUtils.setField(controller, "pdfService", pdfService);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.close();
+    }
+
+    @Test
+    void streamedBase64IsDecodedToATemporaryFileThatIsDeletedAfterTheResponse() throws Exception {
+        byte[] pdf = SyntheticPdfGenerator.generate(SyntheticPdfGenerator.spec().pages(2));
+
+        MockHttpServletResponse response = mockMvc.perform(post("/doc-service/base64-to-pdf/stream")
+                        .content(Base64.getEncoder().encode(pdf)))
+                .andReturn()
+                .getResponse();
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(response.getContentAsByteArray()).isEqualTo(pdf);
+        assertThat(response.getContentLengthLong()).isEqualTo(pdf.length);
+        assertThat(decodedFile.get()).isNotNull();
+        assertThat(Files.exists(decodedFile.get())).isFalse();
+    }
+
+    @Test
+    void temporaryFileIsDeletedWhenTheResponseCannotBeBuilt() throws Exception {
+        byte[] pdf = SyntheticPdfGenerator.generate(SyntheticPdfGenerator.spec().pages(1));
+
+        MockHttpServletResponse response;
+        try (MockedStatic<Files> files = mockStatic(Files.class, CALLS_REAL_METHODS)) {
+            files.when(() -> Files.size(any(Path.class))).thenThrow(new IOException("Disk gone"));
+
+            response = mockMvc.perform(post("/doc-service/base64-to-pdf/stream")
+                            .content(Base64.getEncoder().encode(pdf)))
+                    .andReturn()
+                    .getResponse();
+        }
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR.value());
+        assertThat(decodedFile.get()).isNotNull();
+        assertThat(Files.exists(decodedFile.get())).isFalse();
+    }
+}
@@ -0,0 +1,104 @@
+package in.guardianservices.document_utility_core.metrics;
+
+import in.guardianservices.document_utility_core.config.ExecutorConfig;
+import in.guardianservices.document_utility_core.testsupport.PdfServiceFixture;
+import io.micrometer.core.instrument.DistributionSummary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestProfileFilterTest {
+
+    private static final int ALLOCATION = 16 * 1024 * 1024;
+
+    // Keeps the test allocations from being optimized away
+    private static volatile byte[] sink;
+
+    private final PdfServiceFixture fixture = new PdfServiceFixture();
+    private final RequestProfileFilter filter = new RequestProfileFilter();
+
+    RequestProfileFilterTest() {
+        ReflectionTestUtils.setField(filter, "pdfMetrics", fixture.pdfMetrics());
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.close();
+    }
+
+    @Test
+    void headersReportTheWorkDoneBeforeTheFirstBodyByte() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("POST", "/doc-service/pdf/compress"), response, (req, res) -> {
+            RequestProfile.current().addStage(PdfMetrics.STAGE_LOAD, 5_000_000);
+            res.getOutputStream().write(new byte[8]);
+            RequestProfile.current().addStage(PdfMetrics.STAGE_SAVE, 5_000_000);
+        });
+
+        assertThat(response.getHeader(RequestProfileFilter.SERVER_TIMING_HEADER)).startsWith("load;dur=5.0, total;dur=");
+        assertThat(response.getHeader(RequestProfileFilter.CPU_TIME_HEADER)).isNotNull();
+        assertThat(response.getHeader(RequestProfileFilter.ALLOCATED_BYTES_HEADER)).isNotNull();
+        assertThat(RequestProfile.current()).isNull();
+    }
+
+    @Test
+    void responsesWithoutABodyStillGetTheHeaders() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("POST", "/doc-service/pdf/metadata"), response,
+                (req, res) -> RequestProfile.current().addStage(PdfMetrics.STAGE_LOAD, 1_000_000));
+
+        assertThat(response.getHeader(RequestProfileFilter.SERVER_TIMING_HEADER)).startsWith("load;dur=1.0");
+    }
+
+    @Test
+    void bodyStreamedOnTheAsyncExecutorIsChargedToTheRequest() throws Exception {
+        ThreadPoolTaskExecutor asyncExecutor = new ExecutorConfig().mvcAsyncExecutor(1, 1, 1);
+        asyncExecutor.initialize();
+
+        try {
+            MockHttpServletRequest request = new MockHttpServletRequest("POST", "/doc-service/pdf/extract-text");
+            request.setAsyncSupported(true);
+            MockHttpServletResponse response = new MockHttpServletResponse();
+
+            // Like a StreamingResponseBody, the body is written by an async task after the handler returned
+            AtomicReference<Future<?>> streaming = new AtomicReference<>();
+            filter.doFilter(request, response, (req, res) -> {
+                RequestProfile.current().recordOperation(PdfMetrics.OP_EXTRACT_TEXT);
+                req.startAsync();
+                streaming.set(asyncExecutor.submit(() -> {
+                    RequestProfile.current().addStage(PdfMetrics.STAGE_EXTRACT, 3_000_000);
+                    sink = new byte[ALLOCATION];
+                    res.getOutputStream().write(new byte[8]);
+                    return null;
+                }));
+            });
+
+            streaming.get().get(30, TimeUnit.SECONDS);
+            request.getAsyncContext().complete();
+
+            assertThat(response.getHeader(RequestProfileFilter.SERVER_TIMING_HEADER)).startsWith("extract;dur=3.0");
+            assertThat(Long.parseLong(response.getHeader(RequestProfileFilter.ALLOCATED_BYTES_HEADER)))
+                    .isGreaterThanOrEqualTo(ALLOCATION);
+
+            DistributionSummary allocated = fixture.meterRegistry().find(PdfMetrics.REQUEST_ALLOCATED)
+                    .tag("operation", PdfMetrics.OP_EXTRACT_TEXT)
+                    .summary();
+            assertThat(allocated).isNotNull();
+            assertThat(allocated.count()).isEqualTo(1);
+            assertThat(allocated.totalAmount()).isGreaterThanOrEqualTo(ALLOCATION);
+        } finally {
+            asyncExecutor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package in.guardianservices.document_utility_core.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestProfileTest {
+
+    private static final int ALLOCATION = 16 * 1024 * 1024;
+
+    // Keeps the test allocations from being optimized away
+    private static volatile byte[] sink;
+
+    @Test
+    void wrappedTasksAreChargedToTheSubmittingRequest() throws Exception {
+        RequestProfile profile = new RequestProfile();
+        AtomicReference<RequestProfile> seen = new AtomicReference<>();
+
+        Thread worker = new Thread(wrapped(profile, () -> {
+            seen.set(RequestProfile.current());
+            sink = new byte[ALLOCATION];
+        }));
+        worker.start();
+        worker.join();
+
+        assertThat(seen.get()).isSameAs(profile);
+        assertThat(profile.getAllocatedBytes()).isGreaterThanOrEqualTo(ALLOCATION);
+        assertThat(RequestProfile.current()).isNull();
+    }
+
+    @Test
+    void threadsStillWorkingCountTowardsTheTotals() throws Exception {
+        RequestProfile profile = new RequestProfile();
+        CountDownLatch allocated = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+
+        Thread worker = new Thread(wrapped(profile, () -> {
+            sink = new byte[ALLOCATION];
+            allocated.countDown();
+            try {
+                done.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        worker.start();
+
+        try {
+            assertThat(allocated.await(30, TimeUnit.SECONDS)).isTrue();
+            assertThat(profile.getAllocatedBytes()).isGreaterThanOrEqualTo(ALLOCATION);
+        } finally {
+            done.countDown();
+            worker.join();
+        }
+    }
+
+    @Test
+    void nestedEntriesOnOneThreadAreChargedOnce() {
+        RequestProfile profile = new RequestProfile();
+
+        profile.enterThread();
+        profile.enterThread();
+        sink = new byte[ALLOCATION];
+        profile.exitThread();
+        profile.exitThread();
+
+        assertThat(profile.getAllocatedBytes()).isBetween((long) ALLOCATION, 2L * ALLOCATION);
+    }
+
+    @Test
+    void serverTimingSumsRepeatedStagesInTheOrderTheyRan() {
+        RequestProfile profile = new RequestProfile();
+
+        profile.addStage(PdfMetrics.STAGE_LOAD, 2_000_000);
+        profile.addStage(PdfMetrics.STAGE_RENDER, 1_500_000);
+        profile.addStage(PdfMetrics.STAGE_RENDER, 1_000_000);
+
+        assertThat(profile.toServerTiming()).startsWith("load;dur=2.0, render;dur=2.5, total;dur=");
+    }
+
+    private static Runnable wrapped(RequestProfile profile, Runnable task) {
+        RequestProfile previous = RequestProfile.bind(profile);
+        try {
+            return RequestProfile.wrap(task);
+        } finally {
+            RequestProfile.bind(previous);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package in.guardianservices.document_utility_core.scheduling;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PriorityLaneInterceptorTest {
+
+    private static final String HEAVY_PATH = "/doc-service/pdf/batch/unlock";
+    private static final String FAST_PATH = "/doc-service/unlock";
+
+    private PriorityLaneInterceptor interceptor;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        RequestCostClassifier classifier = mock(RequestCostClassifier.class);
+        when(classifier.classify(any())).thenAnswer(invocation -> {
+            MockHttpServletRequest request = invocation.getArgument(0);
+            return request.getRequestURI().equals(HEAVY_PATH) ? Lane.HEAVY : Lane.FAST;
+        });
+
+        meterRegistry = new SimpleMeterRegistry();
+        interceptor = new PriorityLaneInterceptor();
+        ReflectionTestUtils.setField(interceptor, "requestCostClassifier", classifier);
+        ReflectionTestUtils.setField(interceptor, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(interceptor, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(interceptor, "fastPermits", 2);
+        ReflectionTestUtils.setField(interceptor, "standardPermits", 1);
+        ReflectionTestUtils.setField(interceptor, "heavyPermits", 1);
+        ReflectionTestUtils.setField(interceptor, "retryAfter", Duration.ofSeconds(7));
+        interceptor.init();
+    }
+
+    @Test
+    void fullLaneRejectsImmediatelyWithRetryAfter() throws Exception {
+        assertThat(admit(HEAVY_PATH, new MockHttpServletResponse())).isTrue();
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        long start = System.nanoTime();
+        boolean admitted = admit(HEAVY_PATH, response);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertThat(admitted).isFalse();
+        assertThat(elapsedMs).isLessThan(1000);
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE.value());
+        assertThat(response.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("7");
+        assertThat(meterRegistry.counter("pdf.lane.rejected", "lane", "heavy").count()).isEqualTo(1);
+    }
+
+    @Test
+    void fastLaneStaysAvailableWhileHeavyLaneIsFull() throws Exception {
+        assertThat(admit(HEAVY_PATH, new MockHttpServletResponse())).isTrue();
+        assertThat(admit(HEAVY_PATH, new MockHttpServletResponse())).isFalse();
+
+        assertThat(admit(FAST_PATH, new MockHttpServletResponse())).isTrue();
+        assertThat(admit(FAST_PATH, new MockHttpServletResponse())).isTrue();
+    }
+
+    @Test
+    void completionReleasesThePermit() throws Exception {
+        MockHttpServletRequest request = request(HEAVY_PATH);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertThat(interceptor.preHandle(request, response, new Object())).isTrue();
+
+        interceptor.afterCompletion(request, response, new Object(), null);
+        interceptor.afterCompletion(request, response, new Object(), null);
+
+        assertThat(admit(HEAVY_PATH, new MockHttpServletResponse())).isTrue();
+        assertThat(admit(HEAVY_PATH, new MockHttpServletResponse())).isFalse();
+    }
+
+    @Test
+    void streamedResponseHoldsThePermitUntilTheAsyncRequestCompletes() throws Exception {
+        MockHttpServletRequest request = request(HEAVY_PATH);
+        request.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertThat(interceptor.preHandle(request, response, new Object())).isTrue();
+
+        request.startAsync();
+        interceptor.afterConcurrentHandlingStarted(request, response, new Object());
+        interceptor.afterCompletion(request, response, new Object(), null);
+        assertThat(admit(HEAVY_PATH, new MockHttpServletResponse())).isFalse();
+
+        ((MockAsyncContext) request.getAsyncContext()).complete();
+        assertThat(admit(HEAVY_PATH, new MockHttpServletResponse())).isTrue();
+    }
+
+    private boolean admit(String path, MockHttpServletResponse response) throws Exception {
+        return interceptor.preHandle(request(path), response, new Object());
+    }
+
+    private static MockHttpServletRequest request(String path) {
+        return new MockHttpServletRequest("POST", path);
+    }
+}
@@ -0,0 +1,68 @@
+package in.guardianservices.document_utility_core.scheduling;
+
+import in.guardianservices.document_utility_core.model.StoredDocument;
+import in.guardianservices.document_utility_core.service.PdfStorageService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RequestCostClassifierTest {
+
+    private static final String DOCUMENT_ID = "a".repeat(64);
+
+    private RequestCostClassifier classifier;
+    private PdfStorageService storageService;
+
+    @BeforeEach
+    void setUp() {
+        storageService = mock(PdfStorageService.class);
+        classifier = new RequestCostClassifier();
+        ReflectionTestUtils.setField(classifier, "pdfStorageService", storageService);
+        ReflectionTestUtils.setField(classifier, "heavyCost", 100.0);
+        ReflectionTestUtils.setField(classifier, "pageCountScanKb", 256);
+    }
+
+    @Test
+    void cheapOperationsUseTheFastLane() {
+        assertThat(classifier.classify(new MockHttpServletRequest("POST", "/doc-service/unlock")))
+                .isEqualTo(Lane.FAST);
+    }
+
+    @Test
+    void batchOperationsUseTheHeavyLane() {
+        assertThat(classifier.classify(new MockHttpServletRequest("POST", "/doc-service/pdf/batch/lock")))
+                .isEqualTo(Lane.HEAVY);
+    }
+
+    @Test
+    void storedDocumentsAreCostedFromTheIndexWithoutPinning() {
+        when(storageService.describe(DOCUMENT_ID)).thenReturn(new StoredDocument(DOCUMENT_ID, 1024, false, 40));
+
+        assertThat(classify("/doc-service/documents/" + DOCUMENT_ID + "/to-images", "150")).isEqualTo(Lane.STANDARD);
+        assertThat(classify("/doc-service/documents/" + DOCUMENT_ID + "/to-images", "300")).isEqualTo(Lane.HEAVY);
+        verify(storageService, never()).acquire(anyString());
+    }
+
+    @Test
+    void unknownStoredDocumentsCountAsOnePage() {
+        assertThat(classify("/doc-service/documents/" + DOCUMENT_ID + "/to-images", "600")).isEqualTo(Lane.STANDARD);
+    }
+
+    private Lane classify(String path, String dpi) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, Map.of("documentId", DOCUMENT_ID));
+        request.setParameter("dpi", dpi);
+        return classifier.classify(request);
+    }
+}
@@ -0,0 +1,176 @@
+package in.guardianservices.document_utility_core.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import in.guardianservices.document_utility_core.batch.BatchItemRunner;
+import in.guardianservices.document_utility_core.config.ExecutorConfig;
+import in.guardianservices.document_utility_core.model.BatchItemResult;
+import in.guardianservices.document_utility_core.testsupport.PdfServiceFixture;
+import in.guardianservices.document_utility_core.testsupport.SyntheticPdfGenerator;
+import in.guardianservices.document_utility_core.utils.ChunkedOutputBuffer;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PdfBatchServiceImplTest {
+
+    private static final String PASSWORD = "secret";
+
+    private final PdfServiceFixture fixture = new PdfServiceFixture();
+    private final PdfBatchServiceImpl batchService = new PdfBatchServiceImpl();
+
+    private final Queue<ChunkedOutputBuffer> lockedOutputs = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger maxQueuedTasks = new AtomicInteger();
+
+    private ThreadPoolExecutor batchPool;
+
+    PdfBatchServiceImplTest() {
+        BatchItemRunner runner = new BatchItemRunner() {
+            @Override
+            public ChunkedOutputBuffer lock(MultipartFile file, String password) throws IOException {
+                if (batchPool != null) {
+                    maxQueuedTasks.accumulateAndGet(batchPool.getQueue().size(), Math::max);
+                }
+                ChunkedOutputBuffer output = super.lock(file, password);
+                lockedOutputs.add(output);
+                return output;
+            }
+        };
+        ReflectionTestUtils.setField(runner, "pdfService", fixture.pdfService());
+        ReflectionTestUtils.setField(runner, "itemTimeout", Duration.ofMinutes(5));
+
+        ReflectionTestUtils.setField(batchService, "pdfWorkerPool", fixture.workerPool());
+        ReflectionTestUtils.setField(batchService, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(batchService, "batchItemRunner", runner);
+        ReflectionTestUtils.setField(batchService, "zipEntryWriter", fixture.zipEntryWriter());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (batchPool != null) {
+            batchPool.shutdown();
+        }
+        fixture.close();
+    }
+
+    @Test
+    void compressedPdfsAreStoredInTheResultZip() throws IOException {
+        MockMultipartFile scans = SyntheticPdfGenerator.upload(SyntheticPdfGenerator.spec().pages(3).images(1, 400, 400));
+        MockMultipartFile text = new MockMultipartFile("files", "notes.pdf", "application/pdf", "hello".getBytes());
+
+        ByteArrayOutputStream zipBytes = new ByteArrayOutputStream();
+        List<BatchItemResult> results = batchService.lockAll(List.of(scans, text), PASSWORD, zipBytes);
+
+        assertThat(results).extracting(BatchItemResult::getStatus)
+                .containsExactly(BatchItemRunner.STATUS_SUCCESS, BatchItemRunner.STATUS_FAILED);
+
+        Map<String, ZipEntry> entries = new HashMap<>();
+        Map<String, byte[]> contents = new HashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(zipBytes.toByteArray()))) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                contents.put(entry.getName(), zip.readAllBytes());
+                entries.put(entry.getName(), entry);
+            }
+        }
+
+        String lockedName = results.get(0).getOutputName();
+        assertThat(entries).containsOnlyKeys(lockedName, "manifest.json");
+        assertThat(entries.get(lockedName).getMethod()).isEqualTo(ZipEntry.STORED);
+        assertThat(entries.get("manifest.json").getMethod()).isEqualTo(ZipEntry.DEFLATED);
+        try (PDDocument locked = PDDocument.load(contents.get(lockedName), PASSWORD)) {
+            assertThat(locked.getNumberOfPages()).isEqualTo(3);
+        }
+        assertThat(new String(contents.get("manifest.json"))).contains("Invalid PDF file");
+    }
+
+    @Test
+    void unlockReportsTheSameFailuresAsLock() throws IOException {
+        List<MultipartFile> files = List.of(
+                SyntheticPdfGenerator.upload(SyntheticPdfGenerator.spec().encrypt(PASSWORD)),
+                SyntheticPdfGenerator.upload(SyntheticPdfGenerator.spec().encrypt("other")),
+                SyntheticPdfGenerator.upload(SyntheticPdfGenerator.spec()));
+
+        List<BatchItemResult> results = batchService.unlockAll(files, PASSWORD, new ByteArrayOutputStream());
+
+        assertThat(results).extracting(BatchItemResult::getError)
+                .containsExactly(null, "Invalid PDF password", "PDF is not password protected");
+    }
+
+    @Test
+    void largeBatchesQueueNoMoreFilesThanThereAreWorkers() throws IOException {
+        useBatchPool(2);
+        List<MultipartFile> files = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            files.add(SyntheticPdfGenerator.upload(SyntheticPdfGenerator.spec()));
+        }
+
+        List<BatchItemResult> results = batchService.lockAll(files, PASSWORD, new ByteArrayOutputStream());
+
+        assertThat(results).extracting(BatchItemResult::getStatus).containsOnly(BatchItemRunner.STATUS_SUCCESS);
+        assertThat(results).extracting(BatchItemResult::getIndex).containsExactly(0, 1, 2, 3, 4, 5, 6, 7);
+        assertThat(maxQueuedTasks.get()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void finishedOutputsAreReleasedWhenWritingTheZipFails() throws IOException {
+        useBatchPool(3);
+        List<MultipartFile> files = List.of(
+                SyntheticPdfGenerator.upload(SyntheticPdfGenerator.spec()),
+                SyntheticPdfGenerator.upload(SyntheticPdfGenerator.spec()),
+                SyntheticPdfGenerator.upload(SyntheticPdfGenerator.spec()));
+
+        // Fails on the first entry, once every file has finished and only one has been taken
+        OutputStream brokenClient = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[] {(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+                while (batchPool.getCompletedTaskCount() < files.size() && System.nanoTime() < deadline) {
+                    Thread.onSpinWait();
+                }
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        assertThatThrownBy(() -> batchService.lockAll(files, PASSWORD, brokenClient))
+                .isInstanceOf(IOException.class);
+
+        assertThat(lockedOutputs).hasSize(files.size());
+        // A released buffer refuses new references
+        assertThat(lockedOutputs).allSatisfy(output ->
+                assertThatThrownBy(() -> output.retain(1)).isInstanceOf(IllegalStateException.class));
+    }
+
+    /**
+     * Runs the batch on a pool of its own, sized independently of the machine
+     */
+    private void useBatchPool(int size) {
+        batchPool = new ExecutorConfig().pdfWorkerPool(size);
+        ReflectionTestUtils.setField(batchService, "pdfWorkerPool", batchPool);
+    }
+}
@@ -0,0 +1,518 @@
+package in.guardianservices.document_utility_core.service.impl;
+
+import in.guardianservices.document_utility_core.cancellation.CancellationToken;
+import in.guardianservices.document_utility_core.exception.OperationCancelledException;
+import in.guardianservices.document_utility_core.exception.PayloadTooLargeException;
+import in.guardianservices.document_utility_core.metrics.PdfMetrics;
+import in.guardianservices.document_utility_core.model.PdfMetadata;
+import in.guardianservices.document_utility_core.testsupport.PdfServiceFixture;
+import in.guardianservices.document_utility_core.testsupport.SyntheticPdfGenerator;
+import in.guardianservices.document_utility_core.utils.ChunkedBufferPool;
+import in.guardianservices.document_utility_core.utils.ChunkedOutputBuffer;
+import in.guardianservices.document_utility_core.utils.FileUtils;
+import in.guardianservices.document_utility_core.utils.InMemoryPdfFile;
+import in.guardianservices.document_utility_core.utils.LocalPdfFile;
+import in.guardianservices.document_utility_core.utils.PageCheckpoint;
+import in.guardianservices.document_utility_core.utils.PageCheckpointStore;
+import in.guardianservices.document_utility_core.utils.PageColorAnalyzer;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.rendering.ImageType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.MockedStatic;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+class PdfServiceImplTest {
+
+    @TempDir
+    Path workDirectory;
+
+    private final PdfServiceFixture fixture = new PdfServiceFixture();
+
+    @AfterEach
+    void tearDown() {
+        fixture.close();
+    }
+
+    @Test
+    void convertResumesFromAPartialCheckpoint() throws IOException {
+        fixture.withCheckpoints(workDirectory.resolve("checkpoints"), 2);
+        Path input = writePdf(3);
+        Path output = workDirectory.resolve("out");
+
+        // A first run that finished page 1 only
+        PageCheckpoint earlier = PageCheckpoint.open(output);
+        Path tempFile = earlier.tempFile("page-1.png");
+        Files.writeString(tempFile, "rendered before the crash");
+        earlier.recordPage(0, tempFile);
+
+        List<String> images = fixture.pdfService().convert(input, output, "png", 36);
+
+        assertThat(images).containsExactly(output.resolve("page-1.png").toAbsolutePath().toString(),
+                output.resolve("page-2.png").toAbsolutePath().toString(),
+                output.resolve("page-3.png").toAbsolutePath().toString());
+        assertThat(Files.readString(output.resolve("page-1.png"))).isEqualTo("rendered before the crash");
+        // The finished output is the caller's, its manifest is not left next to it
+        assertThat(workDirectory.resolve("out.manifest")).doesNotExist();
+    }
+
+    @Test
+    void convertSkipsCheckpointsBelowMinPages() throws IOException {
+        fixture.withCheckpoints(workDirectory.resolve("checkpoints"), 10);
+        Path output = workDirectory.resolve("out");
+
+        List<String> images = fixture.pdfService().convert(writePdf(2), output, "png", 36);
+
+        assertThat(images).hasSize(2);
+        assertThat(workDirectory.resolve("out.manifest")).doesNotExist();
+    }
+
+    @Test
+    void convertRejectsADirectoryInUseByAnotherConversion() throws IOException {
+        fixture.withCheckpoints(workDirectory.resolve("checkpoints"), 2);
+        Path output = workDirectory.resolve("out");
+        PageCheckpoint running = checkpointStore().openAt(output);
+
+        try {
+            assertThatThrownBy(() -> fixture.pdfService().convert(writePdf(2), output, "png", 36))
+                    .isInstanceOf(IOException.class);
+        } finally {
+            checkpointStore().close(running);
+        }
+    }
+
+    @Test
+    void duplicateConvertJobsUseSeparateDirectories() throws IOException {
+        fixture.withCheckpoints(workDirectory.resolve("checkpoints"), 2);
+        Path input = writePdf(2);
+
+        // With the first job's checkpoint held, the identical second job must not write into it
+        List<String> first = fixture.pdfService().convert(input.toString());
+        PageCheckpoint running = checkpointStore().openAt(Path.of(first.get(0)).getParent());
+        List<String> second = List.of();
+        try {
+            second = fixture.pdfService().convert(input.toString());
+
+            assertThat(Path.of(first.get(0)).getFileName()).hasToString("page-1.png");
+            assertThat(Path.of(second.get(0)).getParent()).isNotEqualTo(Path.of(first.get(0)).getParent());
+            assertThat(second).allSatisfy(image -> assertThat(Path.of(image)).isRegularFile());
+        } finally {
+            if (!second.isEmpty()) {
+                deleteImages(second);
+            }
+            checkpointStore().close(running);
+            deleteImages(first);
+        }
+    }
+
+    @Test
+    void autoColorModeRendersTextPagesAsBinaryPng() throws IOException {
+        BufferedImage image = renderAuto(SyntheticPdfGenerator.spec().pages(1), "png");
+
+        assertThat(image.getColorModel().getPixelSize()).isEqualTo(1);
+    }
+
+    @Test
+    void autoColorModeRendersTextPagesAsGrayJpeg() throws IOException {
+        BufferedImage image = renderAuto(SyntheticPdfGenerator.spec().pages(1), "jpeg");
+
+        assertThat(image.getColorModel().getNumComponents()).isEqualTo(1);
+        assertThat(image.getColorModel().getPixelSize()).isEqualTo(8);
+    }
+
+    @Test
+    void autoColorModeRendersColorPagesAsRgb() throws IOException {
+        BufferedImage image = renderAuto(SyntheticPdfGenerator.spec().pages(1).images(1, 64, 64), "png");
+
+        assertThat(image.getColorModel().getNumComponents()).isGreaterThanOrEqualTo(3);
+    }
+
+    @Test
+    void autoColorModeFallsBackToRgbForGifAndBmp() throws IOException {
+        try (PDDocument document = PDDocument.load(SyntheticPdfGenerator.generate(SyntheticPdfGenerator.spec().pages(1)))) {
+            PDPage page = document.getPage(0);
+
+            assertThat(PageColorAnalyzer.resolveImageType(page, PageColorAnalyzer.MODE_AUTO, "png"))
+                    .isEqualTo(ImageType.BINARY);
+            assertThat(PageColorAnalyzer.resolveImageType(page, PageColorAnalyzer.MODE_AUTO, "jpg"))
+                    .isEqualTo(ImageType.GRAY);
+            assertThat(PageColorAnalyzer.resolveImageType(page, PageColorAnalyzer.MODE_AUTO, "gif"))
+                    .isEqualTo(ImageType.RGB);
+            assertThat(PageColorAnalyzer.resolveImageType(page, PageColorAnalyzer.MODE_AUTO, "bmp"))
+                    .isEqualTo(ImageType.RGB);
+        }
+    }
+
+    @Test
+    void autoColorModeKeepsThinColoredContentInRgb() throws IOException {
+        // A hairline and 4pt text cover too few pixels for any low resolution rendering to see
+        try (PDDocument document = pageWith(Color.BLACK, new Color(200, 0, 0), new Color(0, 0, 220))) {
+            assertThat(PageColorAnalyzer.resolveImageType(document.getPage(0), PageColorAnalyzer.MODE_AUTO, "png"))
+                    .isEqualTo(ImageType.RGB);
+        }
+    }
+
+    @Test
+    void autoColorModeKeepsThinGrayContentInGray() throws IOException {
+        try (PDDocument document = pageWith(Color.BLACK, Color.BLACK, new Color(235, 235, 235))) {
+            assertThat(PageColorAnalyzer.resolveImageType(document.getPage(0), PageColorAnalyzer.MODE_AUTO, "png"))
+                    .isEqualTo(ImageType.GRAY);
+        }
+    }
+
+    @Test
+    void autoColorModeRendersBlackHairlinesAsBinary() throws IOException {
+        try (PDDocument document = pageWith(Color.BLACK, Color.BLACK, Color.BLACK)) {
+            assertThat(PageColorAnalyzer.resolveImageType(document.getPage(0), PageColorAnalyzer.MODE_AUTO, "png"))
+                    .isEqualTo(ImageType.BINARY);
+        }
+    }
+
+    @Test
+    void extractTextWritesOneLinePerPage() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        int pages = fixture.pdfService().extractText(
+                SyntheticPdfGenerator.upload(SyntheticPdfGenerator.spec().pages(3)), output);
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(output.toString(StandardCharsets.UTF_8).lines()).hasSize(3);
+    }
+
+    @Test
+    void extractTextFailsInsteadOfWaitingForAFailedWorker() throws IOException {
+        ThreadPoolExecutor failingPool = new ThreadPoolExecutor(2, 2, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>()) {
+            @Override
+            public <T> Future<T> submit(Callable<T> task) {
+                return CompletableFuture.failedFuture(new StackOverflowError("worker died"));
+            }
+        };
+        ReflectionTestUtils.setField(fixture.pdfService(), "pdfWorkerPool", failingPool);
+
+        try {
+            assertThatThrownBy(() -> fixture.pdfService().extractText(
+                    SyntheticPdfGenerator.upload(SyntheticPdfGenerator.spec().pages(2)), new ByteArrayOutputStream()))
+                    .isInstanceOf(IOException.class)
+                    .hasCauseInstanceOf(StackOverflowError.class);
+        } finally {
+            failingPool.shutdownNow();
+        }
+    }
+
+    @Test
+    void extractTextStopsWaitingWhenTheRequestIsCancelled() throws IOException {
+        // Workers that never get to run, as with a saturated pool
+        ThreadPoolExecutor stalledPool = new ThreadPoolExecutor(2, 2, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>()) {
+            @Override
+            public <T> Future<T> submit(Callable<T> task) {
+                return new CompletableFuture<>();
+            }
+        };
+        ReflectionTestUtils.setField(fixture.pdfService(), "pdfWorkerPool", stalledPool);
+        CancellationToken token = new CancellationToken(0);
+        token.cancel("Client disconnected");
+        CancellationToken previous = CancellationToken.bind(token);
+
+        try {
+            assertThatThrownBy(() -> fixture.pdfService().extractText(
+                    SyntheticPdfGenerator.upload(SyntheticPdfGenerator.spec().pages(2)), new ByteArrayOutputStream()))
+                    .isInstanceOf(OperationCancelledException.class);
+        } finally {
+            CancellationToken.bind(previous);
+            stalledPool.shutdownNow();
+        }
+    }
+
+    @Test
+    void compressReleasesItsBufferWhenSavingFails() throws IOException {
+        List<ChunkedOutputBuffer> buffers = failingBuffers();
+
+        assertThatThrownBy(() -> fixture.pdfService().compressPdf(
+                SyntheticPdfGenerator.upload(SyntheticPdfGenerator.spec().pages(2)), 0.5f))
+                .isInstanceOf(IOException.class);
+
+        assertThat(buffers).isNotEmpty().allSatisfy(buffer -> verify(buffer).release());
+    }
+
+    @Test
+    void unlockReleasesItsBufferWhenSavingFails() throws IOException {
+        MockMultipartFile locked = SyntheticPdfGenerator.upload(SyntheticPdfGenerator.spec().encrypt("secret"));
+        List<ChunkedOutputBuffer> buffers = failingBuffers();
+
+        assertThatThrownBy(() -> fixture.pdfService().unlockPdf(locked, "secret"))
+                .isInstanceOf(IOException.class);
+
+        assertThat(buffers).isNotEmpty().allSatisfy(buffer -> verify(buffer).release());
+    }
+
+    @Test
+    void lockReleasesItsBufferWhenSavingFails() throws IOException {
+        MockMultipartFile unlocked = SyntheticPdfGenerator.upload(SyntheticPdfGenerator.spec());
+        List<ChunkedOutputBuffer> buffers = failingBuffers();
+
+        assertThatThrownBy(() -> fixture.pdfService().lockUnlockedPdfStandard(unlocked, "secret"))
+                .isInstanceOf(IOException.class);
+
+        assertThat(buffers).isNotEmpty().allSatisfy(buffer -> verify(buffer).release());
+    }
+
+    @Test
+    void extractImagesStoresEmbeddedJpegs() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        int images = fixture.pdfService().extractImages(
+                SyntheticPdfGenerator.upload(SyntheticPdfGenerator.spec().pages(2).images(1, 64, 64)), output);
+
+        assertThat(images).isEqualTo(2);
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(output.toByteArray()))) {
+            ZipEntry entry;
+            int entries = 0;
+            while ((entry = zip.getNextEntry()) != null) {
+                assertThat(entry.getName()).endsWith(".jpg");
+                assertThat(entry.getMethod()).isEqualTo(ZipEntry.STORED);
+                entries++;
+            }
+            assertThat(entries).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void extractImagesStopsWhenTheRequestIsCancelled() throws IOException {
+        MockMultipartFile upload = SyntheticPdfGenerator.upload(SyntheticPdfGenerator.spec().pages(2).images(1, 64, 64));
+        CancellationToken token = new CancellationToken(0);
+        token.cancel("Client disconnected");
+        CancellationToken previous = CancellationToken.bind(token);
+
+        try {
+            assertThatThrownBy(() -> fixture.pdfService().extractImages(upload, new ByteArrayOutputStream()))
+                    .isInstanceOf(OperationCancelledException.class);
+        } finally {
+            CancellationToken.bind(previous);
+        }
+    }
+
+    @Test
+    void base64StreamIsDecodedToAFile() throws IOException {
+        byte[] pdf = SyntheticPdfGenerator.generate(SyntheticPdfGenerator.spec().pages(2));
+        // MIME line breaks, as sent by clients wrapping at 76 characters
+        String base64 = Base64.getMimeEncoder().encodeToString(pdf);
+
+        assertDecodesTo(base64, pdf);
+        assertDecodesTo("data:application/pdf;base64," + base64, pdf);
+    }
+
+    @Test
+    void base64StreamRejectsInvalidPayloadsWithoutLeavingFiles() throws IOException {
+        List<Path> before = base64TempFiles();
+        String notAPdf = Base64.getEncoder().encodeToString("hello, not a PDF".getBytes(StandardCharsets.US_ASCII));
+
+        assertThatThrownBy(() -> decode(notAPdf))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Provided base64 is not valid");
+        assertThatThrownBy(() -> decode("JVBERi0xLjQK=A"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageStartingWith("Invalid Base64 format");
+        assertThatThrownBy(() -> decode(""))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Base64 string cannot be null or empty");
+        assertThatThrownBy(() -> decode("data:" + "x".repeat(300)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid data URL prefix");
+
+        assertThat(base64TempFiles()).containsExactlyInAnyOrderElementsOf(before);
+    }
+
+    @Test
+    void base64StreamOverTheIngestLimitIsAbortedWithoutLeavingFiles() throws IOException {
+        ReflectionTestUtils.setField(fixture.pdfService(), "base64IngestMaxSizeMb", 1);
+        List<Path> before = base64TempFiles();
+        byte[] oversized = new byte[1024 * 1024];
+        System.arraycopy("%PDF-1.7\n".getBytes(StandardCharsets.US_ASCII), 0, oversized, 0, 9);
+        // Encoded, the 1MB document is a third larger than the 1MB body limit
+        String base64 = Base64.getMimeEncoder().encodeToString(oversized);
+
+        assertThatThrownBy(() -> decode(base64)).isInstanceOf(PayloadTooLargeException.class);
+
+        assertThat(base64TempFiles()).containsExactlyInAnyOrderElementsOf(before);
+    }
+
+    @Test
+    void metadataClosesTheLoadStageWhenThePasswordIsMissing() throws IOException {
+        MockMultipartFile upload = SyntheticPdfGenerator.upload(SyntheticPdfGenerator.spec().encrypt("secret"));
+
+        PdfMetadata metadata = fixture.pdfService().getMetadata(upload, null);
+
+        assertThat(metadata.isPasswordRequired()).isTrue();
+        assertThat(loadStageCount()).isEqualTo(1);
+        assertThatThrownBy(() -> fixture.pdfService().getMetadata(
+                new MockMultipartFile("file", "notes.pdf", "application/pdf", "%PDF-1.4 broken".getBytes()), null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(loadStageCount()).isEqualTo(2);
+    }
+
+    @Test
+    void metadataOnlySpoolsUploadsWithoutALocalFile() throws IOException {
+        byte[] pdf = SyntheticPdfGenerator.generate(SyntheticPdfGenerator.spec().pages(3));
+        Path local = workDirectory.resolve("local.pdf");
+        Files.write(local, pdf);
+
+        try (MockedStatic<FileUtils> fileUtils = mockStatic(FileUtils.class, CALLS_REAL_METHODS)) {
+            assertThat(fixture.pdfService().getMetadata(new LocalPdfFile(local), null).getPageCount()).isEqualTo(3);
+            assertThat(fixture.pdfService().getMetadata(new InMemoryPdfFile("memory.pdf", pdf), null).getPageCount())
+                    .isEqualTo(3);
+            fileUtils.verify(() -> FileUtils.spoolToTempFile(any()), never());
+
+            MockMultipartFile upload = new MockMultipartFile("file", "upload.pdf", "application/pdf", pdf);
+            assertThat(fixture.pdfService().getMetadata(upload, null).getPageCount()).isEqualTo(3);
+            fileUtils.verify(() -> FileUtils.spoolToTempFile(upload));
+        }
+    }
+
+    /**
+     * Makes every buffer the service takes from the pool fail on write, as a full disk or
+     * an encoder error would while saving
+     * @return the buffers handed out so far
+     */
+    private List<ChunkedOutputBuffer> failingBuffers() throws IOException {
+        List<ChunkedOutputBuffer> buffers = new CopyOnWriteArrayList<>();
+        ChunkedBufferPool pool = spy(fixture.bufferPool());
+        doAnswer(invocation -> {
+            ChunkedOutputBuffer buffer = spy((ChunkedOutputBuffer) invocation.callRealMethod());
+            doThrow(new IOException("No space left on device")).when(buffer).write(anyInt());
+            doThrow(new IOException("No space left on device")).when(buffer).write(any(byte[].class), anyInt(), anyInt());
+            buffers.add(buffer);
+            return buffer;
+        }).when(pool).newBuffer();
+        ReflectionTestUtils.setField(fixture.pdfService(), "bufferPool", pool);
+        return buffers;
+    }
+
+    /**
+     * @return a letter page with body text, a 0.25pt rule and a line of 4pt text in the given colors
+     */
+    private static PDDocument pageWith(Color text, Color rule, Color smallText) throws IOException {
+        PDDocument document = new PDDocument();
+        PDPage page = new PDPage(PDRectangle.LETTER);
+        document.addPage(page);
+
+        try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+            content.beginText();
+            content.setFont(PDType1Font.HELVETICA, 12);
+            content.setNonStrokingColor(text);
+            content.newLineAtOffset(72, 700);
+            content.showText("Body text");
+            content.endText();
+
+            content.setStrokingColor(rule);
+            content.setLineWidth(0.25f);
+            content.moveTo(72, 650);
+            content.lineTo(540, 650);
+            content.stroke();
+
+            content.beginText();
+            content.setFont(PDType1Font.HELVETICA, 4);
+            content.setNonStrokingColor(smallText);
+            content.newLineAtOffset(72, 600);
+            content.showText("Fine print");
+            content.endText();
+        }
+        return document;
+    }
+
+    /**
+     * @return the only page of the document rendered in AUTO color mode, decoded again
+     */
+    private BufferedImage renderAuto(SyntheticPdfGenerator.Spec spec, String format) throws IOException {
+        List<ChunkedOutputBuffer> images = fixture.pdfService().convertPdfToImages(
+                SyntheticPdfGenerator.upload(spec), format, 72, PageColorAnalyzer.MODE_AUTO);
+        try {
+            assertThat(images).hasSize(1);
+            return ImageIO.read(new ByteArrayInputStream(images.get(0).toByteArray()));
+        } finally {
+            ChunkedOutputBuffer.releaseAll(images);
+        }
+    }
+
+    private void assertDecodesTo(String base64, byte[] expected) throws IOException {
+        Path decoded = decode(base64);
+        try {
+            assertThat(Files.readAllBytes(decoded)).isEqualTo(expected);
+        } finally {
+            Files.deleteIfExists(decoded);
+        }
+    }
+
+    private Path decode(String base64) throws IOException {
+        return fixture.pdfService().convertBase64StreamToPdf(
+                new ByteArrayInputStream(base64.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    private static List<Path> base64TempFiles() throws IOException {
+        try (Stream<Path> files = Files.list(Path.of(System.getProperty("java.io.tmpdir")))) {
+            return files.filter(path -> path.getFileName().toString().startsWith("doc-service-base64-")).toList();
+        }
+    }
+
+    private long loadStageCount() {
+        return fixture.meterRegistry().get(PdfMetrics.STAGE_TIMER)
+                .tag("operation", PdfMetrics.OP_METADATA)
+                .tag("stage", PdfMetrics.STAGE_LOAD)
+                .timer().count();
+    }
+
+    private PageCheckpointStore checkpointStore() {
+        return (PageCheckpointStore)
+                ReflectionTestUtils.getField(fixture.pdfService(), "pageCheckpointStore");
+    }
+
+    private Path writePdf(int pages) throws IOException {
+        Path input = workDirectory.resolve("input-" + pages + ".pdf");
+        Files.write(input, SyntheticPdfGenerator.generate(SyntheticPdfGenerator.spec().pages(pages)));
+        return input;
+    }
+
+    private static void deleteImages(List<String> images) throws IOException {
+        Path directory = Path.of(images.get(0)).getParent();
+        PageCheckpoint.open(directory).delete();
+    }
+}
@@ -0,0 +1,167 @@
+package in.guardianservices.document_utility_core.service.impl;
+
+import in.guardianservices.document_utility_core.model.StoredDocument;
+import in.guardianservices.document_utility_core.testsupport.SyntheticPdfGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PdfStorageServiceImplTest {
+
+    @TempDir
+    Path storageDirectory;
+
+    private PdfStorageServiceImpl storageService;
+    private MockMultipartFile document;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        storageService = newStorageService(Duration.ofHours(1));
+        document = SyntheticPdfGenerator.upload(SyntheticPdfGenerator.spec().pages(2));
+    }
+
+    @Test
+    void identicalUploadsAreStoredOnce() throws IOException {
+        StoredDocument first = storageService.store(document);
+        StoredDocument second = storageService.store(document);
+
+        assertThat(second.getDocumentId()).isEqualTo(first.getDocumentId());
+        assertThat(first.isDeduplicated()).isFalse();
+        assertThat(second.isDeduplicated()).isTrue();
+        assertThat(storedFiles()).hasSize(1);
+    }
+
+    @Test
+    void rejectsContentWithoutPdfHeader() {
+        MockMultipartFile text = new MockMultipartFile("file", "notes.pdf", "application/pdf", "hello".getBytes());
+
+        assertThatThrownBy(() -> storageService.store(text)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(storedFiles()).isEmpty();
+    }
+
+    @Test
+    void acquireServesStoredContent() throws IOException {
+        String documentId = storageService.store(document).getDocumentId();
+
+        MultipartFile stored = storageService.acquire(documentId);
+        try {
+            assertThat(stored.getBytes()).isEqualTo(document.getBytes());
+        } finally {
+            storageService.release(documentId);
+        }
+    }
+
+    @Test
+    void acquireRejectsUnknownAndMalformedIds() {
+        assertThatThrownBy(() -> storageService.acquire("0".repeat(64)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> storageService.acquire("../etc/passwd"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void pinnedDocumentsSurviveEvictionUntilReleased() throws Exception {
+        storageService = newStorageService(Duration.ZERO);
+        String documentId = storageService.store(document).getDocumentId();
+
+        storageService.acquire(documentId);
+        storageService.acquire(documentId);
+        Thread.sleep(5);
+
+        assertThat(storageService.evictExpired()).isZero();
+        storageService.release(documentId);
+        Thread.sleep(5);
+        assertThat(storageService.evictExpired()).isZero();
+
+        storageService.release(documentId);
+        Thread.sleep(5);
+        assertThat(storageService.evictExpired()).isEqualTo(1);
+        assertThat(storageService.exists(documentId)).isFalse();
+        assertThat(storedFiles()).isEmpty();
+    }
+
+    @Test
+    void documentsWithinTtlAreKept() throws IOException {
+        String documentId = storageService.store(document).getDocumentId();
+
+        assertThat(storageService.evictExpired()).isZero();
+        assertThat(storageService.exists(documentId)).isTrue();
+    }
+
+    @Test
+    void documentsStoredBeforeRestartAreIndexed() throws IOException {
+        String documentId = storageService.store(document).getDocumentId();
+
+        PdfStorageServiceImpl restarted = newStorageService(Duration.ofHours(1));
+
+        assertThat(restarted.exists(documentId)).isTrue();
+    }
+
+    @Test
+    void pageCountIsKeptInTheIndex() throws IOException {
+        StoredDocument stored = storageService.store(document);
+        assertThat(stored.getPageCount()).isEqualTo(2);
+
+        PdfStorageServiceImpl restarted = newStorageService(Duration.ofHours(1));
+        assertThat(restarted.describe(stored.getDocumentId()).getPageCount()).isEqualTo(2);
+        assertThat(restarted.describe("0".repeat(64))).isNull();
+    }
+
+    @Test
+    void storeRacingEvictionNeverLeavesAnIndexedDocumentWithoutFile() throws Exception {
+        storageService = newStorageService(Duration.ZERO);
+        CyclicBarrier barrier = new CyclicBarrier(2);
+
+        for (int i = 0; i < 200; i++) {
+            String documentId = storageService.store(document).getDocumentId();
+            Thread.sleep(1);
+
+            CompletableFuture<Void> store = CompletableFuture.runAsync(() -> {
+                try {
+                    barrier.await();
+                    storageService.store(document);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            barrier.await();
+            storageService.evictExpired();
+            store.get();
+
+            if (storageService.exists(documentId)) {
+                assertThat(storageDirectory.resolve(documentId + ".pdf")).exists();
+            }
+        }
+    }
+
+    private PdfStorageServiceImpl newStorageService(Duration ttl) throws IOException {
+        PdfStorageServiceImpl service = new PdfStorageServiceImpl();
+        ReflectionTestUtils.setField(service, "storageDirectory", storageDirectory.toString());
+        ReflectionTestUtils.setField(service, "ttl", ttl);
+        service.init();
+        return service;
+    }
+
+    private List<Path> storedFiles() {
+        try (Stream<Path> files = Files.list(storageDirectory)) {
+            return files.filter(path -> path.toString().endsWith(".pdf")).toList();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package in.guardianservices.document_utility_core.testsupport;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import in.guardianservices.document_utility_core.config.BufferConfig;
+import in.guardianservices.document_utility_core.config.ExecutorConfig;
+import in.guardianservices.document_utility_core.metrics.PdfMetrics;
+import in.guardianservices.document_utility_core.service.impl.PdfServiceImpl;
+import in.guardianservices.document_utility_core.utils.ChunkedBufferPool;
+import in.guardianservices.document_utility_core.utils.PageCheckpointStore;
+import in.guardianservices.document_utility_core.utils.RequestCoalescer;
+import in.guardianservices.document_utility_core.utils.ZipEntryWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Wires {@link PdfServiceImpl} by hand with the production defaults, so service tests run
+ * without a Spring context. Close it to stop the worker pool.
+ */
+public final class PdfServiceFixture implements AutoCloseable {
+
+    private final ThreadPoolExecutor workerPool = new ExecutorConfig().pdfWorkerPool(0);
+    private final ChunkedBufferPool bufferPool = new BufferConfig().chunkedBufferPool(64, false, 1024);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PdfMetrics pdfMetrics = new PdfMetrics();
+    private final ZipEntryWriter zipEntryWriter = new ZipEntryWriter();
+    private final PdfServiceImpl pdfService = new PdfServiceImpl();
+
+    public PdfServiceFixture() {
+        ReflectionTestUtils.setField(pdfMetrics, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(pdfMetrics, "pdfWorkerPool", workerPool);
+        ReflectionTestUtils.setField(pdfMetrics, "bufferPool", bufferPool);
+        ReflectionTestUtils.setField(pdfMetrics, "requestCoalescer", new RequestCoalescer());
+
+        ReflectionTestUtils.setField(zipEntryWriter, "pdfWorkerPool", workerPool);
+        ReflectionTestUtils.setField(zipEntryWriter, "compressionLevel", 6);
+        ReflectionTestUtils.setField(zipEntryWriter, "minDeflateGain", 0.05);
+        ReflectionTestUtils.setField(zipEntryWriter, "sampleSizeKb", 64);
+        ReflectionTestUtils.setField(zipEntryWriter, "parallelCrcThresholdMb", 8);
+
+        ReflectionTestUtils.setField(pdfService, "pdfWorkerPool", workerPool);
+        ReflectionTestUtils.setField(pdfService, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(pdfService, "bufferPool", bufferPool);
+        ReflectionTestUtils.setField(pdfService, "pdfMetrics", pdfMetrics);
+        ReflectionTestUtils.setField(pdfService, "zipEntryWriter", zipEntryWriter);
+        ReflectionTestUtils.setField(pdfService, "pageCheckpointStore", new PageCheckpointStore());
+        ReflectionTestUtils.setField(pdfService, "base64IngestMaxSizeMb", 100);
+    }
+
+    /**
+     * Enables page checkpoints for jobs of at least minPages pages
+     * @param checkpointDirectory directory of the in-memory jobs' checkpoints
+     */
+    public PdfServiceFixture withCheckpoints(Path checkpointDirectory, int minPages) throws IOException {
+        PageCheckpointStore store = new PageCheckpointStore();
+        ReflectionTestUtils.setField(store, "enabled", true);
+        ReflectionTestUtils.setField(store, "checkpointDirectory", checkpointDirectory.toString());
+        ReflectionTestUtils.setField(store, "minPages", minPages);
+        ReflectionTestUtils.setField(store, "ttl", Duration.ofHours(1));
+        store.init();
+        ReflectionTestUtils.setField(pdfService, "pageCheckpointStore", store);
+        return this;
+    }
+
+    public PdfServiceImpl pdfService() {
+        return pdfService;
+    }
+
+    public ThreadPoolExecutor workerPool() {
+        return workerPool;
+    }
+
+    public ChunkedBufferPool bufferPool() {
+        return bufferPool;
+    }
+
+    public ZipEntryWriter zipEntryWriter() {
+        return zipEntryWriter;
+    }
+
+    public PdfMetrics pdfMetrics() {
+        return pdfMetrics;
+    }
+
+    public SimpleMeterRegistry meterRegistry() {
+        return meterRegistry;
+    }
+
+    @Override
+    public void close() {
+        workerPool.shutdownNow();
+    }
+}
@@ -0,0 +1,384 @@
+package in.guardianservices.document_utility_core.testsupport;
+
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSString;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.encryption.AccessPermission;
+import org.apache.pdfbox.pdmodel.encryption.StandardProtectionPolicy;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType0Font;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.graphics.image.JPEGFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Builds synthetic PDFs that resemble production documents without containing any.
+ * Output depends only on the {@link Spec}: the same spec always yields the same bytes,
+ * except for the random salt and IVs of encrypted documents.
+ * <p>
+ * Shared by the JMH benchmarks (src/jmh/java) and the integration and load tests.
+ */
+public final class SyntheticPdfGenerator {
+
+    // Bundled with PDFBox as its fallback font, so no font file has to be checked in
+    private static final String EMBEDDED_FONT = "/org/apache/pdfbox/resources/ttf/LiberationSans-Regular.ttf";
+
+    private static final String[] WORDS = {
+            "invoice", "account", "policy", "premium", "customer", "amount", "total", "payment",
+            "document", "reference", "date", "branch", "statement", "balance", "credit", "debit",
+            "service", "guardian", "claim", "insured", "period", "schedule", "clause", "signature"
+    };
+
+    private static final float MARGIN = 50f;
+    private static final float FONT_SIZE = 10f;
+    private static final float LEADING = 12f;
+
+    private SyntheticPdfGenerator() {
+    }
+
+    /**
+     * @return spec of a single A4 text page, to be customized
+     */
+    public static Spec spec() {
+        return new Spec();
+    }
+
+    /**
+     * Generates the PDF described by the spec
+     * @param spec document parameters
+     * @return PDF bytes
+     */
+    public static byte[] generate(Spec spec) throws IOException {
+        Random random = new Random(spec.seed);
+
+        try (PDDocument document = new PDDocument()) {
+            PDFont font = spec.embedFonts ? loadEmbeddedFont(document) : PDType1Font.HELVETICA;
+
+            List<PDImageXObject> sharedImages = new ArrayList<>();
+            for (int i = 0; i < spec.sharedImages; i++) {
+                sharedImages.add(createImage(document, spec.imageWidth, spec.imageHeight, random, true));
+            }
+
+            for (int pageIndex = 0; pageIndex < spec.pages; pageIndex++) {
+                PDPage page = new PDPage(spec.pageSize);
+                document.addPage(page);
+
+                // Scanned pages are spread evenly over the document
+                boolean scanned = spec.scannedPages > 0
+                        && (long) pageIndex * spec.scannedPages / spec.pages
+                        != (long) (pageIndex + 1) * spec.scannedPages / spec.pages;
+
+                if (scanned) {
+                    writeScannedPage(document, page, spec, random);
+                } else {
+                    writeContentPage(document, page, pageIndex, spec, font, sharedImages, random);
+                }
+            }
+
+            // A fixed /ID keeps the output stable, PDFBox would otherwise derive one from the clock
+            byte[] id = new byte[16];
+            random.nextBytes(id);
+            COSArray idArray = new COSArray();
+            idArray.add(new COSString(id));
+            idArray.add(new COSString(id));
+            document.getDocument().getTrailer().setItem(COSName.ID, idArray);
+
+            if (spec.userPassword != null) {
+                String ownerPassword = spec.ownerPassword != null ? spec.ownerPassword : spec.userPassword;
+                StandardProtectionPolicy policy =
+                        new StandardProtectionPolicy(ownerPassword, spec.userPassword, new AccessPermission());
+                policy.setEncryptionKeyLength(spec.keyLength);
+                policy.setPreferAES(spec.preferAes);
+                document.protect(policy);
+            }
+
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            document.save(output);
+            return output.toByteArray();
+        }
+    }
+
+    /**
+     * Generates the PDF and wraps it the way the controllers receive uploads
+     * @param spec document parameters
+     * @return upload named after the spec
+     */
+    public static MockMultipartFile upload(Spec spec) throws IOException {
+        return new MockMultipartFile("file", spec.fileName(), "application/pdf", generate(spec));
+    }
+
+    private static void writeContentPage(PDDocument document, PDPage page, int pageIndex, Spec spec, PDFont font,
+                                         List<PDImageXObject> sharedImages, Random random) throws IOException {
+        PDRectangle box = page.getMediaBox();
+
+        List<PDImageXObject> images = new ArrayList<>(sharedImages);
+        for (int i = 0; i < spec.imagesPerPage; i++) {
+            images.add(createImage(document, spec.imageWidth, spec.imageHeight, random, true));
+        }
+
+        try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+            int maxLines = (int) ((box.getHeight() - 2 * MARGIN) / LEADING);
+            int lines = Math.min(spec.linesPerPage, maxLines);
+
+            if (lines > 0) {
+                content.beginText();
+                content.setFont(font, FONT_SIZE);
+                content.setLeading(LEADING);
+                content.newLineAtOffset(MARGIN, box.getHeight() - MARGIN);
+                content.showText("Page " + (pageIndex + 1) + " of " + spec.pages);
+                for (int line = 1; line < lines; line++) {
+                    content.newLine();
+                    content.showText(sentence(random, box.getWidth() - 2 * MARGIN, font));
+                }
+                content.endText();
+            }
+
+            // Images are tiled along the bottom of the page, scaled to fit
+            float slotWidth = images.isEmpty() ? 0 : (box.getWidth() - 2 * MARGIN) / images.size();
+            for (int i = 0; i < images.size(); i++) {
+                PDImageXObject image = images.get(i);
+                float scale = Math.min(slotWidth / image.getWidth(), (box.getHeight() / 3) / image.getHeight());
+                content.drawImage(image, MARGIN + i * slotWidth, MARGIN,
+                        image.getWidth() * scale, image.getHeight() * scale);
+            }
+        }
+    }
+
+    private static void writeScannedPage(PDDocument document, PDPage page, Spec spec, Random random)
+            throws IOException {
+        PDRectangle box = page.getMediaBox();
+        int width = Math.round(box.getWidth() / 72f * spec.scanDpi);
+        int height = Math.round(box.getHeight() / 72f * spec.scanDpi);
+        PDImageXObject scan = createImage(document, width, height, random, false);
+
+        // A single full-page image and nothing else, as produced by scanners
+        try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+            content.drawImage(scan, box.getLowerLeftX(), box.getLowerLeftY(), box.getWidth(), box.getHeight());
+        }
+    }
+
+    private static PDImageXObject createImage(PDDocument document, int width, int height, Random random,
+                                              boolean color) throws IOException {
+        BufferedImage image = new BufferedImage(width, height,
+                color ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_BYTE_GRAY);
+        int seed = random.nextInt(256);
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                // Smooth gradients with a little noise compress like photos and scans do
+                int noise = random.nextInt(16);
+                int r = (x * 255 / width + seed + noise) & 0xFF;
+                int g = (y * 255 / height + noise) & 0xFF;
+                int b = ((x + y) * 127 / (width + height) + seed) & 0xFF;
+                int rgb = color ? (r << 16) | (g << 8) | b : (0xF0 - noise) * 0x010101;
+                image.setRGB(x, y, rgb);
+            }
+        }
+
+        return JPEGFactory.createFromImage(document, image, 0.8f);
+    }
+
+    private static String sentence(Random random, float maxWidth, PDFont font) throws IOException {
+        StringBuilder text = new StringBuilder();
+        while (true) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            String candidate = text.isEmpty() ? word : text + " " + word;
+            if (font.getStringWidth(candidate) / 1000 * FONT_SIZE > maxWidth) {
+                return text.toString();
+            }
+            text.setLength(0);
+            text.append(candidate);
+        }
+    }
+
+    private static PDFont loadEmbeddedFont(PDDocument document) throws IOException {
+        try (InputStream fontStream = SyntheticPdfGenerator.class.getResourceAsStream(EMBEDDED_FONT)) {
+            if (fontStream == null) {
+                throw new IOException("Bundled PDFBox font not found: " + EMBEDDED_FONT);
+            }
+            return PDType0Font.load(document, fontStream);
+        }
+    }
+
+    /**
+     * Parameters of a synthetic document. Defaults to one A4 page of text.
+     */
+    public static final class Spec {
+
+        private int pages = 1;
+        private PDRectangle pageSize = PDRectangle.A4;
+        private int linesPerPage = 40;
+        private int imagesPerPage;
+        private int sharedImages;
+        private int imageWidth = 800;
+        private int imageHeight = 600;
+        private int scannedPages;
+        private int scanDpi = 150;
+        private boolean embedFonts;
+        private String userPassword;
+        private String ownerPassword;
+        private int keyLength = 128;
+        private boolean preferAes = true;
+        private long seed = 1L;
+
+        private Spec() {
+        }
+
+        /**
+         * @param pages number of pages
+         * @return this spec
+         */
+        public Spec pages(int pages) {
+            this.pages = pages;
+            return this;
+        }
+
+        /**
+         * @param pageSize media box of every page, e.g. PDRectangle.A4 or LETTER
+         * @return this spec
+         */
+        public Spec pageSize(PDRectangle pageSize) {
+            this.pageSize = pageSize;
+            return this;
+        }
+
+        /**
+         * @param linesPerPage lines of text per page, 0 for none, capped at what fits the page
+         * @return this spec
+         */
+        public Spec textDensity(int linesPerPage) {
+            this.linesPerPage = linesPerPage;
+            return this;
+        }
+
+        /**
+         * @param imagesPerPage distinct images drawn on every non-scanned page
+         * @param width image width in pixels
+         * @param height image height in pixels
+         * @return this spec
+         */
+        public Spec images(int imagesPerPage, int width, int height) {
+            this.imagesPerPage = imagesPerPage;
+            this.imageWidth = width;
+            this.imageHeight = height;
+            return this;
+        }
+
+        /**
+         * @param sharedImages images stored once and drawn on every non-scanned page, like logos
+         * @return this spec
+         */
+        public Spec sharedImages(int sharedImages) {
+            this.sharedImages = sharedImages;
+            return this;
+        }
+
+        /**
+         * @param scannedPages pages that are a single full-page grayscale JPEG
+         * @param dpi resolution of the scans
+         * @return this spec
+         */
+        public Spec scannedPages(int scannedPages, int dpi) {
+            this.scannedPages = scannedPages;
+            this.scanDpi = dpi;
+            return this;
+        }
+
+        /**
+         * @param embedFonts true to use an embedded TrueType font instead of standard Helvetica
+         * @return this spec
+         */
+        public Spec embedFonts(boolean embedFonts) {
+            this.embedFonts = embedFonts;
+            return this;
+        }
+
+        /**
+         * @param userPassword password required to open the document
+         * @return this spec
+         */
+        public Spec encrypt(String userPassword) {
+            return encrypt(userPassword, userPassword, 128);
+        }
+
+        /**
+         * @param userPassword password required to open the document
+         * @param ownerPassword password granting full permissions
+         * @param keyLength 40, 128 or 256
+         * @return this spec
+         */
+        public Spec encrypt(String userPassword, String ownerPassword, int keyLength) {
+            this.userPassword = userPassword;
+            this.ownerPassword = ownerPassword;
+            this.keyLength = keyLength;
+            return this;
+        }
+
+        /**
+         * @param preferAes false to encrypt 128 bit keys with RC4 instead of AES
+         * @return this spec
+         */
+        public Spec preferAes(boolean preferAes) {
+            this.preferAes = preferAes;
+            return this;
+        }
+
+        /**
+         * @param seed seed of the text and image content
+         * @return this spec
+         */
+        public Spec seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * @return independent spec with the same parameters, for deriving variants of a shared spec
+         */
+        public Spec copy() {
+            Spec copy = new Spec();
+            copy.pages = pages;
+            copy.pageSize = pageSize;
+            copy.linesPerPage = linesPerPage;
+            copy.imagesPerPage = imagesPerPage;
+            copy.sharedImages = sharedImages;
+            copy.imageWidth = imageWidth;
+            copy.imageHeight = imageHeight;
+            copy.scannedPages = scannedPages;
+            copy.scanDpi = scanDpi;
+            copy.embedFonts = embedFonts;
+            copy.userPassword = userPassword;
+            copy.ownerPassword = ownerPassword;
+            copy.keyLength = keyLength;
+            copy.preferAes = preferAes;
+            copy.seed = seed;
+            return copy;
+        }
+
+        public int getPages() {
+            return pages;
+        }
+
+        public String getUserPassword() {
+            return userPassword;
+        }
+
+        String fileName() {
+            return String.format("synthetic-%dp-%di-%ds%s.pdf", pages, imagesPerPage + sharedImages, scannedPages,
+                    userPassword != null ? "-encrypted" : "");
+        }
+    }
+}
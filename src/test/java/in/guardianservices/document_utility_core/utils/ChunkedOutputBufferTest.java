@@ -0,0 +1,130 @@
+package in.guardianservices.document_utility_core.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ChunkedOutputBufferTest {
+
+    private static final int CHUNK_SIZE = 4096;
+
+    private final ChunkedBufferPool pool = new ChunkedBufferPool(CHUNK_SIZE, false, 64);
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, CHUNK_SIZE - 1, CHUNK_SIZE, CHUNK_SIZE + 1, 5 * CHUNK_SIZE, 17 * CHUNK_SIZE + 123})
+    void parallelCrcMatchesTheSequentialCrc(int length) throws IOException {
+        byte[] content = new byte[length];
+        new Random(length).nextBytes(content);
+        CRC32 expected = new CRC32();
+        expected.update(content);
+
+        ChunkedOutputBuffer buffer = pool.newBuffer();
+        try {
+            buffer.write(content);
+
+            assertThat(buffer.crc32()).isEqualTo(expected.getValue());
+            for (int parallelism : new int[]{1, 2, 3, 4, 16}) {
+                assertThat(buffer.crc32(executor, parallelism)).as("parallelism %d", parallelism)
+                        .isEqualTo(expected.getValue());
+            }
+        } finally {
+            buffer.release();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {2, 4})
+    void parallelCrcCompletesWhenTheExecutorIsBusy(int parallelism) throws IOException {
+        // Groups queued behind other work are taken over by the calling thread
+        ExecutorService busy = Executors.newSingleThreadExecutor();
+        ChunkedOutputBuffer buffer = pool.newBuffer();
+        try {
+            busy.execute(() -> {
+                try {
+                    Thread.sleep(60_000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            byte[] content = new byte[8 * CHUNK_SIZE];
+            new Random(parallelism).nextBytes(content);
+            buffer.write(content);
+            CRC32 expected = new CRC32();
+            expected.update(content);
+
+            assertThat(buffer.crc32(busy, parallelism)).isEqualTo(expected.getValue());
+        } finally {
+            buffer.release();
+            busy.shutdownNow();
+        }
+    }
+
+    @Test
+    void chunksReturnToThePoolWithTheLastReference() throws IOException {
+        ChunkedOutputBuffer buffer = pool.newBuffer();
+        buffer.write(new byte[3 * CHUNK_SIZE]);
+        buffer.retain(2);
+
+        buffer.release();
+        buffer.release();
+        assertThat(pool.getPooledChunks()).isZero();
+        assertThat(buffer.toByteArray()).hasSize(3 * CHUNK_SIZE);
+
+        buffer.release();
+        assertThat(pool.getPooledChunks()).isEqualTo(3);
+    }
+
+    @Test
+    void releasedBufferCannotBeRetainedOrWritten() throws IOException {
+        ChunkedOutputBuffer buffer = pool.newBuffer();
+        buffer.write(new byte[CHUNK_SIZE]);
+        buffer.release();
+
+        assertThatThrownBy(() -> buffer.retain(1)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> buffer.write(1)).isInstanceOf(IOException.class);
+        assertThat(pool.getPooledChunks()).isEqualTo(1);
+    }
+
+    @Test
+    void doubleReleaseFailsWithoutPoolingTheChunksTwice() throws IOException {
+        ChunkedOutputBuffer buffer = pool.newBuffer();
+        buffer.write(new byte[2 * CHUNK_SIZE]);
+        buffer.release();
+
+        assertThatThrownBy(buffer::release).isInstanceOf(IllegalStateException.class);
+        assertThat(pool.getPooledChunks()).isEqualTo(2);
+    }
+
+    @Test
+    void poolKeepsNoMoreThanItsCapacity() throws IOException {
+        ChunkedBufferPool smallPool = new ChunkedBufferPool(CHUNK_SIZE, false, 2);
+        ChunkedOutputBuffer buffer = smallPool.newBuffer();
+        buffer.write(new byte[5 * CHUNK_SIZE]);
+        buffer.release();
+
+        assertThat(smallPool.getPooledChunks()).isEqualTo(2);
+
+        // Pooled chunks are handed out again before new ones are allocated
+        ChunkedOutputBuffer reused = smallPool.newBuffer();
+        reused.write(new byte[CHUNK_SIZE + 1]);
+        assertThat(smallPool.getPooledChunks()).isZero();
+        reused.release();
+        assertThat(smallPool.getPooledChunks()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,106 @@
+package in.guardianservices.document_utility_core.utils;
+
+import in.guardianservices.document_utility_core.testsupport.SyntheticPdfGenerator;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileUtilsTest {
+
+    private static final int FILLER = 400 * 1024;
+
+    @Test
+    void completePdfHasPdfStructure() throws IOException {
+        assertThat(FileUtils.hasPdfStructure(SyntheticPdfGenerator.upload(SyntheticPdfGenerator.spec().pages(3))))
+                .isTrue();
+    }
+
+    @Test
+    void truncatedPdfLacksPdfStructure() throws IOException {
+        byte[] pdf = SyntheticPdfGenerator.generate(SyntheticPdfGenerator.spec().pages(3));
+
+        assertThat(FileUtils.hasPdfStructure(pdf("truncated.pdf", Arrays.copyOf(pdf, pdf.length - 100)))).isFalse();
+    }
+
+    @Test
+    void otherContentLacksPdfStructure() {
+        assertThat(FileUtils.hasPdfStructure(pdf("notes.pdf", "just text %%EOF".getBytes()))).isFalse();
+        assertThat(FileUtils.hasPdfStructure(pdf("empty.pdf", new byte[0]))).isFalse();
+    }
+
+    @Test
+    void wrongExtensionLacksPdfStructure() throws IOException {
+        byte[] pdf = SyntheticPdfGenerator.generate(SyntheticPdfGenerator.spec());
+
+        assertThat(FileUtils.hasPdfStructure(pdf("document.txt", pdf))).isFalse();
+    }
+
+    @Test
+    void pageCountIsReadFromTheHeadAndTheTailOfLargeFiles() throws IOException {
+        assertThat(FileUtils.estimatePageCount(pdf("head.pdf", withCount(0, 42)), 1024)).isEqualTo(42);
+        assertThat(FileUtils.estimatePageCount(pdf("tail.pdf", withCount(FILLER - 100, 42)), 1024)).isEqualTo(42);
+    }
+
+    @Test
+    void pageCountInTheMiddleOfALargeFileFallsBackToTheSizeEstimate() throws IOException {
+        byte[] content = withCount(FILLER / 2, 42);
+
+        assertThat(FileUtils.estimatePageCount(pdf("middle.pdf", content), 1024))
+                .isEqualTo(content.length / (50 * 1024));
+        assertThat(FileUtils.estimatePageCount(pdf("middle.pdf", content))).isEqualTo(42);
+    }
+
+    @Test
+    void cappedEstimateReadsOnlyBothEnds() throws IOException {
+        AtomicLong bytesRead = new AtomicLong();
+        MockMultipartFile file = new MockMultipartFile("file", "large.pdf", "application/pdf", withCount(0, 42)) {
+            @Override
+            public InputStream getInputStream() throws IOException {
+                return new FilterInputStream(new ByteArrayInputStream(getBytes())) {
+                    @Override
+                    public int read(byte[] b, int off, int len) throws IOException {
+                        int read = super.read(b, off, len);
+                        bytesRead.addAndGet(Math.max(read, 0));
+                        return read;
+                    }
+                };
+            }
+        };
+
+        assertThat(FileUtils.estimatePageCount(file, 1024)).isEqualTo(42);
+        assertThat(bytesRead.get()).isEqualTo(2 * 1024);
+    }
+
+    @Test
+    void smallFilesAreScannedInFull() throws IOException {
+        MockMultipartFile upload = SyntheticPdfGenerator.upload(SyntheticPdfGenerator.spec().pages(7));
+
+        assertThat(FileUtils.estimatePageCount(upload, 256 * 1024)).isEqualTo(7);
+    }
+
+    /**
+     * @return PDF-like content of about FILLER bytes with a page tree /Count at the given offset
+     */
+    private static byte[] withCount(int offset, int count) {
+        byte[] content = new byte[FILLER];
+        Arrays.fill(content, (byte) 'x');
+        byte[] header = "%PDF-1.4\n".getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(header, 0, content, 0, header.length);
+        byte[] pages = ("<< /Type /Pages /Count " + count + " >>").getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(pages, 0, content, Math.max(offset, header.length), pages.length);
+        return content;
+    }
+
+    private static MockMultipartFile pdf(String name, byte[] content) {
+        return new MockMultipartFile("file", name, "application/pdf", content);
+    }
+}
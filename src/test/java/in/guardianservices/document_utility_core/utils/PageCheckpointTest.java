@@ -0,0 +1,178 @@
+package in.guardianservices.document_utility_core.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PageCheckpointTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void resumesPagesRecordedBeforeRestart() throws IOException {
+        Path directory = root.resolve("job");
+        PageCheckpoint first = PageCheckpoint.open(directory);
+        recordPage(first, 0);
+        recordPage(first, 1);
+
+        PageCheckpoint resumed = PageCheckpoint.open(directory);
+
+        assertThat(resumed.getDonePageCount()).isEqualTo(2);
+        assertThat(resumed.getPageFile(0)).isEqualTo(directory.resolve("page_1.png"));
+        assertThat(resumed.getPageFile(2)).isNull();
+    }
+
+    @Test
+    void truncatedLastManifestLineIsRenderedAgain() throws IOException {
+        Path directory = root.resolve("job");
+        PageCheckpoint first = PageCheckpoint.open(directory);
+        recordPage(first, 0);
+        recordPage(first, 1);
+        recordPage(first, 2);
+
+        // Cut the last line off inside its size field, as a crash during the append would
+        Path manifest = root.resolve("job.manifest");
+        byte[] content = Files.readAllBytes(manifest);
+        Files.write(manifest, Arrays.copyOf(content, content.length - 3), StandardOpenOption.TRUNCATE_EXISTING);
+
+        PageCheckpoint resumed = PageCheckpoint.open(directory);
+
+        assertThat(resumed.getDonePageCount()).isEqualTo(2);
+        assertThat(resumed.getPageFile(2)).isNull();
+    }
+
+    @Test
+    void manifestLineWithoutFieldsIsSkipped() throws IOException {
+        Path directory = root.resolve("job");
+        recordPage(PageCheckpoint.open(directory), 0);
+        Files.writeString(root.resolve("job.manifest"), "1\tpage_2", StandardOpenOption.APPEND);
+
+        PageCheckpoint resumed = PageCheckpoint.open(directory);
+
+        assertThat(resumed.getDonePageCount()).isEqualTo(1);
+    }
+
+    @Test
+    void pageFileWithDifferentSizeIsRenderedAgain() throws IOException {
+        Path directory = root.resolve("job");
+        PageCheckpoint first = PageCheckpoint.open(directory);
+        Path lost = recordPage(first, 0);
+        recordPage(first, 1);
+        Files.write(lost, new byte[3]);
+
+        PageCheckpoint resumed = PageCheckpoint.open(directory);
+
+        assertThat(resumed.getPageFile(0)).isNull();
+        assertThat(resumed.getPageFile(1)).isNotNull();
+    }
+
+    @Test
+    void deleteRemovesManifestAndPages() throws IOException {
+        Path directory = root.resolve("job");
+        PageCheckpoint checkpoint = PageCheckpoint.open(directory);
+        recordPage(checkpoint, 0);
+
+        checkpoint.delete();
+
+        assertThat(directory).doesNotExist();
+        assertThat(root.resolve("job.manifest")).doesNotExist();
+        assertThat(PageCheckpoint.open(directory).getDonePageCount()).isZero();
+    }
+
+    @Test
+    void storeHandsOutACheckpointToOneJobAtATime() throws IOException {
+        PageCheckpointStore store = new PageCheckpointStore();
+        ReflectionTestUtils.setField(store, "enabled", true);
+        ReflectionTestUtils.setField(store, "checkpointDirectory", root.toString());
+        store.init();
+
+        PageCheckpoint running = store.open("job");
+        assertThat(running).isNotNull();
+        assertThat(store.open("job")).isNull();
+
+        store.close(running);
+        assertThat(store.open("job")).isNotNull();
+    }
+
+    @Test
+    void expiredCheckpointsInOutputRootsAreEvictedButOtherOutputIsKept() throws IOException {
+        PageCheckpointStore store = expiringStore();
+        Path outputRoot = root.resolve("images");
+
+        PageCheckpoint checkpointed = store.openIn(outputRoot, "job");
+        recordPage(checkpointed, 0);
+        store.close(checkpointed);
+        Path uncheckpointed = Files.createDirectories(outputRoot.resolve("unique-job"));
+        Files.writeString(uncheckpointed.resolve("page-1.png"), "page");
+
+        FileTime expired = FileTime.from(Instant.now().minus(Duration.ofHours(2)));
+        Files.setLastModifiedTime(checkpointed.getDirectory(), expired);
+        Files.setLastModifiedTime(outputRoot.resolve("job.manifest"), expired);
+        Files.setLastModifiedTime(uncheckpointed, expired);
+
+        assertThat(store.evictExpired()).isEqualTo(1);
+        assertThat(checkpointed.getDirectory()).doesNotExist();
+        assertThat(outputRoot.resolve("job.manifest")).doesNotExist();
+        assertThat(uncheckpointed.resolve("page-1.png")).exists();
+    }
+
+    @Test
+    void reusingAFinishedCheckpointRestartsItsTtl() throws IOException {
+        PageCheckpointStore store = expiringStore();
+        Path outputRoot = root.resolve("images");
+
+        PageCheckpoint first = store.openIn(outputRoot, "job");
+        recordPage(first, 0);
+        store.close(first);
+        FileTime expired = FileTime.from(Instant.now().minus(Duration.ofHours(2)));
+        Files.setLastModifiedTime(first.getDirectory(), expired);
+        Files.setLastModifiedTime(outputRoot.resolve("job.manifest"), expired);
+
+        // A retry whose pages are all done writes nothing, its caller still reads the files
+        PageCheckpoint retry = store.openIn(outputRoot, "job");
+        store.close(retry);
+
+        assertThat(store.evictExpired()).isZero();
+        assertThat(retry.getPageFile(0)).exists();
+    }
+
+    @Test
+    void completeKeepsPagesButRemovesTheManifest() throws IOException {
+        Path directory = root.resolve("job");
+        PageCheckpoint checkpoint = PageCheckpoint.open(directory);
+        Path page = recordPage(checkpoint, 0);
+
+        checkpoint.complete();
+
+        assertThat(page).exists();
+        assertThat(root.resolve("job.manifest")).doesNotExist();
+    }
+
+    private PageCheckpointStore expiringStore() throws IOException {
+        PageCheckpointStore store = new PageCheckpointStore();
+        ReflectionTestUtils.setField(store, "enabled", true);
+        ReflectionTestUtils.setField(store, "checkpointDirectory", root.resolve("checkpoints").toString());
+        ReflectionTestUtils.setField(store, "ttl", Duration.ofHours(1));
+        store.init();
+        return store;
+    }
+
+    private static Path recordPage(PageCheckpoint checkpoint, int pageIndex) throws IOException {
+        Path tempFile = checkpoint.tempFile("page_" + (pageIndex + 1) + ".png");
+        Files.writeString(tempFile, "page " + pageIndex + " content", StandardCharsets.UTF_8);
+        return checkpoint.recordPage(pageIndex, tempFile);
+    }
+}
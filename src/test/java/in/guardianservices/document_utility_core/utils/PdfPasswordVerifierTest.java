@@ -0,0 +1,290 @@
+package in.guardianservices.document_utility_core.utils;
+
+import in.guardianservices.document_utility_core.testsupport.SyntheticPdfGenerator;
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.cos.COSString;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PdfPasswordVerifierTest {
+
+    private static final String USER_PASSWORD = "user-secret";
+    private static final String OWNER_PASSWORD = "owner-secret";
+
+    static Stream<Arguments> encryptions() {
+        return Stream.of(
+                Arguments.of("RC4-40", 40, false),
+                Arguments.of("RC4-128", 128, false),
+                Arguments.of("AES-128", 128, true),
+                Arguments.of("AES-256", 256, true));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("encryptions")
+    void acceptsUserAndOwnerPasswords(String name, int keyLength, boolean aes) throws IOException {
+        byte[] pdf = encrypted(keyLength, aes);
+
+        assertVerifies(pdf);
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("encryptions")
+    void acceptsPasswordsThroughAnIncrementalUpdate(String name, int keyLength, boolean aes) throws IOException {
+        byte[] pdf = appendXrefTableUpdate(encrypted(keyLength, aes));
+
+        assertVerifies(pdf);
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("encryptions")
+    void acceptsPasswordsThroughAnXrefStream(String name, int keyLength, boolean aes) throws IOException {
+        byte[] pdf = appendXrefStreamUpdate(encrypted(keyLength, aes));
+
+        assertVerifies(pdf);
+    }
+
+    @ParameterizedTest(name = "{0}-byte entries")
+    @MethodSource("xrefEntryEndings")
+    void readsXrefEntriesOfNonStandardWidth(int entrySize, String entryEnding) throws IOException {
+        byte[] pdf = appendXrefTableUpdate(encrypted(128, true), 2, entryEnding, 0);
+
+        // PDFBox accepts these tables, the verifier must not read them at the wrong offsets
+        try (PDDocument document = PDDocument.load(pdf, USER_PASSWORD)) {
+            assertThat(document.isEncrypted()).isTrue();
+        }
+        assertVerifies(pdf);
+    }
+
+    static Stream<Arguments> xrefEntryEndings() {
+        return Stream.of(Arguments.of(19, "\n"), Arguments.of(21, " \r\n"));
+    }
+
+    @Test
+    void encryptionDictionaryAtAWrongOffsetIsUnknown() throws IOException {
+        // PDFBox finds the object by searching around the offset, the verifier does not repair
+        byte[] pdf = appendXrefTableUpdate(encrypted(128, true), 0, " \n", 3);
+
+        assertThat(verify(pdf, USER_PASSWORD)).isEqualTo(PdfPasswordVerifier.Result.UNKNOWN);
+        assertThat(verify(pdf, "wrong-password")).isEqualTo(PdfPasswordVerifier.Result.UNKNOWN);
+    }
+
+    @Test
+    void aes128WithoutTopLevelLengthUsesTheCryptFilter() throws IOException {
+        byte[] pdf = blankInEncryptionDictionary(encrypted(128, true), "/Length 128");
+
+        assertVerifies(pdf);
+    }
+
+    @Test
+    void cryptFilterWithoutStandardFilterIsUnknown() throws IOException {
+        byte[] pdf = blankInEncryptionDictionary(encrypted(128, true), "/StdCF");
+
+        assertThat(verify(pdf, USER_PASSWORD)).isEqualTo(PdfPasswordVerifier.Result.UNKNOWN);
+        assertThat(verify(pdf, "wrong")).isEqualTo(PdfPasswordVerifier.Result.UNKNOWN);
+    }
+
+    @Test
+    void unencryptedDocumentIsReported() throws IOException {
+        byte[] pdf = SyntheticPdfGenerator.generate(SyntheticPdfGenerator.spec());
+
+        assertThat(verify(pdf, USER_PASSWORD)).isEqualTo(PdfPasswordVerifier.Result.NOT_ENCRYPTED);
+    }
+
+    @Test
+    void updateWithoutEncryptEntryIsUnknown() throws IOException {
+        // Only the newest trailer lacks /Encrypt, the older one still encrypts the document
+        byte[] encrypted = appendTrailerWithoutEncrypt(encrypted(128, true));
+        byte[] plain = appendTrailerWithoutEncrypt(SyntheticPdfGenerator.generate(SyntheticPdfGenerator.spec()));
+
+        assertThat(verify(encrypted, "wrong-password")).isEqualTo(PdfPasswordVerifier.Result.UNKNOWN);
+        assertThat(verify(plain, USER_PASSWORD)).isEqualTo(PdfPasswordVerifier.Result.UNKNOWN);
+    }
+
+    @Test
+    void truncatedFileIsUnknown() throws IOException {
+        byte[] pdf = encrypted(128, true);
+        byte[] truncated = Arrays.copyOf(pdf, pdf.length / 2);
+
+        assertThat(verify(truncated, USER_PASSWORD)).isEqualTo(PdfPasswordVerifier.Result.UNKNOWN);
+    }
+
+    private static void assertVerifies(byte[] pdf) {
+        assertThat(verify(pdf, USER_PASSWORD)).isEqualTo(PdfPasswordVerifier.Result.VALID);
+        assertThat(verify(pdf, OWNER_PASSWORD)).isEqualTo(PdfPasswordVerifier.Result.VALID);
+        assertThat(verify(pdf, "wrong-password")).isEqualTo(PdfPasswordVerifier.Result.INVALID);
+    }
+
+    private static PdfPasswordVerifier.Result verify(byte[] pdf, String password) {
+        return PdfPasswordVerifier.verify(new MockMultipartFile("file", "test.pdf", "application/pdf", pdf), password);
+    }
+
+    private static byte[] encrypted(int keyLength, boolean aes) throws IOException {
+        return SyntheticPdfGenerator.generate(SyntheticPdfGenerator.spec()
+                .encrypt(USER_PASSWORD, OWNER_PASSWORD, keyLength)
+                .preferAes(aes));
+    }
+
+    /**
+     * Overwrites a token inside the encryption dictionary with spaces, which keeps every
+     * xref offset valid
+     */
+    private static byte[] blankInEncryptionDictionary(byte[] pdf, String token) throws IOException {
+        String text = latin1(pdf);
+        int encryptStart = text.indexOf(encryptNumber(pdf) + " 0 obj");
+        int encryptEnd = text.indexOf("endobj", encryptStart);
+        int index = text.indexOf(token, encryptStart);
+        assertThat(index).isBetween(encryptStart, encryptEnd);
+
+        byte[] modified = pdf.clone();
+        for (int i = index; i < index + token.length(); i++) {
+            modified[i] = ' ';
+        }
+        return modified;
+    }
+
+    private static byte[] appendXrefTableUpdate(byte[] pdf) throws IOException {
+        return appendXrefTableUpdate(pdf, 0, " \n", 0);
+    }
+
+    /**
+     * Appends an update with a classic xref table that relocates the encryption
+     * dictionary into a new object, so it is only found in the newest section
+     * @param fillerObjects objects written before the encryption dictionary, in the same subsection
+     * @param entryEnding EOL of the xref entries, " \n" for the standard 20 bytes
+     * @param offsetError added to the encryption dictionary's offset in the xref
+     */
+    private static byte[] appendXrefTableUpdate(byte[] pdf, int fillerObjects, String entryEnding, int offsetError)
+            throws IOException {
+        Trailer trailer = trailer(pdf);
+        String text = latin1(pdf);
+        int encryptStart = text.indexOf(trailer.encrypt() + " 0 obj") + (trailer.encrypt() + " 0 obj").length();
+        String encryptDictionary = text.substring(encryptStart, text.indexOf("endobj", encryptStart));
+
+        int firstObject = trailer.size();
+        int newEncrypt = firstObject + fillerObjects;
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        output.writeBytes(pdf);
+
+        StringBuilder entries = new StringBuilder();
+        for (int object = firstObject; object < newEncrypt; object++) {
+            entries.append(String.format("%010d 00000 n", output.size())).append(entryEnding);
+            output.writeBytes(latin1(object + " 0 obj\nnull\nendobj\n"));
+        }
+        entries.append(String.format("%010d 00000 n", output.size() + offsetError)).append(entryEnding);
+        output.writeBytes(latin1(newEncrypt + " 0 obj" + encryptDictionary + "endobj\n"));
+
+        long xrefOffset = output.size();
+        output.writeBytes(latin1("xref\n0 1\n0000000000 65535 f" + entryEnding + firstObject + " "
+                + (fillerObjects + 1) + "\n" + entries
+                + "trailer\n<< /Size " + (newEncrypt + 1) + " /Root " + trailer.root() + " 0 R /Encrypt "
+                + newEncrypt + " 0 R /ID [" + trailer.id() + " " + trailer.id() + "] /Prev " + startXref(pdf)
+                + " >>\nstartxref\n" + xrefOffset + "\n%%EOF\n"));
+        return output.toByteArray();
+    }
+
+    /**
+     * Appends an empty update whose trailer links the previous section through /Prev but
+     * has no /Encrypt entry of its own
+     */
+    private static byte[] appendTrailerWithoutEncrypt(byte[] pdf) throws IOException {
+        try (PDDocument document = PDDocument.load(pdf, OWNER_PASSWORD)) {
+            COSDictionary previous = document.getDocument().getTrailer();
+            int root = objectNumber(previous, COSName.ROOT);
+            int size = previous.getInt(COSName.SIZE);
+
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            output.writeBytes(pdf);
+            long xrefOffset = output.size();
+            output.writeBytes(latin1("xref\n0 1\n0000000000 65535 f \ntrailer\n<< /Size " + size + " /Root " + root
+                    + " 0 R /Prev " + startXref(pdf) + " >>\nstartxref\n" + xrefOffset + "\n%%EOF\n"));
+            return output.toByteArray();
+        }
+    }
+
+    /**
+     * Appends an update whose cross-reference section is a compressed xref stream and
+     * whose encryption dictionary is only reachable through /Prev
+     */
+    private static byte[] appendXrefStreamUpdate(byte[] pdf) throws IOException {
+        Trailer trailer = trailer(pdf);
+        int streamObject = trailer.size();
+        long streamOffset = pdf.length;
+
+        // One entry for the xref stream itself: type 1, 4 byte offset, generation 0
+        byte[] entry = {1, (byte) (streamOffset >>> 24), (byte) (streamOffset >>> 16), (byte) (streamOffset >>> 8),
+                (byte) streamOffset, 0};
+        byte[] data = deflate(entry);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        output.writeBytes(pdf);
+        output.writeBytes(latin1(streamObject + " 0 obj\n<< /Type /XRef /Size " + (streamObject + 1)
+                + " /Index [" + streamObject + " 1] /W [1 4 1] /Root " + trailer.root() + " 0 R /Encrypt "
+                + trailer.encrypt() + " 0 R /ID [" + trailer.id() + " " + trailer.id() + "] /Prev " + startXref(pdf)
+                + " /Filter /FlateDecode /Length " + data.length + " >>\nstream\n"));
+        output.writeBytes(data);
+        output.writeBytes(latin1("\nendstream\nendobj\nstartxref\n" + streamOffset + "\n%%EOF\n"));
+        return output.toByteArray();
+    }
+
+    private static Trailer trailer(byte[] pdf) throws IOException {
+        try (PDDocument document = PDDocument.load(pdf, OWNER_PASSWORD)) {
+            COSDictionary trailer = document.getDocument().getTrailer();
+            COSArray ids = (COSArray) trailer.getDictionaryObject(COSName.ID);
+            String id = "<" + HexFormat.of().formatHex(((COSString) ids.getObject(0)).getBytes()) + ">";
+            return new Trailer(objectNumber(trailer, COSName.ROOT), objectNumber(trailer, COSName.ENCRYPT),
+                    trailer.getInt(COSName.SIZE), id);
+        }
+    }
+
+    private static int encryptNumber(byte[] pdf) throws IOException {
+        return trailer(pdf).encrypt();
+    }
+
+    private static int objectNumber(COSDictionary trailer, COSName key) {
+        return (int) ((COSObject) trailer.getItem(key)).getObjectNumber();
+    }
+
+    private static long startXref(byte[] pdf) {
+        String text = latin1(pdf);
+        int index = text.lastIndexOf("startxref") + "startxref".length();
+        return Long.parseLong(text.substring(index, text.indexOf("%%EOF", index)).trim());
+    }
+
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater();
+        deflater.setInput(data);
+        deflater.finish();
+        byte[] buffer = new byte[256];
+        int length = deflater.deflate(buffer);
+        deflater.end();
+        return Arrays.copyOf(buffer, length);
+    }
+
+    private static String latin1(byte[] bytes) {
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    private static byte[] latin1(String text) {
+        return text.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private record Trailer(int root, int encrypt, int size, String id) {
+    }
+}
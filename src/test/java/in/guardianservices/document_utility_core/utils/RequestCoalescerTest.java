@@ -0,0 +1,156 @@
+package in.guardianservices.document_utility_core.utils;
+
+import in.guardianservices.document_utility_core.cancellation.CancellationToken;
+import in.guardianservices.document_utility_core.exception.OperationCancelledException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+class RequestCoalescerTest {
+
+    private static final String KEY = "document:compress:0.8";
+
+    private final RequestCoalescer coalescer = new RequestCoalescer();
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    private final AtomicInteger workRuns = new AtomicInteger();
+    private final List<Integer> shares = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(coalescer, "enabled", true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    void identicalCallsRunTheWorkOnce() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = callers.submit(() -> execute(blockingWork(release, "result")));
+        awaitLeader();
+        Future<String> waiter = callers.submit(() -> execute(() -> "second run"));
+        awaitWaiters(1);
+        release.countDown();
+
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+        assertThat(waiter.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+        assertThat(workRuns).hasValue(1);
+        assertThat(shares).containsExactly(1);
+        assertThat(coalescer.getInFlightCount()).isZero();
+    }
+
+    @Test
+    void disabledCoalescingNeverComputesTheKey() throws Exception {
+        ReflectionTestUtils.setField(coalescer, "enabled", false);
+
+        String result = coalescer.execute(() -> {
+            throw new AssertionError("key computed");
+        }, () -> "result", (value, waiters) -> shares.add(waiters));
+
+        assertThat(result).isEqualTo("result");
+    }
+
+    @Test
+    void cancelledWaiterStopsWaitingWithoutAShare() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CancellationToken waiterToken = new CancellationToken(0);
+
+        Future<String> leader = callers.submit(() -> execute(blockingWork(release, "result")));
+        awaitLeader();
+        Future<String> waiter = callers.submit(() -> {
+            CancellationToken.bind(waiterToken);
+            return execute(() -> "second run");
+        });
+        awaitWaiters(1);
+
+        waiterToken.cancel("Client disconnected");
+        assertThatThrownBy(() -> waiter.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(OperationCancelledException.class);
+
+        release.countDown();
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+        assertThat(shares).isEmpty();
+    }
+
+    @Test
+    void waiterRerunsTheWorkWhenTheLeaderIsCancelled() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = callers.submit(() -> execute(() -> {
+            workRuns.incrementAndGet();
+            release.await();
+            throw new OperationCancelledException("Request deadline exceeded");
+        }));
+        awaitLeader();
+        Future<String> waiter = callers.submit(() -> execute(() -> {
+            workRuns.incrementAndGet();
+            return "rerun";
+        }));
+        awaitWaiters(1);
+        release.countDown();
+
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(OperationCancelledException.class);
+        assertThat(waiter.get(5, TimeUnit.SECONDS)).isEqualTo("rerun");
+        assertThat(workRuns).hasValue(2);
+    }
+
+    @Test
+    void leaderFailureReachesEveryWaiter() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = callers.submit(() -> execute(() -> {
+            release.await();
+            throw new IllegalArgumentException("Invalid PDF file");
+        }));
+        awaitLeader();
+        Future<String> waiter = callers.submit(() -> execute(() -> "second run"));
+        awaitWaiters(1);
+        release.countDown();
+
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> waiter.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalArgumentException.class);
+    }
+
+    private String execute(Callable<String> work) throws Exception {
+        return coalescer.execute(() -> KEY, work, (value, waiters) -> shares.add(waiters));
+    }
+
+    private Callable<String> blockingWork(CountDownLatch release, String result) {
+        return () -> {
+            workRuns.incrementAndGet();
+            release.await();
+            return result;
+        };
+    }
+
+    private void awaitLeader() {
+        await().atMost(5, TimeUnit.SECONDS).until(() -> coalescer.getInFlightCount() == 1);
+    }
+
+    private void awaitWaiters(int count) {
+        await().atMost(5, TimeUnit.SECONDS).until(() -> {
+            Object call = ((Map<?, ?>) ReflectionTestUtils.getField(coalescer, "inFlight")).get(KEY);
+            return call != null && ((AtomicInteger) ReflectionTestUtils.getField(call, "waiters")).get() == count;
+        });
+    }
+}
@@ -0,0 +1,153 @@
+package in.guardianservices.document_utility_core.utils;
+
+import in.guardianservices.document_utility_core.testsupport.SyntheticPdfGenerator;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.common.PDStream;
+import org.apache.pdfbox.pdmodel.graphics.color.PDColor;
+import org.apache.pdfbox.pdmodel.graphics.color.PDDeviceRGB;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAnnotationSquareCircle;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ScannedPageDetectorTest {
+
+    private static final int SCAN_DPI = 100;
+
+    private PDDocument document;
+    private PDPage page;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        document = PDDocument.load(SyntheticPdfGenerator.generate(SyntheticPdfGenerator.spec()
+                .pages(1)
+                .scannedPages(1, SCAN_DPI)));
+        page = document.getPage(0);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        document.close();
+    }
+
+    @Test
+    void plainScanIsPassedThrough() {
+        assertThat(ScannedPageDetector.findPassthroughJpeg(page, false, SCAN_DPI)).isNotNull();
+        assertThat(ScannedPageDetector.findPassthroughJpeg(page, true, 300)).isNotNull();
+    }
+
+    @Test
+    void scanFinerThanRequestedIsRendered() {
+        assertThat(ScannedPageDetector.findPassthroughJpeg(page, true, 72)).isNull();
+    }
+
+    @Test
+    void rotatedPageIsRendered() {
+        page.setRotation(90);
+
+        assertThat(ScannedPageDetector.findPassthroughJpeg(page, true, 300)).isNull();
+    }
+
+    @Test
+    void annotatedScanIsRendered() throws IOException {
+        PDAnnotationSquareCircle stamp = new PDAnnotationSquareCircle(PDAnnotationSquareCircle.SUB_TYPE_SQUARE);
+        stamp.setRectangle(new PDRectangle(10, 10, 50, 50));
+        stamp.setColor(new PDColor(new float[]{1, 0, 0}, PDDeviceRGB.INSTANCE));
+        stamp.constructAppearances();
+        page.setAnnotations(List.of(stamp));
+
+        assertThat(ScannedPageDetector.findPassthroughJpeg(page, true, 300)).isNull();
+    }
+
+    @Test
+    void extraDrawingOperatorsAreRendered() throws IOException {
+        try (PDPageContentStream content = new PDPageContentStream(document, page,
+                PDPageContentStream.AppendMode.APPEND, false)) {
+            content.addRect(10, 10, 50, 50);
+            content.fill();
+        }
+
+        assertThat(ScannedPageDetector.findPassthroughJpeg(page, true, 300)).isNull();
+    }
+
+    @Test
+    void transformSplitAcrossNestedStatesIsPassedThrough() throws IOException {
+        setContent("q 2 0 0 2 0 0 cm q %s 0 0 %s 0 0 cm %s Do Q Q", width() / 2, height() / 2, imageName());
+
+        assertThat(ScannedPageDetector.findPassthroughJpeg(page, true, 300)).isNotNull();
+    }
+
+    @Test
+    void transformAfterTheImageIsRendered() throws IOException {
+        // The image is drawn at 1x1pt, the cm comes too late to scale it
+        setContent("q %s Do Q %s 0 0 %s 0 0 cm", imageName(), width(), height());
+
+        assertThat(ScannedPageDetector.findPassthroughJpeg(page, true, 300)).isNull();
+    }
+
+    @Test
+    void transformDiscardedBeforeTheImageIsRendered() throws IOException {
+        // Q restores the identity CTM before the image is drawn
+        setContent("q %s 0 0 %s 0 0 cm Q %s Do", width(), height(), imageName());
+
+        assertThat(ScannedPageDetector.findPassthroughJpeg(page, true, 300)).isNull();
+    }
+
+    @Test
+    void softMaskedScanIsRendered() throws IOException {
+        scanStream().setItem(COSName.SMASK, new COSStream());
+
+        assertThat(ScannedPageDetector.findPassthroughJpeg(page, true, 300)).isNull();
+    }
+
+    @Test
+    void cmykScanIsRendered() throws IOException {
+        scanStream().setItem(COSName.COLORSPACE, COSName.DEVICECMYK);
+
+        assertThat(ScannedPageDetector.findPassthroughJpeg(page, true, 300)).isNull();
+    }
+
+    @Test
+    void colorScanNeedsColorOutput() throws IOException {
+        scanStream().setItem(COSName.COLORSPACE, COSName.DEVICERGB);
+
+        assertThat(ScannedPageDetector.findPassthroughJpeg(page, false, 300)).isNull();
+        assertThat(ScannedPageDetector.findPassthroughJpeg(page, true, 300)).isNotNull();
+    }
+
+    private void setContent(String operators, Object... arguments) throws IOException {
+        byte[] content = String.format(Locale.ROOT, operators, arguments).getBytes(StandardCharsets.US_ASCII);
+        page.setContents(new PDStream(document, new ByteArrayInputStream(content)));
+    }
+
+    private String imageName() {
+        return "/" + page.getResources().getXObjectNames().iterator().next().getName();
+    }
+
+    private float width() {
+        return page.getCropBox().getWidth();
+    }
+
+    private float height() {
+        return page.getCropBox().getHeight();
+    }
+
+    private COSStream scanStream() throws IOException {
+        COSName name = page.getResources().getXObjectNames().iterator().next();
+        return ((PDImageXObject) page.getResources().getXObject(name)).getCOSObject();
+    }
+}
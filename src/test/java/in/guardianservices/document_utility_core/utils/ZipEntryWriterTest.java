@@ -0,0 +1,115 @@
+package in.guardianservices.document_utility_core.utils;
+
+import in.guardianservices.document_utility_core.testsupport.PdfServiceFixture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ZipEntryWriterTest {
+
+    private final PdfServiceFixture fixture = new PdfServiceFixture();
+    private final ZipEntryWriter writer = fixture.zipEntryWriter();
+
+    @AfterEach
+    void tearDown() {
+        fixture.close();
+    }
+
+    @Test
+    void compressedFormatsAreStoredWithoutSampling() throws IOException {
+        // Compressible content, the extension alone decides
+        byte[] content = "x".repeat(10_000).getBytes(StandardCharsets.US_ASCII);
+
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        entries.put("page_1.png", content);
+        entries.put("page_2.JPG", content);
+        entries.put("page_3.jp2", content);
+
+        assertWrittenAs(entries, ZipEntry.STORED);
+    }
+
+    @Test
+    void compressibleContentIsDeflated() throws IOException {
+        byte[] text = "Page text that repeats itself.\n".repeat(2_000).getBytes(StandardCharsets.US_ASCII);
+
+        assertWrittenAs(Map.of("page_1.txt", text), ZipEntry.DEFLATED);
+    }
+
+    @Test
+    void incompressibleContentIsStored() throws IOException {
+        assertWrittenAs(Map.of("page_1.bin", random(200_000, 1)), ZipEntry.STORED);
+    }
+
+    @Test
+    void noCompressionLevelStoresEverything() throws IOException {
+        ReflectionTestUtils.setField(writer, "compressionLevel", 0);
+        byte[] text = "Page text that repeats itself.\n".repeat(2_000).getBytes(StandardCharsets.US_ASCII);
+
+        assertWrittenAs(Map.of("page_1.txt", text), ZipEntry.STORED);
+    }
+
+    @Test
+    void largeStoredEntriesGetTheirCrcFromTheWorkerPool() throws IOException {
+        // Every stored entry takes the parallel path
+        ReflectionTestUtils.setField(writer, "parallelCrcThresholdMb", 0);
+
+        assertWrittenAs(Map.of("page_1.png", random(1_000_000, 2), "page_2.png", random(70_000, 3)), ZipEntry.STORED);
+    }
+
+    private void assertWrittenAs(Map<String, byte[]> entries, int method) throws IOException {
+        ByteArrayOutputStream zipBytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = writer.open(zipBytes)) {
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                ChunkedOutputBuffer content = buffer(entry.getValue());
+                try {
+                    assertThat(writer.writeEntry(zip, entry.getKey(), content)).isEqualTo(method == ZipEntry.STORED);
+                } finally {
+                    content.release();
+                }
+            }
+        }
+
+        // ZipInputStream checks the CRC and size of every entry while reading it
+        int count = 0;
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(zipBytes.toByteArray()))) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                byte[] expected = entries.get(entry.getName());
+                assertThat(entry.getMethod()).isEqualTo(method);
+                assertThat(zip.readAllBytes()).isEqualTo(expected);
+                if (method == ZipEntry.STORED) {
+                    CRC32 crc = new CRC32();
+                    crc.update(expected);
+                    assertThat(entry.getCrc()).isEqualTo(crc.getValue());
+                }
+                count++;
+            }
+        }
+        assertThat(count).isEqualTo(entries.size());
+    }
+
+    private ChunkedOutputBuffer buffer(byte[] content) throws IOException {
+        ChunkedOutputBuffer buffer = fixture.bufferPool().newBuffer();
+        buffer.write(content);
+        return buffer;
+    }
+
+    private static byte[] random(int length, long seed) {
+        byte[] bytes = new byte[length];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+}